@@ -0,0 +1,665 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Sets;
+import com.google.common.graph.AbstractGraph;
+import com.google.common.graph.ElementOrder;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.MutableGraph;
+
+/**
+ * A directed graph of GraphNodes without self-loops that stores its adjacency in primitive arrays.
+ * Every node occupies an integer slot, and the children and parents of a slot are kept in growable
+ * int arrays sorted by slot, so that an edge is found with a binary search even between nodes of
+ * high degree. Nodes are found from their NameDictionary id, so a graph can hold at most one node
+ * with a given name.
+ *
+ * <p>Removing a node detaches it from its neighbors right away but leaves a tombstone in its slot.
+ * Once tombstones make up more than half of the slots, the live nodes are compacted into a dense
+ * prefix, keeping their insertion order.
+ *
+ * <p>The graph is equal to any other Graph with the same nodes and edges, including the Guava
+ * implementations. Sets returned by nodes, successors and predecessors are views that are only
+ * valid until the next removal from the graph.
+ */
+final class AdjacencyArrayGraph extends AbstractGraph<GraphNode>
+    implements MutableGraph<GraphNode> {
+
+  // Shared list of neighbors of nodes that have none
+  private static final int[] EMPTY = new int[0];
+  // Number of slots allocated for a new graph
+  private static final int INITIAL_CAPACITY = 16;
+  // The graph is never compacted while it has fewer tombstones than this
+  private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+
+  // The node in each slot, null for tombstones and unused slots
+  private GraphNode[] nodes;
+  // The slots of the children of each slot, in increasing order. Only the first childCounts[slot]
+  // entries are used.
+  private int[][] children;
+  private int[] childCounts;
+  // The slots of the parents of each slot, in increasing order. Only the first parentCounts[slot]
+  // entries are used.
+  private int[][] parents;
+  private int[] parentCounts;
+  // The slot of the node with each NameDictionary id, -1 if there is no such node
+  private int[] slotsById;
+
+  // The number of slots in use, including tombstones
+  private int slotCount = 0;
+  // The number of nodes in the graph
+  private int nodeCount = 0;
+  // The number of edges in the graph
+  private long edgeCount = 0;
+
+  /** Creates an empty graph */
+  AdjacencyArrayGraph() {
+    nodes = new GraphNode[INITIAL_CAPACITY];
+    children = new int[INITIAL_CAPACITY][];
+    childCounts = new int[INITIAL_CAPACITY];
+    parents = new int[INITIAL_CAPACITY][];
+    parentCounts = new int[INITIAL_CAPACITY];
+    slotsById = new int[0];
+  }
+
+  /**
+   * Copy constructor
+   *
+   * @param other the graph to copy
+   */
+  private AdjacencyArrayGraph(AdjacencyArrayGraph other) {
+    int capacity = Math.max(other.slotCount, INITIAL_CAPACITY);
+    nodes = Arrays.copyOf(other.nodes, capacity);
+    children = new int[capacity][];
+    parents = new int[capacity][];
+    for (int slot = 0; slot < other.slotCount; slot++) {
+      children[slot] = copyOfList(other.children[slot], other.childCounts[slot]);
+      parents[slot] = copyOfList(other.parents[slot], other.parentCounts[slot]);
+    }
+    childCounts = Arrays.copyOf(other.childCounts, capacity);
+    parentCounts = Arrays.copyOf(other.parentCounts, capacity);
+    slotsById = other.slotsById.clone();
+    slotCount = other.slotCount;
+    nodeCount = other.nodeCount;
+    edgeCount = other.edgeCount;
+  }
+
+  /**
+   * Returns a copy of this graph that shares no mutable state with it
+   *
+   * @return the copy
+   */
+  AdjacencyArrayGraph copy() {
+    return new AdjacencyArrayGraph(this);
+  }
+
+  @Override
+  public Set<GraphNode> nodes() {
+    return new AbstractSet<GraphNode>() {
+      @Override
+      public Iterator<GraphNode> iterator() {
+        return new SlotIterator() {
+          @Override
+          int nextSlot(int slot) {
+            while (slot < slotCount && nodes[slot] == null) {
+              slot++;
+            }
+            return slot < slotCount ? slot : -1;
+          }
+
+          @Override
+          GraphNode node(int position) {
+            return nodes[position];
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return nodeCount;
+      }
+
+      @Override
+      public boolean contains(Object node) {
+        return slotOf(node) >= 0;
+      }
+    };
+  }
+
+  @Override
+  public boolean isDirected() {
+    return true;
+  }
+
+  @Override
+  public boolean allowsSelfLoops() {
+    return false;
+  }
+
+  @Override
+  public ElementOrder<GraphNode> nodeOrder() {
+    return ElementOrder.insertion();
+  }
+
+  @Override
+  public Set<GraphNode> adjacentNodes(GraphNode node) {
+    return Sets.union(successors(node), predecessors(node));
+  }
+
+  @Override
+  public Set<GraphNode> predecessors(GraphNode node) {
+    return new NeighborSet(checkedSlotOf(node), /* isChild = */ false);
+  }
+
+  @Override
+  public Set<GraphNode> successors(GraphNode node) {
+    return new NeighborSet(checkedSlotOf(node), /* isChild = */ true);
+  }
+
+  @Override
+  public int inDegree(GraphNode node) {
+    return parentCounts[checkedSlotOf(node)];
+  }
+
+  @Override
+  public int outDegree(GraphNode node) {
+    return childCounts[checkedSlotOf(node)];
+  }
+
+  @Override
+  public int degree(GraphNode node) {
+    int slot = checkedSlotOf(node);
+    return childCounts[slot] + parentCounts[slot];
+  }
+
+  @Override
+  public boolean hasEdgeConnecting(GraphNode nodeU, GraphNode nodeV) {
+    int slotU = slotOf(nodeU);
+    int slotV = slotOf(nodeV);
+    return slotU >= 0 && slotV >= 0 && hasEdge(slotU, slotV);
+  }
+
+  @Override
+  protected long edgeCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public boolean addNode(GraphNode node) {
+    Preconditions.checkNotNull(node, "node");
+    if (slotOf(node) >= 0) {
+      return false;
+    }
+    // The name was registered when the node was created, which gave the node its id
+    int id = node.id();
+    if (id >= slotsById.length) {
+      int oldLength = slotsById.length;
+      slotsById = Arrays.copyOf(slotsById, Math.max(NameDictionary.size(), id + 1));
+      Arrays.fill(slotsById, oldLength, slotsById.length, -1);
+    }
+    Preconditions.checkArgument(
+        slotsById[id] < 0, "The graph already contains a different node named %s", node.name());
+    if (slotCount == nodes.length) {
+      grow(slotCount * 2);
+    }
+    int slot = slotCount++;
+    nodes[slot] = node;
+    children[slot] = EMPTY;
+    parents[slot] = EMPTY;
+    slotsById[id] = slot;
+    nodeCount++;
+    return true;
+  }
+
+  @Override
+  public boolean putEdge(GraphNode nodeU, GraphNode nodeV) {
+    Preconditions.checkNotNull(nodeU, "nodeU");
+    Preconditions.checkNotNull(nodeV, "nodeV");
+    Preconditions.checkArgument(
+        !nodeU.equals(nodeV), "Cannot add self-loop edge on node %s", nodeU.name());
+    addNode(nodeU);
+    addNode(nodeV);
+    int slotU = slotOf(nodeU);
+    int slotV = slotOf(nodeV);
+    if (hasEdge(slotU, slotV)) {
+      return false;
+    }
+    children[slotU] = insert(children[slotU], childCounts[slotU]++, slotV);
+    parents[slotV] = insert(parents[slotV], parentCounts[slotV]++, slotU);
+    edgeCount++;
+    return true;
+  }
+
+  @Override
+  public boolean putEdge(EndpointPair<GraphNode> endpoints) {
+    Preconditions.checkArgument(endpoints.isOrdered(), "Directed graphs need ordered endpoints");
+    return putEdge(endpoints.source(), endpoints.target());
+  }
+
+  /**
+   * Adds the edges from each of the given nodes to its children, as a graph is loaded. The new
+   * children of a node are sorted and merged into its list in one pass, and each parent list is
+   * grown to its final length once, instead of searching and shifting the lists for every edge.
+   * Edges that are already in the graph are skipped.
+   *
+   * @param sources the parent ends of the edges, which must be in the graph
+   * @param targets the child ends of the edges from each source, which must be in the graph
+   * @throws IllegalArgumentException if a node is not in the graph or an edge is a self-loop
+   */
+  void putEdges(GraphNode[] sources, GraphNode[][] targets) {
+    Preconditions.checkArgument(
+        sources.length == targets.length, "There must be one array of targets per source");
+    int[] sourceSlots = new int[sources.length];
+    // The slots of the children of each source that were not its children yet, in the first
+    // addedCounts[i] entries
+    int[][] addedChildren = new int[sources.length][];
+    int[] addedCounts = new int[sources.length];
+    int[] addedParentCounts = new int[slotCount];
+    for (int i = 0; i < sources.length; i++) {
+      int slotU = checkedSlotOf(sources[i]);
+      int[] added = new int[targets[i].length];
+      for (int j = 0; j < added.length; j++) {
+        GraphNode nodeV = Preconditions.checkNotNull(targets[i][j], "nodeV");
+        added[j] = checkedSlotOf(nodeV);
+        Preconditions.checkArgument(
+            added[j] != slotU, "Cannot add self-loop edge on node %s", nodeV.name());
+      }
+      Arrays.sort(added);
+
+      // Merge the sorted new children into the existing list, dropping duplicates. A node without
+      // children yet, as when a graph is loaded, takes the new list as it is.
+      int[] list = children[slotU];
+      int count = childCounts[slotU];
+      int[] merged = count == 0 ? added : new int[count + added.length];
+      int mergedCount = 0;
+      int addedCount = 0;
+      int last = -1;
+      for (int a = 0, b = 0; a < count || b < added.length; ) {
+        boolean isNew = a == count || (b < added.length && added[b] < list[a]);
+        int slotV = isNew ? added[b++] : list[a++];
+        if (slotV == last) {
+          continue;
+        }
+        if (isNew) {
+          added[addedCount++] = slotV;
+          addedParentCounts[slotV]++;
+        }
+        merged[mergedCount++] = slotV;
+        last = slotV;
+      }
+      children[slotU] = mergedCount == 0 ? EMPTY : merged;
+      childCounts[slotU] = mergedCount;
+      sourceSlots[i] = slotU;
+      addedChildren[i] = added;
+      addedCounts[i] = addedCount;
+      edgeCount += addedCount;
+    }
+
+    for (int slot = 0; slot < slotCount; slot++) {
+      int length = parentCounts[slot] + addedParentCounts[slot];
+      if (addedParentCounts[slot] > 0 && length > parents[slot].length) {
+        parents[slot] = Arrays.copyOf(parents[slot], length);
+      }
+    }
+    for (int i = 0; i < sources.length; i++) {
+      for (int j = 0; j < addedCounts[i]; j++) {
+        int slotV = addedChildren[i][j];
+        parents[slotV][parentCounts[slotV]++] = sourceSlots[i];
+      }
+    }
+    // Sources that were not given in slot order leave some parent lists unsorted
+    for (int slot = 0; slot < slotCount; slot++) {
+      if (addedParentCounts[slot] > 0) {
+        Arrays.sort(parents[slot], 0, parentCounts[slot]);
+      }
+    }
+  }
+
+  @Override
+  public boolean removeNode(GraphNode node) {
+    int slot = slotOf(node);
+    if (slot < 0) {
+      return false;
+    }
+    for (int i = 0; i < childCounts[slot]; i++) {
+      int child = children[slot][i];
+      removeFromList(parents, parentCounts, child, slot);
+    }
+    for (int i = 0; i < parentCounts[slot]; i++) {
+      int parent = parents[slot][i];
+      removeFromList(children, childCounts, parent, slot);
+    }
+    edgeCount -= childCounts[slot] + parentCounts[slot];
+    children[slot] = EMPTY;
+    childCounts[slot] = 0;
+    parents[slot] = EMPTY;
+    parentCounts[slot] = 0;
+    slotsById[node.id()] = -1;
+    nodes[slot] = null;
+    nodeCount--;
+
+    int tombstones = slotCount - nodeCount;
+    if (tombstones >= MIN_TOMBSTONES_TO_COMPACT && tombstones > nodeCount) {
+      compact();
+    }
+    return true;
+  }
+
+  @Override
+  public boolean removeEdge(GraphNode nodeU, GraphNode nodeV) {
+    int slotU = slotOf(nodeU);
+    int slotV = slotOf(nodeV);
+    if (slotU < 0 || slotV < 0 || !removeFromList(children, childCounts, slotU, slotV)) {
+      return false;
+    }
+    removeFromList(parents, parentCounts, slotV, slotU);
+    edgeCount--;
+    return true;
+  }
+
+  @Override
+  public boolean removeEdge(EndpointPair<GraphNode> endpoints) {
+    return endpoints.isOrdered() && removeEdge(endpoints.source(), endpoints.target());
+  }
+
+  /**
+   * Returns the slot of the given node
+   *
+   * @param node the node to look for
+   * @return the slot of the node, or -1 if it is not in the graph
+   */
+  int slotOf(Object node) {
+    if (!(node instanceof GraphNode)) {
+      return -1;
+    }
+    GraphNode graphNode = (GraphNode) node;
+    int id = graphNode.id();
+    if (id >= slotsById.length) {
+      return -1;
+    }
+    int slot = slotsById[id];
+    return slot >= 0 && nodes[slot].equals(graphNode) ? slot : -1;
+  }
+
+  /**
+   * Returns the number of slots in use, one more than the largest slot of a node
+   *
+   * @return the number of slots, including tombstones
+   */
+  int slotCount() {
+    return slotCount;
+  }
+
+  /**
+   * Returns the node in a slot
+   *
+   * @param slot a slot returned by slotOf or listed by neighborSlots
+   * @return the node, or null if the slot is a tombstone
+   */
+  GraphNode nodeAt(int slot) {
+    return nodes[slot];
+  }
+
+  /**
+   * Returns the adjacency list of a slot, which must not be modified. Only its first
+   * neighborCount(slot, isChild) entries are used.
+   *
+   * @param slot the slot of a node in the graph
+   * @param isChild true for the slots of the children of the node, false for those of its parents
+   * @return the adjacency list
+   */
+  int[] neighborSlots(int slot, boolean isChild) {
+    return isChild ? children[slot] : parents[slot];
+  }
+
+  /**
+   * Returns the number of children or parents of a slot
+   *
+   * @param slot the slot of a node in the graph
+   * @param isChild true to count the children of the node, false to count its parents
+   * @return the number of used entries in the adjacency list
+   */
+  int neighborCount(int slot, boolean isChild) {
+    return isChild ? childCounts[slot] : parentCounts[slot];
+  }
+
+  /**
+   * Returns the slot of the given node, which must be in the graph
+   *
+   * @param node the node to look for
+   * @return the slot of the node
+   * @throws IllegalArgumentException if the node is not in the graph
+   */
+  private int checkedSlotOf(GraphNode node) {
+    int slot = slotOf(node);
+    Preconditions.checkArgument(slot >= 0, "Node %s is not an element of this graph.", node);
+    return slot;
+  }
+
+  /**
+   * Returns whether there is an edge between the given slots, searching the shorter of the two
+   * adjacency lists involved
+   *
+   * @param slotU the source slot
+   * @param slotV the target slot
+   * @return true if slotU has slotV as a child
+   */
+  private boolean hasEdge(int slotU, int slotV) {
+    if (childCounts[slotU] <= parentCounts[slotV]) {
+      return indexOf(children[slotU], childCounts[slotU], slotV) >= 0;
+    }
+    return indexOf(parents[slotV], parentCounts[slotV], slotU) >= 0;
+  }
+
+  /**
+   * Removes a value from the adjacency list of a slot, shifting the following values down
+   *
+   * @param lists the adjacency lists to update
+   * @param counts the lengths of the adjacency lists
+   * @param slot the slot whose list should be updated
+   * @param value the slot to remove from the list
+   * @return true if the value was in the list
+   */
+  private static boolean removeFromList(int[][] lists, int[] counts, int slot, int value) {
+    int index = indexOf(lists[slot], counts[slot], value);
+    if (index < 0) {
+      return false;
+    }
+    int[] list = lists[slot];
+    System.arraycopy(list, index + 1, list, index, --counts[slot] - index);
+    return true;
+  }
+
+  /**
+   * Returns the index of a value in the used part of an adjacency list
+   *
+   * @param list the adjacency list
+   * @param count the number of used entries in the list
+   * @param value the value to find
+   * @return the index of the value, or a negative number if it is not in the list
+   */
+  private static int indexOf(int[] list, int count, int value) {
+    return Arrays.binarySearch(list, 0, count, value);
+  }
+
+  /**
+   * Inserts a value that is not in an adjacency list yet, keeping the list sorted and growing it if
+   * needed. Appending a slot above every other one, as when a graph is loaded in slot order, shifts
+   * nothing.
+   *
+   * @param list the adjacency list
+   * @param count the number of used entries in the list
+   * @param value the value to insert
+   * @return the list containing the inserted value
+   */
+  private static int[] insert(int[] list, int count, int value) {
+    int index = -indexOf(list, count, value) - 1;
+    if (count == list.length) {
+      list = Arrays.copyOf(list, Math.max(4, count * 2));
+    }
+    System.arraycopy(list, index, list, index + 1, count - index);
+    list[index] = value;
+    return list;
+  }
+
+  /**
+   * Returns a copy of the used part of an adjacency list
+   *
+   * @param list the adjacency list
+   * @param count the number of used entries in the list
+   * @return the copy
+   */
+  private static int[] copyOfList(int[] list, int count) {
+    return count == 0 ? EMPTY : Arrays.copyOf(list, count);
+  }
+
+  /**
+   * Grows the per-slot arrays
+   *
+   * @param capacity the new number of slots
+   */
+  private void grow(int capacity) {
+    nodes = Arrays.copyOf(nodes, capacity);
+    children = Arrays.copyOf(children, capacity);
+    childCounts = Arrays.copyOf(childCounts, capacity);
+    parents = Arrays.copyOf(parents, capacity);
+    parentCounts = Arrays.copyOf(parentCounts, capacity);
+  }
+
+  /**
+   * Moves the live nodes into a dense prefix of the slots, removing all tombstones. Slots keep
+   * their relative order, so the adjacency lists stay sorted.
+   */
+  private void compact() {
+    int[] newSlots = new int[slotCount];
+    int next = 0;
+    for (int slot = 0; slot < slotCount; slot++) {
+      newSlots[slot] = nodes[slot] == null ? -1 : next++;
+    }
+    for (int slot = 0; slot < slotCount; slot++) {
+      int newSlot = newSlots[slot];
+      if (newSlot < 0) {
+        continue;
+      }
+      nodes[newSlot] = nodes[slot];
+      children[newSlot] = children[slot];
+      childCounts[newSlot] = childCounts[slot];
+      parents[newSlot] = parents[slot];
+      parentCounts[newSlot] = parentCounts[slot];
+      for (int i = 0; i < childCounts[newSlot]; i++) {
+        children[newSlot][i] = newSlots[children[newSlot][i]];
+      }
+      for (int i = 0; i < parentCounts[newSlot]; i++) {
+        parents[newSlot][i] = newSlots[parents[newSlot][i]];
+      }
+      slotsById[nodes[newSlot].id()] = newSlot;
+    }
+    Arrays.fill(nodes, next, slotCount, null);
+    Arrays.fill(children, next, slotCount, null);
+    Arrays.fill(childCounts, next, slotCount, 0);
+    Arrays.fill(parents, next, slotCount, null);
+    Arrays.fill(parentCounts, next, slotCount, 0);
+    slotCount = next;
+  }
+
+  /** An iterator over nodes identified by a sequence of positions */
+  private abstract static class SlotIterator implements Iterator<GraphNode> {
+    // The position of the next node to return, or -1 if there is none
+    private int position = -2;
+
+    /**
+     * Returns the first valid position at or after the given one
+     *
+     * @param position the candidate position
+     * @return the first valid position, or -1 if there is none
+     */
+    abstract int nextSlot(int position);
+
+    /**
+     * Returns the node at a valid position
+     *
+     * @param position the position
+     * @return the node at that position
+     */
+    abstract GraphNode node(int position);
+
+    @Override
+    public boolean hasNext() {
+      if (position == -2) {
+        position = nextSlot(0);
+      }
+      return position >= 0;
+    }
+
+    @Override
+    public GraphNode next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      GraphNode node = node(position);
+      position = nextSlot(position + 1);
+      return node;
+    }
+  }
+
+  /** A view of the children or parents of a node */
+  private final class NeighborSet extends AbstractSet<GraphNode> {
+    private final int slot;
+    private final boolean isChild;
+
+    /**
+     * @param slot the slot of the node
+     * @param isChild whether this is the set of children rather than of parents
+     */
+    NeighborSet(int slot, boolean isChild) {
+      this.slot = slot;
+      this.isChild = isChild;
+    }
+
+    @Override
+    public Iterator<GraphNode> iterator() {
+      return new SlotIterator() {
+        @Override
+        int nextSlot(int position) {
+          return position < size() ? position : -1;
+        }
+
+        @Override
+        GraphNode node(int position) {
+          return nodes[isChild ? children[slot][position] : parents[slot][position]];
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return isChild ? childCounts[slot] : parentCounts[slot];
+    }
+
+    @Override
+    public boolean contains(Object node) {
+      int other = slotOf(node);
+      return other >= 0 && (isChild ? hasEdge(slot, other) : hasEdge(other, slot));
+    }
+  }
+}
@@ -0,0 +1,355 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.google.protobuf.Struct;
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.Mutation;
+import com.proto.MutationProtos.TokenMutation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - the graph operations of AdjacencyArrayGraph -
+ * AdjacencyArrayGraph.copy - AdjacencyArrayGraph.putEdges - GraphEngine.current - mutateGraph and
+ * getReachableNodes in DataGraph.java on an AdjacencyArrayGraph
+ */
+@RunWith(JUnit4.class)
+public final class AdjacencyArrayGraphTest {
+
+  GraphNode gNodeA = node("A");
+  GraphNode gNodeB = node("B");
+  GraphNode gNodeC = node("C");
+  GraphNode gNodeD = node("D");
+
+  /*
+   * Check that nodes and edges are added, found and removed
+   */
+  @Test
+  public void basicOperations() {
+    AdjacencyArrayGraph graph = new AdjacencyArrayGraph();
+
+    Assert.assertTrue(graph.addNode(gNodeA));
+    Assert.assertFalse(graph.addNode(gNodeA));
+    Assert.assertTrue(graph.putEdge(gNodeA, gNodeB));
+    Assert.assertFalse(graph.putEdge(gNodeA, gNodeB));
+    Assert.assertTrue(graph.putEdge(gNodeA, gNodeC));
+    Assert.assertTrue(graph.putEdge(gNodeB, gNodeC));
+
+    Assert.assertEquals(3, graph.nodes().size());
+    Assert.assertEquals(3, graph.edges().size());
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeB, gNodeC)), graph.successors(gNodeA));
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeA, gNodeB)), graph.predecessors(gNodeC));
+    Assert.assertTrue(graph.successors(gNodeA).contains(gNodeC));
+    Assert.assertEquals(2, graph.inDegree(gNodeC));
+    Assert.assertEquals(2, graph.degree(gNodeB));
+    Assert.assertTrue(graph.hasEdgeConnecting(gNodeB, gNodeC));
+    Assert.assertFalse(graph.hasEdgeConnecting(gNodeC, gNodeB));
+    Assert.assertFalse(graph.hasEdgeConnecting(gNodeA, gNodeD));
+
+    Assert.assertTrue(graph.removeEdge(gNodeA, gNodeC));
+    Assert.assertFalse(graph.removeEdge(gNodeA, gNodeC));
+    Assert.assertTrue(graph.removeNode(gNodeB));
+    Assert.assertFalse(graph.removeNode(gNodeB));
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeA, gNodeC)), graph.nodes());
+    Assert.assertEquals(0, graph.edges().size());
+    Assert.assertFalse(graph.nodes().contains(gNodeB));
+  }
+
+  /*
+   * Check that the graph is equal to a Guava graph with the same nodes and edges
+   */
+  @Test
+  public void equalToGuavaGraph() {
+    AdjacencyArrayGraph graph = new AdjacencyArrayGraph();
+    MutableGraph<GraphNode> guavaGraph = GraphBuilder.directed().build();
+    for (MutableGraph<GraphNode> g : Arrays.asList(graph, guavaGraph)) {
+      g.putEdge(gNodeA, gNodeB);
+      g.putEdge(gNodeC, gNodeB);
+      g.addNode(gNodeD);
+    }
+
+    Assert.assertEquals(guavaGraph, graph);
+    Assert.assertEquals(graph, guavaGraph);
+    Assert.assertEquals(guavaGraph.hashCode(), graph.hashCode());
+  }
+
+  /*
+   * Check that a node that is not in the graph is treated the same way as in Guava graphs
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void missingNode() {
+    new AdjacencyArrayGraph().successors(gNodeA);
+  }
+
+  /*
+   * Check that self-loops are rejected as in Guava directed graphs
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void selfLoop() {
+    new AdjacencyArrayGraph().putEdge(gNodeA, gNodeA);
+  }
+
+  /*
+   * Check that a node with the same name as another but different tokens is not found
+   */
+  @Test
+  public void differentNodeWithSameName() {
+    AdjacencyArrayGraph graph = new AdjacencyArrayGraph();
+    graph.addNode(gNodeA);
+    GraphNode otherA = GraphNode.create("A", Arrays.asList("1"), Struct.newBuilder().build());
+
+    Assert.assertFalse(graph.nodes().contains(otherA));
+    Assert.assertFalse(graph.removeNode(otherA));
+    Assert.assertTrue(graph.nodes().contains(gNodeA));
+  }
+
+  /*
+   * Check that modifying a copy leaves the original untouched
+   */
+  @Test
+  public void copy() {
+    AdjacencyArrayGraph graph = new AdjacencyArrayGraph();
+    graph.putEdge(gNodeA, gNodeB);
+    AdjacencyArrayGraph copy = graph.copy();
+
+    copy.removeNode(gNodeA);
+    copy.putEdge(gNodeB, gNodeC);
+
+    Assert.assertEquals(2, graph.nodes().size());
+    Assert.assertTrue(graph.hasEdgeConnecting(gNodeA, gNodeB));
+    Assert.assertFalse(graph.nodes().contains(gNodeC));
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeB, gNodeC)), copy.nodes());
+  }
+
+  /*
+   * Check that random operations, including enough removals to trigger compaction, give the same
+   * graph as a Guava graph
+   */
+  @Test
+  public void randomOperations() {
+    Random random = new Random(49);
+    AdjacencyArrayGraph graph = new AdjacencyArrayGraph();
+    MutableGraph<GraphNode> guavaGraph = GraphBuilder.directed().build();
+    List<GraphNode> nodes = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      nodes.add(node("random-" + i));
+    }
+
+    for (int step = 0; step < 20000; step++) {
+      GraphNode nodeU = nodes.get(random.nextInt(nodes.size()));
+      GraphNode nodeV = nodes.get(random.nextInt(nodes.size()));
+      int operation = random.nextInt(10);
+      if (operation < 4 && !nodeU.equals(nodeV)) {
+        Assert.assertEquals(guavaGraph.putEdge(nodeU, nodeV), graph.putEdge(nodeU, nodeV));
+      } else if (operation < 6) {
+        Assert.assertEquals(guavaGraph.removeEdge(nodeU, nodeV), graph.removeEdge(nodeU, nodeV));
+      } else if (operation < 8) {
+        Assert.assertEquals(guavaGraph.addNode(nodeU), graph.addNode(nodeU));
+      } else {
+        Assert.assertEquals(guavaGraph.removeNode(nodeU), graph.removeNode(nodeU));
+      }
+    }
+
+    Assert.assertEquals(guavaGraph, graph);
+    for (GraphNode node : guavaGraph.nodes()) {
+      Assert.assertEquals(guavaGraph.successors(node), graph.successors(node));
+      Assert.assertEquals(guavaGraph.predecessors(node), graph.predecessors(node));
+    }
+  }
+
+  /*
+   * Check that the edges of a node of high degree are found and removed whatever order they were
+   * added in
+   */
+  @Test
+  public void highDegree() {
+    AdjacencyArrayGraph graph = new AdjacencyArrayGraph();
+    List<GraphNode> children = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      children.add(node("hub-child-" + i));
+      graph.addNode(children.get(i));
+    }
+    Collections.shuffle(children, new Random(6));
+
+    for (GraphNode child : children) {
+      Assert.assertTrue(graph.putEdge(gNodeA, child));
+      Assert.assertTrue(graph.putEdge(child, gNodeB));
+    }
+    for (GraphNode child : children) {
+      Assert.assertFalse(graph.putEdge(gNodeA, child));
+      Assert.assertTrue(graph.hasEdgeConnecting(child, gNodeB));
+    }
+    for (int i = 0; i < children.size(); i += 2) {
+      Assert.assertTrue(graph.removeEdge(gNodeA, children.get(i)));
+      Assert.assertTrue(graph.removeNode(children.get(i + 1)));
+    }
+
+    Assert.assertEquals(0, graph.outDegree(gNodeA));
+    Assert.assertEquals(children.size() / 2, graph.inDegree(gNodeB));
+    for (int i = 0; i < children.size(); i += 2) {
+      Assert.assertFalse(graph.hasEdgeConnecting(gNodeA, children.get(i)));
+      Assert.assertTrue(graph.predecessors(gNodeB).contains(children.get(i)));
+    }
+  }
+
+  /*
+   * Check that adding edges in bulk, including duplicates, edges already in the graph and sources
+   * out of slot order, gives the same graph as adding them one at a time
+   */
+  @Test
+  public void putEdges() {
+    Random random = new Random(4);
+    AdjacencyArrayGraph graph = new AdjacencyArrayGraph();
+    MutableGraph<GraphNode> guavaGraph = GraphBuilder.directed().build();
+    List<GraphNode> nodes = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      nodes.add(node("bulk-" + i));
+      graph.addNode(nodes.get(i));
+      guavaGraph.addNode(nodes.get(i));
+    }
+    for (int i = 0; i < 300; i++) {
+      GraphNode nodeU = nodes.get(random.nextInt(100));
+      GraphNode nodeV = nodes.get(100 + random.nextInt(100));
+      graph.putEdge(nodeU, nodeV);
+      guavaGraph.putEdge(nodeU, nodeV);
+    }
+
+    GraphNode[] sources = new GraphNode[150];
+    GraphNode[][] targets = new GraphNode[sources.length][];
+    for (int i = 0; i < sources.length; i++) {
+      int source = random.nextInt(100);
+      sources[i] = nodes.get(source);
+      targets[i] = new GraphNode[random.nextInt(20)];
+      for (int j = 0; j < targets[i].length; j++) {
+        targets[i][j] = nodes.get(source + 1 + random.nextInt(nodes.size() - source - 1));
+        guavaGraph.putEdge(sources[i], targets[i][j]);
+      }
+    }
+    graph.putEdges(sources, targets);
+
+    Assert.assertEquals(guavaGraph, graph);
+    for (GraphNode node : nodes) {
+      Assert.assertEquals(guavaGraph.successors(node), graph.successors(node));
+      Assert.assertEquals(guavaGraph.predecessors(node), graph.predecessors(node));
+    }
+    // The adjacency lists are still sorted, so every edge is found and removed
+    for (GraphNode nodeU : nodes) {
+      for (GraphNode nodeV : guavaGraph.successors(nodeU)) {
+        Assert.assertTrue(graph.removeEdge(nodeU, nodeV));
+      }
+    }
+    Assert.assertTrue(graph.edges().isEmpty());
+  }
+
+  /*
+   * Check that the engine is chosen with the system property
+   */
+  @Test
+  public void engineProperty() {
+    String previous = System.getProperty(GraphEngine.PROPERTY);
+    try {
+      System.setProperty(GraphEngine.PROPERTY, "ADJACENCY_ARRAY");
+      Assert.assertTrue(DataGraph.create().graph() instanceof AdjacencyArrayGraph);
+      Assert.assertTrue(DataGraph.create().getCopy().graph() instanceof AdjacencyArrayGraph);
+      System.clearProperty(GraphEngine.PROPERTY);
+      Assert.assertEquals(GraphEngine.GUAVA, GraphEngine.current());
+    } finally {
+      if (previous != null) {
+        System.setProperty(GraphEngine.PROPERTY, previous);
+      }
+    }
+  }
+
+  /*
+   * Check that mutations and truncation give the same results on both engines
+   */
+  @Test
+  public void dataGraphOnBothEngines() {
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    protoNodesMap.put(
+        "A", Node.newBuilder().setName("A").addChildren("B").addChildren("C").build());
+    protoNodesMap.put("B", Node.newBuilder().setName("B").addChildren("D").addToken("1").build());
+    protoNodesMap.put("C", Node.newBuilder().setName("C").addChildren("D").build());
+    protoNodesMap.put("D", Node.newBuilder().setName("D").build());
+
+    List<Mutation> mutations =
+        Arrays.asList(
+            Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode("E").build(),
+            Mutation.newBuilder()
+                .setType(Mutation.Type.ADD_EDGE)
+                .setStartNode("D")
+                .setEndNode("E")
+                .build(),
+            Mutation.newBuilder()
+                .setType(Mutation.Type.CHANGE_TOKEN)
+                .setStartNode("C")
+                .setTokenChange(
+                    TokenMutation.newBuilder()
+                        .setType(TokenMutation.Type.ADD_TOKEN)
+                        .addTokenName("2"))
+                .build(),
+            Mutation.newBuilder().setType(Mutation.Type.DELETE_NODE).setStartNode("B").build(),
+            Mutation.newBuilder()
+                .setType(Mutation.Type.DELETE_EDGE)
+                .setStartNode("A")
+                .setEndNode("C")
+                .build());
+
+    DataGraph guava = DataGraph.create(GraphEngine.GUAVA);
+    DataGraph arrays = DataGraph.create(GraphEngine.ADJACENCY_ARRAY);
+    Assert.assertTrue(guava.graphFromProtoNodes(protoNodesMap));
+    Assert.assertTrue(arrays.graphFromProtoNodes(protoNodesMap));
+    for (Mutation mutation : mutations) {
+      Assert.assertEquals("", guava.mutateGraph(mutation.toBuilder()));
+      Assert.assertEquals("", arrays.mutateGraph(mutation.toBuilder()));
+      Assert.assertEquals(guava.graph(), arrays.graph());
+      Assert.assertEquals(guava.roots(), arrays.roots());
+      Assert.assertEquals(guava.tokenMap(), arrays.tokenMap());
+    }
+
+    for (int radius = 0; radius <= 2; radius++) {
+      Assert.assertEquals(
+          guava.getReachableNodes(Arrays.asList("C"), radius),
+          arrays.getReachableNodes(Arrays.asList("C"), radius));
+      Assert.assertEquals(
+          guava.getReachableNodes(new ArrayList<>(), radius),
+          arrays.getReachableNodes(new ArrayList<>(), radius));
+    }
+  }
+
+  /**
+   * Creates a graph node without tokens or metadata
+   *
+   * @param name the name of the node
+   * @return the graph node
+   */
+  private static GraphNode node(String name) {
+    return GraphNode.create(name, new ArrayList<>(), Struct.newBuilder().build());
+  }
+}
@@ -0,0 +1,65 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.base.Preconditions;
+import com.proto.MutationProtos.MultiMutation;
+
+/**
+ * A fixed-size list of multi-mutations that replays on different threads can read and update
+ * concurrently. Elements are kept in an AtomicReferenceArray, so a multi-mutation stored by set is
+ * fully built when another thread gets it.
+ */
+final class AtomicMutationList extends AbstractList<MultiMutation> implements RandomAccess {
+
+  private final AtomicReferenceArray<MultiMutation> elements;
+
+  /**
+   * Creates a list holding the elements of another one
+   *
+   * @param multiMutList the multi-mutations to copy
+   */
+  AtomicMutationList(List<MultiMutation> multiMutList) {
+    this.elements = new AtomicReferenceArray<>(multiMutList.toArray(new MultiMutation[0]));
+  }
+
+  @Override
+  public MultiMutation get(int index) {
+    return elements.get(index);
+  }
+
+  /**
+   * Replaces an element, which other threads see fully built from then on
+   *
+   * @param index the index of the element
+   * @param multiMut the new element, not null
+   * @return the previous element
+   */
+  @Override
+  public MultiMutation set(int index, MultiMutation multiMut) {
+    Preconditions.checkNotNull(multiMut, "multiMut");
+    return elements.getAndSet(index, multiMut);
+  }
+
+  @Override
+  public int size() {
+    return elements.length();
+  }
+}
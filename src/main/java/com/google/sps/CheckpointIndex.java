@@ -0,0 +1,217 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.proto.MutationProtos.MultiMutation;
+
+import static com.google.sps.Utility.getGraphAtMutationNumber;
+
+/**
+ * Snapshots of the graph taken every interval mutations, so that any mutation number can be reached
+ * by replaying at most interval / 2 multi-mutations from the nearest snapshot. Checkpoint j is the
+ * graph after applying the multi-mutations 0 to (j + 1) * interval - 1. Checkpoints are never
+ * modified; callers work on copies of them.
+ */
+final class CheckpointIndex {
+
+  // The system property that sets the number of multi-mutations between checkpoints. A value of 0
+  // disables checkpoints.
+  static final String INTERVAL_PROPERTY = "sps.checkpoint.interval";
+  // The number of multi-mutations between checkpoints if the property isn't set
+  static final int DEFAULT_INTERVAL = 1000;
+
+  private final int interval;
+  private final List<DataGraph> checkpoints;
+  // The number of multi-mutations in the list the index was built from
+  private final int mutationCount;
+
+  // Measurements taken while building the index, reported at startup
+  private final long buildNanos;
+  private final long replayNanos;
+  private final long copyNanos;
+  private final long heapGrowthBytes;
+  private final long storedElements;
+
+  private CheckpointIndex(
+      int interval,
+      List<DataGraph> checkpoints,
+      int mutationCount,
+      long buildNanos,
+      long replayNanos,
+      long copyNanos,
+      long heapGrowthBytes,
+      long storedElements) {
+    this.interval = interval;
+    this.checkpoints = checkpoints;
+    this.mutationCount = mutationCount;
+    this.buildNanos = buildNanos;
+    this.replayNanos = replayNanos;
+    this.copyNanos = copyNanos;
+    this.heapGrowthBytes = heapGrowthBytes;
+    this.storedElements = storedElements;
+  }
+
+  /**
+   * Returns the interval set with the sps.checkpoint.interval system property
+   *
+   * @return the configured interval, DEFAULT_INTERVAL if the property isn't set
+   * @throws IllegalArgumentException if the property is not a non-negative integer
+   */
+  static int configuredInterval() {
+    int interval = Integer.getInteger(INTERVAL_PROPERTY, DEFAULT_INTERVAL);
+    Preconditions.checkArgument(interval >= 0, "%s must not be negative", INTERVAL_PROPERTY);
+    return interval;
+  }
+
+  /**
+   * Returns an index without checkpoints
+   *
+   * @return the empty index
+   */
+  static CheckpointIndex empty() {
+    return new CheckpointIndex(0, new ArrayList<>(), 0, 0, 0, 0, 0, 0);
+  }
+
+  /**
+   * Builds the checkpoints by replaying the mutation list once from the original graph. This also
+   * replaces every multi-mutation up to the last checkpoint with its deduplicated version. If a
+   * mutation cannot be applied, no checkpoints are taken past it.
+   *
+   * @param original the original graph, which is not modified
+   * @param multiMutList the list of multi-mutations
+   * @param interval the number of multi-mutations between checkpoints, 0 for no checkpoints
+   * @return the index
+   */
+  static CheckpointIndex build(DataGraph original, List<MultiMutation> multiMutList, int interval) {
+    Preconditions.checkArgument(interval >= 0, "The checkpoint interval must not be negative");
+    int mutationCount = multiMutList.size();
+    List<DataGraph> checkpoints = new ArrayList<>();
+    if (interval == 0) {
+      return new CheckpointIndex(0, checkpoints, mutationCount, 0, 0, 0, 0, 0);
+    }
+
+    Runtime runtime = Runtime.getRuntime();
+    long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+    long start = System.nanoTime();
+    long replayNanos = 0;
+    long copyNanos = 0;
+    long storedElements = 0;
+
+    DataGraph curr = original.getCopy();
+    for (int i = interval - 1; i < mutationCount; i += interval) {
+      long replayStart = System.nanoTime();
+      try {
+        curr = getGraphAtMutationNumber(original, curr, i, multiMutList);
+      } catch (IllegalArgumentException e) {
+        break;
+      }
+      long copyStart = System.nanoTime();
+      DataGraph checkpoint = curr.getCopy();
+      long copyEnd = System.nanoTime();
+      replayNanos += copyStart - replayStart;
+      copyNanos += copyEnd - copyStart;
+
+      checkpoints.add(checkpoint);
+      storedElements += checkpoint.graph().nodes().size() + checkpoint.graph().edges().size();
+    }
+
+    long heapGrowth = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+    return new CheckpointIndex(
+        interval,
+        checkpoints,
+        mutationCount,
+        System.nanoTime() - start,
+        replayNanos,
+        copyNanos,
+        heapGrowth,
+        storedElements);
+  }
+
+  /**
+   * Returns the number of multi-mutations between checkpoints
+   *
+   * @return the interval, 0 if checkpoints are disabled
+   */
+  int interval() {
+    return interval;
+  }
+
+  /**
+   * Returns the number of checkpoints
+   *
+   * @return the number of checkpoints
+   */
+  int size() {
+    return checkpoints.size();
+  }
+
+  /**
+   * Returns the checkpoint closest to the given mutation number, before or after it
+   *
+   * @param mutationNum the index of the last mutation to apply
+   * @return the nearest checkpoint, or null if there are none. The checkpoint must not be modified.
+   */
+  DataGraph nearest(int mutationNum) {
+    if (checkpoints.isEmpty()) {
+      return null;
+    }
+    // Checkpoint j is at mutation number (j + 1) * interval - 1
+    int floor = Math.min((mutationNum + 1) / interval - 1, checkpoints.size() - 1);
+    int ceiling = floor + 1;
+    if (floor < 0) {
+      return checkpoints.get(0);
+    }
+    if (ceiling >= checkpoints.size()) {
+      return checkpoints.get(floor);
+    }
+    int floorDistance = mutationNum - checkpoints.get(floor).numMutations();
+    int ceilingDistance = checkpoints.get(ceiling).numMutations() - mutationNum;
+    return checkpoints.get(floorDistance <= ceilingDistance ? floor : ceiling);
+  }
+
+  /**
+   * Describes the memory used by the checkpoints and the latency they save
+   *
+   * @return a human-readable summary of the measurements taken while building the index
+   */
+  String report() {
+    if (checkpoints.isEmpty()) {
+      return String.format(
+          "Checkpoints: none (interval %d, %d multi-mutations)", interval, mutationCount);
+    }
+    long replayedMutations = (long) checkpoints.size() * interval;
+    double nanosPerMutation = (double) replayNanos / replayedMutations;
+    double nanosPerCopy = (double) copyNanos / checkpoints.size();
+    return String.format(
+        "Checkpoints: %d every %d multi-mutations, built in %d ms. Memory: %d nodes and edges"
+            + " stored, heap grew by about %d MB. Latency: a jump replays at most %d"
+            + " multi-mutations (~%.1f ms, plus ~%.1f ms to copy the checkpoint) instead of %d"
+            + " (~%.1f ms).",
+        checkpoints.size(),
+        interval,
+        buildNanos / 1_000_000,
+        storedElements,
+        Math.max(heapGrowthBytes, 0) >> 20,
+        interval / 2,
+        nanosPerMutation * (interval / 2) / 1e6,
+        nanosPerCopy / 1e6,
+        mutationCount / 2,
+        nanosPerMutation * (mutationCount / 2) / 1e6);
+  }
+}
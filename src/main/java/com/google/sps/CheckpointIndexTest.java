@@ -0,0 +1,153 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+import com.proto.MutationProtos.TokenMutation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.sps.Utility.getGraphAtMutationNumber;
+
+/**
+ * This file tests the following functions: - CheckpointIndex.build - CheckpointIndex.nearest -
+ * Utility.getGraphAtMutationNumber with checkpoints
+ */
+@RunWith(JUnit4.class)
+public final class CheckpointIndexTest {
+
+  // Number of multi-mutations in the test list
+  private static final int LOG_SIZE = 95;
+
+  DataGraph original;
+  List<MultiMutation> multiMutList;
+
+  /*
+   * The list adds nodes N0, N1, ... linked in a chain to the root R, and keeps adding a token that
+   * R already has, so that replaying it also deduplicates mutations
+   */
+  @Before
+  public void setUp() {
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    protoNodesMap.put("R", Node.newBuilder().setName("R").addToken("t").build());
+    original = DataGraph.create();
+    original.graphFromProtoNodes(protoNodesMap);
+
+    multiMutList = new ArrayList<>();
+    for (int i = 0; i < LOG_SIZE; i++) {
+      String parent = i == 0 ? "R" : "N" + (i - 1);
+      multiMutList.add(
+          MultiMutation.newBuilder()
+              .addMutation(
+                  Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode("N" + i))
+              .addMutation(
+                  Mutation.newBuilder()
+                      .setType(Mutation.Type.ADD_EDGE)
+                      .setStartNode(parent)
+                      .setEndNode("N" + i))
+              .addMutation(
+                  Mutation.newBuilder()
+                      .setType(Mutation.Type.CHANGE_TOKEN)
+                      .setStartNode("R")
+                      .setTokenChange(
+                          TokenMutation.newBuilder()
+                              .setType(TokenMutation.Type.ADD_TOKEN)
+                              .addTokenName("t")
+                              .addTokenName("t" + i)))
+              .setReason("step " + i)
+              .build());
+    }
+  }
+
+  /*
+   * Check that checkpoints are taken every interval mutations and that the nearest one is found
+   */
+  @Test
+  public void checkpointsAndNearest() {
+    CheckpointIndex checkpoints = CheckpointIndex.build(original, multiMutList, 10);
+
+    Assert.assertEquals(9, checkpoints.size());
+    Assert.assertEquals(9, checkpoints.nearest(3).numMutations());
+    Assert.assertEquals(9, checkpoints.nearest(14).numMutations());
+    Assert.assertEquals(19, checkpoints.nearest(15).numMutations());
+    Assert.assertEquals(89, checkpoints.nearest(94).numMutations());
+    Assert.assertEquals(51, checkpoints.nearest(49).graph().nodes().size());
+    Assert.assertTrue(checkpoints.report().startsWith("Checkpoints: 9 every 10"));
+
+    // The original graph is left untouched
+    Assert.assertEquals(1, original.graph().nodes().size());
+  }
+
+  /*
+   * Check that disabled or empty indices have no checkpoints
+   */
+  @Test
+  public void noCheckpoints() {
+    Assert.assertNull(CheckpointIndex.build(original, multiMutList, 0).nearest(50));
+    Assert.assertNull(CheckpointIndex.empty().nearest(50));
+    Assert.assertEquals(0, CheckpointIndex.build(original, multiMutList, 200).size());
+  }
+
+  /*
+   * Check that going to any mutation number from any current graph gives the same graph with and
+   * without checkpoints, and that the checkpoints themselves are never modified
+   */
+  @Test
+  public void sameGraphAsWithoutCheckpoints() {
+    List<MultiMutation> expectedList = new ArrayList<>(multiMutList);
+    CheckpointIndex checkpoints = CheckpointIndex.build(original, multiMutList, 10);
+    DataGraph checkpoint = checkpoints.nearest(49);
+    int checkpointSize = checkpoint.graph().nodes().size();
+
+    int[] targets = {-1, 0, 5, 49, 50, 94, 37, 12, 88, 3};
+    DataGraph expected = original.getCopy();
+    DataGraph actual = original.getCopy();
+    for (int target : targets) {
+      expected = getGraphAtMutationNumber(original, expected, target, expectedList);
+      actual = getGraphAtMutationNumber(original, actual, target, multiMutList, checkpoints);
+
+      Assert.assertEquals(target, actual.numMutations());
+      Assert.assertEquals(expected.graph(), actual.graph());
+      Assert.assertEquals(expected.roots(), actual.roots());
+      Assert.assertEquals(expected.tokenMap(), actual.tokenMap());
+    }
+    Assert.assertEquals(expectedList, multiMutList);
+    Assert.assertEquals(checkpointSize, checkpoint.graph().nodes().size());
+  }
+
+  /*
+   * Check that the interval can be configured with a system property
+   */
+  @Test
+  public void configuredInterval() {
+    Assert.assertEquals(CheckpointIndex.DEFAULT_INTERVAL, CheckpointIndex.configuredInterval());
+    System.setProperty(CheckpointIndex.INTERVAL_PROPERTY, "250");
+    try {
+      Assert.assertEquals(250, CheckpointIndex.configuredInterval());
+    } finally {
+      System.clearProperty(CheckpointIndex.INTERVAL_PROPERTY);
+    }
+  }
+}
@@ -0,0 +1,190 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+
+import org.json.JSONObject;
+
+/**
+ * A bounded pool of replay cursors shared by all requests. A request borrows the idle cursor
+ * closest to the mutation number it wants, moves it there and gives it back, so requests for nearby
+ * mutation numbers replay only the few multi-mutations between them, whoever sent them. A new
+ * cursor is only created when every idle cursor is further away than a copy of the initial graph or
+ * of a checkpoint would be, so that moving it doesn't throw away a position another request could
+ * use.
+ *
+ * <p>Requests for a mutation number some cursor is already at read that cursor's snapshot without
+ * borrowing it or taking any lock.
+ */
+final class CursorPool {
+
+  // The system property that sets the maximum number of cursors
+  static final String SIZE_PROPERTY = "sps.cursor.pool.size";
+  // The maximum number of cursors if the property isn't set
+  static final int DEFAULT_SIZE = 8;
+
+  private final Dataset dataset;
+  private final int maxCursors;
+
+  // Every cursor created so far, read without locking
+  private final List<ReplayCursor> cursors = new CopyOnWriteArrayList<>();
+  // The cursors that are not lent out, guarded by this
+  private final List<ReplayCursor> idle = new ArrayList<>();
+
+  // Metrics, guarded by this
+  private long borrows = 0;
+  // Borrows that got a cursor from which replaying is cheaper than from a copy
+  private long hits = 0;
+  // Borrows that had to wait for a cursor to be given back
+  private long waits = 0;
+  private long replayedSteps = 0;
+  private long maxReplayedSteps = 0;
+  // Requests served from a published snapshot without borrowing a cursor
+  private final AtomicLong snapshotReads = new AtomicLong();
+
+  /**
+   * Creates an empty pool
+   *
+   * @param dataset the dataset the cursors replay
+   * @param maxCursors the maximum number of cursors, lent out or not
+   */
+  CursorPool(Dataset dataset, int maxCursors) {
+    Preconditions.checkArgument(maxCursors > 0, "The pool must hold at least one cursor");
+    this.dataset = dataset;
+    this.maxCursors = maxCursors;
+  }
+
+  /**
+   * Returns the pool size set with the sps.cursor.pool.size system property
+   *
+   * @return the configured size, DEFAULT_SIZE if the property isn't set
+   * @throws IllegalArgumentException if the property is not a positive integer
+   */
+  static int configuredSize() {
+    int size = Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE);
+    Preconditions.checkArgument(size > 0, "%s must be positive", SIZE_PROPERTY);
+    return size;
+  }
+
+  /**
+   * Returns the graph at a mutation number. If a cursor is already there, its snapshot is returned
+   * without locking. Otherwise the nearest cursor is borrowed and moved there.
+   *
+   * @param mutationNum the index of the last mutation to apply
+   * @return the graph, which must not be modified, or null if the mutation number was too small
+   * @throws IllegalArgumentException if a mutation cannot be applied
+   * @throws InterruptedException if the thread is interrupted while waiting for a cursor
+   */
+  DataGraph graphAt(int mutationNum) throws InterruptedException {
+    if (mutationNum == -1) {
+      return dataset.original();
+    }
+    int target = Math.min(mutationNum, dataset.mutList().size() - 1);
+    for (ReplayCursor cursor : cursors) {
+      DataGraph snapshot = cursor.graph();
+      if (snapshot.numMutations() == target) {
+        snapshotReads.incrementAndGet();
+        return snapshot;
+      }
+    }
+
+    ReplayCursor cursor = borrow(mutationNum);
+    try {
+      return cursor.moveTo(mutationNum);
+    } finally {
+      release(cursor);
+    }
+  }
+
+  /**
+   * Lends out the idle cursor that is the fewest multi-mutations away from a mutation number,
+   * creating one or waiting for one to be given back if needed. The cursor must be given back with
+   * release once the caller is done with it.
+   *
+   * @param mutationNum the mutation number the caller will move the cursor to
+   * @return a cursor that no other caller uses until it is released
+   * @throws InterruptedException if the thread is interrupted while waiting for a cursor
+   */
+  synchronized ReplayCursor borrow(int mutationNum) throws InterruptedException {
+    borrows++;
+    if (idle.isEmpty() && cursors.size() == maxCursors) {
+      waits++;
+      while (idle.isEmpty()) {
+        wait();
+      }
+    }
+
+    int nearest = -1;
+    int nearestDistance = Integer.MAX_VALUE;
+    for (int i = 0; i < idle.size(); i++) {
+      int distance = idle.get(i).distanceTo(mutationNum);
+      if (distance < nearestDistance) {
+        nearest = i;
+        nearestDistance = distance;
+      }
+    }
+
+    if (nearest >= 0 && idle.get(nearest).isNearest(mutationNum)) {
+      hits++;
+      return idle.remove(nearest);
+    }
+    // None of the idle cursors is worth moving, so keep them where they are if there is room
+    if (cursors.size() < maxCursors) {
+      ReplayCursor cursor = new ReplayCursor(dataset);
+      cursors.add(cursor);
+      return cursor;
+    }
+    return idle.remove(nearest);
+  }
+
+  /**
+   * Gives back a cursor lent out by borrow
+   *
+   * @param cursor the cursor, which the caller must not use anymore
+   */
+  synchronized void release(ReplayCursor cursor) {
+    long steps = cursor.takeReplayedSteps();
+    replayedSteps += steps;
+    maxReplayedSteps = Math.max(maxReplayedSteps, steps);
+    idle.add(cursor);
+    notify();
+  }
+
+  /**
+   * Returns the hit rate and replay distances of the pool
+   *
+   * @return the metrics as a JSON object
+   */
+  synchronized JSONObject metrics() {
+    return new JSONObject()
+        .put("maxCursors", maxCursors)
+        .put("cursors", cursors.size())
+        .put("idleCursors", idle.size())
+        .put("borrows", borrows)
+        .put("hits", hits)
+        .put("hitRate", borrows == 0 ? 0 : (double) hits / borrows)
+        .put("waits", waits)
+        .put("snapshotReads", snapshotReads.get())
+        .put("replayedSteps", replayedSteps)
+        .put("meanReplayedSteps", borrows == 0 ? 0 : (double) replayedSteps / borrows)
+        .put("maxReplayedSteps", maxReplayedSteps);
+  }
+}
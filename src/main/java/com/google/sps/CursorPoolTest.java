@@ -0,0 +1,178 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - CursorPool.borrow - CursorPool.release -
+ * CursorPool.graphAt - CursorPool.metrics
+ */
+@RunWith(JUnit4.class)
+public final class CursorPoolTest {
+
+  // Number of multi-mutations in the test list
+  private static final int LOG_SIZE = 40;
+
+  Dataset dataset;
+
+  /*
+   * The list adds nodes N0, N1, ... linked in a chain to the root R. There are no checkpoints, so
+   * a new cursor always starts from the initial graph.
+   */
+  @Before
+  public void setUp() {
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    protoNodesMap.put("R", Node.newBuilder().setName("R").build());
+    DataGraph original = DataGraph.create();
+    original.graphFromProtoNodes(protoNodesMap);
+
+    List<MultiMutation> multiMutList = new ArrayList<>();
+    for (int i = 0; i < LOG_SIZE; i++) {
+      String parent = i == 0 ? "R" : "N" + (i - 1);
+      multiMutList.add(
+          MultiMutation.newBuilder()
+              .addMutation(
+                  Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode("N" + i))
+              .addMutation(
+                  Mutation.newBuilder()
+                      .setType(Mutation.Type.ADD_EDGE)
+                      .setStartNode(parent)
+                      .setEndNode("N" + i))
+              .build());
+    }
+    dataset =
+        Dataset.create(
+            original, multiMutList, CheckpointIndex.empty(), MutationIndex.build(multiMutList));
+  }
+
+  /*
+   * Check that a request gets the cursor closest to the mutation number it asks for, and that a
+   * new cursor is created rather than moving one that is further away than the initial graph
+   */
+  @Test
+  public void nearestCursor() throws Exception {
+    CursorPool pool = new CursorPool(dataset, 2);
+
+    ReplayCursor late = pool.borrow(30);
+    late.moveTo(30);
+    pool.release(late);
+    Assert.assertSame(late, moveAndRelease(pool, 28));
+
+    ReplayCursor early = moveAndRelease(pool, 2);
+    Assert.assertNotSame(late, early);
+    Assert.assertSame(early, moveAndRelease(pool, 3));
+    Assert.assertSame(late, moveAndRelease(pool, 25));
+    Assert.assertEquals(25, late.graph().numMutations());
+    Assert.assertEquals(3, early.graph().numMutations());
+
+    JSONObject metrics = pool.metrics();
+    Assert.assertEquals(2, metrics.getInt("cursors"));
+    Assert.assertEquals(5, metrics.getLong("borrows"));
+    Assert.assertEquals(3, metrics.getLong("hits"));
+    Assert.assertEquals(0, metrics.getLong("waits"));
+    // 31 steps from the initial graph to 30, then 2, 3, 1 and 3
+    Assert.assertEquals(40, metrics.getLong("replayedSteps"));
+    Assert.assertEquals(31, metrics.getLong("maxReplayedSteps"));
+  }
+
+  /*
+   * Check that concurrent requests never share a cursor or create more than the maximum number of
+   * cursors, and each reach the graph they asked for
+   */
+  @Test
+  public void concurrentBorrows() throws Exception {
+    CursorPool pool = new CursorPool(dataset, 2);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> sizes = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        int target = (i * 7) % LOG_SIZE;
+        sizes.add(
+            executor.submit(
+                () -> {
+                  ReplayCursor cursor = pool.borrow(target);
+                  try {
+                    DataGraph graph = cursor.moveTo(target);
+                    Thread.sleep(1);
+                    Assert.assertEquals(target, graph.numMutations());
+                    return graph.graph().nodes().size();
+                  } finally {
+                    pool.release(cursor);
+                  }
+                }));
+      }
+      for (int i = 0; i < sizes.size(); i++) {
+        Assert.assertEquals((i * 7) % LOG_SIZE + 2, (int) sizes.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    JSONObject metrics = pool.metrics();
+    Assert.assertTrue(metrics.getInt("cursors") <= 2);
+    Assert.assertEquals(metrics.getInt("cursors"), metrics.getInt("idleCursors"));
+    Assert.assertEquals(32, metrics.getLong("borrows"));
+  }
+
+  /*
+   * Check that a request for a mutation number a cursor is at gets that cursor's snapshot without
+   * borrowing it
+   */
+  @Test
+  public void snapshotReads() throws Exception {
+    CursorPool pool = new CursorPool(dataset, 1);
+    Assert.assertSame(dataset.original(), pool.graphAt(-1));
+
+    ReplayCursor cursor = pool.borrow(12);
+    DataGraph moved = cursor.moveTo(12);
+    // The cursor is still lent out, but its snapshot can be read
+    Assert.assertSame(moved, pool.graphAt(12));
+    Assert.assertSame(moved, pool.graphAt(12));
+    pool.release(cursor);
+
+    DataGraph last = pool.graphAt(LOG_SIZE + 10);
+    Assert.assertEquals(LOG_SIZE - 1, last.numMutations());
+    Assert.assertEquals(12, moved.numMutations());
+
+    JSONObject metrics = pool.metrics();
+    Assert.assertEquals(2, metrics.getLong("snapshotReads"));
+    Assert.assertEquals(2, metrics.getLong("borrows"));
+  }
+
+  // Borrows the cursor for a mutation number, moves it there and gives it back
+  private static ReplayCursor moveAndRelease(CursorPool pool, int mutationNum) throws Exception {
+    ReplayCursor cursor = pool.borrow(mutationNum);
+    cursor.moveTo(mutationNum);
+    pool.release(cursor);
+    return cursor;
+  }
+}
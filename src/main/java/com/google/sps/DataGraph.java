@@ -15,6 +15,7 @@
 package com.google.sps;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.graph.*;
 import com.google.protobuf.Struct;
 import com.proto.GraphProtos.Node;
@@ -23,10 +24,12 @@ import com.proto.MutationProtos.TokenMutation;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.HashSet;
 import java.util.List;
 
@@ -39,22 +42,45 @@ import static com.google.sps.Utility.protoNodeToGraphNode;
 @AutoValue
 abstract class DataGraph {
 
+  // The number of nodes above which the initial graph is built on multiple threads
+  private static final int PARALLEL_BUILD_THRESHOLD = 1 << 12;
+
+  // The topological order of the graph, which mutateGraph keeps up to date. It is derived from the
+  // graph rather than an AutoValue property, so it doesn't take part in equals and hashCode.
+  private TopologicalOrder topologicalOrder;
+
   /**
-   * Create a new empty data graph
+   * Create a new empty data graph backed by the graph engine selected with the sps.graph.engine
+   * system property
    *
    * @return the empty data graph with these attributes
    */
   public static DataGraph create() {
-    return new AutoValue_DataGraph(
-        /* graph = */ GraphBuilder.directed().build(),
-        /* graphNodesMap = */ new HashMap<String, GraphNode>(),
-        /* roots = */ new HashSet<String>(),
+    return create(GraphEngine.current());
+  }
+
+  /**
+   * Create a new empty data graph backed by the given graph engine. The maps and sets of the data
+   * graph are persistent, so that copies of it share their contents.
+   *
+   * @param engine the implementation of the underlying graph
+   * @return the empty data graph with these attributes
+   */
+  static DataGraph create(GraphEngine engine) {
+    return create(
+        /* graph = */ engine.newGraph(),
+        /* graphNodesMap = */ new PersistentHashMap<String, GraphNode>(),
+        /* roots = */ new PersistentHashSet<String>(),
         /* numMutations = */ -1,
-        /* tokenMap = */ new HashMap<String, Set<String>>());
+        /* tokenMap = */ new PersistentHashMap<String, Set<String>>(),
+        /* topologicalOrder = */ TopologicalOrder.empty());
   }
 
   /**
-   * Create a new data graph with the given attributes
+   * Create a new data graph with the given attributes. The graph must be acyclic, because the data
+   * graph keeps a topological order of it, which is computed here in time linear in the size of the
+   * graph. Callers that can't rule out a cycle should fill an empty data graph with
+   * graphFromProtoNodes instead, which reports a cycle by returning false.
    *
    * @param graph the guava graph
    * @param graphNodesMap the map from node name to node
@@ -64,6 +90,7 @@ abstract class DataGraph {
    * @param tokenMap a map from token name to the names of all nodes in the graph that contain the
    *     given token
    * @return the data graph with these attributes
+   * @throws IllegalArgumentException with Dataset.NOT_A_DAG_ERROR if the graph has a cycle
    */
   static DataGraph create(
       MutableGraph<GraphNode> graph,
@@ -71,7 +98,31 @@ abstract class DataGraph {
       HashSet<String> roots,
       int numMutations,
       HashMap<String, Set<String>> tokenMap) {
-    return new AutoValue_DataGraph(graph, graphNodesMap, roots, numMutations, tokenMap);
+    TopologicalOrder topologicalOrder = TopologicalOrder.of(graph);
+    if (topologicalOrder == null) {
+      throw new IllegalArgumentException(Dataset.NOT_A_DAG_ERROR);
+    }
+    return create(graph, graphNodesMap, roots, numMutations, tokenMap, topologicalOrder);
+  }
+
+  /**
+   * Create a new data graph with the given attributes and a topological order of its graph, which
+   * is not checked
+   *
+   * @see #create(MutableGraph, HashMap, HashSet, int, HashMap)
+   * @param topologicalOrder the topological order of the nodes of the graph
+   */
+  static DataGraph create(
+      MutableGraph<GraphNode> graph,
+      HashMap<String, GraphNode> graphNodesMap,
+      HashSet<String> roots,
+      int numMutations,
+      HashMap<String, Set<String>> tokenMap,
+      TopologicalOrder topologicalOrder) {
+    DataGraph dataGraph =
+        new AutoValue_DataGraph(graph, graphNodesMap, roots, numMutations, tokenMap);
+    dataGraph.topologicalOrder = topologicalOrder;
+    return dataGraph;
   }
 
   /**
@@ -111,7 +162,30 @@ abstract class DataGraph {
   abstract HashMap<String, Set<String>> tokenMap();
 
   /**
-   * Return a shallow copy of the given data graph
+   * Getter for the topological order, which mutateGraph keeps up to date
+   *
+   * @return the ranks of the nodes of the graph, parents below children
+   */
+  TopologicalOrder topologicalOrder() {
+    return this.topologicalOrder;
+  }
+
+  /**
+   * Returns the rank of a node in a topological order of the graph. A node ranks above all of its
+   * ancestors and below all of its descendants, so sorting nodes by rank lists parents first.
+   *
+   * @param nodeName the name of the node
+   * @return the rank, or -1 if the node is not in the graph
+   */
+  int topologicalRank(String nodeName) {
+    return this.topologicalOrder().rankOf(nodeName);
+  }
+
+  /**
+   * Return a shallow copy of the given data graph. The copy uses the same graph engine as this
+   * graph. Persistent maps and sets, which data graphs made by create() use, are forked in constant
+   * time rather than copied, and so are the topological order and the graph on the PERSISTENT
+   * engine.
    *
    * @return a shallow copy of the given data graph containing shallow copies of its attributes
    */
@@ -122,70 +196,222 @@ abstract class DataGraph {
     int mutationNum = this.numMutations();
     HashMap<String, Set<String>> tokenMap = this.tokenMap();
 
-    HashMap<String, GraphNode> graphNodesMapCopy = new HashMap<>();
-    for (String key : graphNodesMap.keySet()) {
-      graphNodesMapCopy.put(key, graphNodesMap.get(key));
+    HashMap<String, GraphNode> graphNodesMapCopy;
+    if (graphNodesMap instanceof PersistentHashMap) {
+      graphNodesMapCopy = ((PersistentHashMap<String, GraphNode>) graphNodesMap).fork();
+    } else {
+      graphNodesMapCopy = new HashMap<>();
+      for (String key : graphNodesMap.keySet()) {
+        graphNodesMapCopy.put(key, graphNodesMap.get(key));
+      }
     }
 
-    HashMap<String, Set<String>> tokenMapCopy = new HashMap<>();
-    for (String key : tokenMap.keySet()) {
-      Set<String> nodesWithToken = new HashSet<>();
-      nodesWithToken.addAll(tokenMap.get(key));
-      tokenMapCopy.put(key, nodesWithToken);
+    HashMap<String, Set<String>> tokenMapCopy;
+    if (tokenMap instanceof PersistentHashMap) {
+      // The token sets are forked lazily, when either graph adds or removes a node from one
+      tokenMapCopy = ((PersistentHashMap<String, Set<String>>) tokenMap).fork();
+    } else {
+      tokenMapCopy = new HashMap<>();
+      for (String key : tokenMap.keySet()) {
+        Set<String> nodesWithToken = new HashSet<>();
+        nodesWithToken.addAll(tokenMap.get(key));
+        tokenMapCopy.put(key, nodesWithToken);
+      }
+    }
+
+    HashSet<String> copyRoots;
+    if (roots instanceof PersistentHashSet) {
+      copyRoots = ((PersistentHashSet<String>) roots).fork();
+    } else {
+      copyRoots = new HashSet<>();
+      copyRoots.addAll(roots);
     }
-    HashSet<String> copyRoots = new HashSet<>();
-    copyRoots.addAll(roots);
     return DataGraph.create(
-        Graphs.copyOf(graph), graphNodesMapCopy, copyRoots, mutationNum, tokenMapCopy);
+        GraphEngine.copyOf(graph),
+        graphNodesMapCopy,
+        copyRoots,
+        mutationNum,
+        tokenMapCopy,
+        this.topologicalOrder().fork());
   }
 
   /**
    * Takes in a map from node name to proto-parsed node object. Populates this data graph with
-   * information from the parsed graph
+   * information from the parsed graph.
+   *
+   * <p>The graph is built in phases. Nodes are converted, token postings are collected into
+   * per-thread maps that are merged afterwards, roots are found from the child lists and the
+   * children of each node are looked up, all on the common fork-join pool for large graphs. Nodes
+   * are then added to the graph one at a time, since graphs are not thread-safe. Edges are added
+   * in bulk on an AdjacencyArrayGraph and one at a time on the other engines. The topological sort
+   * that finds cycles of any length is sequential.
    *
    * @param protoNodesMap map from node name to proto Node object parsed from input
-   * @return false if an error occurred because the graph was not acyclic, true otherwise
+   * @return false if an error occurred because the graph was not acyclic, true otherwise. The graph
+   *     must not be used after a cycle is found.
    */
   boolean graphFromProtoNodes(Map<String, Node> protoNodesMap) {
     MutableGraph<GraphNode> graph = this.graph();
     HashMap<String, GraphNode> graphNodesMap = this.graphNodesMap();
     HashSet<String> roots = this.roots();
 
-    for (String nodeName : protoNodesMap.keySet()) {
-      Node thisNode = protoNodesMap.get(nodeName);
-      // Convert thisNode into a graph node that may store additional information
-      GraphNode graphNode = protoNodeToGraphNode(thisNode);
-
-      // Update graph data structures to include the node as long as it doesn't
-      // already exist
+    Node[] protoNodes = protoNodesMap.values().toArray(new Node[0]);
+    int nodeCount = protoNodes.length;
+
+    // Convert each node into a graph node that may store additional information. Nodes that are
+    // already in this graph are kept as they are.
+    GraphNode[] nodes = new GraphNode[nodeCount];
+    nodeIndices(nodeCount)
+        .forEach(
+            i -> {
+              GraphNode existing = graphNodesMap.get(protoNodes[i].getName());
+              nodes[i] = existing != null ? existing : protoNodeToGraphNode(protoNodes[i]);
+            });
+
+    // Build the token postings of the new nodes
+    HashMap<String, Set<String>> tokenPostings =
+        nodeIndices(nodeCount)
+            .collect(
+                HashMap::new,
+                (postings, i) -> {
+                  for (String tokenName : protoNodes[i].getTokenList()) {
+                    postings
+                        .computeIfAbsent(NameDictionary.intern(tokenName), token -> new HashSet<>())
+                        .add(nodes[i].name());
+                  }
+                },
+                DataGraph::mergePostings);
+
+    // Find every node with an in-edge. These cannot be roots.
+    HashSet<String> children =
+        nodeIndices(nodeCount)
+            .collect(
+                HashSet::new,
+                (names, i) -> names.addAll(protoNodes[i].getChildrenList()),
+                HashSet::addAll);
+
+    // Insert the nodes and edges into the graph
+    for (int i = 0; i < nodeCount; i++) {
+      String nodeName = nodes[i].name();
       if (!graphNodesMap.containsKey(nodeName)) {
-        roots.add(nodeName);
-        graph.addNode(graphNode);
-        graphNodesMap.put(nodeName, graphNode);
+        graph.addNode(nodes[i]);
+        graphNodesMap.put(nodeName, nodes[i]);
+        if (!children.contains(nodeName)) {
+          roots.add(nodeName);
+        }
       }
+    }
+    roots.removeAll(children);
+
+    // Look up the children of each node, which are all in the map now, then add the edges in bulk
+    // if the engine supports it
+    GraphNode[][] childNodes = new GraphNode[nodeCount][];
+    nodeIndices(nodeCount)
+        .forEach(
+            i -> {
+              List<String> childNames = protoNodes[i].getChildrenList();
+              childNodes[i] = new GraphNode[childNames.size()];
+              for (int j = 0; j < childNodes[i].length; j++) {
+                childNodes[i][j] = graphNodesMap.get(childNames.get(j));
+              }
+            });
+    if (graph instanceof AdjacencyArrayGraph) {
+      ((AdjacencyArrayGraph) graph).putEdges(nodes, childNodes);
+    } else {
+      for (int i = 0; i < nodeCount; i++) {
+        for (GraphNode child : childNodes[i]) {
+          graph.putEdge(nodes[i], child);
+        }
+      }
+    }
+    for (Map.Entry<String, Set<String>> entry : tokenPostings.entrySet()) {
+      nodesWithToken(entry.getKey()).addAll(entry.getValue());
+    }
+    // The graph is not a DAG if some nodes cannot be sorted
+    return this.topologicalOrder().sort(graph);
+  }
 
-      // Store the token map
-      for (String tokenName : thisNode.getTokenList()) {
-        addNodeToToken(tokenName, nodeName);
+  /**
+   * Returns a stream over the indices of the given number of nodes, parallel if there are enough
+   * nodes for the work to be worth splitting
+   *
+   * @param nodeCount the number of nodes
+   * @return a stream over the integers from 0 to nodeCount - 1
+   */
+  private static IntStream nodeIndices(int nodeCount) {
+    IntStream indices = IntStream.range(0, nodeCount);
+    return nodeCount >= PARALLEL_BUILD_THRESHOLD ? indices.parallel() : indices;
+  }
+
+  /**
+   * Adds the token postings of one map into another
+   *
+   * @param postings the map from token name to node names to add to
+   * @param other the map from token name to node names to add
+   */
+  private static void mergePostings(
+      HashMap<String, Set<String>> postings, HashMap<String, Set<String>> other) {
+    for (Map.Entry<String, Set<String>> entry : other.entrySet()) {
+      Set<String> nodesWithToken = postings.get(entry.getKey());
+      if (nodesWithToken == null) {
+        postings.put(entry.getKey(), entry.getValue());
+      } else {
+        nodesWithToken.addAll(entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Populates this data graph with the contents of a memory-mapped graph snapshot. Unlike
+   * graphFromProtoNodes, this does not need the parsed proto nodes: adjacency and token information
+   * is read directly from the snapshot. Every node is still decoded into the graph, the node map
+   * and the token map here, so startup time and heap grow with the size of the graph as they do
+   * for the other formats. Edges are added in bulk on an AdjacencyArrayGraph.
+   *
+   * @param snapshot the snapshot of the initial graph
+   * @return false if an error occurred because the graph was not acyclic, true otherwise. The graph
+   *     must not be used after a cycle is found.
+   */
+  boolean graphFromSnapshot(MappedGraphSnapshot snapshot) {
+    MutableGraph<GraphNode> graph = this.graph();
+    HashMap<String, GraphNode> graphNodesMap = this.graphNodesMap();
+    HashSet<String> roots = this.roots();
+
+    int nodeCount = snapshot.nodeCount();
+    GraphNode[] nodes = new GraphNode[nodeCount];
+    for (int id = 0; id < nodeCount; id++) {
+      GraphNode graphNode = snapshot.graphNode(id);
+      nodes[id] = graphNode;
+      graph.addNode(graphNode);
+      graphNodesMap.put(graphNode.name(), graphNode);
+      if (snapshot.parents(id).length == 0) {
+        roots.add(graphNode.name());
       }
+      for (String tokenName : graphNode.tokenList()) {
+        addNodeToToken(tokenName, graphNode.name());
+      }
+    }
 
-      // Add dependency edges to the graph
-      for (String child : thisNode.getChildrenList()) {
-        // This child can no longer be a root since it has an in-edge
-        roots.remove(child);
-        GraphNode childNode = protoNodeToGraphNode(protoNodesMap.get(child));
-        if (!graphNodesMap.containsKey(child)) {
-          // If child node is not already in the graph, add it
-          graph.addNode(childNode);
-          graphNodesMap.put(child, childNode);
-        } else if (graph.hasEdgeConnecting(childNode, graphNode)) {
-          // the graph is not a DAG, so we error out
-          return false;
+    // Look up the children of each node, then add the edges in bulk if the engine supports it
+    GraphNode[][] childNodes = new GraphNode[nodeCount][];
+    for (int id = 0; id < nodeCount; id++) {
+      int[] children = snapshot.children(id);
+      childNodes[id] = new GraphNode[children.length];
+      for (int j = 0; j < children.length; j++) {
+        childNodes[id][j] = nodes[children[j]];
+      }
+    }
+    if (graph instanceof AdjacencyArrayGraph) {
+      ((AdjacencyArrayGraph) graph).putEdges(nodes, childNodes);
+    } else {
+      for (int id = 0; id < nodeCount; id++) {
+        for (GraphNode child : childNodes[id]) {
+          graph.putEdge(nodes[id], child);
         }
-        graph.putEdge(graphNode, childNode);
       }
     }
-    return true;
+    // The graph is not a DAG if some nodes cannot be sorted
+    return this.topologicalOrder().sort(graph);
   }
 
   /**
@@ -224,7 +450,8 @@ abstract class DataGraph {
           GraphNode newGraphNode =
               GraphNode.create(startName, new ArrayList<>(), Struct.newBuilder().build());
           graph.addNode(newGraphNode);
-          graphNodesMap.put(startName, newGraphNode);
+          graphNodesMap.put(newGraphNode.name(), newGraphNode);
+          this.topologicalOrder().addNode(newGraphNode.name());
           break;
         }
       case ADD_EDGE:
@@ -236,6 +463,10 @@ abstract class DataGraph {
           if (endNode == null) {
             return "Add edge: End node " + endName + " doesn't exist\n";
           }
+          // Reorder the nodes for the edge, unless it would close a cycle
+          if (!this.topologicalOrder().addEdge(graph, startNode, endNode)) {
+            return "Add edge: Edge from " + startName + " to " + endName + " closes a cycle\n";
+          }
 
           // The target cannot be a root since it has at least one in-edge
           roots.remove(endName);
@@ -253,10 +484,12 @@ abstract class DataGraph {
             removeNodeFromToken(token, startName);
           }
 
-          Set<GraphNode> successors = graph.successors(startNode);
+          // Copy the successors since the view is not valid once the node is removed
+          Set<GraphNode> successors = ImmutableSet.copyOf(graph.successors(startNode));
           roots.remove(startName);
           graph.removeNode(startNode); // This will remove all edges associated with startNode
           graphNodesMap.remove(startName);
+          this.topologicalOrder().removeNode(startName);
 
           // Check whether any successor will have no in-edges after this node is removed
           // If so, make them roots
@@ -304,8 +537,8 @@ abstract class DataGraph {
 
           graphNodesMap.put(startName, newNode);
 
-          Set<GraphNode> successors = graph.successors(startNode);
-          Set<GraphNode> predecessors = graph.predecessors(startNode);
+          Set<GraphNode> successors = ImmutableSet.copyOf(graph.successors(startNode));
+          Set<GraphNode> predecessors = ImmutableSet.copyOf(graph.predecessors(startNode));
           graph.removeNode(startNode);
           graph.addNode(newNode);
 
@@ -345,7 +578,9 @@ abstract class DataGraph {
 
     TokenMutation.Type tokenMutType = tokenMut.getType();
     if (tokenMutType == TokenMutation.Type.ADD_TOKEN) {
-      tokenSet.addAll(tokenNames);
+      for (String tokenName : tokenNames) {
+        tokenSet.add(NameDictionary.intern(tokenName));
+      }
 
       if (tokenSet.size() != existingTokens.size() + tokenNames.size()) {
         // Remove tokens that this mutation adds that already exist in the node
@@ -389,9 +624,20 @@ abstract class DataGraph {
    * @param nodeName the node to add to the tokenName's set
    */
   private void addNodeToToken(String tokenName, String nodeName) {
-    Set<String> nodesWithToken = this.tokenMap().getOrDefault(tokenName, new HashSet<>());
-    nodesWithToken.add(nodeName);
-    this.tokenMap().put(tokenName, nodesWithToken);
+    nodesWithToken(tokenName).add(nodeName);
+  }
+
+  /**
+   * Returns the set of nodes with a token in the tokenMap so that it can be modified, adding an
+   * empty one if there is none. New sets are persistent so that they can be shared with copies of
+   * this graph, and a PersistentHashMap copies a shared set before returning it.
+   *
+   * @param tokenName the token name (key in the map)
+   * @return the set of names of nodes with the token
+   */
+  private Set<String> nodesWithToken(String tokenName) {
+    return this.tokenMap()
+        .computeIfAbsent(NameDictionary.intern(tokenName), token -> new PersistentHashSet<>());
   }
 
   /**
@@ -401,11 +647,16 @@ abstract class DataGraph {
    * @param nodeName the node to remove from the tokenName's set
    */
   private void removeNodeFromToken(String tokenName, String nodeName) {
-    if (this.tokenMap().containsKey(tokenName)) {
-      Set<String> nodesWithToken = this.tokenMap().get(tokenName);
+    HashMap<String, Set<String>> tokenMap = this.tokenMap();
+    if (tokenMap.containsKey(tokenName)) {
+      // The set may be shared with copies of this graph, so a persistent map must copy it first
+      Set<String> nodesWithToken =
+          tokenMap instanceof PersistentHashMap
+              ? ((PersistentHashMap<String, Set<String>>) tokenMap).getForUpdate(tokenName)
+              : tokenMap.get(tokenName);
       nodesWithToken.remove(nodeName);
       if (nodesWithToken.size() == 0) { // No more nodes with token
-        this.tokenMap().remove(tokenName);
+        tokenMap.remove(tokenName);
       }
     } // Else no need to update
   }
@@ -425,83 +676,60 @@ abstract class DataGraph {
    *     Returns a graph with a depth of at most radius starting from the roots if names is empty.
    */
   public MutableGraph<GraphNode> getReachableNodes(Collection<String> names, int radius) {
-    if (radius < 0 || names == null) {
-      return GraphBuilder.directed().build(); // If max depth below 0, then return an emtpy graph
-    }
+    return getReachableNodesOfEach(Collections.singletonList(names), radius).get(0);
+  }
 
-    HashMap<String, GraphNode> graphNodesMap = this.graphNodesMap();
-    HashSet<GraphNode> nextLayerChildren = new HashSet<GraphNode>();
-    HashSet<GraphNode> nextLayerParents = new HashSet<GraphNode>();
-
-    if (names.size() == 0) {
-      List<GraphNode> rootNodes =
-          this.roots().stream()
-              .map(rootName -> this.graphNodesMap().get(rootName))
-              .collect(Collectors.toList());
-      nextLayerChildren.addAll(rootNodes);
-    } else {
-      Set<GraphNode> nodesToAdd =
-          names.stream()
-              .filter(name -> graphNodesMap.containsKey(name))
-              .map(name -> graphNodesMap.get(name))
-              .collect(Collectors.toSet());
-      nextLayerChildren.addAll(nodesToAdd);
-      nextLayerParents.addAll(nodesToAdd);
+  /**
+   * Returns, for each collection of node names, the graph getReachableNodes would return for it.
+   * The graphs are found in a single search, so a node reached from several of the collections is
+   * only visited once.
+   *
+   * @param nameSets the collections of node names to search from, any of which may be null
+   * @param radius the distance from the nodes to search for parents and children
+   * @return a graph for each collection of names, in the same order
+   */
+  public List<MutableGraph<GraphNode>> getReachableNodesOfEach(
+      List<? extends Collection<String>> nameSets, int radius) {
+    List<MutableGraph<GraphNode>> emptyGraphs = new ArrayList<>();
+    for (int i = 0; i < nameSets.size(); i++) {
+      emptyGraphs.add(GraphBuilder.directed().build());
     }
-
-    // None of the other nodes were found, so return empty
-    if (nextLayerChildren.isEmpty()) {
-      return GraphBuilder.directed().build();
+    if (radius < 0) {
+      return emptyGraphs; // If max depth below 0, then return emtpy graphs
     }
 
-    MutableGraph<GraphNode> graph = this.graph();
-    HashSet<GraphNode> visitedChildren = new HashSet<>();
-    HashSet<GraphNode> visitedParents = new HashSet<>();
-
-    for (int i = 0; i <= radius; i++) {
-      // Break out early if queue is empty
-      if (nextLayerChildren.isEmpty() && nextLayerParents.isEmpty()) {
-        break;
+    HashMap<String, GraphNode> graphNodesMap = this.graphNodesMap();
+    List<List<GraphNode>> startSets = new ArrayList<>();
+    // The collections that are searched for parents too, one bit each
+    int parentsMask = 0;
+    boolean anyStart = false;
+    for (int i = 0; i < nameSets.size(); i++) {
+      Collection<String> names = nameSets.get(i);
+      List<GraphNode> startNodes;
+      if (names == null) {
+        startNodes = Collections.emptyList();
+      } else if (names.size() == 0) {
+        // Starting from the roots, there are no parents to look for
+        startNodes =
+            this.roots().stream()
+                .map(rootName -> graphNodesMap.get(rootName))
+                .collect(Collectors.toList());
+      } else {
+        startNodes =
+            names.stream()
+                .filter(name -> graphNodesMap.containsKey(name))
+                .map(name -> graphNodesMap.get(name))
+                .collect(Collectors.toList());
+        parentsMask |= 1 << i;
       }
-
-      // Helper function used to avoid duplicate code
-      nextLayerChildren = getNextLayer(nextLayerChildren, visitedChildren, true);
-      nextLayerParents = getNextLayer(nextLayerParents, visitedParents, false);
+      startSets.add(startNodes);
+      anyStart |= !startNodes.isEmpty();
     }
 
-    HashSet<GraphNode> visited = new HashSet<>();
-    visited.addAll(visitedChildren);
-    visited.addAll(visitedParents);
-    MutableGraph<GraphNode> graphToReturn = Graphs.inducedSubgraph(graph, visited);
-
-    return graphToReturn;
-  }
-
-  /**
-   * Helper function that gets the next layer of nodes based on what's visited, a queue, and whether
-   * we're looking for children
-   *
-   * @param layer the layer of nodes to visit
-   * @param visited A Hashset of visited nodes
-   * @param isChild whether we're looking for children. True means we look for the children, and
-   *     False means we look for parents.
-   * @return the nodes relevant to the next layer
-   */
-  private HashSet<GraphNode> getNextLayer(
-      HashSet<GraphNode> layer, HashSet<GraphNode> visited, boolean isChild) {
-    HashSet<GraphNode> nextLayer = new HashSet<>();
-    for (GraphNode curr : layer) {
-      if (!visited.contains(curr)) {
-        visited.add(curr);
-        Set<GraphNode> adjacentNodes =
-            isChild ? this.graph().successors(curr) : this.graph().predecessors(curr);
-        for (GraphNode node : adjacentNodes) {
-          if (!visited.contains(node)) {
-            nextLayer.add(node);
-          }
-        }
-      }
+    // None of the other nodes were found, so return empty
+    if (!anyStart) {
+      return emptyGraphs;
     }
-    return nextLayer;
+    return ReachabilitySearch.reachableSubgraphs(this.graph(), startSets, radius, parentsMask);
   }
 }
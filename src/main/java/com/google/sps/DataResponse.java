@@ -0,0 +1,60 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Map;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+
+/**
+ * A rendered /data response: the serverError and serverMessage headers to set and the encoded body,
+ * which is empty when the request failed
+ */
+@AutoValue
+abstract class DataResponse {
+
+  /**
+   * Creates a response
+   *
+   * @param headers the headers to set
+   * @param body the encoded body, empty if there is none
+   * @return the response
+   */
+  static DataResponse create(Map<String, String> headers, ByteString body) {
+    return new AutoValue_DataResponse(ImmutableMap.copyOf(headers), body);
+  }
+
+  // The headers to set
+  abstract ImmutableMap<String, String> headers();
+
+  // The encoded body, empty if there is none
+  abstract ByteString body();
+
+  /**
+   * Estimates the memory used by the response
+   *
+   * @return the approximate size in bytes
+   */
+  int weight() {
+    long chars = 0;
+    for (Map.Entry<String, String> header : headers().entrySet()) {
+      chars += header.getKey().length() + header.getValue().length();
+    }
+    // Two bytes per header char, plus the objects themselves
+    return (int) Math.min(Integer.MAX_VALUE, body().size() + 2 * chars + 64);
+  }
+}
@@ -16,20 +16,27 @@ package com.google.sps;
 
 import com.google.gson.JsonParser;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.google.appengine.repackaged.com.google.gson.JsonSyntaxException;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
 import com.google.common.graph.*;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -37,97 +44,95 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
 
 import com.google.common.graph.MutableGraph;
+import com.google.protobuf.ByteString;
 
-import com.google.protobuf.TextFormat;
-import com.proto.GraphProtos.Graph;
-import com.proto.GraphProtos.Node;
 import com.proto.MutationProtos.MultiMutation;
-import com.proto.MutationProtos.MutationList;
 
 import static com.google.sps.Utility.getMultiMutationAtIndex;
-import static com.google.sps.Utility.getGraphAtMutationNumber;
 import static com.google.sps.Utility.getNodeNamesInGraph;
-import static com.google.sps.Utility.findRelevantMutations;
-import static com.google.sps.Utility.getMutationIndicesOfToken;
 import static com.google.sps.Utility.filterMultiMutationByNodes;
-import static com.google.sps.Utility.graphToJson;
 
-@WebServlet("/data")
+@WebServlet(urlPatterns = "/data", asyncSupported = true)
 public class DataServlet extends HttpServlet {
 
-  // A data graph containing the information parsed from the input proto file
-  private DataGraph originalDataGraph = null;
-  // A data graph that represents the most recently requested graph
-  private DataGraph currDataGraph = null;
-  // A list of mutations to apply to the original data graph as parsed from the
-  // mutations proto file
-  private List<MultiMutation> mutList = null;
-  // We store a builder so that we can modify the contained mutation objects
-  // to be non-redundant. For example, if we find that a mutation adds duplicate
-  // tokens to a node we replace it with a trimmed version that doesn't add
-  // duplicates. This is only possible if the mutation list is mutable.
-  private MutationList.Builder mutListObj = null;
-  // A list containing all integers from 0 to mutList.size() - 1
-  List<Integer> defaultIndices = new ArrayList<>();
-
-  // A map from each node name to a list of indices in mutList where
-  // that node is mutated. In addition, the empty string is mapped
-  // to the list [0, mutList.size() - 1].
-  HashMap<String, List<Integer>> mutationIndicesMap = new HashMap<>();
-
-  // A map from each encountered token name to a list of indices in mutList
-  // where that token is mutated (either added or deleted from a node).
-  HashMap<String, Set<Integer>> tokenIndicesMap = new HashMap<>();
+  // The most queries answered by one POST request
+  static final int MAX_BATCH_QUERIES = 1000;
+  // The system property that sets the time a batch may run for in milliseconds
+  static final String BATCH_BUDGET_PROPERTY = "sps.batch.budget.ms";
+  // The time a batch may run for if the property isn't set
+  static final int DEFAULT_BATCH_BUDGET_MS = 10_000;
+  // The headers of the answer to a query of a batch that ran out of time or failed before it
+  static final Map<String, String> UNANSWERED_HEADERS =
+      Collections.singletonMap(
+          "serverError", "This query was not answered, send it again in another batch");
+  // The session attribute holding the mutation number the client most recently requested
+  private static final String MUTATION_NUM_ATTRIBUTE = "mutationNum";
+  // The servlet context attribute holding the cursor pool, read by StatsServlet
+  static final String CURSOR_POOL_ATTRIBUTE = CursorPool.class.getName();
+  // The servlet context attribute holding the response cache, read by StatsServlet
+  static final String RESPONSE_CACHE_ATTRIBUTE = ResponseCache.class.getName();
+
+  // Loads the dataset in the background when the application starts
+  private DatasetLoader loader = null;
+  // The initial graph, the mutation list and their indices, set by the first request that finds
+  // them loaded
+  private volatile Dataset dataset = null;
+
+  // The replay cursors shared by all requests, created by the loader with the dataset
+  private CursorPool cursorPool = null;
+  // The rendered responses to recent queries, created by the loader with the dataset
+  private ResponseCache responseCache = null;
+  // The workers that answer queries which aren't cached, shared with PlayServlet
+  private RequestExecutor requestExecutor = null;
+  // The time a batch may run for in nanoseconds
+  private long batchBudgetNanos = 0;
+
+  /*
+   * Creates the request executor when the servlet is put in service, and starts loading the
+   * dataset if the application didn't already
+   */
+  @Override
+  public void init() {
+    loader = DatasetLoader.of(getServletContext());
+    if (loader == null) {
+      loader = new DatasetLoader();
+      loader.start(getServletContext());
+    }
+    requestExecutor = RequestExecutor.of(getServletContext());
+    batchBudgetNanos = TimeUnit.MILLISECONDS.toNanos(configuredBatchBudgetMillis());
+  }
+
+  /**
+   * Returns the time a batch may run for, set with the sps.batch.budget.ms system property
+   *
+   * @return the time in milliseconds, DEFAULT_BATCH_BUDGET_MS if the property isn't set
+   * @throws IllegalArgumentException if the property is not positive
+   */
+  static int configuredBatchBudgetMillis() {
+    int budget = Integer.getInteger(BATCH_BUDGET_PROPERTY, DEFAULT_BATCH_BUDGET_MS);
+    Preconditions.checkArgument(budget > 0, "%s must be positive", BATCH_BUDGET_PROPERTY);
+    return budget;
+  }
 
   /*
    * Called when a client submits a GET request to the /data URL
    */
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    // Used to detect whether various operations are performed successfully, and inform the
-    // user if not.
-    boolean success = true;
-
     /*
      *********************************
-     * Initialize Graph Variables
+     * Initialize Dataset
      *********************************
      */
-
-    if (originalDataGraph == null && currDataGraph == null) {
-      success =
-          initializeGraphVariables(
-              getServletContext().getResourceAsStream("/WEB-INF/initial_graph.textproto"));
-      if (!success) {
-        response.setHeader(
-            "serverError", "Failed to parse input graph into Guava graph - not a DAG!");
-        return;
-      }
-      // The most-recently requested graph always starts out as the initial graph
-      currDataGraph = originalDataGraph.getCopy();
-    } else if (currDataGraph == null || originalDataGraph == null) {
-      response.setHeader("serverError", "Invalid input");
+    Dataset dataset = getDataset();
+    if (dataset == null) {
+      loader.sendNotReady(response);
       return;
     }
 
-    /*
-     *************************************
-     * Initialize Mutation List Variables
-     *************************************
-     */
-    if (mutListObj == null) {
-      initializeMutationVariables(
-          getServletContext().getResourceAsStream("/WEB-INF/mutations.textproto"));
-      // Populate the list of all possible mutation indices
-      defaultIndices = IntStream.range(0, mutList.size()).boxed().collect(Collectors.toList());
-      // TODO: do we need this?
-      // and store this as the list of relevant indices for filtering by empty string
-      // (= not filtering)
-      mutationIndicesMap.put("", defaultIndices);
-    }
-
     /*
      *************************************
      * Read Request Parameters
@@ -166,6 +171,408 @@ public class DataServlet extends HttpServlet {
     }
     boolean restrictBool = Boolean.parseBoolean(restrictParam);
 
+    // Stores the list of node names queried by the user
+    List<String> nodeNames = new ArrayList<>();
+    // The reason the node names could not be parsed, if they couldn't
+    String parseError = null;
+    try {
+      JsonArray nodeNameArr = JsonParser.parseString(nodeNamesParam).getAsJsonArray();
+      for (int i = 0; i < nodeNameArr.size(); i++) {
+        String curr = nodeNameArr.get(i).getAsString().trim();
+        if (curr.length() > 0) {
+          nodeNames.add(curr);
+        }
+      }
+    } catch (JsonSyntaxException e) {
+      parseError = "The node names received do not form a valid JSON string";
+    } catch (IllegalStateException e) {
+      parseError = "The node names received do not form a valid JSON array";
+    }
+
+    // The mutation number of the graph the client most recently requested
+    HttpSession session = request.getSession(true);
+    Integer previousNumber = (Integer) session.getAttribute(MUTATION_NUM_ATTRIBUTE);
+    GraphQuery query =
+        GraphQuery.create(
+            radius,
+            mutationNumber,
+            previousNumber == null ? -1 : previousNumber,
+            nodeNames,
+            tokenNameParam,
+            restrictBool,
+            ResponseFormat.of(request));
+
+    /*
+     ***********************
+     * Sending Response
+     ***********************
+     */
+
+    if (parseError != null) {
+      response.setHeader("serverError", parseError);
+    }
+    // Queries whose node names could not be parsed are not cached, since their response also
+    // depends on the parse error
+    boolean cacheable = parseError == null && responseCache.isEnabled();
+    // Cached responses are cheap to send, so they don't wait for a worker
+    DataResponse cached = cacheable ? responseCache.peek(query) : null;
+    if (cached != null) {
+      if (send(response, query.format(), cached)) {
+        session.setAttribute(MUTATION_NUM_ATTRIBUTE, mutationNumber);
+      }
+      return;
+    }
+    requestExecutor.submit(
+        request, pending -> respond(dataset, query, cacheable, session, response, pending));
+  }
+
+  /*
+   * Called when a client submits a POST request to the /data URL. The body is a JSON array of
+   * queries, each an object with the mutationNum, depth, nodeNames, tokenName and restrict
+   * parameters of a GET request and an optional previousMutationNum, mutationNum - 1 by default.
+   * The queries are answered in order of mutation number with a single forward sweep of one replay
+   * cursor, and the answers are streamed back as a JSON array in the order of the queries. Each
+   * answer holds the serverError and serverMessage headers of its query and, unless it failed, its
+   * response in the version 2 format. A batch that runs for longer than sps.batch.budget.ms
+   * stops, and the queries it didn't answer get UNANSWERED_HEADERS and a null response.
+   */
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Dataset dataset = getDataset();
+    if (dataset == null) {
+      loader.sendNotReady(response);
+      return;
+    }
+    List<GraphQuery> queries;
+    try {
+      queries =
+          parseQueries(JsonParser.parseReader(request.getReader()), dataset.mutList().size());
+    } catch (NumberFormatException e) {
+      response.setHeader("serverError", "The queries received do not form a valid JSON array");
+      return;
+    } catch (IllegalArgumentException e) {
+      // A mutation number is out of range
+      response.setHeader("serverError", e.getMessage());
+      return;
+    } catch (RuntimeException e) {
+      // Gson reports malformed JSON and fields of the wrong type with various runtime exceptions
+      response.setHeader("serverError", "The queries received do not form a valid JSON array");
+      return;
+    }
+    if (queries.size() > MAX_BATCH_QUERIES) {
+      response.setHeader(
+          "serverError", "A batch can hold at most " + MAX_BATCH_QUERIES + " queries");
+      return;
+    }
+    requestExecutor.submit(
+        request, pending -> respondToBatch(dataset, queries, response, pending));
+  }
+
+  /**
+   * Answers a query on a worker thread. The response is encoded straight into the output and, if it
+   * is cacheable, copied into a buffer that is put into the response cache once it is complete. The
+   * copy is dropped once it grows larger than the cache keeps, so a large response is streamed with
+   * constant extra memory whether or not the cache is enabled.
+   *
+   * @param dataset the dataset to read the graph from
+   * @param query the canonical query
+   * @param cacheable whether to keep the response in the cache
+   * @param session the session of the client, which remembers the mutation number it got
+   * @param response the response to write
+   * @param pending the request, claimed before the response is written
+   * @throws IOException if writing the response fails
+   * @throws InterruptedException if the thread is interrupted while waiting for a cursor
+   */
+  private void respond(
+      Dataset dataset,
+      GraphQuery query,
+      boolean cacheable,
+      HttpSession session,
+      HttpServletResponse response,
+      RequestExecutor.PendingRequest pending)
+      throws IOException, InterruptedException {
+    if (cacheable) {
+      // Another request may have cached the response since this one was queued
+      DataResponse cached = responseCache.getIfPresent(query);
+      if (cached != null) {
+        if (pending.claim() && send(response, query.format(), cached)) {
+          session.setAttribute(MUTATION_NUM_ATTRIBUTE, query.mutationNum());
+        }
+        return;
+      }
+    }
+    long start = System.nanoTime();
+    Map<String, String> headers = new HashMap<>();
+    GraphView view = view(dataset, query, headers);
+    if (!pending.claim()) {
+      return;
+    }
+    headers.forEach(response::setHeader);
+    BodyCopy copy = cacheable ? new BodyCopy(responseCache.maxEntryBytes()) : null;
+    if (view != null) {
+      sendHeaders(response, query.format());
+      OutputStream out = response.getOutputStream();
+      query.format().write(view, copy == null ? out : copy.tee(out));
+      session.setAttribute(MUTATION_NUM_ATTRIBUTE, query.mutationNum());
+    }
+    if (copy != null) {
+      ByteString body = copy.body();
+      responseCache.put(
+          query,
+          body == null ? null : DataResponse.create(headers, body),
+          System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * A copy of the body of a response as it is written, kept only while it is at most a given size
+   */
+  private static final class BodyCopy {
+    private final long maxBytes;
+    // The bytes written so far, null once there were too many
+    private ByteString.Output buffer = ByteString.newOutput();
+
+    BodyCopy(long maxBytes) {
+      this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a stream that writes to another one and to this copy
+     *
+     * @param out the stream the body is sent to
+     * @return the stream to write the body to
+     */
+    OutputStream tee(OutputStream out) {
+      return new FilterOutputStream(out) {
+        @Override
+        public void write(int b) throws IOException {
+          out.write(b);
+          if (fits(1)) {
+            buffer.write(b);
+          }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+          out.write(bytes, offset, length);
+          if (fits(length)) {
+            buffer.write(bytes, offset, length);
+          }
+        }
+      };
+    }
+
+    // Returns whether the copy can take more bytes, dropping it if it can't
+    private boolean fits(int length) {
+      if (buffer != null && buffer.size() + (long) length > maxBytes) {
+        buffer = null;
+      }
+      return buffer != null;
+    }
+
+    /**
+     * Returns the copied body
+     *
+     * @return the body, or null if it was larger than the maximum size
+     */
+    ByteString body() {
+      return buffer == null ? null : buffer.toByteString();
+    }
+  }
+
+  /**
+   * Reads the queries of a batch
+   *
+   * @param body the body of the POST request
+   * @param mutationCount the number of multi-mutations in the dataset
+   * @return the canonical queries, in the order they were sent
+   * @throws IllegalArgumentException if a mutation number is less than -1 or past the last
+   *     multi-mutation
+   * @throws RuntimeException if the body is not an array of queries
+   */
+  private static List<GraphQuery> parseQueries(JsonElement body, int mutationCount) {
+    List<GraphQuery> queries = new ArrayList<>();
+    for (JsonElement element : body.getAsJsonArray()) {
+      JsonObject query = element.getAsJsonObject();
+      int mutationNum = query.get("mutationNum").getAsInt();
+      Preconditions.checkArgument(
+          -1 <= mutationNum && mutationNum < mutationCount,
+          "Invalid mutation number %s",
+          mutationNum);
+      int previousMutationNum =
+          query.has("previousMutationNum")
+              ? query.get("previousMutationNum").getAsInt()
+              : mutationNum - 1;
+      Preconditions.checkArgument(
+          -1 <= previousMutationNum && previousMutationNum < mutationCount,
+          "Invalid previous mutation number %s",
+          previousMutationNum);
+      List<String> nodeNames = new ArrayList<>();
+      if (query.has("nodeNames")) {
+        for (JsonElement name : query.getAsJsonArray("nodeNames")) {
+          String curr = name.getAsString().trim();
+          if (curr.length() > 0) {
+            nodeNames.add(curr);
+          }
+        }
+      }
+      queries.add(
+          GraphQuery.create(
+              query.get("depth").getAsInt(),
+              mutationNum,
+              previousMutationNum,
+              nodeNames,
+              query.has("tokenName") ? query.get("tokenName").getAsString() : "",
+              query.has("restrict") && query.get("restrict").getAsBoolean(),
+              ResponseFormat.JSON_V2));
+    }
+    return queries;
+  }
+
+  /**
+   * Answers the queries of a batch on a worker thread, in order of mutation number. The cursor pool
+   * lends out the idle cursor nearest to each query, which is the one the previous query moved, so
+   * that cursor sweeps forwards through the batch. It is not held between queries, so that queries
+   * with a token can read the previous graph from another cursor. Each answer is written as soon
+   * as those of all earlier queries are.
+   *
+   * <p>The request is claimed before the first query is answered, after which the deadline of the
+   * request executor no longer applies, so the batch stops once it has run for its own budget.
+   * Whether it runs out of time or fails, the array is completed with the queries that were not
+   * answered marked as such.
+   *
+   * @param dataset the dataset to read the graphs from
+   * @param queries the queries, in the order to answer them in
+   * @param response the response to write
+   * @param pending the request, claimed before the response is written
+   * @throws IOException if writing the response fails
+   * @throws InterruptedException if the thread is interrupted while waiting for a cursor
+   */
+  private void respondToBatch(
+      Dataset dataset,
+      List<GraphQuery> queries,
+      HttpServletResponse response,
+      RequestExecutor.PendingRequest pending)
+      throws IOException, InterruptedException {
+    List<Integer> order =
+        IntStream.range(0, queries.size())
+            .boxed()
+            .sorted(Comparator.comparingInt(i -> queries.get(i).mutationNum()))
+            .collect(Collectors.toList());
+    // The answers that can't be written yet because an earlier query hasn't been answered
+    List<Map<String, String>> headers = new ArrayList<>(Collections.nCopies(queries.size(), null));
+    List<GraphView> views = new ArrayList<>(Collections.nCopies(queries.size(), null));
+    int written = 0;
+
+    if (!pending.claim()) {
+      return;
+    }
+    long deadlineNanos = System.nanoTime() + batchBudgetNanos;
+    sendHeaders(response, ResponseFormat.JSON_V2);
+    JsonWriter json = new JsonWriter(response.getWriter());
+    json.beginArray();
+    try {
+      for (int index : order) {
+        if (System.nanoTime() - deadlineNanos >= 0) {
+          break;
+        }
+        Map<String, String> queryHeaders = new HashMap<>();
+        views.set(index, view(dataset, queries.get(index), queryHeaders));
+        headers.set(index, queryHeaders);
+        written = writeAnswers(json, headers, views, written);
+        json.flush();
+      }
+    } finally {
+      for (int index = written; index < queries.size(); index++) {
+        if (headers.get(index) == null) {
+          headers.set(index, UNANSWERED_HEADERS);
+        }
+      }
+      writeAnswers(json, headers, views, written);
+      json.endArray();
+      json.flush();
+    }
+  }
+
+  /**
+   * Writes the answers of a batch that follow those already written, up to the first query that
+   * hasn't been answered yet. Written answers are not kept.
+   *
+   * @param json the writer of the array of answers
+   * @param headers the headers of each query, null for those not answered yet
+   * @param views the view of each query, null for those that failed or were written
+   * @param written the number of answers already written
+   * @return the number of answers written now in total
+   * @throws IOException if writing the response fails
+   */
+  private static int writeAnswers(
+      JsonWriter json, List<Map<String, String>> headers, List<GraphView> views, int written)
+      throws IOException {
+    for (; written < headers.size() && headers.get(written) != null; written++) {
+      json.beginObject();
+      json.name("headers").beginObject();
+      for (Map.Entry<String, String> header : headers.get(written).entrySet()) {
+        json.name(header.getKey()).value(header.getValue());
+      }
+      json.endObject();
+      json.name("response");
+      if (views.get(written) == null) {
+        json.nullValue();
+      } else {
+        GraphJsonWriter.writeView(json, views.get(written));
+      }
+      json.endObject();
+      views.set(written, null);
+    }
+    return written;
+  }
+
+  /**
+   * Sends a rendered response
+   *
+   * @param response the response to write
+   * @param format the format the body is encoded in
+   * @param graphResponse the rendered response
+   * @return whether it had a body, which it doesn't if the query failed
+   * @throws IOException if writing the response fails
+   */
+  private static boolean send(
+      HttpServletResponse response, ResponseFormat format, DataResponse graphResponse)
+      throws IOException {
+    graphResponse.headers().forEach(response::setHeader);
+    if (graphResponse.body().isEmpty()) {
+      return false;
+    }
+    sendHeaders(response, format);
+    graphResponse.body().writeTo(response.getOutputStream());
+    return true;
+  }
+
+  // Sets the headers of a successful response
+  private static void sendHeaders(HttpServletResponse response, ResponseFormat format) {
+    response.addHeader("Set-Cookie", "HttpOnly;Secure;SameSite=Strict");
+    response.setContentType(format.contentType());
+  }
+
+  /**
+   * Finds what to show in response to a query: the part of the graph around the queried nodes at
+   * the requested mutation number, the mutations relevant to them and the messages to show
+   *
+   * @param dataset the dataset to read the graph from
+   * @param query the canonical query
+   * @param headers the map to add the serverError and serverMessage headers to
+   * @return the view, or null if the query failed
+   * @throws InterruptedException if the thread is interrupted while waiting for a cursor
+   */
+  private GraphView view(Dataset dataset, GraphQuery query, Map<String, String> headers)
+      throws InterruptedException {
+    List<MultiMutation> mutList = dataset.mutList();
+    int radius = query.radius();
+    int mutationNumber = query.mutationNum();
+    Set<String> nodeNames = query.nodeNames();
+    String tokenNameParam = query.tokenName();
+    boolean restrictBool = query.restrict();
+
     // Truncated version of graph to return to the client
     MutableGraph<GraphNode> truncatedGraph = GraphBuilder.directed().build();
 
@@ -174,7 +581,7 @@ public class DataServlet extends HttpServlet {
     // token.
     List<Integer> filteredMutationIndices = new ArrayList<>();
 
-    // The list of mutations that need to be applied to the nodes in currDataGraph
+    // The list of mutations that need to be applied to the nodes in the current graph
     // to get the requested graph (null if the graph requested is before the current
     // graph in the sequence of mutations)
     MultiMutation diff = null;
@@ -189,26 +596,10 @@ public class DataServlet extends HttpServlet {
      */
 
     // Get the diff if we are going forward in the list of mutations
-    if (mutationNumber > currDataGraph.numMutations()) {
+    if (mutationNumber > query.previousMutationNum()) {
       diff = getMultiMutationAtIndex(mutList, mutationNumber);
     }
 
-    // Stores the list of node names queried by the user
-    List<String> nodeNames = new ArrayList<>();
-    try {
-      JsonArray nodeNameArr = JsonParser.parseString(nodeNamesParam).getAsJsonArray();
-      for (int i = 0; i < nodeNameArr.size(); i++) {
-        String curr = nodeNameArr.get(i).getAsString().trim();
-        if (curr.length() > 0) {
-          nodeNames.add(curr);
-        }
-      }
-    } catch (JsonSyntaxException e) {
-      response.setHeader("serverError", "The node names received do not form a valid JSON string");
-    } catch (IllegalStateException e) {
-      response.setHeader("serverError", "The node names received do not form a valid JSON array");
-    }
-
     // A list of "roots" to return nodes at most "radius" distance from for the current graph
     // This differs from queriedNext below in that some queried nodes may be deleted or
     // cease to contain the queried token in the requested graph, so we include them in queried
@@ -226,18 +617,31 @@ public class DataServlet extends HttpServlet {
       queriedNext.addAll(nodeNames);
     }
 
-    // We show mutations relevant to nodes that contain the token in the current graph
-    if (currDataGraph.tokenMap().containsKey(tokenNameParam)) {
-      queried.addAll(currDataGraph.tokenMap().get(tokenNameParam));
-    }
-
-    // Get the graph at the requested mutation number
+    // The graphs below are immutable snapshots, which other requests may be reading too
+    DataGraph currDataGraph;
     try {
-      currDataGraph =
-          getGraphAtMutationNumber(originalDataGraph, currDataGraph, mutationNumber, mutListObj);
+      // We show mutations relevant to nodes that contain the token in the current graph. The
+      // current graph is only needed if a token is searched.
+      if (tokenNameParam.length() != 0) {
+        currDataGraph = cursorPool.graphAt(query.previousMutationNum());
+        if (currDataGraph == null) {
+          headers.put("serverError", "Invalid previous mutation number");
+          return null;
+        }
+        if (currDataGraph.tokenMap().containsKey(tokenNameParam)) {
+          queried.addAll(currDataGraph.tokenMap().get(tokenNameParam));
+        }
+      }
+
+      // Get the graph at the requested mutation number
+      currDataGraph = cursorPool.graphAt(mutationNumber);
     } catch (IllegalArgumentException e) {
-      response.setHeader("serverError", e.getMessage());
-      return;
+      headers.put("serverError", e.getMessage());
+      return null;
+    }
+    if (currDataGraph == null) {
+      headers.put("serverError", "Invalid mutation number");
+      return null;
     }
 
     // We also show mutations relevant to nodes that contain the token in the new graph
@@ -246,64 +650,50 @@ public class DataServlet extends HttpServlet {
       queried.addAll(currDataGraph.tokenMap().get(tokenNameParam));
       queriedNext.addAll(currDataGraph.tokenMap().get(tokenNameParam));
     }
-    // This condition exists to prevent entry into this case when the user
-    // searches for a non-existent token and no node. In this case, queried
-    // is empty so using the below logic will return the whole graph. To avoid
-    // this, we initialize truncatedGraph to the empty graph and include this
-    // condition
-    if (tokenNameParam.length() == 0 || queried.size() != 0) {
-      // Truncate the graph from the nodes that the client had searched for
-      truncatedGraph = currDataGraph.getReachableNodes(queried, radius);
-    }
-
     // The next graph to display to the client
     MutableGraph<GraphNode> truncatedGraphNext;
-    // Empty queriedNext just gives an empty graph
-    if (queriedNext.isEmpty()) {
-      truncatedGraphNext = GraphBuilder.undirected().build();
-    } else {
-      // If queried and queriedNext contain the same nodes, then there is no reason
-      // to regenerate the graph
+    if (queriedNext.isEmpty() || queried.equals(queriedNext)) {
+      // This condition exists to prevent entry into this case when the user
+      // searches for a non-existent token and no node. In this case, queried
+      // is empty so using the below logic will return the whole graph. To avoid
+      // this, we initialize truncatedGraph to the empty graph and include this
+      // condition
+      if (tokenNameParam.length() == 0 || queried.size() != 0) {
+        // Truncate the graph from the nodes that the client had searched for
+        truncatedGraph = currDataGraph.getReachableNodes(queried, radius);
+      }
+      // Empty queriedNext just gives an empty graph. If queried and queriedNext contain the same
+      // nodes, then there is no reason to regenerate the graph
       truncatedGraphNext =
-          queried.equals(queriedNext)
-              ? truncatedGraph
-              : currDataGraph.getReachableNodes(queriedNext, radius);
+          queriedNext.isEmpty() ? GraphBuilder.undirected().build() : truncatedGraph;
+    } else {
+      // Both graphs come from a single search, which visits the nodes the two sets share once
+      List<MutableGraph<GraphNode>> truncatedGraphs =
+          currDataGraph.getReachableNodesOfEach(Arrays.asList(queried, queriedNext), radius);
+      truncatedGraph = truncatedGraphs.get(0);
+      truncatedGraphNext = truncatedGraphs.get(1);
     }
 
     // If we are not filtering the graph or limiting its depth, show all mutations of all nodes
     if (nodeNames.size() == 0
         && tokenNameParam.length() == 0
         && truncatedGraph.equals(currDataGraph.graph())) {
-      filteredMutationIndices = defaultIndices;
+      filteredMutationIndices = dataset.defaultIndices();
       filteredDiff = diff;
     } else {
       Set<String> truncatedGraphNodeNames = getNodeNamesInGraph(truncatedGraph);
       Set<String> truncatedGraphNodeNamesNext = getNodeNamesInGraph(truncatedGraphNext);
 
-      // A set containing a indices where nodes currently displayed on the graph
-      // or queried are mutated
-      Set<Integer> mutationIndicesSet = new HashSet<>();
-
-      // If we don't limit mutations to just the nodes searched, we add all mutations relevant to
-      // on-screen nodes
+      // The nodes whose mutations are shown: the queried nodes and, unless we limit mutations
+      // to just the nodes searched, every on-screen node
+      Set<String> relevantNodeNames = new HashSet<>(nodeNames);
       if (!restrictBool) {
-        mutationIndicesSet.addAll(
-            findRelevantMutations(truncatedGraphNodeNamesNext, mutationIndicesMap, mutList));
-      }
-
-      // Add all mutations relevant to the queried token, computing and caching it if it
-      // hasn't been done already
-      if (!tokenIndicesMap.containsKey(tokenNameParam)) {
-        tokenIndicesMap.put(tokenNameParam, getMutationIndicesOfToken(tokenNameParam, mutList));
+        relevantNodeNames.addAll(truncatedGraphNodeNamesNext);
       }
 
-      // Add all mutations relevant to the queried node names
-      mutationIndicesSet.addAll(tokenIndicesMap.get(tokenNameParam));
-      mutationIndicesSet.addAll(findRelevantMutations(nodeNames, mutationIndicesMap, mutList));
-
-      // Originally used a set because didn't want duplicates. Convert into ArrayList for order
-      filteredMutationIndices = new ArrayList<>(mutationIndicesSet);
-      Collections.sort(filteredMutationIndices);
+      // Add all mutations relevant to these nodes and to the queried token, in order
+      filteredMutationIndices =
+          dataset.mutationIndex().stepsOf(relevantNodeNames, Collections.singleton(tokenNameParam));
 
       // Show mutations relevant to nodes that are related to on-screen nodes, nodes that
       // used to/still have the queried token and any queried nodes
@@ -319,15 +709,15 @@ public class DataServlet extends HttpServlet {
 
     if (truncatedGraph.nodes().size() == 0 // something was queried but wasn't found in the graph
         && filteredMutationIndices.size() == 0) { // and is never mutated
-      response.setHeader(
+      headers.put(
           "serverError",
           "The searched node/token does not exist anywhere in this graph or in mutations");
-      return;
+      return null;
     }
     if (truncatedGraph.nodes().size() == 0 // something was queried but wasn't found in the graph
         && filteredMutationIndices.size() != 0 // and is mutated at some point
         && (filteredDiff == null || filteredDiff.getMutationList().size() == 0)) { // but not here
-      response.setHeader(
+      headers.put(
           "serverMessage",
           "The searched node/token does not exist in this graph, so nothing is shown. However, it"
               + " is mutated at some other step. Please click next or previous to navigate to a"
@@ -339,7 +729,7 @@ public class DataServlet extends HttpServlet {
     if (truncatedGraph.nodes().size() != 0 // the queried object was found in this graph
         && !(mutationNumber == -1 && nodeNames.size() == 0 && tokenNameParam.length() == 0)
         && filteredMutationIndices.indexOf(mutationNumber) == -1) { // but not mutated here
-      response.setHeader(
+      headers.put(
           "serverMessage",
           "The searched node/token exists in this graph. However, it is not mutated in this"
               + " graph. Please click next or previous if you wish to see where it was"
@@ -349,56 +739,38 @@ public class DataServlet extends HttpServlet {
     if (filteredMutationIndices.indexOf(mutationNumber) != -1 // relevant objects mutated here
         && filteredDiff != null // there is some diff to show
         && filteredDiff.getMutationList().size() == 0) { // but doesn't affect only onscreen nodes
-      response.setHeader(
+      headers.put(
           "serverMessage",
           "The desired set of nodes is mutated in this graph but your other parameters (for eg."
               + " radius), limit the display of the mutations. Please try increasing your radius"
               + " to view the mutation.");
     }
 
-    /*
-     ***********************
-     * Sending Response
-     ***********************
-     */
-
-    response.setHeader("Set-Cookie", "HttpOnly;Secure;SameSite=Strict");
-    response.setContentType("application/json");
-    String graphJson =
-        graphToJson(
-            truncatedGraph, filteredMutationIndices, filteredDiff, mutList.size(), queriedNext);
-    response.getWriter().println(graphJson);
+    return GraphView.create(
+        truncatedGraph, filteredMutationIndices, filteredDiff, mutList.size(), queriedNext);
   }
 
   /**
-   * Private function to intitialize graph variables. Returns a boolean to represent whether the
-   * InpuStream was read successfully.
+   * Returns the dataset once the loader is done with it, along with the cursor pool and the
+   * response cache it created
    *
-   * @param graphInput InputStream to initialize graph variables over
-   * @return whether variables were initialized properly; true if successful and false otherwise
-   * @throws IOException if something goes wrong during the reading
+   * @return the dataset, or null if it isn't loaded yet or could not be loaded
    */
-  private boolean initializeGraphVariables(InputStream graphInput) throws IOException {
-    InputStreamReader graphReader = new InputStreamReader(graphInput);
-    Graph.Builder graphBuilder = Graph.newBuilder();
-    TextFormat.merge(graphReader, graphBuilder);
-    Graph protoGraph = graphBuilder.build();
-
-    Map<String, Node> protoNodesMap = protoGraph.getNodesMapMap();
-    originalDataGraph = DataGraph.create();
-    return originalDataGraph.graphFromProtoNodes(protoNodesMap);
-  }
-
-  /**
-   * Private function to intialize the mutation list.
-   *
-   * @param mutationInput InputStream to initialize mutation list variable over
-   * @throws IOException if something goes wrong during the reading
-   */
-  private void initializeMutationVariables(InputStream mutationInput) throws IOException {
-    InputStreamReader mutReader = new InputStreamReader(mutationInput);
-    mutListObj = MutationList.newBuilder();
-    TextFormat.merge(mutReader, mutListObj);
-    mutList = mutListObj.getMutationList();
+  private Dataset getDataset() {
+    Dataset loaded = dataset;
+    if (loaded == null) {
+      synchronized (this) {
+        loaded = dataset;
+        if (loaded == null) {
+          loaded = loader.dataset();
+          if (loaded != null) {
+            cursorPool = loader.cursorPool();
+            responseCache = loader.responseCache();
+            dataset = loaded;
+          }
+        }
+      }
+    }
+    return loaded;
   }
 }
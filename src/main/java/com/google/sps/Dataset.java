@@ -0,0 +1,261 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.servlet.ServletContext;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Throwables;
+import com.proto.GraphProtos.Graph;
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+
+import static com.google.sps.SnapshotLoader.GRAPH_SNAPSHOT_PATH;
+import static com.google.sps.SnapshotLoader.GRAPH_TEXT_PATH;
+import static com.google.sps.SnapshotLoader.MAPPED_GRAPH_PATH;
+import static com.google.sps.SnapshotLoader.MUTATIONS_SNAPSHOT_PATH;
+import static com.google.sps.SnapshotLoader.MUTATIONS_STREAM_PATH;
+import static com.google.sps.SnapshotLoader.MUTATIONS_TEXT_PATH;
+import static com.google.sps.SnapshotLoader.readGraphSnapshot;
+import static com.google.sps.SnapshotLoader.readGraphText;
+import static com.google.sps.SnapshotLoader.readMutationsSnapshot;
+import static com.google.sps.SnapshotLoader.readMutationsText;
+
+/**
+ * The data every request is served from: the initial graph, the mutation list and the indices built
+ * over them. It is loaded once and shared by all requests, which only ever read the initial graph
+ * and the checkpoints through copies.
+ *
+ * <p>The mutation list is only modified by replacing a multi-mutation with its deduplicated
+ * version, which is the same whichever graph it is replayed on, so replays on different threads may
+ * do it concurrently. The list is an AtomicMutationList or a StreamingMutationLog, which both
+ * publish a replaced multi-mutation safely, so that another thread never reads one partly built.
+ */
+@AutoValue
+abstract class Dataset {
+
+  // The error reported when the initial graph has a cycle
+  static final String NOT_A_DAG_ERROR = "Failed to parse input graph into Guava graph - not a DAG!";
+
+  // The maximum number of parsed multi-mutations kept in memory when the mutation list is
+  // streamed from a file of length-delimited records
+  private static final int MUTATION_WINDOW_SIZE = 4096;
+
+  /**
+   * Creates a dataset from its parts
+   *
+   * @param original the initial graph, which must not be modified
+   * @param mutList the list of multi-mutations to apply to the initial graph. It is copied into
+   *     an AtomicMutationList unless it is one already or a StreamingMutationLog.
+   * @param checkpoints snapshots of the graph taken at regular intervals in mutList
+   * @param mutationIndex the index from node and token names to the steps that mutate them
+   * @return the dataset
+   */
+  static Dataset create(
+      DataGraph original,
+      List<MultiMutation> mutList,
+      CheckpointIndex checkpoints,
+      MutationIndex mutationIndex) {
+    if (!(mutList instanceof AtomicMutationList || mutList instanceof StreamingMutationLog)) {
+      mutList = new AtomicMutationList(mutList);
+    }
+    List<Integer> defaultIndices =
+        IntStream.range(0, mutList.size()).boxed().collect(Collectors.toList());
+    return new AutoValue_Dataset(original, mutList, defaultIndices, checkpoints, mutationIndex);
+  }
+
+  /**
+   * Getter for the initial graph
+   *
+   * @return the graph before any mutation is applied. It must not be modified.
+   */
+  abstract DataGraph original();
+
+  /**
+   * Getter for the mutation list
+   *
+   * @return the list of multi-mutations to apply to the initial graph
+   */
+  abstract List<MultiMutation> mutList();
+
+  /**
+   * Getter for the default indices
+   *
+   * @return a list containing all integers from 0 to mutList().size() - 1
+   */
+  abstract List<Integer> defaultIndices();
+
+  /**
+   * Getter for the checkpoints
+   *
+   * @return snapshots of the graph taken at regular intervals in the mutation list, used to reach
+   *     any mutation number without replaying the whole list
+   */
+  abstract CheckpointIndex checkpoints();
+
+  /**
+   * Getter for the mutation index
+   *
+   * @return an index from each node name and token name to the indices in the mutation list where
+   *     that node or token is mutated
+   */
+  abstract MutationIndex mutationIndex();
+
+  /**
+   * Returns the number of multi-mutations to replay to reach a mutation number from a copy of the
+   * initial graph or of the nearest checkpoint
+   *
+   * @param mutationNum the index of the last mutation to apply
+   * @return the distance from the closest of the initial graph and the checkpoints
+   */
+  int startDistance(int mutationNum) {
+    int distance = Math.abs(original().numMutations() - mutationNum);
+    DataGraph checkpoint = checkpoints().nearest(mutationNum);
+    if (checkpoint != null) {
+      distance = Math.min(distance, Math.abs(checkpoint.numMutations() - mutationNum));
+    }
+    return distance;
+  }
+
+  /**
+   * Loads the dataset deployed with the application and builds its indices. The mutation list is
+   * read on another thread while the initial graph is built.
+   *
+   * @param context the servlet context to read the files from and to log to
+   * @param progress told the name of each stage of the loading as it starts
+   * @return the dataset
+   * @throws IOException if something goes wrong during the reading
+   * @throws IllegalArgumentException with NOT_A_DAG_ERROR if the initial graph has a cycle
+   */
+  static Dataset load(ServletContext context, Consumer<String> progress) throws IOException {
+    progress.accept("reading the graph and the mutations");
+    CompletableFuture<List<MultiMutation>> mutations =
+        CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return loadMutations(context);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+    DataGraph original = DataGraph.create();
+    if (!loadGraph(context, original)) {
+      throw new IllegalArgumentException(NOT_A_DAG_ERROR);
+    }
+    List<MultiMutation> mutList;
+    try {
+      mutList = mutations.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+    // The size of a streamed log is the number of records read so far, and the indices below need
+    // all of them
+    if (mutList instanceof StreamingMutationLog) {
+      ((StreamingMutationLog) mutList).awaitComplete();
+    }
+
+    progress.accept("building checkpoints");
+    CheckpointIndex checkpoints =
+        CheckpointIndex.build(original, mutList, CheckpointIndex.configuredInterval());
+    context.log(checkpoints.report());
+    // The index is built after the checkpoints, which replace most multi-mutations with their
+    // deduplicated versions, so that it doesn't list tokens that are added twice
+    progress.accept("indexing the mutations");
+    MutationIndex mutationIndex = MutationIndex.build(mutList);
+    context.log(mutationIndex.report());
+    return create(original, mutList, checkpoints, mutationIndex);
+  }
+
+  /**
+   * Reads the initial graph from the memory-mapped or binary snapshot if one was deployed, and from
+   * the textproto otherwise
+   *
+   * @param context the servlet context to read the files from
+   * @param original the empty data graph to populate
+   * @return false if the graph was not acyclic, true otherwise
+   * @throws IOException if something goes wrong during the reading
+   */
+  private static boolean loadGraph(ServletContext context, DataGraph original) throws IOException {
+    // getRealPath returns null when the application is not deployed as a directory
+    String mappedPath = context.getRealPath(MAPPED_GRAPH_PATH);
+    if (mappedPath != null && Files.isRegularFile(Paths.get(mappedPath))) {
+      return original.graphFromSnapshot(MappedGraphSnapshot.open(Paths.get(mappedPath)));
+    }
+
+    Graph protoGraph;
+    InputStream snapshotInput = context.getResourceAsStream(GRAPH_SNAPSHOT_PATH);
+    if (snapshotInput != null) {
+      try (InputStream graphInput = snapshotInput) {
+        protoGraph = readGraphSnapshot(graphInput);
+      }
+    } else {
+      try (InputStream graphInput = context.getResourceAsStream(GRAPH_TEXT_PATH)) {
+        protoGraph = readGraphText(graphInput);
+      }
+    }
+
+    Map<String, Node> protoNodesMap = protoGraph.getNodesMapMap();
+    return original.graphFromProtoNodes(protoNodesMap);
+  }
+
+  /**
+   * Reads the mutation list. If a stream of length-delimited records was deployed, it is read
+   * incrementally in the background. Otherwise the list is read from the binary snapshot if there
+   * is one, and from the textproto if not. Either way, every node and token name in the list is
+   * registered with NameDictionary.
+   *
+   * @param context the servlet context to read the files from
+   * @return the list of multi-mutations, whose elements can be replaced from any thread
+   * @throws IOException if something goes wrong during the reading
+   */
+  private static List<MultiMutation> loadMutations(ServletContext context) throws IOException {
+    // getRealPath returns null when the application is not deployed as a directory
+    String streamPath = context.getRealPath(MUTATIONS_STREAM_PATH);
+    if (streamPath != null && Files.isRegularFile(Paths.get(streamPath))) {
+      return StreamingMutationLog.open(Paths.get(streamPath), MUTATION_WINDOW_SIZE);
+    }
+
+    List<MultiMutation> mutList;
+    InputStream snapshotInput = context.getResourceAsStream(MUTATIONS_SNAPSHOT_PATH);
+    if (snapshotInput != null) {
+      try (InputStream mutationInput = snapshotInput) {
+        mutList = new AtomicMutationList(readMutationsSnapshot(mutationInput).getMutationList());
+      }
+    } else {
+      try (InputStream mutationInput = context.getResourceAsStream(MUTATIONS_TEXT_PATH)) {
+        mutList = new AtomicMutationList(readMutationsText(mutationInput).getMutationList());
+      }
+    }
+    mutList.forEach(NameDictionary::addNames);
+    return mutList;
+  }
+}
@@ -0,0 +1,231 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.json.JSONObject;
+
+/**
+ * Loads the dataset in the background as soon as the application starts, so that the first request
+ * doesn't have to wait for the graph to be read and its checkpoints and index to be built. Until it
+ * is done, /data answers every request with the stage the loading is at.
+ */
+@WebListener
+public final class DatasetLoader implements ServletContextListener {
+
+  // The servlet context attribute holding the loader, read by DataServlet and StatsServlet
+  static final String ATTRIBUTE = DatasetLoader.class.getName();
+
+  // The thread the dataset is loaded on
+  private ExecutorService loader = null;
+
+  // The loaded dataset, null until loading succeeds
+  private volatile Dataset dataset = null;
+  // The replay cursors, the response cache and the reachability indices of the dataset, set
+  // before it
+  private CursorPool cursorPool = null;
+  private ResponseCache responseCache = null;
+  private ReachabilityIndexCache reachabilityIndices = null;
+  // The reason the dataset could not be loaded, null unless loading failed
+  private volatile String error = null;
+  // The stage the loading is at
+  private volatile String stage = "starting";
+  // When loading started and how long it took, in milliseconds
+  private volatile long startMillis = 0;
+  private volatile long loadMillis = -1;
+
+  /**
+   * Returns the loader of the application
+   *
+   * @param context the servlet context of the application
+   * @return the loader, or null if the application didn't start it
+   */
+  static DatasetLoader of(ServletContext context) {
+    return (DatasetLoader) context.getAttribute(ATTRIBUTE);
+  }
+
+  /*
+   * Starts loading the dataset when the application starts
+   */
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    start(event.getServletContext());
+  }
+
+  /*
+   * Stops loading the dataset if the application stops first, and stops the workers the servlets
+   * share, interrupting the requests they are running
+   */
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    if (loader != null) {
+      loader.shutdownNow();
+    }
+    RequestExecutor.shutdown(event.getServletContext());
+  }
+
+  /**
+   * Publishes the loader in the servlet context and starts loading the dataset on another thread
+   *
+   * @param context the servlet context to read the files from and to log to
+   */
+  void start(ServletContext context) {
+    context.setAttribute(ATTRIBUTE, this);
+    loader =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("dataset-loader").setDaemon(true).build());
+    loader.execute(() -> load(context));
+  }
+
+  /**
+   * Loads the dataset, creates its cursor pool, response cache and reachability indices and records
+   * the outcome
+   *
+   * @param context the servlet context to read the files from and to log to
+   */
+  void load(ServletContext context) {
+    startMillis = System.currentTimeMillis();
+    try {
+      Dataset loaded =
+          Dataset.load(
+              context,
+              next -> {
+                stage = next;
+                context.log("Loading the dataset: " + next);
+              });
+      cursorPool = new CursorPool(loaded, CursorPool.configuredSize());
+      context.setAttribute(DataServlet.CURSOR_POOL_ATTRIBUTE, cursorPool);
+      responseCache = new ResponseCache(ResponseCache.configuredBudget());
+      context.setAttribute(DataServlet.RESPONSE_CACHE_ATTRIBUTE, responseCache);
+      stage = "indexing reachability";
+      context.log("Loading the dataset: " + stage);
+      reachabilityIndices =
+          new ReachabilityIndexCache(loaded, cursorPool, ReachabilityIndexCache.configuredSize());
+      if (reachabilityIndices.isEnabled()) {
+        context.log(reachabilityIndices.indexAt(loaded.original().numMutations()).report());
+      }
+      loadMillis = System.currentTimeMillis() - startMillis;
+      // Publishing the dataset also publishes the pool and the cache
+      dataset = loaded;
+      stage = "ready";
+      context.log("Loaded the dataset in " + loadMillis + " ms");
+    } catch (IOException | InterruptedException | RuntimeException e) {
+      // The message of an IllegalArgumentException, such as NOT_A_DAG_ERROR, is meant for users
+      error =
+          e instanceof IllegalArgumentException ? e.getMessage() : "Failed to load the dataset";
+      stage = "failed";
+      context.log("Failed to load the dataset", e);
+    }
+  }
+
+  /**
+   * Returns the loaded dataset
+   *
+   * @return the dataset, or null if it isn't loaded yet or failed to load
+   */
+  Dataset dataset() {
+    return dataset;
+  }
+
+  /**
+   * Returns the replay cursors shared by all requests
+   *
+   * @return the pool, or null if the dataset isn't loaded
+   */
+  CursorPool cursorPool() {
+    return dataset == null ? null : cursorPool;
+  }
+
+  /**
+   * Returns the cache of rendered /data responses
+   *
+   * @return the cache, or null if the dataset isn't loaded
+   */
+  ResponseCache responseCache() {
+    return dataset == null ? null : responseCache;
+  }
+
+  /**
+   * Returns the reachability indices of the graphs of the dataset
+   *
+   * @return the indices, or null if the dataset isn't loaded
+   */
+  ReachabilityIndexCache reachabilityIndices() {
+    return dataset == null ? null : reachabilityIndices;
+  }
+
+  /**
+   * Returns why the dataset could not be loaded
+   *
+   * @return the reason, or null if loading hasn't failed
+   */
+  String error() {
+    return error;
+  }
+
+  /**
+   * Returns the stage the loading is at
+   *
+   * @return a short description of the stage
+   */
+  String stage() {
+    return stage;
+  }
+
+  /**
+   * Answers a request that needs the dataset before it is loaded
+   *
+   * @param response the response to set the serverError header of
+   */
+  void sendNotReady(HttpServletResponse response) {
+    if (error != null) {
+      response.setHeader("serverError", error);
+      return;
+    }
+    // The server is not ready yet, so tell the client to come back rather than wait
+    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.setHeader("Retry-After", "1");
+    response.setHeader(
+        "serverError", "The server is still starting up (" + stage + "), please try again soon");
+  }
+
+  /**
+   * Returns the stage of the loading and how long it has taken
+   *
+   * @return the progress as a JSON object
+   */
+  JSONObject metrics() {
+    long elapsed =
+        loadMillis >= 0
+            ? loadMillis
+            : startMillis == 0 ? 0 : System.currentTimeMillis() - startMillis;
+    JSONObject metrics = new JSONObject().put("stage", stage).put("elapsedMillis", elapsed);
+    if (dataset != null) {
+      metrics.put("reachabilityIndices", reachabilityIndices.metrics());
+    }
+    return metrics;
+  }
+}
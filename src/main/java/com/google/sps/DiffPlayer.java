@@ -0,0 +1,167 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.graph.MutableGraph;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+
+import static com.google.sps.Utility.filterMultiMutationByNodes;
+import static com.google.sps.Utility.getGraphAtMutationNumber;
+import static com.google.sps.Utility.getMultiMutationAtIndex;
+import static com.google.sps.Utility.getNodeNamesInGraph;
+
+/**
+ * Plays the mutation list forwards from some mutation number, one multi-mutation at a time, on a
+ * private copy of the graph. Each step yields the part of its multi-mutation that /data would show
+ * for the same query, and the nodes it changed, so a client can animate through many steps without
+ * fetching the whole graph at each of them.
+ */
+final class DiffPlayer {
+
+  /** The changes of a single step */
+  @AutoValue
+  abstract static class Step {
+
+    static Step create(int mutationNum, MultiMutation diff, List<GraphNode> changedNodes) {
+      return new AutoValue_DiffPlayer_Step(mutationNum, diff, changedNodes);
+    }
+
+    // The index of the multi-mutation applied by the step
+    abstract int mutationNum();
+
+    // The mutations of the step relevant to the query, with their reason
+    abstract MultiMutation diff();
+
+    // The nodes touched by those mutations that still exist after the step, as they are after it
+    abstract List<GraphNode> changedNodes();
+  }
+
+  private final Dataset dataset;
+  private final ImmutableSet<String> nodeNames;
+  private final String tokenName;
+  private final int radius;
+
+  // The graph after the last step, which only this player modifies
+  private DataGraph graph;
+  // The nodes that had the queried token before the next step
+  private Set<String> tokenNodes;
+
+  /**
+   * Creates a player positioned at a graph
+   *
+   * @param dataset the dataset the graph belongs to
+   * @param start the graph to start from, which is copied rather than modified
+   * @param nodeNames the names of the queried nodes
+   * @param tokenName the queried token, empty if there is none
+   * @param radius the maximum distance of the shown nodes from the queried ones
+   */
+  DiffPlayer(
+      Dataset dataset, DataGraph start, Set<String> nodeNames, String tokenName, int radius) {
+    this.dataset = dataset;
+    this.nodeNames = ImmutableSet.copyOf(nodeNames);
+    this.tokenName = tokenName;
+    this.radius = radius;
+    this.graph = start.getCopy();
+    this.tokenNodes = nodesWithToken(graph);
+  }
+
+  /**
+   * Returns the mutation number the player is at
+   *
+   * @return the index of the last applied multi-mutation
+   */
+  int mutationNum() {
+    return graph.numMutations();
+  }
+
+  /**
+   * Applies the next multi-mutation
+   *
+   * @return its changes, or null if the player is at the end of the mutation list
+   * @throws IllegalArgumentException if a mutation cannot be applied
+   */
+  Step next() {
+    int mutationNum = graph.numMutations() + 1;
+    if (mutationNum >= dataset.mutList().size()) {
+      return null;
+    }
+    // The graph is one step away, so it is modified in place unless a checkpoint is right there
+    graph =
+        getGraphAtMutationNumber(
+            dataset.original(), graph, mutationNum, dataset.mutList(), dataset.checkpoints());
+    MultiMutation diff = getMultiMutationAtIndex(dataset.mutList(), mutationNum);
+
+    // As in /data, the mutations of nodes that had or have the token are shown for this step
+    Set<String> tokenNodesNext = nodesWithToken(graph);
+    Set<String> queried = new HashSet<>(nodeNames);
+    queried.addAll(tokenNodes);
+    queried.addAll(tokenNodesNext);
+    tokenNodes = tokenNodesNext;
+
+    MultiMutation filteredDiff;
+    boolean isQuery = !nodeNames.isEmpty() || !tokenName.isEmpty();
+    if (isQuery && queried.isEmpty()) {
+      // A token no node has shows nothing, rather than the whole graph
+      filteredDiff = MultiMutation.newBuilder().setReason(diff.getReason()).build();
+    } else {
+      // Without a query, the nodes within the radius of the roots are shown
+      MutableGraph<GraphNode> shownGraph = graph.getReachableNodes(queried, radius);
+      if (!isQuery && shownGraph.equals(graph.graph())) {
+        filteredDiff = diff;
+      } else {
+        Set<String> shown = getNodeNamesInGraph(shownGraph);
+        filteredDiff = filterMultiMutationByNodes(diff, Sets.union(shown, queried));
+      }
+    }
+    return Step.create(mutationNum, filteredDiff, changedNodes(filteredDiff));
+  }
+
+  // Returns the nodes that have the queried token in a graph
+  private Set<String> nodesWithToken(DataGraph graph) {
+    Set<String> nodes = tokenName.isEmpty() ? null : graph.tokenMap().get(tokenName);
+    // The set belongs to the graph, which the next step modifies
+    return nodes == null ? Collections.emptySet() : new HashSet<>(nodes);
+  }
+
+  // Returns the nodes touched by some mutations, as they are in the current graph
+  private List<GraphNode> changedNodes(MultiMutation diff) {
+    Set<String> names = new LinkedHashSet<>();
+    for (Mutation mutation : diff.getMutationList()) {
+      names.add(mutation.getStartNode());
+      if (!mutation.getEndNode().isEmpty()) {
+        names.add(mutation.getEndNode());
+      }
+    }
+    List<GraphNode> nodes = new ArrayList<>();
+    for (String name : names) {
+      GraphNode node = graph.graphNodesMap().get(name);
+      if (node != null) {
+        nodes.add(node);
+      }
+    }
+    return nodes;
+  }
+}
@@ -0,0 +1,138 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** This file tests the following functions: - DiffPlayer.next - DiffPlayer.mutationNum */
+@RunWith(JUnit4.class)
+public final class DiffPlayerTest {
+
+  // Number of multi-mutations in the test list
+  private static final int LOG_SIZE = 10;
+
+  Dataset dataset;
+
+  /*
+   * The list adds nodes N0, N1, ... linked in a chain to the root R
+   */
+  @Before
+  public void setUp() {
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    protoNodesMap.put("R", Node.newBuilder().setName("R").build());
+    DataGraph original = DataGraph.create();
+    original.graphFromProtoNodes(protoNodesMap);
+
+    List<MultiMutation> multiMutList = new ArrayList<>();
+    for (int i = 0; i < LOG_SIZE; i++) {
+      String parent = i == 0 ? "R" : "N" + (i - 1);
+      multiMutList.add(
+          MultiMutation.newBuilder()
+              .setReason("step " + i)
+              .addMutation(
+                  Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode("N" + i))
+              .addMutation(
+                  Mutation.newBuilder()
+                      .setType(Mutation.Type.ADD_EDGE)
+                      .setStartNode(parent)
+                      .setEndNode("N" + i))
+              .build());
+    }
+    dataset =
+        Dataset.create(
+            original, multiMutList, CheckpointIndex.empty(), MutationIndex.build(multiMutList));
+  }
+
+  /*
+   * Check that without a query and with a radius covering the whole graph every step yields its
+   * whole multi-mutation and the nodes it touched, and that the player stops at the end of the list
+   */
+  @Test
+  public void wholeSteps() {
+    DiffPlayer player =
+        new DiffPlayer(dataset, dataset.original(), Collections.emptySet(), "", LOG_SIZE);
+    for (int i = 0; i < LOG_SIZE; i++) {
+      DiffPlayer.Step step = player.next();
+      Assert.assertEquals(i, step.mutationNum());
+      Assert.assertEquals(i, player.mutationNum());
+      Assert.assertEquals(dataset.mutList().get(i), step.diff());
+      String parent = i == 0 ? "R" : "N" + (i - 1);
+      Assert.assertEquals(Arrays.asList("N" + i, parent), names(step));
+    }
+    Assert.assertNull(player.next());
+    // The initial graph is copied rather than modified
+    Assert.assertEquals(1, dataset.original().graph().nodes().size());
+  }
+
+  /*
+   * Check that without a query, as in /data, only the mutations of the nodes within the radius of
+   * the roots are shown once the graph is deeper than the radius
+   */
+  @Test
+  public void stepsAroundRoots() {
+    DiffPlayer player =
+        new DiffPlayer(dataset, dataset.original(), Collections.emptySet(), "", 1);
+
+    // N0 is next to the root R, so the graph is still within the radius
+    DiffPlayer.Step first = player.next();
+    Assert.assertEquals(dataset.mutList().get(0), first.diff());
+    for (int i = 1; i < LOG_SIZE; i++) {
+      DiffPlayer.Step step = player.next();
+      Assert.assertEquals(0, step.diff().getMutationCount());
+      Assert.assertEquals("step " + i, step.diff().getReason());
+      Assert.assertTrue(step.changedNodes().isEmpty());
+    }
+  }
+
+  /*
+   * Check that with a queried node only the mutations of the nodes around it are shown
+   */
+  @Test
+  public void filteredSteps() {
+    DiffPlayer player =
+        new DiffPlayer(dataset, dataset.original(), Collections.singleton("N0"), "", 1);
+
+    DiffPlayer.Step first = player.next();
+    Assert.assertEquals(2, first.diff().getMutationCount());
+    // N1 is added next to N0
+    DiffPlayer.Step second = player.next();
+    Assert.assertEquals(2, second.diff().getMutationCount());
+    // N2 is two steps away from N0
+    DiffPlayer.Step third = player.next();
+    Assert.assertEquals(0, third.diff().getMutationCount());
+    Assert.assertEquals("step 2", third.diff().getReason());
+    Assert.assertTrue(third.changedNodes().isEmpty());
+  }
+
+  // Returns the names of the nodes a step changed, in order
+  private static List<String> names(DiffPlayer.Step step) {
+    return step.changedNodes().stream().map(GraphNode::name).collect(Collectors.toList());
+  }
+}
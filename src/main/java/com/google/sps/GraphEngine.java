@@ -0,0 +1,84 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.Graphs;
+import com.google.common.graph.MutableGraph;
+
+/**
+ * The implementations of MutableGraph that a DataGraph can be built on. The engine used for new
+ * data graphs is read from the sps.graph.engine system property, which can be set in
+ * appengine-web.xml, and defaults to GUAVA.
+ */
+enum GraphEngine {
+  // Guava's hash-based directed graph
+  GUAVA {
+    @Override
+    MutableGraph<GraphNode> newGraph() {
+      return GraphBuilder.directed().build();
+    }
+  },
+  // AdjacencyArrayGraph, which stores adjacency in primitive arrays
+  ADJACENCY_ARRAY {
+    @Override
+    MutableGraph<GraphNode> newGraph() {
+      return new AdjacencyArrayGraph();
+    }
+  },
+  // PersistentGraph, which stores adjacency in hash array mapped tries and copies in constant time
+  PERSISTENT {
+    @Override
+    MutableGraph<GraphNode> newGraph() {
+      return new PersistentGraph();
+    }
+  };
+
+  // The system property that selects the engine
+  static final String PROPERTY = "sps.graph.engine";
+
+  /**
+   * Creates an empty directed graph without self-loops
+   *
+   * @return the new graph
+   */
+  abstract MutableGraph<GraphNode> newGraph();
+
+  /**
+   * Returns the engine selected by the sps.graph.engine system property
+   *
+   * @return the selected engine, GUAVA if the property isn't set
+   * @throws IllegalArgumentException if the property doesn't name an engine
+   */
+  static GraphEngine current() {
+    return valueOf(System.getProperty(PROPERTY, GUAVA.name()));
+  }
+
+  /**
+   * Returns a copy of the given graph that uses the same engine
+   *
+   * @param graph the graph to copy
+   * @return a copy of the graph sharing no mutable state with it
+   */
+  static MutableGraph<GraphNode> copyOf(MutableGraph<GraphNode> graph) {
+    if (graph instanceof AdjacencyArrayGraph) {
+      return ((AdjacencyArrayGraph) graph).copy();
+    }
+    if (graph instanceof PersistentGraph) {
+      return ((PersistentGraph) graph).copy();
+    }
+    return Graphs.copyOf(graph);
+  }
+}
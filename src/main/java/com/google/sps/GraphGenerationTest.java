@@ -14,6 +14,7 @@
 
 package com.google.sps;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -38,7 +39,8 @@ import static com.google.sps.Utility.protoNodeToGraphNode;
 
 /**
  * This file tests the following functions: - Utility.protoNodeToGraphNode - graphFromProtoNode in
- * DataGraph.java - getCopy in DataGraph.java - Utility.getNodeNamesInGraph
+ * DataGraph.java, including its parallel construction of large graphs - getCopy in DataGraph.java -
+ * DataGraph.create - Utility.getNodeNamesInGraph
  */
 @RunWith(JUnit4.class)
 public final class GraphGenerationTest {
@@ -203,6 +205,96 @@ public final class GraphGenerationTest {
     Assert.assertFalse(success);
   }
 
+  /*
+   * Check that a graph large enough to be built on multiple threads has the expected nodes, edges,
+   * roots and tokens. Node i has children 2i + 1 and 2i + 2 and the token i % 10.
+   */
+  @Test
+  public void largeGraph() {
+    int nodeCount = 10000;
+    Map<String, Node> protoNodesMap = new HashMap<>();
+    for (int i = 0; i < nodeCount; i++) {
+      Builder node = Node.newBuilder().setName("N" + i).addToken("T" + (i % 10));
+      for (int child = 2 * i + 1; child <= 2 * i + 2 && child < nodeCount; child++) {
+        node.addChildren("N" + child);
+      }
+      protoNodesMap.put("N" + i, node.build());
+    }
+
+    DataGraph dataGraph = DataGraph.create();
+    Assert.assertTrue(dataGraph.graphFromProtoNodes(protoNodesMap));
+
+    MutableGraph<GraphNode> graph = dataGraph.graph();
+    Assert.assertEquals(nodeCount, graph.nodes().size());
+    Assert.assertEquals(nodeCount - 1, graph.edges().size());
+    Assert.assertTrue(
+        graph.hasEdgeConnecting(
+            dataGraph.graphNodesMap().get("N4"), dataGraph.graphNodesMap().get("N10")));
+    Assert.assertEquals(Collections.singleton("N0"), dataGraph.roots());
+    Assert.assertEquals(10, dataGraph.tokenMap().size());
+    Assert.assertEquals(nodeCount / 10, dataGraph.tokenMap().get("T3").size());
+    Assert.assertTrue(dataGraph.tokenMap().get("T3").contains("N9993"));
+  }
+
+  /*
+   * Check that a 2-cycle is detected in a graph large enough to be built on multiple threads
+   */
+  @Test
+  public void largeNotDAG() {
+    int nodeCount = 10000;
+    Map<String, Node> protoNodesMap = new HashMap<>();
+    for (int i = 0; i < nodeCount; i++) {
+      Builder node = Node.newBuilder().setName("N" + i);
+      if (i + 1 < nodeCount) {
+        node.addChildren("N" + (i + 1));
+      }
+      protoNodesMap.put("N" + i, node.build());
+    }
+    protoNodesMap.put("N7000", protoNodesMap.get("N7000").toBuilder().addChildren("N6999").build());
+
+    DataGraph dataGraph = DataGraph.create();
+    Assert.assertFalse(dataGraph.graphFromProtoNodes(protoNodesMap));
+  }
+
+  /*
+   * Check that a cycle through several nodes is detected, and that the nodes of a DAG are ranked
+   * parents first
+   */
+  @Test
+  public void longCycleNotDAG() {
+    Map<String, Node> protoNodesMap = new HashMap<>();
+    protoNodesMap.put("A", nodeA.addChildren("B").build());
+    protoNodesMap.put("B", nodeB.addChildren("C").build());
+    protoNodesMap.put("C", nodeC.build());
+
+    DataGraph dataGraph = DataGraph.create();
+    Assert.assertTrue(dataGraph.graphFromProtoNodes(protoNodesMap));
+    Assert.assertTrue(dataGraph.topologicalRank("A") < dataGraph.topologicalRank("B"));
+    Assert.assertTrue(dataGraph.topologicalRank("B") < dataGraph.topologicalRank("C"));
+
+    protoNodesMap.put("C", nodeC.addChildren("A").build());
+    Assert.assertFalse(DataGraph.create().graphFromProtoNodes(protoNodesMap));
+  }
+
+  /*
+   * Check that creating a data graph from a graph with a cycle fails, since no topological order of
+   * it exists
+   */
+  @Test
+  public void createRejectsCycle() {
+    MutableGraph<GraphNode> graph = GraphBuilder.directed().build();
+    graph.putEdge(gNodeA, gNodeB);
+    graph.putEdge(gNodeB, gNodeC);
+    graph.putEdge(gNodeC, gNodeA);
+
+    try {
+      DataGraph.create(graph, new HashMap<>(), new HashSet<>(), 0, new HashMap<>());
+      Assert.fail("Created a data graph with a cycle");
+    } catch (IllegalArgumentException e) {
+      Assert.assertEquals(Dataset.NOT_A_DAG_ERROR, e.getMessage());
+    }
+  }
+
   /*
    * Make sure a data graph's copy function returns a copy of the original data graph
    */
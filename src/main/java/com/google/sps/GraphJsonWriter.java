@@ -0,0 +1,183 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.graph.EndpointPair;
+import com.google.gson.stream.JsonWriter;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.proto.MutationProtos.Mutation;
+
+/**
+ * Writes version 2 of the /data response: the same fields as graphToJson, but as nested arrays and
+ * objects rather than JSON strings inside a JSON object. The response is written in one pass as it
+ * is encoded, so besides the output buffer only the table of node indices grows with its size.
+ *
+ * <p>Each node is written once, as an object with a name, a token list and its metadata as plain
+ * JSON. Edges are [source, target] pairs of indices into the node array, so the payload of a node
+ * is not repeated for each of its edges. Mutations are objects with a numeric type, a start node,
+ * an end node and, for token changes, a token change with a numeric type and the token names.
+ */
+final class GraphJsonWriter {
+
+  // The protocol version written in the response
+  static final int VERSION = 2;
+
+  private GraphJsonWriter() {}
+
+  /**
+   * Writes a view as a version 2 response
+   *
+   * @param view the view to write
+   * @param out where to write it, which is not closed
+   * @throws IOException if writing fails
+   */
+  static void write(GraphView view, Writer out) throws IOException {
+    JsonWriter json = new JsonWriter(out);
+    writeView(json, view);
+    json.flush();
+  }
+
+  /**
+   * Writes a view as a version 2 response object, for example as an element of an array
+   *
+   * @param json the writer to write the object to
+   * @param view the view to write
+   * @throws IOException if writing fails
+   */
+  static void writeView(JsonWriter json, GraphView view) throws IOException {
+    json.beginObject();
+    json.name("version").value(VERSION);
+
+    // The index of each node in the node array, by name
+    Map<String, Integer> indices = new HashMap<>();
+    json.name("nodes").beginArray();
+    for (GraphNode node : view.graph().nodes()) {
+      indices.put(node.name(), indices.size());
+      writeNode(json, node);
+    }
+    json.endArray();
+
+    json.name("edges").beginArray();
+    for (EndpointPair<GraphNode> edge : view.graph().edges()) {
+      json.beginArray();
+      json.value(indices.get(edge.nodeU().name()));
+      json.value(indices.get(edge.nodeV().name()));
+      json.endArray();
+    }
+    json.endArray();
+
+    json.name("mutationDiff").beginArray();
+    if (view.diff() != null) {
+      for (Mutation mutation : view.diff().getMutationList()) {
+        writeMutation(json, mutation);
+      }
+    }
+    json.endArray();
+    json.name("reason").value(view.diff() == null ? "" : view.diff().getReason());
+
+    json.name("mutationIndices").beginArray();
+    for (int index : view.mutationIndices()) {
+      json.value(index);
+    }
+    json.endArray();
+    json.name("totalMutNumber").value(view.totalMutations());
+
+    json.name("queriedNodes").beginArray();
+    for (String name : view.queried()) {
+      json.value(name);
+    }
+    json.endArray();
+
+    json.endObject();
+  }
+
+  // Writes a node as an object with its name, its tokens and its metadata
+  static void writeNode(JsonWriter json, GraphNode node) throws IOException {
+    json.beginObject();
+    json.name("name").value(node.name());
+    json.name("tokenList").beginArray();
+    for (String token : node.tokenList()) {
+      json.value(token);
+    }
+    json.endArray();
+    json.name("metadata");
+    writeStruct(json, node.metadata());
+    json.endObject();
+  }
+
+  // Writes a mutation as an object with a numeric type
+  static void writeMutation(JsonWriter json, Mutation mutation) throws IOException {
+    json.beginObject();
+    json.name("type").value(mutation.getTypeValue());
+    json.name("startNode").value(mutation.getStartNode());
+    json.name("endNode").value(mutation.getEndNode());
+    if (mutation.hasTokenChange()) {
+      json.name("tokenChange").beginObject();
+      json.name("type").value(mutation.getTokenChange().getTypeValue());
+      json.name("tokenName").beginArray();
+      for (String tokenName : mutation.getTokenChange().getTokenNameList()) {
+        json.value(tokenName);
+      }
+      json.endArray();
+      json.endObject();
+    }
+    json.endObject();
+  }
+
+  // Writes a struct as the JSON object it represents
+  private static void writeStruct(JsonWriter json, Struct struct) throws IOException {
+    json.beginObject();
+    for (Map.Entry<String, Value> field : struct.getFieldsMap().entrySet()) {
+      json.name(field.getKey());
+      writeValue(json, field.getValue());
+    }
+    json.endObject();
+  }
+
+  // Writes a struct value as the JSON value it represents
+  private static void writeValue(JsonWriter json, Value value) throws IOException {
+    switch (value.getKindCase()) {
+      case NUMBER_VALUE:
+        json.value(value.getNumberValue());
+        break;
+      case STRING_VALUE:
+        json.value(value.getStringValue());
+        break;
+      case BOOL_VALUE:
+        json.value(value.getBoolValue());
+        break;
+      case STRUCT_VALUE:
+        writeStruct(json, value.getStructValue());
+        break;
+      case LIST_VALUE:
+        json.beginArray();
+        ListValue list = value.getListValue();
+        for (Value element : list.getValuesList()) {
+          writeValue(json, element);
+        }
+        json.endArray();
+        break;
+      default:
+        json.nullValue();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+import com.proto.MutationProtos.TokenMutation;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.sps.Utility.protoNodeToGraphNode;
+
+/** This file tests the following functions: - GraphJsonWriter.write */
+@RunWith(JUnit4.class)
+public final class GraphJsonWriterTest {
+
+  /*
+   * Tests that nodes, edges and mutations are written as nested JSON rather than as strings
+   */
+  @Test
+  public void nestedFields() throws IOException {
+    Struct metadata =
+        Struct.newBuilder()
+            .putFields("size", Value.newBuilder().setNumberValue(3).build())
+            .putFields("kind", Value.newBuilder().setStringValue("leaf").build())
+            .build();
+    GraphNode nodeA =
+        protoNodeToGraphNode(
+            Node.newBuilder().setName("A").addToken("1").setMetadata(metadata).build());
+    GraphNode nodeB = protoNodeToGraphNode(Node.newBuilder().setName("B").build());
+    MutableGraph<GraphNode> graph = GraphBuilder.directed().build();
+    graph.putEdge(nodeA, nodeB);
+
+    MultiMutation diff =
+        MultiMutation.newBuilder()
+            .setReason("test")
+            .addMutation(
+                Mutation.newBuilder()
+                    .setType(Mutation.Type.CHANGE_TOKEN)
+                    .setStartNode("A")
+                    .setTokenChange(
+                        TokenMutation.newBuilder()
+                            .setType(TokenMutation.Type.ADD_TOKEN)
+                            .addTokenName("2")))
+            .build();
+
+    StringWriter out = new StringWriter();
+    GraphJsonWriter.write(
+        GraphView.create(graph, Arrays.asList(1, 4), diff, 7, ImmutableSet.of("A")), out);
+    JSONObject json = new JSONObject(out.toString());
+
+    Assert.assertEquals(GraphJsonWriter.VERSION, json.getInt("version"));
+    JSONArray nodes = json.getJSONArray("nodes");
+    Assert.assertEquals(2, nodes.length());
+    for (int i = 0; i < nodes.length(); i++) {
+      JSONObject node = nodes.getJSONObject(i);
+      if (node.getString("name").equals("A")) {
+        Assert.assertEquals("1", node.getJSONArray("tokenList").getString(0));
+        Assert.assertEquals(3, node.getJSONObject("metadata").getInt("size"));
+        Assert.assertEquals("leaf", node.getJSONObject("metadata").getString("kind"));
+      }
+    }
+
+    JSONArray edge = json.getJSONArray("edges").getJSONArray(0);
+    Assert.assertEquals("A", nodes.getJSONObject(edge.getInt(0)).getString("name"));
+    Assert.assertEquals("B", nodes.getJSONObject(edge.getInt(1)).getString("name"));
+
+    JSONObject mutation = json.getJSONArray("mutationDiff").getJSONObject(0);
+    Assert.assertEquals(Mutation.Type.CHANGE_TOKEN_VALUE, mutation.getInt("type"));
+    Assert.assertEquals("A", mutation.getString("startNode"));
+    Assert.assertEquals(
+        TokenMutation.Type.ADD_TOKEN_VALUE, mutation.getJSONObject("tokenChange").getInt("type"));
+    Assert.assertEquals(
+        "2", mutation.getJSONObject("tokenChange").getJSONArray("tokenName").getString(0));
+
+    Assert.assertEquals("test", json.getString("reason"));
+    Assert.assertEquals(4, json.getJSONArray("mutationIndices").getInt(1));
+    Assert.assertEquals(7, json.getInt("totalMutNumber"));
+    Assert.assertEquals("A", json.getJSONArray("queriedNodes").getString(0));
+  }
+
+  /*
+   * Tests that a view without a diff has an empty diff and reason
+   */
+  @Test
+  public void noDiff() throws IOException {
+    StringWriter out = new StringWriter();
+    GraphJsonWriter.write(
+        GraphView.create(
+            GraphBuilder.directed().build(),
+            Collections.emptyList(),
+            null,
+            0,
+            Collections.emptySet()),
+        out);
+    JSONObject json = new JSONObject(out.toString());
+
+    Assert.assertEquals(0, json.getJSONArray("mutationDiff").length());
+    Assert.assertEquals("", json.getString("reason"));
+    Assert.assertEquals(0, json.getJSONArray("nodes").length());
+  }
+}
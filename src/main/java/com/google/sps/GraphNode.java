@@ -12,8 +12,11 @@ import java.util.List;
  */
 @AutoValue
 public abstract class GraphNode {
+  // The name is interned, so that every node name is registered in NameDictionary when the node is
+  // loaded. The node keeps the id of its name, so graph algorithms don't have to look it up.
   public static GraphNode create(String name, List<String> tokenList, Struct metadata) {
-    return new AutoValue_GraphNode(name, tokenList, metadata);
+    int id = NameDictionary.id(name);
+    return new AutoValue_GraphNode(NameDictionary.name(id), tokenList, metadata, id);
   }
 
   // The name of the graph node
@@ -25,6 +28,9 @@ public abstract class GraphNode {
   // A structured object representing the node's metadata, for eg. source code location
   public abstract Struct metadata();
 
+  // The id of the name in NameDictionary, which nodes with the same name share
+  abstract int id();
+
   // We modify the hash code function so that nodes with the same name have equal hashes
   public int hashCode() {
     return name().hashCode();
@@ -0,0 +1,119 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.graph.EndpointPair;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.proto.GraphProtos.Node;
+import com.proto.ResponseProtos.Edge;
+import com.proto.ResponseProtos.GraphResponse;
+
+/**
+ * Writes the /data response as a GraphResponse message, defined in response.proto. The message is
+ * encoded field by field as the view is read, so neither a GraphResponse nor a copy of the graph is
+ * built first, and besides the output buffer only the table of node indices grows with its size.
+ */
+final class GraphProtoWriter {
+
+  // Field numbers of GraphResponse, from the classes generated for response.proto
+  private static final int NODES_FIELD = GraphResponse.NODES_FIELD_NUMBER;
+  private static final int EDGES_FIELD = GraphResponse.EDGES_FIELD_NUMBER;
+  private static final int MUTATION_DIFF_FIELD = GraphResponse.MUTATION_DIFF_FIELD_NUMBER;
+  private static final int MUTATION_INDICES_FIELD = GraphResponse.MUTATION_INDICES_FIELD_NUMBER;
+  private static final int TOTAL_MUT_NUMBER_FIELD = GraphResponse.TOTAL_MUT_NUMBER_FIELD_NUMBER;
+  private static final int QUERIED_NODES_FIELD = GraphResponse.QUERIED_NODES_FIELD_NUMBER;
+
+  // Field numbers of Edge
+  private static final int SOURCE_FIELD = Edge.SOURCE_FIELD_NUMBER;
+  private static final int TARGET_FIELD = Edge.TARGET_FIELD_NUMBER;
+
+  private GraphProtoWriter() {}
+
+  /**
+   * Writes a view as a GraphResponse
+   *
+   * @param view the view to write
+   * @param out where to write it, which is not closed
+   * @throws IOException if writing fails
+   */
+  static void write(GraphView view, OutputStream out) throws IOException {
+    CodedOutputStream coded = CodedOutputStream.newInstance(out);
+
+    // The index of each node in the node list, by name
+    Map<String, Integer> indices = new HashMap<>();
+    for (GraphNode node : view.graph().nodes()) {
+      indices.put(node.name(), indices.size());
+      coded.writeMessage(
+          NODES_FIELD,
+          Node.newBuilder()
+              .setName(node.name())
+              .setMetadata(node.metadata())
+              .addAllToken(node.tokenList())
+              .build());
+    }
+
+    for (EndpointPair<GraphNode> edge : view.graph().edges()) {
+      int source = indices.get(edge.nodeU().name());
+      int target = indices.get(edge.nodeV().name());
+      coded.writeTag(EDGES_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      coded.writeUInt32NoTag(uint32Size(SOURCE_FIELD, source) + uint32Size(TARGET_FIELD, target));
+      writeUInt32(coded, SOURCE_FIELD, source);
+      writeUInt32(coded, TARGET_FIELD, target);
+    }
+
+    if (view.diff() != null) {
+      coded.writeMessage(MUTATION_DIFF_FIELD, view.diff());
+    }
+
+    // Repeated scalars are packed in proto3
+    if (!view.mutationIndices().isEmpty()) {
+      int size = 0;
+      for (int index : view.mutationIndices()) {
+        size += CodedOutputStream.computeUInt32SizeNoTag(index);
+      }
+      coded.writeTag(MUTATION_INDICES_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+      coded.writeUInt32NoTag(size);
+      for (int index : view.mutationIndices()) {
+        coded.writeUInt32NoTag(index);
+      }
+    }
+
+    writeUInt32(coded, TOTAL_MUT_NUMBER_FIELD, view.totalMutations());
+
+    for (String name : view.queried()) {
+      coded.writeString(QUERIED_NODES_FIELD, name);
+    }
+    coded.flush();
+  }
+
+  // Writes a uint32 field, which proto3 omits if it is 0
+  private static void writeUInt32(CodedOutputStream coded, int field, int value)
+      throws IOException {
+    if (value != 0) {
+      coded.writeUInt32(field, value);
+    }
+  }
+
+  // Returns the encoded size of a uint32 field, which proto3 omits if it is 0
+  private static int uint32Size(int field, int value) {
+    return value == 0 ? 0 : CodedOutputStream.computeUInt32Size(field, value);
+  }
+}
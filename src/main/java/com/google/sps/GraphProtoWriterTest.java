@@ -0,0 +1,85 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+import com.proto.ResponseProtos.Edge;
+import com.proto.ResponseProtos.GraphResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.sps.Utility.protoNodeToGraphNode;
+
+/** This file tests the following functions: - GraphProtoWriter.write */
+@RunWith(JUnit4.class)
+public final class GraphProtoWriterTest {
+
+  /*
+   * Tests that every field of the view is written under its GraphResponse field number
+   */
+  @Test
+  public void allFields() throws IOException {
+    GraphNode nodeA =
+        protoNodeToGraphNode(Node.newBuilder().setName("A").addToken("1").build());
+    GraphNode nodeB = protoNodeToGraphNode(Node.newBuilder().setName("B").build());
+    MutableGraph<GraphNode> graph = GraphBuilder.directed().build();
+    graph.putEdge(nodeA, nodeB);
+    MultiMutation diff =
+        MultiMutation.newBuilder()
+            .setReason("test")
+            .addMutation(
+                Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode("B"))
+            .build();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GraphProtoWriter.write(
+        GraphView.create(graph, Arrays.asList(0, 300), diff, 7, ImmutableSet.of("A")), out);
+
+    // Decoding with the classes generated from response.proto checks the writer against the schema
+    GraphResponse response = GraphResponse.parseFrom(out.toByteArray());
+    List<Node> nodes = response.getNodesList();
+    List<String> edges = new ArrayList<>();
+    for (Edge edge : response.getEdgesList()) {
+      edges.add(nodes.get(edge.getSource()).getName() + nodes.get(edge.getTarget()).getName());
+    }
+
+    Assert.assertTrue(response.getUnknownFields().asMap().isEmpty());
+    Assert.assertEquals(2, nodes.size());
+    for (Node node : nodes) {
+      Assert.assertEquals(0, node.getChildrenCount());
+      if (node.getName().equals("A")) {
+        Assert.assertEquals(Arrays.asList("1"), node.getTokenList());
+      }
+    }
+    Assert.assertEquals(Arrays.asList("AB"), edges);
+    Assert.assertEquals(diff, response.getMutationDiff());
+    Assert.assertEquals(Arrays.asList(0, 300), response.getMutationIndicesList());
+    Assert.assertEquals(7, response.getTotalMutNumber());
+    Assert.assertEquals(Arrays.asList("A"), response.getQueriedNodesList());
+  }
+}
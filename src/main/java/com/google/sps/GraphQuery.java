@@ -0,0 +1,84 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSortedSet;
+
+/**
+ * The parameters a /data response depends on, in a canonical form so that queries that give the
+ * same response are equal: the node names are sorted and deduplicated, and the previous mutation
+ * number is only kept as far as it matters.
+ */
+@AutoValue
+abstract class GraphQuery {
+
+  /**
+   * Creates a query
+   *
+   * @param radius the maximum distance of the returned nodes from the queried ones
+   * @param mutationNum the index of the last mutation to apply
+   * @param previousMutationNum the mutation number the client most recently requested
+   * @param nodeNames the names of the queried nodes, in any order
+   * @param tokenName the queried token, empty if there is none
+   * @param restrict whether to only show the mutations of the queried nodes
+   * @param format the format to encode the response in
+   * @return the canonical query
+   */
+  static GraphQuery create(
+      int radius,
+      int mutationNum,
+      int previousMutationNum,
+      Collection<String> nodeNames,
+      String tokenName,
+      boolean restrict,
+      ResponseFormat format) {
+    // Without a token, the previous graph is not read and only the direction of the move matters
+    if (tokenName.isEmpty()) {
+      previousMutationNum = previousMutationNum < mutationNum ? mutationNum - 1 : mutationNum;
+    }
+    return new AutoValue_GraphQuery(
+        radius,
+        mutationNum,
+        previousMutationNum,
+        ImmutableSortedSet.copyOf(nodeNames),
+        tokenName,
+        restrict,
+        format);
+  }
+
+  // The maximum distance of the returned nodes from the queried ones
+  abstract int radius();
+
+  // The index of the last mutation to apply
+  abstract int mutationNum();
+
+  // The mutation number of the graph the diff and the previous token holders are computed from
+  abstract int previousMutationNum();
+
+  // The names of the queried nodes
+  abstract ImmutableSortedSet<String> nodeNames();
+
+  // The queried token, empty if there is none
+  abstract String tokenName();
+
+  // Whether to only show the mutations of the queried nodes
+  abstract boolean restrict();
+
+  // The format to encode the response in
+  abstract ResponseFormat format();
+}
@@ -0,0 +1,64 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.graph.MutableGraph;
+import com.proto.MutationProtos.MultiMutation;
+
+/** Everything a /data response shows, before it is encoded in one of the response formats */
+@AutoValue
+abstract class GraphView {
+
+  /**
+   * Creates a view
+   *
+   * @param graph the part of the graph to show
+   * @param mutationIndices the indices of the mutations relevant to the query
+   * @param diff the mutations to highlight, null if there are none
+   * @param totalMutations the number of multi-mutations in the dataset
+   * @param queried the names of the queried nodes
+   * @return the view
+   */
+  static GraphView create(
+      MutableGraph<GraphNode> graph,
+      List<Integer> mutationIndices,
+      @Nullable MultiMutation diff,
+      int totalMutations,
+      Set<String> queried) {
+    return new AutoValue_GraphView(graph, mutationIndices, diff, totalMutations, queried);
+  }
+
+  // The part of the graph to show
+  abstract MutableGraph<GraphNode> graph();
+
+  // The indices of the mutations relevant to the query
+  abstract List<Integer> mutationIndices();
+
+  // The mutations to highlight, null if there are none
+  @Nullable
+  abstract MultiMutation diff();
+
+  // The number of multi-mutations in the dataset
+  abstract int totalMutations();
+
+  // The names of the queried nodes
+  abstract Set<String> queried();
+}
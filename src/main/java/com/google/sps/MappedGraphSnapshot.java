@@ -0,0 +1,613 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.google.common.primitives.UnsignedBytes;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Struct;
+import com.proto.GraphProtos.Node;
+
+/**
+ * A read-only, memory-mapped snapshot of the initial graph. Nothing is decoded when the snapshot is
+ * opened: node names, adjacency lists, token lists and metadata are only read from the mapped file
+ * when they are asked for. The snapshot answers lookups and getReachableNodes on its own, but the
+ * servlet does not serve from it: DataGraph.graphFromSnapshot decodes every node into the heap at
+ * startup, so only parsing is skipped.
+ *
+ * <p>The file consists of a header followed by a number of sections. Nodes and tokens are numbered
+ * in the order of their UTF-8 encoded names so that they can be looked up by binary search.
+ *
+ * <ul>
+ *   <li>node names: offsets into a blob of UTF-8 encoded names
+ *   <li>children and parents: adjacency lists in compressed sparse row (CSR) form
+ *   <li>node tokens: the token ids of each node, in the original order
+ *   <li>token names: offsets into a blob of UTF-8 encoded token names
+ *   <li>postings: the sorted ids of the nodes containing each token
+ *   <li>metadata: offsets into a blob of the binary-encoded metadata Struct of each node
+ * </ul>
+ *
+ * <p>All offsets are ints, so a snapshot is limited to 2GB, which is also the largest region that
+ * can be mapped at once.
+ */
+final class MappedGraphSnapshot {
+
+  // "SPSG" in ASCII
+  private static final int MAGIC = 0x53505347;
+  private static final int VERSION = 1;
+
+  // Indices of the sections whose start positions are stored in the header
+  private static final int NAME_OFFSETS = 0;
+  private static final int NAME_BYTES = 1;
+  private static final int CHILD_OFFSETS = 2;
+  private static final int CHILDREN = 3;
+  private static final int PARENT_OFFSETS = 4;
+  private static final int PARENTS = 5;
+  private static final int NODE_TOKEN_OFFSETS = 6;
+  private static final int NODE_TOKENS = 7;
+  private static final int TOKEN_NAME_OFFSETS = 8;
+  private static final int TOKEN_NAME_BYTES = 9;
+  private static final int POSTING_OFFSETS = 10;
+  private static final int POSTINGS = 11;
+  private static final int METADATA_OFFSETS = 12;
+  private static final int METADATA_BYTES = 13;
+  private static final int NUM_SECTIONS = 14;
+
+  // magic, version, node count, token count and the start of each section
+  private static final int HEADER_SIZE = 4 * (4 + NUM_SECTIONS);
+
+  // Orders names the same way as their encoded bytes so that lookups can compare raw bytes
+  private static final Comparator<byte[]> BYTE_ORDER = UnsignedBytes.lexicographicalComparator();
+
+  // The mapped file
+  private final ByteBuffer buffer;
+  private final int nodeCount;
+  private final int tokenCount;
+  // The position in the file at which each section starts
+  private final int[] sections;
+
+  private MappedGraphSnapshot(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      throw new IOException("Not a graph snapshot or unsupported snapshot version");
+    }
+    this.nodeCount = buffer.getInt(8);
+    this.tokenCount = buffer.getInt(12);
+    this.sections = new int[NUM_SECTIONS];
+    for (int i = 0; i < NUM_SECTIONS; i++) {
+      sections[i] = buffer.getInt(16 + 4 * i);
+    }
+  }
+
+  /**
+   * Maps the snapshot stored in the given file into memory
+   *
+   * @param path the snapshot file
+   * @return the mapped snapshot
+   * @throws IOException if the file could not be mapped or is not a snapshot
+   */
+  static MappedGraphSnapshot open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed
+      return new MappedGraphSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Wraps a snapshot that is already in memory, for example one that was just written
+   *
+   * @param bytes the encoded snapshot
+   * @return the snapshot
+   * @throws IOException if the bytes are not a snapshot
+   */
+  static MappedGraphSnapshot wrap(byte[] bytes) throws IOException {
+    return new MappedGraphSnapshot(ByteBuffer.wrap(bytes));
+  }
+
+  /**
+   * Getter for the number of nodes
+   *
+   * @return the number of nodes in the snapshot
+   */
+  int nodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Getter for the number of distinct tokens
+   *
+   * @return the number of distinct tokens in the snapshot
+   */
+  int tokenCount() {
+    return tokenCount;
+  }
+
+  /**
+   * Returns the id of the node with the given name
+   *
+   * @param name the name of the node
+   * @return the id of the node, or -1 if there is no such node
+   */
+  int nodeId(String name) {
+    return find(name, NAME_OFFSETS, NAME_BYTES, nodeCount);
+  }
+
+  /**
+   * Returns the name of the node with the given id
+   *
+   * @param id the id of the node
+   * @return the name of the node
+   */
+  String nodeName(int id) {
+    return new String(slice(NAME_OFFSETS, NAME_BYTES, id), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the ids of the children of the node with the given id
+   *
+   * @param id the id of the node
+   * @return the ids of the children of the node
+   */
+  int[] children(int id) {
+    return ints(CHILD_OFFSETS, CHILDREN, id);
+  }
+
+  /**
+   * Returns the ids of the parents of the node with the given id
+   *
+   * @param id the id of the node
+   * @return the ids of the parents of the node
+   */
+  int[] parents(int id) {
+    return ints(PARENT_OFFSETS, PARENTS, id);
+  }
+
+  /**
+   * Returns the tokens of the node with the given id
+   *
+   * @param id the id of the node
+   * @return the tokens of the node in their original order, as canonical instances from
+   *     NameDictionary
+   */
+  List<String> tokens(int id) {
+    int[] tokenIds = ints(NODE_TOKEN_OFFSETS, NODE_TOKENS, id);
+    List<String> tokens = new ArrayList<>(tokenIds.length);
+    for (int tokenId : tokenIds) {
+      tokens.add(
+          NameDictionary.intern(
+              new String(
+                  slice(TOKEN_NAME_OFFSETS, TOKEN_NAME_BYTES, tokenId), StandardCharsets.UTF_8)));
+    }
+    return tokens;
+  }
+
+  /**
+   * Decodes the metadata of the node with the given id
+   *
+   * @param id the id of the node
+   * @return the metadata of the node
+   * @throws IllegalStateException if the stored metadata cannot be decoded
+   */
+  Struct metadata(int id) {
+    try {
+      return Struct.parseFrom(slice(METADATA_OFFSETS, METADATA_BYTES, id));
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalStateException("Corrupt metadata for node " + nodeName(id), e);
+    }
+  }
+
+  /**
+   * Decodes the node with the given id
+   *
+   * @param id the id of the node
+   * @return a graph node with the name, tokens and metadata of the node
+   */
+  GraphNode graphNode(int id) {
+    return GraphNode.create(nodeName(id), tokens(id), metadata(id));
+  }
+
+  /**
+   * Returns the names of the nodes containing the given token
+   *
+   * @param tokenName the token to look up
+   * @return the names of all nodes containing the token, empty if no node contains it
+   */
+  Set<String> nodesWithToken(String tokenName) {
+    Set<String> names = new HashSet<>();
+    int tokenId = find(tokenName, TOKEN_NAME_OFFSETS, TOKEN_NAME_BYTES, tokenCount);
+    if (tokenId == -1) {
+      return names;
+    }
+    for (int id : ints(POSTING_OFFSETS, POSTINGS, tokenId)) {
+      names.add(nodeName(id));
+    }
+    return names;
+  }
+
+  /**
+   * Returns the names of the nodes without parents
+   *
+   * @return the roots of the graph
+   */
+  Set<String> roots() {
+    Set<String> roots = new HashSet<>();
+    for (int id = 0; id < nodeCount; id++) {
+      if (intAt(PARENT_OFFSETS, id) == intAt(PARENT_OFFSETS, id + 1)) {
+        roots.add(nodeName(id));
+      }
+    }
+    return roots;
+  }
+
+  /**
+   * Returns the graph of nodes that are at most radius from the given nodes, with the same
+   * semantics as DataGraph.getReachableNodes. Only the nodes that are reached are decoded.
+   *
+   * @param names the names of the nodes whose descendants and ancestors within radius distance and
+   *     all associated edges should be included in the graph
+   * @param radius the distance from the node to search for parents and children
+   * @return a graph comprised of only nodes and edges within a certain distance from the specified
+   *     nodes. Empty if radius is less than 0 or if none of the nodes are found or names is null.
+   *     Returns a graph with a depth of at most radius starting from the roots if names is empty.
+   */
+  MutableGraph<GraphNode> getReachableNodes(Collection<String> names, int radius) {
+    MutableGraph<GraphNode> result = GraphBuilder.directed().build();
+    if (radius < 0 || names == null) {
+      return result;
+    }
+
+    Set<Integer> nextLayerChildren = new HashSet<>();
+    Set<Integer> nextLayerParents = new HashSet<>();
+    if (names.isEmpty()) {
+      for (int id = 0; id < nodeCount; id++) {
+        if (intAt(PARENT_OFFSETS, id) == intAt(PARENT_OFFSETS, id + 1)) {
+          nextLayerChildren.add(id);
+        }
+      }
+    } else {
+      for (String name : names) {
+        int id = nodeId(name);
+        if (id != -1) {
+          nextLayerChildren.add(id);
+          nextLayerParents.add(id);
+        }
+      }
+    }
+
+    Set<Integer> visitedChildren = new HashSet<>();
+    Set<Integer> visitedParents = new HashSet<>();
+    for (int i = 0; i <= radius; i++) {
+      if (nextLayerChildren.isEmpty() && nextLayerParents.isEmpty()) {
+        break;
+      }
+      nextLayerChildren = getNextLayer(nextLayerChildren, visitedChildren, true);
+      nextLayerParents = getNextLayer(nextLayerParents, visitedParents, false);
+    }
+
+    Map<Integer, GraphNode> visited = new HashMap<>();
+    for (int id : visitedChildren) {
+      visited.put(id, graphNode(id));
+    }
+    for (int id : visitedParents) {
+      visited.computeIfAbsent(id, this::graphNode);
+    }
+    for (Map.Entry<Integer, GraphNode> entry : visited.entrySet()) {
+      result.addNode(entry.getValue());
+      for (int child : children(entry.getKey())) {
+        GraphNode childNode = visited.get(child);
+        if (childNode != null) {
+          result.putEdge(entry.getValue(), childNode);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Helper function that gets the next layer of node ids based on what's visited
+   *
+   * @param layer the layer of nodes to visit
+   * @param visited the ids of the visited nodes
+   * @param isChild whether we're looking for children. True means we look for the children, and
+   *     False means we look for parents.
+   * @return the ids of the nodes in the next layer
+   */
+  private Set<Integer> getNextLayer(Set<Integer> layer, Set<Integer> visited, boolean isChild) {
+    Set<Integer> nextLayer = new HashSet<>();
+    for (int curr : layer) {
+      if (visited.add(curr)) {
+        for (int adjacent : isChild ? children(curr) : parents(curr)) {
+          if (!visited.contains(adjacent)) {
+            nextLayer.add(adjacent);
+          }
+        }
+      }
+    }
+    return nextLayer;
+  }
+
+  /**
+   * Writes a snapshot of the graph described by the given proto nodes
+   *
+   * @param protoNodesMap map from node name to proto Node object parsed from input
+   * @param output the stream to write the snapshot to
+   * @throws IOException if something goes wrong during the writing
+   */
+  static void write(Map<String, Node> protoNodesMap, OutputStream output) throws IOException {
+    // Number the nodes, including children that have no entry of their own
+    TreeMap<byte[], String> sortedNames = new TreeMap<>(BYTE_ORDER);
+    TreeMap<byte[], String> sortedTokens = new TreeMap<>(BYTE_ORDER);
+    for (Node node : protoNodesMap.values()) {
+      sortedNames.put(node.getName().getBytes(StandardCharsets.UTF_8), node.getName());
+      for (String child : node.getChildrenList()) {
+        sortedNames.put(child.getBytes(StandardCharsets.UTF_8), child);
+      }
+      for (String token : node.getTokenList()) {
+        sortedTokens.put(token.getBytes(StandardCharsets.UTF_8), token);
+      }
+    }
+    Map<String, Integer> nodeIds = new HashMap<>();
+    for (String name : sortedNames.values()) {
+      nodeIds.put(name, nodeIds.size());
+    }
+    Map<String, Integer> tokenIds = new HashMap<>();
+    for (String token : sortedTokens.values()) {
+      tokenIds.put(token, tokenIds.size());
+    }
+    int nodeCount = nodeIds.size();
+    int tokenCount = tokenIds.size();
+
+    List<Set<Integer>> children = new ArrayList<>();
+    List<Set<Integer>> parents = new ArrayList<>();
+    List<List<Integer>> nodeTokens = new ArrayList<>();
+    List<Set<Integer>> postings = new ArrayList<>();
+    List<byte[]> metadata = new ArrayList<>();
+    for (int i = 0; i < nodeCount; i++) {
+      children.add(new LinkedHashSet<>());
+      parents.add(new LinkedHashSet<>());
+      nodeTokens.add(new ArrayList<>());
+      metadata.add(new byte[0]);
+    }
+    for (int i = 0; i < tokenCount; i++) {
+      postings.add(new LinkedHashSet<>());
+    }
+    for (String name : sortedNames.values()) {
+      Node node = protoNodesMap.get(name);
+      if (node == null) {
+        continue;
+      }
+      int id = nodeIds.get(name);
+      for (String child : node.getChildrenList()) {
+        int childId = nodeIds.get(child);
+        children.get(id).add(childId);
+        parents.get(childId).add(id);
+      }
+      for (String token : node.getTokenList()) {
+        int tokenId = tokenIds.get(token);
+        nodeTokens.get(id).add(tokenId);
+        postings.get(tokenId).add(id);
+      }
+      metadata.set(id, node.getMetadata().toByteArray());
+    }
+
+    // Lay out the sections one after the other
+    List<byte[]> nameBytes = new ArrayList<>(sortedNames.keySet());
+    List<byte[]> tokenNameBytes = new ArrayList<>(sortedTokens.keySet());
+    int[] sizes = new int[NUM_SECTIONS];
+    sizes[NAME_OFFSETS] = 4 * (nodeCount + 1);
+    sizes[NAME_BYTES] = totalLength(nameBytes);
+    sizes[CHILD_OFFSETS] = 4 * (nodeCount + 1);
+    sizes[CHILDREN] = 4 * totalSize(children);
+    sizes[PARENT_OFFSETS] = 4 * (nodeCount + 1);
+    sizes[PARENTS] = 4 * totalSize(parents);
+    sizes[NODE_TOKEN_OFFSETS] = 4 * (nodeCount + 1);
+    sizes[NODE_TOKENS] = 4 * totalSize(nodeTokens);
+    sizes[TOKEN_NAME_OFFSETS] = 4 * (tokenCount + 1);
+    sizes[TOKEN_NAME_BYTES] = totalLength(tokenNameBytes);
+    sizes[POSTING_OFFSETS] = 4 * (tokenCount + 1);
+    sizes[POSTINGS] = 4 * totalSize(postings);
+    sizes[METADATA_OFFSETS] = 4 * (nodeCount + 1);
+    sizes[METADATA_BYTES] = totalLength(metadata);
+
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(nodeCount);
+    data.writeInt(tokenCount);
+    long position = HEADER_SIZE;
+    for (int size : sizes) {
+      if (position > Integer.MAX_VALUE) {
+        throw new IOException("Graph is too large for a single snapshot");
+      }
+      data.writeInt((int) position);
+      position += size;
+    }
+
+    writeBlob(data, nameBytes);
+    writeLists(data, children);
+    writeLists(data, parents);
+    writeLists(data, nodeTokens);
+    writeBlob(data, tokenNameBytes);
+    writeLists(data, postings);
+    writeBlob(data, metadata);
+    data.flush();
+  }
+
+  /**
+   * Writes the offsets of the given byte arrays followed by their concatenation
+   *
+   * @param data the stream to write to
+   * @param blobs the byte arrays to write
+   * @throws IOException if something goes wrong during the writing
+   */
+  private static void writeBlob(DataOutputStream data, List<byte[]> blobs) throws IOException {
+    int offset = 0;
+    data.writeInt(offset);
+    for (byte[] blob : blobs) {
+      offset += blob.length;
+      data.writeInt(offset);
+    }
+    for (byte[] blob : blobs) {
+      data.write(blob);
+    }
+  }
+
+  /**
+   * Writes the offsets of the given lists followed by their concatenated elements
+   *
+   * @param data the stream to write to
+   * @param lists the lists of ints to write
+   * @throws IOException if something goes wrong during the writing
+   */
+  private static void writeLists(DataOutputStream data, List<? extends Collection<Integer>> lists)
+      throws IOException {
+    int offset = 0;
+    data.writeInt(offset);
+    for (Collection<Integer> list : lists) {
+      offset += list.size();
+      data.writeInt(offset);
+    }
+    for (Collection<Integer> list : lists) {
+      for (int value : list) {
+        data.writeInt(value);
+      }
+    }
+  }
+
+  private static int totalLength(List<byte[]> blobs) {
+    return blobs.stream().mapToInt(blob -> blob.length).sum();
+  }
+
+  private static int totalSize(List<? extends Collection<Integer>> lists) {
+    return lists.stream().mapToInt(Collection::size).sum();
+  }
+
+  /**
+   * Reads the index-th int of the given section
+   *
+   * @param section the section to read from
+   * @param index the index of the int in the section
+   * @return the int
+   */
+  private int intAt(int section, int index) {
+    return buffer.getInt(sections[section] + 4 * index);
+  }
+
+  /**
+   * Reads the index-th list of ints stored in CSR form
+   *
+   * @param offsetSection the section storing where each list starts
+   * @param valueSection the section storing the concatenated lists
+   * @param index the index of the list
+   * @return the elements of the list
+   */
+  private int[] ints(int offsetSection, int valueSection, int index) {
+    int start = intAt(offsetSection, index);
+    int end = intAt(offsetSection, index + 1);
+    int[] values = new int[end - start];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = intAt(valueSection, start + i);
+    }
+    return values;
+  }
+
+  /**
+   * Copies the index-th byte array out of a blob section
+   *
+   * @param offsetSection the section storing where each byte array starts
+   * @param byteSection the section storing the concatenated byte arrays
+   * @param index the index of the byte array
+   * @return a copy of the byte array
+   */
+  private byte[] slice(int offsetSection, int byteSection, int index) {
+    int start = intAt(offsetSection, index);
+    int end = intAt(offsetSection, index + 1);
+    byte[] bytes = new byte[end - start];
+    ByteBuffer view = buffer.duplicate();
+    // Called through Buffer because ByteBuffer.position(int) only exists from Java 9, and the app
+    // runs on Java 8
+    ((Buffer) view).position(sections[byteSection] + start);
+    view.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Binary searches a sorted blob section for the given string
+   *
+   * @param value the string to look for
+   * @param offsetSection the section storing where each string starts
+   * @param byteSection the section storing the concatenated strings
+   * @param count the number of strings in the section
+   * @return the index of the string, or -1 if it is not present
+   */
+  private int find(String value, int offsetSection, int byteSection, int count) {
+    byte[] target = value.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compareAt(offsetSection, byteSection, mid, target);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Compares the index-th string of a blob section with the target without copying it
+   *
+   * @return a negative number, zero or a positive number if the stored string is less than, equal
+   *     to or greater than the target
+   */
+  private int compareAt(int offsetSection, int byteSection, int index, byte[] target) {
+    int start = sections[byteSection] + intAt(offsetSection, index);
+    int length = intAt(offsetSection, index + 1) - intAt(offsetSection, index);
+    int common = Math.min(length, target.length);
+    for (int i = 0; i < common; i++) {
+      int cmp = UnsignedBytes.compare(buffer.get(start + i), target[i]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return length - target.length;
+  }
+}
@@ -0,0 +1,176 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.proto.GraphProtos.Node;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.sps.Utility.protoNodeToGraphNode;
+
+/**
+ * This file tests the following functions: - MappedGraphSnapshot.write - MappedGraphSnapshot.open -
+ * the lookups of MappedGraphSnapshot - MappedGraphSnapshot.getReachableNodes - graphFromSnapshot in
+ * DataGraph.java
+ */
+@RunWith(JUnit4.class)
+public final class MappedGraphSnapshotTest {
+
+  HashMap<String, Node> protoNodesMap;
+  MappedGraphSnapshot snapshot;
+
+  @Before
+  public void setUp() throws IOException {
+    Struct metadataA =
+        Struct.newBuilder()
+            .putFields("file", Value.newBuilder().setStringValue("a.java").build())
+            .build();
+    protoNodesMap = new HashMap<>();
+    protoNodesMap.put(
+        "A",
+        Node.newBuilder()
+            .setName("A")
+            .addChildren("B")
+            .addChildren("C")
+            .addToken("1")
+            .addToken("2")
+            .setMetadata(metadataA)
+            .build());
+    protoNodesMap.put("B", Node.newBuilder().setName("B").addChildren("D").addToken("2").build());
+    protoNodesMap.put("C", Node.newBuilder().setName("C").addChildren("D").build());
+    protoNodesMap.put("D", Node.newBuilder().setName("D").addToken("3").build());
+    protoNodesMap.put("E", Node.newBuilder().setName("E").build());
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    MappedGraphSnapshot.write(protoNodesMap, output);
+    snapshot = MappedGraphSnapshot.wrap(output.toByteArray());
+  }
+
+  /*
+   * Check that nodes can be looked up by name and that their contents are decoded correctly
+   */
+  @Test
+  public void lookups() {
+    Assert.assertEquals(5, snapshot.nodeCount());
+    Assert.assertEquals(3, snapshot.tokenCount());
+    Assert.assertEquals(-1, snapshot.nodeId("F"));
+
+    int idA = snapshot.nodeId("A");
+    Assert.assertEquals("A", snapshot.nodeName(idA));
+    Assert.assertEquals(Arrays.asList("1", "2"), snapshot.tokens(idA));
+    Assert.assertEquals(protoNodeToGraphNode(protoNodesMap.get("A")), snapshot.graphNode(idA));
+
+    HashSet<String> children = new HashSet<>();
+    for (int child : snapshot.children(idA)) {
+      children.add(snapshot.nodeName(child));
+    }
+    Assert.assertEquals(new HashSet<>(Arrays.asList("B", "C")), children);
+
+    HashSet<String> parents = new HashSet<>();
+    for (int parent : snapshot.parents(snapshot.nodeId("D"))) {
+      parents.add(snapshot.nodeName(parent));
+    }
+    Assert.assertEquals(new HashSet<>(Arrays.asList("B", "C")), parents);
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList("A", "B")), snapshot.nodesWithToken("2"));
+    Assert.assertTrue(snapshot.nodesWithToken("4").isEmpty());
+    Assert.assertEquals(new HashSet<>(Arrays.asList("A", "E")), snapshot.roots());
+  }
+
+  /*
+   * Check that a data graph built from the snapshot is the same as one built from the proto nodes,
+   * on every graph engine
+   */
+  @Test
+  public void sameAsProtoNodes() {
+    for (GraphEngine engine : GraphEngine.values()) {
+      DataGraph expected = DataGraph.create(engine);
+      Assert.assertTrue(expected.graphFromProtoNodes(protoNodesMap));
+      DataGraph actual = DataGraph.create(engine);
+      Assert.assertTrue(actual.graphFromSnapshot(snapshot));
+
+      Assert.assertEquals(expected.graph().nodes(), actual.graph().nodes());
+      Assert.assertEquals(expected.graph().edges(), actual.graph().edges());
+      Assert.assertEquals(expected.graphNodesMap(), actual.graphNodesMap());
+      Assert.assertEquals(expected.roots(), actual.roots());
+      Assert.assertEquals(expected.tokenMap(), actual.tokenMap());
+    }
+  }
+
+  /*
+   * Check that the reachable nodes computed directly on the snapshot are the same as the ones
+   * computed on the fully decoded data graph
+   */
+  @Test
+  public void reachableNodes() {
+    DataGraph dataGraph = DataGraph.create();
+    dataGraph.graphFromProtoNodes(protoNodesMap);
+
+    List<List<String>> queries = new ArrayList<>();
+    queries.add(new ArrayList<>());
+    queries.add(Arrays.asList("B"));
+    queries.add(Arrays.asList("D", "E"));
+    queries.add(Arrays.asList("F"));
+    for (List<String> query : queries) {
+      for (int radius = -1; radius <= 3; radius++) {
+        Assert.assertEquals(
+            dataGraph.getReachableNodes(query, radius), snapshot.getReachableNodes(query, radius));
+      }
+    }
+  }
+
+  /*
+   * Check that a snapshot written to a file can be memory-mapped
+   */
+  @Test
+  public void mapFile() throws IOException {
+    Path path = Files.createTempFile("graph", ".snapshot");
+    try {
+      try (OutputStream output = Files.newOutputStream(path)) {
+        MappedGraphSnapshot.write(protoNodesMap, output);
+      }
+      MappedGraphSnapshot mapped = MappedGraphSnapshot.open(path);
+      Assert.assertEquals(5, mapped.nodeCount());
+      Assert.assertEquals("C", mapped.nodeName(mapped.nodeId("C")));
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  /*
+   * Check that a file that is not a snapshot is rejected
+   */
+  @Test(expected = IOException.class)
+  public void notASnapshot() throws IOException {
+    MappedGraphSnapshot.wrap(new byte[128]);
+  }
+}
@@ -0,0 +1,352 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+
+/**
+ * An inverted index from node names and token names to the indices of the multi-mutations that
+ * mention them, built in one pass over the mutation list. A node is mentioned by a multi-mutation
+ * if it is the start or end node of one of its mutations, and a token if one of its mutations adds
+ * or removes it. The postings are sorted int arrays indexed by NameDictionary id, and are never
+ * modified once the index is built. The index also lists the structural steps, which add or delete
+ * a node or an edge, since only those change which nodes can reach which.
+ */
+final class MutationIndex {
+
+  // The number of multi-mutations indexed by each task of the parallel build
+  static final int DEFAULT_CHUNK_SIZE = 1 << 13;
+
+  private static final int[] NO_STEPS = new int[0];
+
+  // The steps mentioning each node, indexed by the NameDictionary id of its name
+  private final int[][] nodeSteps;
+  // The steps mentioning each token, indexed by the NameDictionary id of its name
+  private final int[][] tokenSteps;
+  // The steps that add or delete a node or an edge, sorted
+  private final int[] structuralSteps;
+  // The number of multi-mutations indexed
+  private final int mutationCount;
+  // The time it took to build the index
+  private final long buildNanos;
+
+  private MutationIndex(
+      int[][] nodeSteps,
+      int[][] tokenSteps,
+      int[] structuralSteps,
+      int mutationCount,
+      long buildNanos) {
+    this.nodeSteps = nodeSteps;
+    this.tokenSteps = tokenSteps;
+    this.structuralSteps = structuralSteps;
+    this.mutationCount = mutationCount;
+    this.buildNanos = buildNanos;
+  }
+
+  /**
+   * Returns an index of an empty mutation list
+   *
+   * @return the empty index
+   */
+  static MutationIndex empty() {
+    return new MutationIndex(new int[0][], new int[0][], NO_STEPS, 0, 0);
+  }
+
+  /**
+   * Builds the index of a mutation list, using DEFAULT_CHUNK_SIZE multi-mutations per task
+   *
+   * @param multiMutList the list of multi-mutations, which is not modified
+   * @return the index
+   */
+  static MutationIndex build(List<MultiMutation> multiMutList) {
+    return build(multiMutList, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Builds the index of a mutation list. Chunks of the list are indexed in parallel, each into a
+   * list of (name id, step) pairs, and the pairs of every chunk are then copied in order into
+   * exactly sized postings, which are sorted because chunks and steps within a chunk are.
+   *
+   * @param multiMutList the list of multi-mutations, which is not modified
+   * @param chunkSize the number of multi-mutations indexed by each task
+   * @return the index
+   */
+  static MutationIndex build(List<MultiMutation> multiMutList, int chunkSize) {
+    Preconditions.checkArgument(chunkSize > 0, "The chunk size must be positive");
+    long start = System.nanoTime();
+    int mutationCount = multiMutList.size();
+    int chunkCount = (mutationCount + chunkSize - 1) / chunkSize;
+
+    ChunkPostings[] chunks = new ChunkPostings[chunkCount];
+    IntStream.range(0, chunkCount)
+        .parallel()
+        .forEach(
+            chunk ->
+                chunks[chunk] =
+                    indexChunk(
+                        multiMutList,
+                        chunk * chunkSize,
+                        Math.min(mutationCount, (chunk + 1) * chunkSize)));
+
+    // Every name seen above has an id by now
+    int idCount = NameDictionary.size();
+    int[][] nodeSteps = new int[idCount][];
+    int[][] tokenSteps = new int[idCount][];
+    mergeChunks(chunks, true, nodeSteps);
+    mergeChunks(chunks, false, tokenSteps);
+    IntList structuralSteps = new IntList();
+    for (ChunkPostings chunk : chunks) {
+      for (int i = 0; i < chunk.structuralSteps.size; i++) {
+        structuralSteps.add(chunk.structuralSteps.values[i]);
+      }
+    }
+    return new MutationIndex(
+        nodeSteps,
+        tokenSteps,
+        Arrays.copyOf(structuralSteps.values, structuralSteps.size),
+        mutationCount,
+        System.nanoTime() - start);
+  }
+
+  /**
+   * Collects the names mentioned by a range of multi-mutations
+   *
+   * @param multiMutList the list of multi-mutations
+   * @param from the first step of the range
+   * @param to the step after the last step of the range
+   * @return the (name id, step) pairs and the structural steps of the range, in increasing step
+   *     order
+   */
+  private static ChunkPostings indexChunk(List<MultiMutation> multiMutList, int from, int to) {
+    ChunkPostings postings = new ChunkPostings();
+    IntList stepNodes = new IntList();
+    IntList stepTokens = new IntList();
+    for (int step = from; step < to; step++) {
+      stepNodes.clear();
+      stepTokens.clear();
+      boolean structural = false;
+      for (Mutation mut : multiMutList.get(step).getMutationList()) {
+        structural |= mut.getType() != Mutation.Type.CHANGE_TOKEN;
+        addName(stepNodes, mut.getStartNode());
+        addName(stepNodes, mut.getEndNode());
+        if (mut.getType() == Mutation.Type.CHANGE_TOKEN) {
+          for (String tokenName : mut.getTokenChange().getTokenNameList()) {
+            addName(stepTokens, tokenName);
+          }
+        }
+      }
+      // A name is only recorded once per step, however many mutations mention it
+      postings.nodes.addUnique(stepNodes, step);
+      postings.tokens.addUnique(stepTokens, step);
+      if (structural) {
+        postings.structuralSteps.add(step);
+      }
+    }
+    return postings;
+  }
+
+  // Adds the id of a name to a list, unless the name is empty
+  private static void addName(IntList ids, String name) {
+    if (!name.isEmpty()) {
+      ids.add(NameDictionary.id(name));
+    }
+  }
+
+  /**
+   * Copies the pairs of every chunk into postings
+   *
+   * @param chunks the pairs of each chunk, in step order
+   * @param isNode whether to copy the node pairs or the token pairs
+   * @param steps the postings to fill, indexed by name id
+   */
+  private static void mergeChunks(ChunkPostings[] chunks, boolean isNode, int[][] steps) {
+    int[] counts = new int[steps.length];
+    for (ChunkPostings chunk : chunks) {
+      Pairs pairs = isNode ? chunk.nodes : chunk.tokens;
+      for (int i = 0; i < pairs.ids.size; i++) {
+        counts[pairs.ids.values[i]]++;
+      }
+    }
+    for (int id = 0; id < steps.length; id++) {
+      steps[id] = counts[id] == 0 ? NO_STEPS : new int[counts[id]];
+      counts[id] = 0;
+    }
+    for (ChunkPostings chunk : chunks) {
+      Pairs pairs = isNode ? chunk.nodes : chunk.tokens;
+      for (int i = 0; i < pairs.ids.size; i++) {
+        int id = pairs.ids.values[i];
+        steps[id][counts[id]++] = pairs.steps.values[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the indices of the multi-mutations that mention a node
+   *
+   * @param nodeName the name of the node
+   * @return an unmodifiable sorted list of indices, empty if the node is never mutated
+   */
+  List<Integer> stepsOfNode(String nodeName) {
+    return Collections.unmodifiableList(Ints.asList(postings(nodeSteps, nodeName)));
+  }
+
+  /**
+   * Returns the indices of the multi-mutations that add or remove a token
+   *
+   * @param tokenName the name of the token
+   * @return an unmodifiable sorted list of indices, empty if the token is never mutated
+   */
+  List<Integer> stepsOfToken(String tokenName) {
+    return Collections.unmodifiableList(Ints.asList(postings(tokenSteps, tokenName)));
+  }
+
+  /**
+   * Returns the indices of the multi-mutations that mention any of the given nodes or tokens
+   *
+   * @param nodeNames the names of the nodes
+   * @param tokenNames the names of the tokens
+   * @return an unmodifiable sorted list of indices without duplicates
+   */
+  List<Integer> stepsOf(Collection<String> nodeNames, Collection<String> tokenNames) {
+    int total = 0;
+    int[][] lists = new int[nodeNames.size() + tokenNames.size()][];
+    int listCount = 0;
+    for (String nodeName : nodeNames) {
+      lists[listCount] = postings(nodeSteps, nodeName);
+      total += lists[listCount++].length;
+    }
+    for (String tokenName : tokenNames) {
+      lists[listCount] = postings(tokenSteps, tokenName);
+      total += lists[listCount++].length;
+    }
+
+    int[] union = new int[total];
+    int position = 0;
+    for (int[] list : lists) {
+      System.arraycopy(list, 0, union, position, list.length);
+      position += list.length;
+    }
+    Arrays.sort(union);
+    int unique = 0;
+    for (int i = 0; i < union.length; i++) {
+      if (i == 0 || union[i] != union[i - 1]) {
+        union[unique++] = union[i];
+      }
+    }
+    return Collections.unmodifiableList(Ints.asList(Arrays.copyOf(union, unique)));
+  }
+
+  /**
+   * Returns the last step up to a mutation number that adds or deletes a node or an edge. The
+   * graphs from that step up to the mutation number have the same nodes and edges, and differ only
+   * in the tokens of their nodes.
+   *
+   * @param mutationNum the index of the last applied multi-mutation
+   * @return the step, or -1 if no step up to mutationNum is structural
+   */
+  int lastStructuralStep(int mutationNum) {
+    int position = Arrays.binarySearch(structuralSteps, mutationNum);
+    if (position >= 0) {
+      return mutationNum;
+    }
+    int before = -position - 2;
+    return before >= 0 ? structuralSteps[before] : -1;
+  }
+
+  /**
+   * Returns the postings of a name
+   *
+   * @param steps the postings of every name
+   * @param name the name to look for
+   * @return the sorted steps, which must not be modified
+   */
+  private static int[] postings(int[][] steps, String name) {
+    int id = name == null ? -1 : NameDictionary.find(name);
+    return id >= 0 && id < steps.length ? steps[id] : NO_STEPS;
+  }
+
+  /**
+   * Describes the size of the index and how long it took to build
+   *
+   * @return a human-readable summary
+   */
+  String report() {
+    long nodePostings = Arrays.stream(nodeSteps).mapToLong(steps -> steps.length).sum();
+    long tokenPostings = Arrays.stream(tokenSteps).mapToLong(steps -> steps.length).sum();
+    return String.format(
+        "Mutation index: %d multi-mutations, %d structural, %d node and %d token postings,"
+            + " built in %d ms.",
+        mutationCount,
+        structuralSteps.length,
+        nodePostings,
+        tokenPostings,
+        buildNanos / 1_000_000);
+  }
+
+  /** The (name id, step) pairs and the structural steps found in one chunk of the mutation list */
+  private static final class ChunkPostings {
+    final Pairs nodes = new Pairs();
+    final Pairs tokens = new Pairs();
+    final IntList structuralSteps = new IntList();
+  }
+
+  /** Parallel lists of name ids and steps */
+  private static final class Pairs {
+    final IntList ids = new IntList();
+    final IntList steps = new IntList();
+
+    /**
+     * Adds a pair for each distinct id of a step
+     *
+     * @param stepIds the ids mentioned by the step, which are sorted by this method
+     * @param step the step
+     */
+    void addUnique(IntList stepIds, int step) {
+      Arrays.sort(stepIds.values, 0, stepIds.size);
+      for (int i = 0; i < stepIds.size; i++) {
+        if (i == 0 || stepIds.values[i] != stepIds.values[i - 1]) {
+          ids.add(stepIds.values[i]);
+          steps.add(step);
+        }
+      }
+    }
+  }
+
+  /** A growable list of ints */
+  private static final class IntList {
+    int[] values = new int[16];
+    int size = 0;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    void clear() {
+      size = 0;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+import com.proto.MutationProtos.TokenMutation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.sps.Utility.getMutationIndicesOfNode;
+import static com.google.sps.Utility.getMutationIndicesOfToken;
+
+/**
+ * This file tests the following functions: - MutationIndex.build - MutationIndex.stepsOfNode -
+ * MutationIndex.stepsOfToken - MutationIndex.stepsOf - MutationIndex.lastStructuralStep
+ */
+@RunWith(JUnit4.class)
+public final class MutationIndexTest {
+
+  /*
+   * Check that a node mentioned several times in a step is listed once, and that unknown and empty
+   * names have no steps
+   */
+  @Test
+  public void basicIndex() {
+    List<MultiMutation> multiMutList =
+        Arrays.asList(
+            MultiMutation.newBuilder()
+                .addMutation(
+                    Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode("index-A"))
+                .addMutation(
+                    Mutation.newBuilder()
+                        .setType(Mutation.Type.ADD_EDGE)
+                        .setStartNode("index-B")
+                        .setEndNode("index-A"))
+                .build(),
+            MultiMutation.newBuilder()
+                .addMutation(
+                    Mutation.newBuilder()
+                        .setType(Mutation.Type.CHANGE_TOKEN)
+                        .setStartNode("index-B")
+                        .setTokenChange(
+                            TokenMutation.newBuilder()
+                                .setType(TokenMutation.Type.ADD_TOKEN)
+                                .addTokenName("index-t")))
+                .build());
+    MutationIndex index = MutationIndex.build(multiMutList);
+
+    Assert.assertEquals(Arrays.asList(0), index.stepsOfNode("index-A"));
+    Assert.assertEquals(Arrays.asList(0, 1), index.stepsOfNode("index-B"));
+    Assert.assertEquals(Arrays.asList(1), index.stepsOfToken("index-t"));
+    Assert.assertTrue(index.stepsOfNode("index-t").isEmpty());
+    Assert.assertTrue(index.stepsOfNode("index-missing").isEmpty());
+    Assert.assertTrue(index.stepsOfNode("").isEmpty());
+    Assert.assertTrue(index.stepsOfToken("").isEmpty());
+    Assert.assertEquals(
+        Arrays.asList(0, 1),
+        index.stepsOf(Arrays.asList("index-A"), Collections.singleton("index-t")));
+    Assert.assertTrue(MutationIndex.empty().stepsOfNode("index-A").isEmpty());
+    Assert.assertTrue(index.report().startsWith("Mutation index: 2 multi-mutations"));
+    // The second step only changes a token, so its graph has the nodes and edges of the first
+    Assert.assertEquals(-1, index.lastStructuralStep(-1));
+    Assert.assertEquals(0, index.lastStructuralStep(0));
+    Assert.assertEquals(0, index.lastStructuralStep(1));
+  }
+
+  /*
+   * Check that a randomly generated list split into many chunks gives the same steps as scanning
+   * the list
+   */
+  @Test
+  public void sameAsScanning() {
+    Random random = new Random(49);
+    List<MultiMutation> multiMutList = new ArrayList<>();
+    for (int step = 0; step < 2000; step++) {
+      MultiMutation.Builder multiMut = MultiMutation.newBuilder();
+      int mutationCount = random.nextInt(4);
+      for (int i = 0; i < mutationCount; i++) {
+        Mutation.Builder mut =
+            Mutation.newBuilder()
+                .setType(Mutation.Type.forNumber(1 + random.nextInt(5)))
+                .setStartNode("scan-" + random.nextInt(50));
+        if (random.nextBoolean()) {
+          mut.setEndNode("scan-" + random.nextInt(50));
+        }
+        if (mut.getType() == Mutation.Type.CHANGE_TOKEN) {
+          mut.setTokenChange(
+              TokenMutation.newBuilder()
+                  .setType(TokenMutation.Type.DELETE_TOKEN)
+                  .addTokenName("scan-token-" + random.nextInt(20))
+                  .addTokenName("scan-token-" + random.nextInt(20)));
+        }
+        multiMut.addMutation(mut);
+      }
+      multiMutList.add(multiMut.build());
+    }
+
+    MutationIndex index = MutationIndex.build(multiMutList, 64);
+    Set<Integer> expectedUnion = new HashSet<>();
+    for (int i = 0; i < 50; i++) {
+      Assert.assertEquals(
+          getMutationIndicesOfNode("scan-" + i, multiMutList), index.stepsOfNode("scan-" + i));
+      if (i % 7 == 0) {
+        expectedUnion.addAll(getMutationIndicesOfNode("scan-" + i, multiMutList));
+      }
+    }
+    for (int i = 0; i < 20; i++) {
+      String tokenName = "scan-token-" + i;
+      Assert.assertEquals(
+          getMutationIndicesOfToken(tokenName, multiMutList),
+          new HashSet<>(index.stepsOfToken(tokenName)));
+    }
+    expectedUnion.addAll(getMutationIndicesOfToken("scan-token-3", multiMutList));
+
+    List<String> nodeNames =
+        Arrays.asList(
+            "scan-0",
+            "scan-7",
+            "scan-14",
+            "scan-21",
+            "scan-28",
+            "scan-35",
+            "scan-42",
+            "scan-49",
+            "scan-missing");
+    List<Integer> union = index.stepsOf(nodeNames, Collections.singleton("scan-token-3"));
+    List<Integer> expected = new ArrayList<>(expectedUnion);
+    Collections.sort(expected);
+    Assert.assertEquals(expected, union);
+  }
+}
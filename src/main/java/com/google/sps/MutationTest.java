@@ -137,6 +137,42 @@ public final class MutationTest {
     Assert.assertFalse(graph.hasEdgeConnecting(gNodeB, gNodeA));
   }
 
+  /*
+   * Check that an edge closing a cycle through several nodes errors without changing the graph,
+   * and that other edges update the topological order
+   */
+  @Test
+  public void addEdgeCycleError() {
+    MutableGraph<GraphNode> graph = GraphBuilder.directed().build();
+    HashMap<String, GraphNode> graphNodesMap = new HashMap<>();
+    graph.putEdge(gNodeA, gNodeB);
+    graph.putEdge(gNodeB, gNodeC);
+    graphNodesMap.put("A", gNodeA);
+    graphNodesMap.put("B", gNodeB);
+    graphNodesMap.put("C", gNodeC);
+
+    HashSet<String> roots = new HashSet<>();
+    roots.add("A");
+    HashMap<String, Set<String>> tokenMap = new HashMap<>();
+    DataGraph dataGraph = DataGraph.create(graph, graphNodesMap, roots, 0, tokenMap);
+
+    Mutation.Builder addCA =
+        Mutation.newBuilder().setType(Mutation.Type.ADD_EDGE).setStartNode("C").setEndNode("A");
+    String error = dataGraph.mutateGraph(addCA);
+    Assert.assertEquals("Add edge: Edge from C to A closes a cycle\n", error);
+    Assert.assertFalse(graph.hasEdgeConnecting(gNodeC, gNodeA));
+    Assert.assertEquals(2, graph.edges().size());
+
+    // Once B no longer leads to C, C can become a parent of A
+    dataGraph.mutateGraph(
+        Mutation.newBuilder().setType(Mutation.Type.DELETE_EDGE).setStartNode("B").setEndNode("C"));
+    error = dataGraph.mutateGraph(addCA);
+    Assert.assertEquals(0, error.length());
+    Assert.assertTrue(graph.hasEdgeConnecting(gNodeC, gNodeA));
+    Assert.assertTrue(dataGraph.topologicalRank("C") < dataGraph.topologicalRank("A"));
+    Assert.assertTrue(dataGraph.topologicalRank("A") < dataGraph.topologicalRank("B"));
+  }
+
   /*
    * Check that adding an edge to a non-existent node errors
    */
@@ -0,0 +1,144 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+
+/**
+ * A global dictionary that interns the node names and token names loaded by the server. The string
+ * registered first for a name is its canonical instance: graph structures store only canonical
+ * instances, so that each name is kept in memory once and equal names compare by identity.
+ *
+ * <p>Each name also gets a dense integer id, which every GraphNode keeps. AdjacencyArrayGraph,
+ * ReachabilitySearch, ReachabilityIndex, MutationIndex and the ranks of TopologicalOrder are
+ * indexed by id. The node map, roots and token map of DataGraph and the filters of Utility are
+ * still keyed by name, because their accessors are used by the servlets and the tests; moving them
+ * to ids is not done.
+ *
+ * <p>Names are only registered when data is loaded, by GraphNode.create and addNames, and are
+ * never removed, so the dictionary is bounded by the names in the initial graph and the mutations.
+ * Code serving requests looks names up with find and never registers them. The dictionary is
+ * thread-safe and ids are never reassigned.
+ */
+final class NameDictionary {
+
+  // Map from each registered name to its id
+  private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+  // The canonical instance of each registered name, indexed by id. Grown under the class lock and
+  // only read after the id was obtained from the map above.
+  private static volatile String[] names = new String[1024];
+  // The number of registered names
+  private static int size = 0;
+
+  private NameDictionary() {
+    // Should not be called
+  }
+
+  /**
+   * Returns the id of the given name, registering the name if it was not known yet
+   *
+   * @param name the node or token name
+   * @return the id of the name
+   */
+  static int id(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    synchronized (NameDictionary.class) {
+      id = ids.get(name);
+      if (id != null) {
+        return id;
+      }
+      if (size == names.length) {
+        names = Arrays.copyOf(names, size * 2);
+      }
+      names[size] = name;
+      // Publish the id only once its name can be looked up
+      ids.put(name, size);
+      return size++;
+    }
+  }
+
+  /**
+   * Returns the id of the given name without registering it
+   *
+   * @param name the node or token name
+   * @return the id of the name, or -1 if the name was never registered
+   */
+  static int find(String name) {
+    Integer id = ids.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the name with the given id
+   *
+   * @param id an id returned by this dictionary
+   * @return the canonical instance of the name
+   */
+  static String name(int id) {
+    return names[id];
+  }
+
+  /**
+   * Returns the canonical instance of the given name, registering the name if it was not known yet
+   *
+   * @param name the node or token name
+   * @return a string equal to name that is shared by all graph structures
+   */
+  static String intern(String name) {
+    return name(id(name));
+  }
+
+  /**
+   * Returns whether the given name was ever registered. A name that was not registered does not
+   * appear in the initial graph or in any loaded mutation.
+   *
+   * @param name the node or token name
+   * @return true if the name is known to the dictionary
+   */
+  static boolean contains(String name) {
+    return ids.containsKey(name);
+  }
+
+  /**
+   * Returns the number of registered names
+   *
+   * @return the number of registered names, one more than the largest id
+   */
+  static synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Registers the node and token names referenced by the given multi-mutation
+   *
+   * @param multiMut the multi-mutation to register the names of
+   */
+  static void addNames(MultiMutation multiMut) {
+    for (Mutation mut : multiMut.getMutationList()) {
+      id(mut.getStartNode());
+      id(mut.getEndNode());
+      for (String tokenName : mut.getTokenChange().getTokenNameList()) {
+        id(tokenName);
+      }
+    }
+  }
+}
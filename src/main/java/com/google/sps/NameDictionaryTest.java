@@ -0,0 +1,181 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.google.protobuf.Struct;
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+import com.proto.MutationProtos.TokenMutation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.sps.Utility.protoNodeToGraphNode;
+
+/**
+ * This file tests the following functions: - NameDictionary.id - NameDictionary.find -
+ * NameDictionary.intern - NameDictionary.addNames - the interning of names in
+ * GraphNode.create, Utility.protoNodeToGraphNode and DataGraph.mutateGraph - GraphNode.id
+ */
+@RunWith(JUnit4.class)
+public final class NameDictionaryTest {
+
+  /*
+   * Check that names get stable ids and can be looked up by id
+   */
+  @Test
+  public void idsAreStable() {
+    int id = NameDictionary.id("dictionary-stable");
+
+    Assert.assertEquals(id, NameDictionary.id("dictionary-stable"));
+    Assert.assertEquals(id, NameDictionary.find("dictionary-stable"));
+    Assert.assertEquals("dictionary-stable", NameDictionary.name(id));
+    Assert.assertNotEquals(id, NameDictionary.id("dictionary-stable-other"));
+    Assert.assertTrue(id < NameDictionary.size());
+  }
+
+  /*
+   * Check that unknown names are not registered by find
+   */
+  @Test
+  public void unknownName() {
+    Assert.assertEquals(-1, NameDictionary.find("dictionary-unknown"));
+    Assert.assertFalse(NameDictionary.contains("dictionary-unknown"));
+    Assert.assertEquals(-1, NameDictionary.find("dictionary-unknown"));
+  }
+
+  /*
+   * Check that equal names are interned to the same instance
+   */
+  @Test
+  public void internSharesInstances() {
+    String first = new String("dictionary-interned");
+    String second = new String("dictionary-interned");
+
+    Assert.assertSame(NameDictionary.intern(first), NameDictionary.intern(second));
+  }
+
+  /*
+   * Check that names registered concurrently get distinct dense ids
+   */
+  @Test
+  public void concurrentRegistration() {
+    int before = NameDictionary.size();
+    Set<Integer> ids =
+        IntStream.range(0, 5000)
+            .parallel()
+            .map(i -> NameDictionary.id("dictionary-concurrent-" + i))
+            .boxed()
+            .collect(Collectors.toSet());
+
+    Assert.assertEquals(5000, ids.size());
+    for (int id : ids) {
+      Assert.assertTrue(id >= before && id < NameDictionary.size());
+    }
+  }
+
+  /*
+   * Check that the nodes and tokens of a graph node and of mutated nodes are interned, and that a
+   * graph node keeps the id of its name
+   */
+  @Test
+  public void graphNamesAreInterned() {
+    Node node =
+        Node.newBuilder()
+            .setName(new String("dictionary-node"))
+            .addToken(new String("dictionary-token"))
+            .build();
+    GraphNode graphNode = protoNodeToGraphNode(node);
+    Assert.assertSame(NameDictionary.intern("dictionary-node"), graphNode.name());
+    Assert.assertEquals(NameDictionary.find("dictionary-node"), graphNode.id());
+    Assert.assertSame(NameDictionary.intern("dictionary-token"), graphNode.tokenList().get(0));
+
+    DataGraph dataGraph = DataGraph.create();
+    dataGraph.mutateGraph(
+        Mutation.newBuilder()
+            .setType(Mutation.Type.ADD_NODE)
+            .setStartNode(new String("dictionary-added")));
+    GraphNode added = dataGraph.graphNodesMap().get("dictionary-added");
+    Assert.assertSame(NameDictionary.intern("dictionary-added"), added.name());
+  }
+
+  /*
+   * Check that all names referenced by a multi-mutation are registered
+   */
+  @Test
+  public void addNames() {
+    MultiMutation multiMut =
+        MultiMutation.newBuilder()
+            .addMutation(
+                Mutation.newBuilder()
+                    .setType(Mutation.Type.ADD_EDGE)
+                    .setStartNode("dictionary-start")
+                    .setEndNode("dictionary-end"))
+            .addMutation(
+                Mutation.newBuilder()
+                    .setType(Mutation.Type.CHANGE_TOKEN)
+                    .setStartNode("dictionary-start")
+                    .setTokenChange(
+                        TokenMutation.newBuilder()
+                            .setType(TokenMutation.Type.ADD_TOKEN)
+                            .addTokenName("dictionary-mutated-token")))
+            .build();
+    NameDictionary.addNames(multiMut);
+
+    Set<String> expected = new HashSet<>();
+    expected.add("dictionary-start");
+    expected.add("dictionary-end");
+    expected.add("dictionary-mutated-token");
+    for (String name : expected) {
+      Assert.assertTrue(NameDictionary.contains(name));
+    }
+  }
+
+  /*
+   * Check that creating a node registers its name, and that graph algorithms don't register any
+   */
+  @Test
+  public void readsDoNotRegister() {
+    GraphNode parent = node(new String("dictionary-parent"));
+    GraphNode child = node(new String("dictionary-child"));
+    Assert.assertSame(NameDictionary.intern("dictionary-parent"), parent.name());
+    MutableGraph<GraphNode> graph = GraphBuilder.directed().build();
+    graph.putEdge(parent, child);
+
+    int before = NameDictionary.size();
+    Assert.assertNotNull(TopologicalOrder.of(graph));
+    ReachabilityIndex index = ReachabilityIndex.build(graph);
+    Assert.assertTrue(index.reaches("dictionary-parent", "dictionary-child"));
+    Assert.assertFalse(index.reaches("dictionary-parent", "dictionary-never-loaded"));
+    Assert.assertEquals(before, NameDictionary.size());
+    Assert.assertFalse(NameDictionary.contains("dictionary-never-loaded"));
+  }
+
+  // Creates a node without tokens
+  private static GraphNode node(String name) {
+    return GraphNode.create(name, new ArrayList<>(), Struct.getDefaultInstance());
+  }
+}
@@ -0,0 +1,278 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Sets;
+import com.google.common.graph.AbstractGraph;
+import com.google.common.graph.ElementOrder;
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.MutableGraph;
+
+/**
+ * A directed graph of GraphNodes without self-loops whose adjacency is kept in PersistentMaps. Each
+ * node maps to the persistent sets of its children and parents, so copying the graph only copies a
+ * reference to the root of the trie and takes constant time. The graph and its copies share
+ * structure, and adding or removing an edge only copies the paths to its two endpoints.
+ *
+ * <p>The graph is equal to any other Graph with the same nodes and edges, including the Guava
+ * implementations. Sets returned by nodes, successors and predecessors are immutable snapshots of
+ * the graph at the time of the call. Nodes are not kept in insertion order.
+ */
+final class PersistentGraph extends AbstractGraph<GraphNode> implements MutableGraph<GraphNode> {
+
+  private PersistentMap<GraphNode, Adjacency> adjacency;
+  private long edgeCount;
+
+  /** Creates an empty graph */
+  PersistentGraph() {
+    this(PersistentMap.empty(), 0);
+  }
+
+  private PersistentGraph(PersistentMap<GraphNode, Adjacency> adjacency, long edgeCount) {
+    this.adjacency = adjacency;
+    this.edgeCount = edgeCount;
+  }
+
+  /**
+   * Returns a copy of this graph in constant time. The copy and this graph can be modified
+   * independently.
+   *
+   * @return the copy
+   */
+  PersistentGraph copy() {
+    return new PersistentGraph(adjacency, edgeCount);
+  }
+
+  /** The children and parents of a node */
+  private static final class Adjacency {
+    static final Adjacency EMPTY = new Adjacency(PersistentMap.empty(), PersistentMap.empty());
+
+    // The children and the parents, each mapped to itself
+    final PersistentMap<GraphNode, GraphNode> children;
+    final PersistentMap<GraphNode, GraphNode> parents;
+
+    Adjacency(
+        PersistentMap<GraphNode, GraphNode> children, PersistentMap<GraphNode, GraphNode> parents) {
+      this.children = children;
+      this.parents = parents;
+    }
+
+    Adjacency withChildren(PersistentMap<GraphNode, GraphNode> children) {
+      return new Adjacency(children, parents);
+    }
+
+    Adjacency withParents(PersistentMap<GraphNode, GraphNode> parents) {
+      return new Adjacency(children, parents);
+    }
+  }
+
+  /** An immutable view of the keys of a persistent map */
+  private static final class KeySet<E> extends AbstractSet<E> {
+    private final PersistentMap<E, ?> map;
+
+    KeySet(PersistentMap<E, ?> map) {
+      this.map = map;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+      Iterator<? extends Map.Entry<E, ?>> entries = map.iterator();
+      return new Iterator<E>() {
+        @Override
+        public boolean hasNext() {
+          return entries.hasNext();
+        }
+
+        @Override
+        public E next() {
+          return entries.next().getKey();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return map.size();
+    }
+
+    @Override
+    public boolean contains(Object element) {
+      return map.containsKey(element);
+    }
+  }
+
+  @Override
+  public Set<GraphNode> nodes() {
+    return new KeySet<>(adjacency);
+  }
+
+  @Override
+  public boolean isDirected() {
+    return true;
+  }
+
+  @Override
+  public boolean allowsSelfLoops() {
+    return false;
+  }
+
+  @Override
+  public ElementOrder<GraphNode> nodeOrder() {
+    return ElementOrder.unordered();
+  }
+
+  @Override
+  public Set<GraphNode> adjacentNodes(GraphNode node) {
+    return Sets.union(successors(node), predecessors(node));
+  }
+
+  @Override
+  public Set<GraphNode> predecessors(GraphNode node) {
+    return new KeySet<>(checkedAdjacency(node).parents);
+  }
+
+  @Override
+  public Set<GraphNode> successors(GraphNode node) {
+    return new KeySet<>(checkedAdjacency(node).children);
+  }
+
+  @Override
+  public int inDegree(GraphNode node) {
+    return checkedAdjacency(node).parents.size();
+  }
+
+  @Override
+  public int outDegree(GraphNode node) {
+    return checkedAdjacency(node).children.size();
+  }
+
+  @Override
+  public int degree(GraphNode node) {
+    Adjacency nodeAdjacency = checkedAdjacency(node);
+    return nodeAdjacency.children.size() + nodeAdjacency.parents.size();
+  }
+
+  @Override
+  public boolean hasEdgeConnecting(GraphNode nodeU, GraphNode nodeV) {
+    Adjacency adjacencyU = adjacency.get(nodeU);
+    return adjacencyU != null && adjacencyU.children.containsKey(nodeV);
+  }
+
+  @Override
+  protected long edgeCount() {
+    return edgeCount;
+  }
+
+  @Override
+  public boolean addNode(GraphNode node) {
+    Preconditions.checkNotNull(node, "node");
+    if (adjacency.containsKey(node)) {
+      return false;
+    }
+    adjacency = adjacency.plus(node, Adjacency.EMPTY);
+    return true;
+  }
+
+  @Override
+  public boolean putEdge(GraphNode nodeU, GraphNode nodeV) {
+    Preconditions.checkNotNull(nodeU, "nodeU");
+    Preconditions.checkNotNull(nodeV, "nodeV");
+    Preconditions.checkArgument(
+        !nodeU.equals(nodeV), "Cannot add self-loop edge on node %s", nodeU.name());
+    addNode(nodeU);
+    addNode(nodeV);
+    Adjacency adjacencyU = adjacency.get(nodeU);
+    if (adjacencyU.children.containsKey(nodeV)) {
+      return false;
+    }
+    Adjacency adjacencyV = adjacency.get(nodeV);
+    adjacency =
+        adjacency
+            .plus(nodeU, adjacencyU.withChildren(adjacencyU.children.plus(nodeV, nodeV)))
+            .plus(nodeV, adjacencyV.withParents(adjacencyV.parents.plus(nodeU, nodeU)));
+    edgeCount++;
+    return true;
+  }
+
+  @Override
+  public boolean putEdge(EndpointPair<GraphNode> endpoints) {
+    Preconditions.checkArgument(endpoints.isOrdered(), "Directed graphs need ordered endpoints");
+    return putEdge(endpoints.source(), endpoints.target());
+  }
+
+  @Override
+  public boolean removeNode(GraphNode node) {
+    Adjacency nodeAdjacency = adjacency.get(node);
+    if (nodeAdjacency == null) {
+      return false;
+    }
+    PersistentMap<GraphNode, Adjacency> updated = adjacency.minus(node);
+    for (Map.Entry<GraphNode, GraphNode> child : nodeAdjacency.children) {
+      Adjacency childAdjacency = updated.get(child.getKey());
+      updated =
+          updated.plus(
+              child.getKey(), childAdjacency.withParents(childAdjacency.parents.minus(node)));
+    }
+    for (Map.Entry<GraphNode, GraphNode> parent : nodeAdjacency.parents) {
+      Adjacency parentAdjacency = updated.get(parent.getKey());
+      updated =
+          updated.plus(
+              parent.getKey(), parentAdjacency.withChildren(parentAdjacency.children.minus(node)));
+    }
+    adjacency = updated;
+    edgeCount -= nodeAdjacency.children.size() + nodeAdjacency.parents.size();
+    return true;
+  }
+
+  @Override
+  public boolean removeEdge(GraphNode nodeU, GraphNode nodeV) {
+    Adjacency adjacencyU = adjacency.get(nodeU);
+    if (adjacencyU == null || !adjacencyU.children.containsKey(nodeV)) {
+      return false;
+    }
+    Adjacency adjacencyV = adjacency.get(nodeV);
+    adjacency =
+        adjacency
+            .plus(nodeU, adjacencyU.withChildren(adjacencyU.children.minus(nodeV)))
+            .plus(nodeV, adjacencyV.withParents(adjacencyV.parents.minus(nodeU)));
+    edgeCount--;
+    return true;
+  }
+
+  @Override
+  public boolean removeEdge(EndpointPair<GraphNode> endpoints) {
+    return endpoints.isOrdered() && removeEdge(endpoints.source(), endpoints.target());
+  }
+
+  /**
+   * Returns the adjacency of the given node, which must be in the graph
+   *
+   * @param node the node to look for
+   * @return the children and parents of the node
+   * @throws IllegalArgumentException if the node is not in the graph
+   */
+  private Adjacency checkedAdjacency(GraphNode node) {
+    Adjacency nodeAdjacency = adjacency.get(node);
+    Preconditions.checkArgument(
+        nodeAdjacency != null, "Node %s is not an element of this graph.", node);
+    return nodeAdjacency;
+  }
+}
@@ -0,0 +1,214 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+import com.google.protobuf.Struct;
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.Mutation;
+import com.proto.MutationProtos.TokenMutation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - the graph operations of PersistentGraph -
+ * PersistentGraph.copy - getCopy in DataGraph.java on persistent maps and graphs
+ */
+@RunWith(JUnit4.class)
+public final class PersistentGraphTest {
+
+  GraphNode gNodeA = node("A");
+  GraphNode gNodeB = node("B");
+  GraphNode gNodeC = node("C");
+  GraphNode gNodeD = node("D");
+
+  /*
+   * Check that nodes and edges are added, found and removed
+   */
+  @Test
+  public void basicOperations() {
+    PersistentGraph graph = new PersistentGraph();
+
+    Assert.assertTrue(graph.addNode(gNodeA));
+    Assert.assertFalse(graph.addNode(gNodeA));
+    Assert.assertTrue(graph.putEdge(gNodeA, gNodeB));
+    Assert.assertFalse(graph.putEdge(gNodeA, gNodeB));
+    Assert.assertTrue(graph.putEdge(gNodeA, gNodeC));
+    Assert.assertTrue(graph.putEdge(gNodeB, gNodeC));
+
+    Assert.assertEquals(3, graph.nodes().size());
+    Assert.assertEquals(3, graph.edges().size());
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeB, gNodeC)), graph.successors(gNodeA));
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeA, gNodeB)), graph.predecessors(gNodeC));
+    Assert.assertEquals(2, graph.inDegree(gNodeC));
+    Assert.assertEquals(2, graph.degree(gNodeB));
+    Assert.assertTrue(graph.hasEdgeConnecting(gNodeB, gNodeC));
+    Assert.assertFalse(graph.hasEdgeConnecting(gNodeC, gNodeB));
+
+    Assert.assertTrue(graph.removeEdge(gNodeA, gNodeC));
+    Assert.assertFalse(graph.removeEdge(gNodeA, gNodeC));
+    Assert.assertTrue(graph.removeNode(gNodeB));
+    Assert.assertFalse(graph.removeNode(gNodeB));
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeA, gNodeC)), graph.nodes());
+    Assert.assertEquals(0, graph.edges().size());
+  }
+
+  /*
+   * Check that nodes that are not in the graph and self-loops are treated as in Guava graphs
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void missingNode() {
+    new PersistentGraph().successors(gNodeA);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void selfLoop() {
+    new PersistentGraph().putEdge(gNodeA, gNodeA);
+  }
+
+  /*
+   * Check that modifying a copy leaves the original untouched, and the other way around
+   */
+  @Test
+  public void copy() {
+    PersistentGraph graph = new PersistentGraph();
+    graph.putEdge(gNodeA, gNodeB);
+    PersistentGraph copy = graph.copy();
+
+    copy.removeNode(gNodeA);
+    copy.putEdge(gNodeB, gNodeC);
+    graph.putEdge(gNodeD, gNodeB);
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeA, gNodeB, gNodeD)), graph.nodes());
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeA, gNodeD)), graph.predecessors(gNodeB));
+    Assert.assertEquals(new HashSet<>(Arrays.asList(gNodeB, gNodeC)), copy.nodes());
+    Assert.assertEquals(0, copy.inDegree(gNodeB));
+  }
+
+  /*
+   * Check that random operations give the same graph as a Guava graph, and that copies taken along
+   * the way keep the graph they were taken from
+   */
+  @Test
+  public void randomOperations() {
+    Random random = new Random(49);
+    PersistentGraph graph = new PersistentGraph();
+    MutableGraph<GraphNode> guavaGraph = GraphBuilder.directed().build();
+    List<PersistentGraph> copies = new ArrayList<>();
+    List<MutableGraph<GraphNode>> expectedCopies = new ArrayList<>();
+    List<GraphNode> nodes = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      nodes.add(node("random-" + i));
+    }
+
+    for (int step = 0; step < 20000; step++) {
+      GraphNode nodeU = nodes.get(random.nextInt(nodes.size()));
+      GraphNode nodeV = nodes.get(random.nextInt(nodes.size()));
+      int operation = random.nextInt(10);
+      if (operation < 4 && !nodeU.equals(nodeV)) {
+        Assert.assertEquals(guavaGraph.putEdge(nodeU, nodeV), graph.putEdge(nodeU, nodeV));
+      } else if (operation < 6) {
+        Assert.assertEquals(guavaGraph.removeEdge(nodeU, nodeV), graph.removeEdge(nodeU, nodeV));
+      } else if (operation < 8) {
+        Assert.assertEquals(guavaGraph.addNode(nodeU), graph.addNode(nodeU));
+      } else {
+        Assert.assertEquals(guavaGraph.removeNode(nodeU), graph.removeNode(nodeU));
+      }
+      if (step % 5000 == 0) {
+        copies.add(graph.copy());
+        expectedCopies.add(GraphEngine.copyOf(guavaGraph));
+      }
+    }
+
+    Assert.assertEquals(guavaGraph, graph);
+    Assert.assertEquals(guavaGraph.hashCode(), graph.hashCode());
+    for (GraphNode node : guavaGraph.nodes()) {
+      Assert.assertEquals(guavaGraph.successors(node), graph.successors(node));
+      Assert.assertEquals(guavaGraph.predecessors(node), graph.predecessors(node));
+    }
+    Assert.assertEquals(expectedCopies, copies);
+  }
+
+  /*
+   * Check that copies of a data graph made by create() share nothing that mutations can change
+   */
+  @Test
+  public void dataGraphCopies() {
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    protoNodesMap.put(
+        "A", Node.newBuilder().setName("A").addChildren("B").addChildren("C").build());
+    protoNodesMap.put("B", Node.newBuilder().setName("B").addChildren("D").addToken("1").build());
+    protoNodesMap.put("C", Node.newBuilder().setName("C").addToken("1").build());
+    protoNodesMap.put("D", Node.newBuilder().setName("D").build());
+    DataGraph original = DataGraph.create(GraphEngine.PERSISTENT);
+    Assert.assertTrue(original.graphFromProtoNodes(protoNodesMap));
+    DataGraph expected = DataGraph.create(GraphEngine.GUAVA);
+    Assert.assertTrue(expected.graphFromProtoNodes(protoNodesMap));
+
+    DataGraph copy = original.getCopy();
+    Assert.assertTrue(copy.graphNodesMap() instanceof PersistentHashMap);
+    Assert.assertTrue(copy.graph() instanceof PersistentGraph);
+    List<Mutation> mutations =
+        Arrays.asList(
+            Mutation.newBuilder().setType(Mutation.Type.DELETE_NODE).setStartNode("A").build(),
+            Mutation.newBuilder()
+                .setType(Mutation.Type.CHANGE_TOKEN)
+                .setStartNode("D")
+                .setTokenChange(
+                    TokenMutation.newBuilder()
+                        .setType(TokenMutation.Type.ADD_TOKEN)
+                        .addTokenName("1"))
+                .build(),
+            Mutation.newBuilder()
+                .setType(Mutation.Type.CHANGE_TOKEN)
+                .setStartNode("C")
+                .setTokenChange(
+                    TokenMutation.newBuilder()
+                        .setType(TokenMutation.Type.DELETE_TOKEN)
+                        .addTokenName("1"))
+                .build());
+    for (Mutation mutation : mutations) {
+      Assert.assertEquals("", copy.mutateGraph(mutation.toBuilder()));
+    }
+
+    Assert.assertEquals(expected.graph(), original.graph());
+    Assert.assertEquals(expected.graphNodesMap(), original.graphNodesMap());
+    Assert.assertEquals(expected.roots(), original.roots());
+    Assert.assertEquals(expected.tokenMap(), original.tokenMap());
+    Assert.assertEquals(new HashSet<>(Arrays.asList("B", "C")), copy.roots());
+    Assert.assertEquals(new HashSet<>(Arrays.asList("B", "D")), copy.tokenMap().get("1"));
+  }
+
+  /**
+   * Creates a graph node without tokens or metadata
+   *
+   * @param name the name of the node
+   * @return the graph node
+   */
+  private static GraphNode node(String name) {
+    return GraphNode.create(name, new ArrayList<>(), Struct.newBuilder().build());
+  }
+}
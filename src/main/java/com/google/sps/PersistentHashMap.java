@@ -0,0 +1,458 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A HashMap whose entries are kept in a PersistentMap, so that it can be copied in constant time
+ * with fork. The map and its forks share structure and each modification only copies the path to
+ * the changed key. It behaves like a HashMap without null keys or values, except that iterators
+ * over its views see the map as it was when they were created and never throw
+ * ConcurrentModificationException.
+ *
+ * <p>Values that are PersistentHashSets are forked along with the map. A fork shares them with the
+ * map it came from, so the sets returned by get and the views must not be modified. Callers that
+ * modify a set get it with getForUpdate or computeIfAbsent, which first replace a shared set with
+ * a copy that only this map can reach. Reads never modify the map.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class PersistentHashMap<K, V> extends HashMap<K, V> {
+
+  private static final long serialVersionUID = 1L;
+
+  private transient PersistentMap<K, V> entries;
+  // Identifies the PersistentHashSet values that only this map can reach. It changes when the map
+  // is forked after marking sets with it, so that those sets become shared.
+  private transient Object owner = new Object();
+  // Whether some set was marked with the current owner. A map that wasn't modified since it was
+  // last forked, such as a published DataGraph snapshot, is left untouched by further forks.
+  private transient boolean ownerUsed = false;
+
+  /** Creates an empty map */
+  PersistentHashMap() {
+    this.entries = PersistentMap.empty();
+  }
+
+  /**
+   * Creates a map containing the entries of the given map
+   *
+   * @param map the entries to add
+   */
+  PersistentHashMap(Map<? extends K, ? extends V> map) {
+    this();
+    putAll(map);
+  }
+
+  private PersistentHashMap(PersistentMap<K, V> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * Returns a copy of this map in constant time. The copy and this map can be modified
+   * independently, including the PersistentHashSets they contain.
+   *
+   * @return the copy
+   */
+  PersistentHashMap<K, V> fork() {
+    if (ownerUsed) {
+      owner = new Object();
+      ownerUsed = false;
+    }
+    return new PersistentHashMap<>(entries);
+  }
+
+  /**
+   * Returns the value of a key so that the caller can modify it. A PersistentHashSet shared with
+   * another map is first replaced with a copy that only this map can reach.
+   *
+   * @param key the key
+   * @return the value, or null if the map doesn't contain the key
+   */
+  V getForUpdate(K key) {
+    V value = entries.get(key);
+    return value == null ? null : own(key, value);
+  }
+
+  /**
+   * Makes sure a value can be modified by the caller without affecting other maps
+   *
+   * @param key the key of the value
+   * @param value the value stored in the trie
+   * @return the value to hand out
+   */
+  @SuppressWarnings("unchecked")
+  private V own(K key, V value) {
+    if (!(value instanceof PersistentHashSet)) {
+      return value;
+    }
+    PersistentHashSet<?> set = (PersistentHashSet<?>) value;
+    if (set.owner == owner) {
+      return value;
+    }
+    PersistentHashSet<?> copy = set.fork();
+    copy.owner = owner;
+    ownerUsed = true;
+    entries = entries.plus(key, (V) copy);
+    return (V) copy;
+  }
+
+  /**
+   * Marks a value that is being stored as belonging to this map, unless it already belongs to
+   * another one
+   *
+   * @param value the value
+   */
+  private void adopt(V value) {
+    if (value instanceof PersistentHashSet && ((PersistentHashSet<?>) value).owner == null) {
+      ((PersistentHashSet<?>) value).owner = owner;
+      ownerUsed = true;
+    }
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  @Override
+  public V get(Object key) {
+    return entries.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return entries.containsKey(key);
+  }
+
+  @Override
+  public V put(K key, V value) {
+    V previous = entries.get(key);
+    adopt(value);
+    entries = entries.plus(key, value);
+    return previous;
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> map) {
+    for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public V remove(Object key) {
+    V previous = entries.get(key);
+    entries = entries.minus(key);
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    entries = PersistentMap.empty();
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    for (Map.Entry<K, V> entry : entries) {
+      if (entry.getValue().equals(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public V getOrDefault(Object key, V defaultValue) {
+    V value = get(key);
+    return value == null ? defaultValue : value;
+  }
+
+  @Override
+  public V putIfAbsent(K key, V value) {
+    V existing = get(key);
+    return existing == null ? put(key, value) : existing;
+  }
+
+  @Override
+  public boolean remove(Object key, Object value) {
+    V existing = entries.get(key);
+    if (existing == null || !existing.equals(value)) {
+      return false;
+    }
+    remove(key);
+    return true;
+  }
+
+  @Override
+  public boolean replace(K key, V oldValue, V newValue) {
+    V existing = entries.get(key);
+    if (existing == null || !existing.equals(oldValue)) {
+      return false;
+    }
+    put(key, newValue);
+    return true;
+  }
+
+  @Override
+  public V replace(K key, V value) {
+    return containsKey(key) ? put(key, value) : null;
+  }
+
+  @Override
+  public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+    V value = getForUpdate(key);
+    if (value == null) {
+      value = mappingFunction.apply(key);
+      if (value != null) {
+        put(key, value);
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public V computeIfPresent(
+      K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+    V value = getForUpdate(key);
+    return value == null ? null : update(key, remappingFunction.apply(key, value));
+  }
+
+  @Override
+  public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+    return update(key, remappingFunction.apply(key, getForUpdate(key)));
+  }
+
+  @Override
+  public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+    Objects.requireNonNull(value);
+    V existing = getForUpdate(key);
+    return update(key, existing == null ? value : remappingFunction.apply(existing, value));
+  }
+
+  /**
+   * Stores the result of a remapping function
+   *
+   * @param key the key
+   * @param value the new value, or null to remove the key
+   * @return the new value
+   */
+  private V update(K key, V value) {
+    if (value == null) {
+      remove(key);
+    } else {
+      put(key, value);
+    }
+    return value;
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    for (Map.Entry<K, V> entry : entries) {
+      action.accept(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+    for (Map.Entry<K, V> entry : entries) {
+      put(entry.getKey(), function.apply(entry.getKey(), own(entry.getKey(), entry.getValue())));
+    }
+  }
+
+  @Override
+  public Object clone() {
+    return fork();
+  }
+
+  @Override
+  public Set<K> keySet() {
+    return new AbstractSet<K>() {
+      @Override
+      public Iterator<K> iterator() {
+        return new ViewIterator<K>() {
+          @Override
+          K element(Map.Entry<K, V> entry) {
+            return entry.getKey();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return PersistentHashMap.this.size();
+      }
+
+      @Override
+      public boolean contains(Object key) {
+        return containsKey(key);
+      }
+
+      @Override
+      public boolean remove(Object key) {
+        return PersistentHashMap.this.remove(key) != null;
+      }
+
+      @Override
+      public void clear() {
+        PersistentHashMap.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public Collection<V> values() {
+    return new AbstractCollection<V>() {
+      @Override
+      public Iterator<V> iterator() {
+        return new ViewIterator<V>() {
+          @Override
+          V element(Map.Entry<K, V> entry) {
+            return entry.getValue();
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return PersistentHashMap.this.size();
+      }
+
+      @Override
+      public void clear() {
+        PersistentHashMap.this.clear();
+      }
+    };
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<Map.Entry<K, V>>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        return new ViewIterator<Map.Entry<K, V>>() {
+          @Override
+          Map.Entry<K, V> element(Map.Entry<K, V> entry) {
+            K key = entry.getKey();
+            return new AbstractMap.SimpleEntry<K, V>(key, entry.getValue()) {
+              @Override
+              public V setValue(V value) {
+                super.setValue(value);
+                return put(key, value);
+              }
+            };
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return PersistentHashMap.this.size();
+      }
+
+      @Override
+      public boolean contains(Object object) {
+        if (!(object instanceof Map.Entry)) {
+          return false;
+        }
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+        V value = entries.get(entry.getKey());
+        return value != null && value.equals(entry.getValue());
+      }
+
+      @Override
+      public boolean remove(Object object) {
+        if (!(object instanceof Map.Entry)) {
+          return false;
+        }
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+        return PersistentHashMap.this.remove(entry.getKey(), entry.getValue());
+      }
+
+      @Override
+      public void clear() {
+        PersistentHashMap.this.clear();
+      }
+    };
+  }
+
+  /**
+   * Iterates over the entries the map had when the iterator was created. Removing through the
+   * iterator removes the key from the map.
+   *
+   * @param <T> the type of the elements returned
+   */
+  private abstract class ViewIterator<T> implements Iterator<T> {
+    private final Iterator<Map.Entry<K, V>> iterator = entries.iterator();
+    // The key of the last entry returned, which remove deletes
+    private K lastKey = null;
+
+    /**
+     * Converts an entry into the element returned by the iterator
+     *
+     * @param entry the entry of the trie
+     * @return the element
+     */
+    abstract T element(Map.Entry<K, V> entry);
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public T next() {
+      Map.Entry<K, V> entry = iterator.next();
+      lastKey = entry.getKey();
+      return element(entry);
+    }
+
+    @Override
+    public void remove() {
+      if (lastKey == null) {
+        throw new IllegalStateException();
+      }
+      PersistentHashMap.this.remove(lastKey);
+      lastKey = null;
+    }
+  }
+
+  /**
+   * Serializes the map as a plain HashMap, since the trie is transient
+   *
+   * @return a HashMap with the same entries
+   */
+  private Object writeReplace() {
+    return new HashMap<>(this);
+  }
+}
@@ -0,0 +1,181 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * A HashSet whose elements are kept in a PersistentMap, so that it can be copied in constant time
+ * with fork. The set and its forks share structure and each modification only copies the path to
+ * the changed element. It behaves like a HashSet, except that iterators see the set as it was when
+ * they were created and never throw ConcurrentModificationException.
+ *
+ * @param <E> the type of the elements
+ */
+final class PersistentHashSet<E> extends HashSet<E> {
+
+  private static final long serialVersionUID = 1L;
+
+  // The elements, each mapped to itself
+  private transient PersistentMap<E, E> elements;
+  // The PersistentHashMap this set is a value of, used to tell whether the set is shared. Null
+  // while the set doesn't belong to a map.
+  transient Object owner = null;
+
+  /** Creates an empty set */
+  PersistentHashSet() {
+    this.elements = PersistentMap.empty();
+  }
+
+  /**
+   * Creates a set containing the given elements
+   *
+   * @param elements the elements to add
+   */
+  PersistentHashSet(Collection<? extends E> elements) {
+    this();
+    addAll(elements);
+  }
+
+  private PersistentHashSet(PersistentMap<E, E> elements) {
+    this.elements = elements;
+  }
+
+  /**
+   * Returns a copy of this set in constant time. The copy and this set can be modified
+   * independently.
+   *
+   * @return the copy
+   */
+  PersistentHashSet<E> fork() {
+    return new PersistentHashSet<>(elements);
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    Iterator<Map.Entry<E, E>> entries = elements.iterator();
+    return new Iterator<E>() {
+      // The last element returned, which remove deletes
+      private E last = null;
+
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public E next() {
+        last = entries.next().getKey();
+        return last;
+      }
+
+      @Override
+      public void remove() {
+        if (last == null) {
+          throw new IllegalStateException();
+        }
+        PersistentHashSet.this.remove(last);
+        last = null;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return elements.isEmpty();
+  }
+
+  @Override
+  public boolean contains(Object element) {
+    return elements.containsKey(element);
+  }
+
+  @Override
+  public boolean add(E element) {
+    if (elements.containsKey(element)) {
+      return false;
+    }
+    elements = elements.plus(element, element);
+    return true;
+  }
+
+  @Override
+  public boolean remove(Object element) {
+    PersistentMap<E, E> updated = elements.minus(element);
+    if (updated == elements) {
+      return false;
+    }
+    elements = updated;
+    return true;
+  }
+
+  @Override
+  public void clear() {
+    elements = PersistentMap.empty();
+  }
+
+  @Override
+  public Object clone() {
+    return fork();
+  }
+
+  @Override
+  public Spliterator<E> spliterator() {
+    return Spliterators.spliterator(this, Spliterator.DISTINCT);
+  }
+
+  @Override
+  public Object[] toArray() {
+    return toArray(new Object[0]);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T[] toArray(T[] array) {
+    int size = size();
+    T[] result =
+        array.length >= size
+            ? array
+            : (T[]) Array.newInstance(array.getClass().getComponentType(), size);
+    Iterator<Map.Entry<E, E>> entries = elements.iterator();
+    for (int i = 0; i < size; i++) {
+      result[i] = (T) entries.next().getKey();
+    }
+    if (result.length > size) {
+      result[size] = null;
+    }
+    return result;
+  }
+
+  /**
+   * Serializes the set as a plain HashSet, since the trie is transient
+   *
+   * @return a HashSet with the same elements
+   */
+  private Object writeReplace() {
+    return new HashSet<>(this);
+  }
+}
@@ -0,0 +1,267 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An immutable array of ints indexed by NameDictionary ids or other small non-negative integers,
+ * stored as a trie. Updates return a new array that shares every trie node off the path to the
+ * updated index with this one, so they take O(log n) time and space and old versions stay valid.
+ * Indices that were never set hold the default value the array was created with, and the array
+ * grows as larger indices are set.
+ *
+ * <p>Each level of the trie uses 5 bits of the index to pick one of 32 branches, and the leaves
+ * hold 32 ints each. A missing branch stands for a subtree holding only the default value.
+ */
+final class PersistentIntArray {
+
+  // Number of index bits used at each level of the trie
+  private static final int BITS_PER_LEVEL = 5;
+  // Number of branches of an inner node and of values in a leaf
+  private static final int WIDTH = 1 << BITS_PER_LEVEL;
+  // Mask selecting the bits used at one level
+  private static final int LEVEL_MASK = WIDTH - 1;
+
+  // An int[] leaf if shift is 0 and an Object[] inner node otherwise, or null if nothing is set
+  private final Object root;
+  // The number of index bits below the level of the root
+  private final int shift;
+  private final int defaultValue;
+
+  private PersistentIntArray(Object root, int shift, int defaultValue) {
+    this.root = root;
+    this.shift = shift;
+    this.defaultValue = defaultValue;
+  }
+
+  /**
+   * Returns an array holding the default value at every index
+   *
+   * @param defaultValue the value of the indices that are not set
+   * @return the empty array
+   */
+  static PersistentIntArray empty(int defaultValue) {
+    return new PersistentIntArray(null, 0, defaultValue);
+  }
+
+  /**
+   * Returns an array holding the given values, built in linear time
+   *
+   * @param values the values of the indices from 0, which are copied
+   * @param defaultValue the value of the indices past the end of values
+   * @return the array
+   */
+  static PersistentIntArray of(int[] values, int defaultValue) {
+    int shift = 0;
+    while (!fits(Math.max(values.length - 1, 0), shift)) {
+      shift += BITS_PER_LEVEL;
+    }
+    return new PersistentIntArray(build(values, 0, shift, defaultValue), shift, defaultValue);
+  }
+
+  /**
+   * Returns the value at an index
+   *
+   * @param index the index to look up
+   * @return the value set at the index, or the default value if there is none
+   */
+  int get(int index) {
+    if (index < 0 || !fits(index, shift)) {
+      return defaultValue;
+    }
+    Object node = root;
+    for (int level = shift; level > 0 && node != null; level -= BITS_PER_LEVEL) {
+      node = ((Object[]) node)[(index >>> level) & LEVEL_MASK];
+    }
+    return node == null ? defaultValue : ((int[]) node)[index & LEVEL_MASK];
+  }
+
+  /**
+   * Returns an array that also holds the given value at the given index
+   *
+   * @param index the index to set, not negative
+   * @param value the new value of the index
+   * @return the updated array, or this array if the index already had this value
+   */
+  PersistentIntArray with(int index, int value) {
+    Preconditions.checkArgument(index >= 0, "index %s is negative", index);
+    if (get(index) == value) {
+      return this;
+    }
+    Object newRoot = root;
+    int newShift = shift;
+    while (!fits(index, newShift)) {
+      // The current trie becomes the first branch of a new root
+      if (newRoot != null) {
+        Object[] parent = new Object[WIDTH];
+        parent[0] = newRoot;
+        newRoot = parent;
+      }
+      newShift += BITS_PER_LEVEL;
+    }
+    return new PersistentIntArray(set(newRoot, newShift, index, value), newShift, defaultValue);
+  }
+
+  /**
+   * Returns a copy of a trie node with a value set below it
+   *
+   * @param node the node to copy, or null if it only holds the default value
+   * @param level the number of index bits below the level of the node
+   * @param index the index to set
+   * @param value the new value of the index
+   * @return the copy
+   */
+  private Object set(Object node, int level, int index, int value) {
+    if (level == 0) {
+      int[] leaf = node == null ? newLeaf(defaultValue) : ((int[]) node).clone();
+      leaf[index & LEVEL_MASK] = value;
+      return leaf;
+    }
+    Object[] inner = node == null ? new Object[WIDTH] : ((Object[]) node).clone();
+    int branch = (index >>> level) & LEVEL_MASK;
+    inner[branch] = set(inner[branch], level - BITS_PER_LEVEL, index, value);
+    return inner;
+  }
+
+  /**
+   * Builds the trie node holding the values from an offset
+   *
+   * @param values the values of the whole array
+   * @param offset the index of the first value below the node
+   * @param level the number of index bits below the level of the node
+   * @param defaultValue the value of the indices past the end of values
+   * @return the node, or null if the offset is past the end of values
+   */
+  private static Object build(int[] values, long offset, int level, int defaultValue) {
+    if (offset >= values.length) {
+      return null;
+    }
+    if (level == 0) {
+      int[] leaf = newLeaf(defaultValue);
+      int count = (int) Math.min(WIDTH, values.length - offset);
+      System.arraycopy(values, (int) offset, leaf, 0, count);
+      return leaf;
+    }
+    Object[] inner = new Object[WIDTH];
+    for (int branch = 0; branch < WIDTH; branch++) {
+      long branchOffset = offset + ((long) branch << level);
+      inner[branch] = build(values, branchOffset, level - BITS_PER_LEVEL, defaultValue);
+    }
+    return inner;
+  }
+
+  /**
+   * Returns whether a trie whose root has the given shift has room for an index
+   *
+   * @param index the index, not negative
+   * @param shift the number of index bits below the level of the root
+   * @return true if the index is below the capacity of the trie
+   */
+  private static boolean fits(int index, int shift) {
+    // Shifting an int by 32 bits or more would wrap around
+    return shift + BITS_PER_LEVEL >= Integer.SIZE || (index >>> (shift + BITS_PER_LEVEL)) == 0;
+  }
+
+  // Creates a leaf holding only the default value
+  private static int[] newLeaf(int defaultValue) {
+    int[] leaf = new int[WIDTH];
+    Arrays.fill(leaf, defaultValue);
+    return leaf;
+  }
+
+  /** Two arrays are equal if they have the same default value and the same value at every index */
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof PersistentIntArray)) {
+      return false;
+    }
+    PersistentIntArray that = (PersistentIntArray) other;
+    return defaultValue == that.defaultValue
+        && matches(root, shift, 0, that)
+        && that.matches(that.root, that.shift, 0, this);
+  }
+
+  /**
+   * Returns whether another array has the same value as this one at every index below a trie node
+   * of this one. Missing branches are skipped, so the indices where this array has the default
+   * value are not all checked.
+   *
+   * @param node the trie node of this array
+   * @param level the number of index bits below the level of the node
+   * @param offset the first index below the node
+   * @param other the array to compare with
+   * @return true if the values set below the node are the same in the other array
+   */
+  private boolean matches(Object node, int level, long offset, PersistentIntArray other) {
+    if (node == null) {
+      return true;
+    }
+    if (level == 0) {
+      int[] leaf = (int[]) node;
+      for (int i = 0; i < WIDTH; i++) {
+        if (leaf[i] != other.get((int) (offset + i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    Object[] inner = (Object[]) node;
+    for (int branch = 0; branch < WIDTH; branch++) {
+      long branchOffset = offset + ((long) branch << level);
+      if (!matches(inner[branch], level - BITS_PER_LEVEL, branchOffset, other)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return defaultValue + hashBelow(root, shift, 0);
+  }
+
+  /**
+   * Returns the sum of the hashes of the indices below a trie node that don't have the default
+   * value, which doesn't depend on the shape of the trie
+   *
+   * @param node the trie node
+   * @param level the number of index bits below the level of the node
+   * @param offset the first index below the node
+   * @return the sum of the hashes
+   */
+  private int hashBelow(Object node, int level, long offset) {
+    if (node == null) {
+      return 0;
+    }
+    int hash = 0;
+    if (level == 0) {
+      int[] leaf = (int[]) node;
+      for (int i = 0; i < WIDTH; i++) {
+        if (leaf[i] != defaultValue) {
+          hash += (int) (offset + i) ^ leaf[i];
+        }
+      }
+      return hash;
+    }
+    Object[] inner = (Object[]) node;
+    for (int branch = 0; branch < WIDTH; branch++) {
+      hash += hashBelow(inner[branch], level - BITS_PER_LEVEL, offset + ((long) branch << level));
+    }
+    return hash;
+  }
+}
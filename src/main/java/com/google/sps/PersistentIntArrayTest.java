@@ -0,0 +1,109 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - PersistentIntArray.get - PersistentIntArray.with -
+ * PersistentIntArray.of - PersistentIntArray.equals
+ */
+@RunWith(JUnit4.class)
+public final class PersistentIntArrayTest {
+
+  /*
+   * Check that updates leave the previous versions of the array unchanged
+   */
+  @Test
+  public void oldVersionsUnchanged() {
+    PersistentIntArray empty = PersistentIntArray.empty(-1);
+    PersistentIntArray one = empty.with(3, 30);
+    PersistentIntArray two = one.with(5000, 50);
+    PersistentIntArray changed = two.with(3, 31);
+
+    Assert.assertEquals(-1, empty.get(3));
+    Assert.assertEquals(30, one.get(3));
+    Assert.assertEquals(-1, one.get(5000));
+    Assert.assertEquals(30, two.get(3));
+    Assert.assertEquals(50, two.get(5000));
+    Assert.assertEquals(31, changed.get(3));
+    Assert.assertEquals(50, changed.get(5000));
+    Assert.assertSame(two, two.with(5000, 50));
+  }
+
+  /*
+   * Check that indices that were never set, negative or far past the end, hold the default value
+   */
+  @Test
+  public void defaultValue() {
+    PersistentIntArray array = PersistentIntArray.empty(7).with(40, 0);
+
+    Assert.assertEquals(0, array.get(40));
+    Assert.assertEquals(7, array.get(0));
+    Assert.assertEquals(7, array.get(41));
+    Assert.assertEquals(7, array.get(-1));
+    Assert.assertEquals(7, array.get(Integer.MAX_VALUE));
+    Assert.assertEquals(8, array.with(Integer.MAX_VALUE, 8).get(Integer.MAX_VALUE));
+  }
+
+  /*
+   * Check that random updates give the same values as a plain array, and that an array built from
+   * the final values is equal to the updated one
+   */
+  @Test
+  public void sameAsArray() {
+    Random random = new Random(5);
+    int[] expected = new int[3000];
+    Arrays.fill(expected, -1);
+    PersistentIntArray actual = PersistentIntArray.empty(-1);
+    for (int step = 0; step < 20000; step++) {
+      int index = random.nextInt(expected.length);
+      int value = random.nextInt(4) == 0 ? -1 : random.nextInt();
+      expected[index] = value;
+      actual = actual.with(index, value);
+    }
+
+    for (int index = 0; index < expected.length; index++) {
+      Assert.assertEquals(expected[index], actual.get(index));
+    }
+    PersistentIntArray built = PersistentIntArray.of(expected, -1);
+    for (int index = 0; index < expected.length; index++) {
+      Assert.assertEquals(expected[index], built.get(index));
+    }
+    Assert.assertEquals(actual, built);
+    Assert.assertEquals(actual.hashCode(), built.hashCode());
+  }
+
+  /*
+   * Check that arrays with the same values are equal whatever size their tries grew to
+   */
+  @Test
+  public void equalityIgnoresShape() {
+    PersistentIntArray small = PersistentIntArray.of(new int[] {1, 2}, 0);
+    PersistentIntArray grown = small.with(100000, 3).with(100000, 0);
+
+    Assert.assertEquals(small, grown);
+    Assert.assertEquals(small.hashCode(), grown.hashCode());
+    Assert.assertEquals(PersistentIntArray.empty(0), PersistentIntArray.of(new int[0], 0));
+    Assert.assertNotEquals(small, small.with(1, 5));
+    Assert.assertNotEquals(PersistentIntArray.empty(0), PersistentIntArray.empty(1));
+  }
+}
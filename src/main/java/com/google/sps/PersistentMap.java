@@ -0,0 +1,556 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * An immutable map stored as a hash array mapped trie. Updates return a new map that shares every
+ * trie node off the path to the updated key with this one, so they take O(log n) time and space and
+ * old versions stay valid. Keys and values must not be null.
+ *
+ * <p>Each trie node uses 5 bits of the key's hash to pick one of 32 branches. Like in the CHAMP
+ * layout, a node keeps its key-value pairs at the start of its array and its child nodes at the
+ * end, with one bitmap for each, so that lookups and iteration don't need to check what an entry
+ * is. Keys whose hashes are equal end up together in a collision node below the last level.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class PersistentMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+  // Number of hash bits used at each level of the trie
+  private static final int BITS_PER_LEVEL = 5;
+  // Mask selecting the bits used at one level
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+  private static final PersistentMap<?, ?> EMPTY =
+      new PersistentMap<>(new BitmapNode(0, 0, new Object[0]), 0);
+
+  private final TrieNode root;
+  private final int size;
+
+  private PersistentMap(TrieNode root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Returns the empty map
+   *
+   * @return the empty map
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Returns the number of keys in the map
+   *
+   * @return the size of the map
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the map has no keys
+   *
+   * @return true if the map is empty
+   */
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the value of a key
+   *
+   * @param key the key to look for
+   * @return the value of the key, or null if the map doesn't contain it
+   */
+  @SuppressWarnings("unchecked")
+  V get(Object key) {
+    if (key == null) {
+      return null;
+    }
+    return (V) root.get(key, key.hashCode(), 0);
+  }
+
+  /**
+   * Returns whether the map contains a key
+   *
+   * @param key the key to look for
+   * @return true if the map contains the key
+   */
+  boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Returns a map that also maps the given key to the given value
+   *
+   * @param key the key to add or update
+   * @param value the new value of the key
+   * @return the updated map, or this map if the key already had this exact value
+   */
+  PersistentMap<K, V> plus(K key, V value) {
+    Preconditions.checkNotNull(key, "key");
+    Preconditions.checkNotNull(value, "value");
+    SizeChange change = new SizeChange();
+    TrieNode newRoot = root.put(key, value, key.hashCode(), 0, change);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentMap<>(newRoot, size + change.delta);
+  }
+
+  /**
+   * Returns a map without the given key
+   *
+   * @param key the key to remove
+   * @return the updated map, or this map if it doesn't contain the key
+   */
+  PersistentMap<K, V> minus(Object key) {
+    if (key == null) {
+      return this;
+    }
+    SizeChange change = new SizeChange();
+    TrieNode newRoot = root.remove(key, key.hashCode(), 0, change);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentMap<>(newRoot, size + change.delta);
+  }
+
+  /**
+   * Iterates over the entries of the map in hash order. The entries cannot be modified.
+   *
+   * @return an iterator over the entries
+   */
+  @Override
+  public Iterator<Map.Entry<K, V>> iterator() {
+    return new EntryIterator<>(root);
+  }
+
+  /** Records whether an update added or removed a key */
+  private static final class SizeChange {
+    int delta = 0;
+  }
+
+  /** A node of the trie */
+  private abstract static class TrieNode {
+
+    /**
+     * Returns the value of a key stored below this node
+     *
+     * @param key the key to look for
+     * @param hash the hash of the key
+     * @param shift the number of hash bits used by the levels above this node
+     * @return the value of the key, or null if it isn't found
+     */
+    abstract Object get(Object key, int hash, int shift);
+
+    /**
+     * Returns a copy of this node that maps the key to the value
+     *
+     * @param key the key to add or update
+     * @param value the new value
+     * @param hash the hash of the key
+     * @param shift the number of hash bits used by the levels above this node
+     * @param change set to 1 if the key is new
+     * @return the new node, or this node if nothing changed
+     */
+    abstract TrieNode put(Object key, Object value, int hash, int shift, SizeChange change);
+
+    /**
+     * Returns a copy of this node without the key
+     *
+     * @param key the key to remove
+     * @param hash the hash of the key
+     * @param shift the number of hash bits used by the levels above this node
+     * @param change set to -1 if the key was found
+     * @return the new node, or this node if nothing changed
+     */
+    abstract TrieNode remove(Object key, int hash, int shift, SizeChange change);
+
+    // The number of key-value pairs stored directly in this node
+    abstract int entryCount();
+
+    // The number of child nodes of this node
+    abstract int childCount();
+
+    abstract Object keyAt(int index);
+
+    abstract Object valueAt(int index);
+
+    abstract TrieNode childAt(int index);
+  }
+
+  /** A node that uses 5 bits of the hash to find its entries and children */
+  private static final class BitmapNode extends TrieNode {
+    // The branches that hold a key-value pair
+    private final int entryMap;
+    // The branches that hold a child node
+    private final int childMap;
+    // The keys and values of the entries, interleaved, followed by the children in reverse order
+    private final Object[] array;
+
+    BitmapNode(int entryMap, int childMap, Object[] array) {
+      this.entryMap = entryMap;
+      this.childMap = childMap;
+      this.array = array;
+    }
+
+    @Override
+    Object get(Object key, int hash, int shift) {
+      int bit = bit(hash, shift);
+      if ((entryMap & bit) != 0) {
+        int index = index(entryMap, bit);
+        return key.equals(array[2 * index]) ? array[2 * index + 1] : null;
+      }
+      if ((childMap & bit) != 0) {
+        return childAt(index(childMap, bit)).get(key, hash, shift + BITS_PER_LEVEL);
+      }
+      return null;
+    }
+
+    @Override
+    TrieNode put(Object key, Object value, int hash, int shift, SizeChange change) {
+      int bit = bit(hash, shift);
+      if ((entryMap & bit) != 0) {
+        int index = index(entryMap, bit);
+        Object existingKey = array[2 * index];
+        if (key.equals(existingKey)) {
+          if (array[2 * index + 1] == value) {
+            return this;
+          }
+          Object[] newArray = array.clone();
+          newArray[2 * index + 1] = value;
+          return new BitmapNode(entryMap, childMap, newArray);
+        }
+        // Both keys share this branch, so they move down into a new child node
+        TrieNode child =
+            merge(
+                existingKey,
+                array[2 * index + 1],
+                existingKey.hashCode(),
+                key,
+                value,
+                hash,
+                shift + BITS_PER_LEVEL);
+        change.delta = 1;
+        return entryToChild(bit, index, child);
+      }
+      if ((childMap & bit) != 0) {
+        int childIndex = index(childMap, bit);
+        TrieNode child = childAt(childIndex);
+        TrieNode newChild = child.put(key, value, hash, shift + BITS_PER_LEVEL, change);
+        if (newChild == child) {
+          return this;
+        }
+        Object[] newArray = array.clone();
+        newArray[array.length - 1 - childIndex] = newChild;
+        return new BitmapNode(entryMap, childMap, newArray);
+      }
+      change.delta = 1;
+      int index = index(entryMap, bit);
+      Object[] newArray = new Object[array.length + 2];
+      System.arraycopy(array, 0, newArray, 0, 2 * index);
+      newArray[2 * index] = key;
+      newArray[2 * index + 1] = value;
+      System.arraycopy(array, 2 * index, newArray, 2 * index + 2, array.length - 2 * index);
+      return new BitmapNode(entryMap | bit, childMap, newArray);
+    }
+
+    @Override
+    TrieNode remove(Object key, int hash, int shift, SizeChange change) {
+      int bit = bit(hash, shift);
+      if ((entryMap & bit) != 0) {
+        int index = index(entryMap, bit);
+        if (!key.equals(array[2 * index])) {
+          return this;
+        }
+        change.delta = -1;
+        Object[] newArray = new Object[array.length - 2];
+        System.arraycopy(array, 0, newArray, 0, 2 * index);
+        System.arraycopy(array, 2 * index + 2, newArray, 2 * index, array.length - 2 * index - 2);
+        return new BitmapNode(entryMap & ~bit, childMap, newArray);
+      }
+      if ((childMap & bit) != 0) {
+        int childIndex = index(childMap, bit);
+        TrieNode child = childAt(childIndex);
+        TrieNode newChild = child.remove(key, hash, shift + BITS_PER_LEVEL, change);
+        if (newChild == child) {
+          return this;
+        }
+        if (newChild.entryCount() == 1 && newChild.childCount() == 0) {
+          // A child with a single entry is inlined, so that the trie stays as shallow as possible
+          return childToEntry(bit, childIndex, newChild.keyAt(0), newChild.valueAt(0));
+        }
+        Object[] newArray = array.clone();
+        newArray[array.length - 1 - childIndex] = newChild;
+        return new BitmapNode(entryMap, childMap, newArray);
+      }
+      return this;
+    }
+
+    /**
+     * Returns a copy of this node where an entry is replaced with a child node
+     *
+     * @param bit the branch of the entry
+     * @param index the index of the entry
+     * @param child the child node that replaces it
+     * @return the new node
+     */
+    private TrieNode entryToChild(int bit, int index, TrieNode child) {
+      int entries = entryCount();
+      int children = childCount();
+      int childIndex = index(childMap, bit);
+      Object[] newArray = new Object[array.length - 1];
+      System.arraycopy(array, 0, newArray, 0, 2 * index);
+      System.arraycopy(array, 2 * index + 2, newArray, 2 * index, 2 * (entries - index - 1));
+      for (int i = 0, j = 0; i <= children; i++) {
+        newArray[newArray.length - 1 - i] = i == childIndex ? child : childAt(j++);
+      }
+      return new BitmapNode(entryMap & ~bit, childMap | bit, newArray);
+    }
+
+    /**
+     * Returns a copy of this node where a child node is replaced with an entry
+     *
+     * @param bit the branch of the child
+     * @param childIndex the index of the child
+     * @param key the key of the entry
+     * @param value the value of the entry
+     * @return the new node
+     */
+    private TrieNode childToEntry(int bit, int childIndex, Object key, Object value) {
+      int entries = entryCount();
+      int children = childCount();
+      int index = index(entryMap, bit);
+      Object[] newArray = new Object[array.length + 1];
+      System.arraycopy(array, 0, newArray, 0, 2 * index);
+      newArray[2 * index] = key;
+      newArray[2 * index + 1] = value;
+      System.arraycopy(array, 2 * index, newArray, 2 * index + 2, 2 * (entries - index));
+      for (int i = 0, j = 0; j < children; j++) {
+        if (j != childIndex) {
+          newArray[newArray.length - 1 - i++] = childAt(j);
+        }
+      }
+      return new BitmapNode(entryMap | bit, childMap & ~bit, newArray);
+    }
+
+    @Override
+    int entryCount() {
+      return Integer.bitCount(entryMap);
+    }
+
+    @Override
+    int childCount() {
+      return Integer.bitCount(childMap);
+    }
+
+    @Override
+    Object keyAt(int index) {
+      return array[2 * index];
+    }
+
+    @Override
+    Object valueAt(int index) {
+      return array[2 * index + 1];
+    }
+
+    @Override
+    TrieNode childAt(int index) {
+      return (TrieNode) array[array.length - 1 - index];
+    }
+  }
+
+  /** A node holding keys whose hashes are all equal */
+  private static final class CollisionNode extends TrieNode {
+    private final int hash;
+    // The keys and values, interleaved
+    private final Object[] array;
+
+    CollisionNode(int hash, Object[] array) {
+      this.hash = hash;
+      this.array = array;
+    }
+
+    @Override
+    Object get(Object key, int hash, int shift) {
+      int index = indexOf(key);
+      return index >= 0 ? array[2 * index + 1] : null;
+    }
+
+    @Override
+    TrieNode put(Object key, Object value, int hash, int shift, SizeChange change) {
+      int index = indexOf(key);
+      if (index >= 0) {
+        if (array[2 * index + 1] == value) {
+          return this;
+        }
+        Object[] newArray = array.clone();
+        newArray[2 * index + 1] = value;
+        return new CollisionNode(hash, newArray);
+      }
+      change.delta = 1;
+      Object[] newArray = Arrays.copyOf(array, array.length + 2);
+      newArray[array.length] = key;
+      newArray[array.length + 1] = value;
+      return new CollisionNode(hash, newArray);
+    }
+
+    @Override
+    TrieNode remove(Object key, int hash, int shift, SizeChange change) {
+      int index = indexOf(key);
+      if (index < 0) {
+        return this;
+      }
+      change.delta = -1;
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, 2 * index);
+      System.arraycopy(array, 2 * index + 2, newArray, 2 * index, array.length - 2 * index - 2);
+      return new CollisionNode(hash, newArray);
+    }
+
+    private int indexOf(Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return i / 2;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    int entryCount() {
+      return array.length / 2;
+    }
+
+    @Override
+    int childCount() {
+      return 0;
+    }
+
+    @Override
+    Object keyAt(int index) {
+      return array[2 * index];
+    }
+
+    @Override
+    Object valueAt(int index) {
+      return array[2 * index + 1];
+    }
+
+    @Override
+    TrieNode childAt(int index) {
+      throw new IndexOutOfBoundsException();
+    }
+  }
+
+  /**
+   * Creates the smallest subtrie holding two keys whose hashes agree on the bits used above it
+   *
+   * @param shift the number of hash bits used by the levels above the subtrie
+   * @return the root of the subtrie
+   */
+  private static TrieNode merge(
+      Object key1, Object value1, int hash1, Object key2, Object value2, int hash2, int shift) {
+    if (shift >= Integer.SIZE) {
+      return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+    }
+    int branch1 = (hash1 >>> shift) & LEVEL_MASK;
+    int branch2 = (hash2 >>> shift) & LEVEL_MASK;
+    if (branch1 == branch2) {
+      TrieNode child = merge(key1, value1, hash1, key2, value2, hash2, shift + BITS_PER_LEVEL);
+      return new BitmapNode(0, 1 << branch1, new Object[] {child});
+    }
+    Object[] array =
+        branch1 < branch2
+            ? new Object[] {key1, value1, key2, value2}
+            : new Object[] {key2, value2, key1, value1};
+    return new BitmapNode((1 << branch1) | (1 << branch2), 0, array);
+  }
+
+  // The bit of the branch that a hash takes at a level
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & LEVEL_MASK);
+  }
+
+  // The position of a branch among the set branches of a bitmap
+  private static int index(int bitmap, int bit) {
+    return Integer.bitCount(bitmap & (bit - 1));
+  }
+
+  /** Iterates over the entries of a trie, depth first */
+  private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+    // The nodes that haven't been visited yet
+    private final Deque<TrieNode> pending = new ArrayDeque<>();
+    // The node whose entries are being returned, null once the iteration is over
+    private TrieNode current = null;
+    private int nextIndex = 0;
+
+    EntryIterator(TrieNode root) {
+      pending.push(root);
+      advance();
+    }
+
+    // Moves to the next node with entries once the current one has none left
+    private void advance() {
+      while (current == null || nextIndex >= current.entryCount()) {
+        TrieNode node = pending.poll();
+        if (node == null) {
+          current = null;
+          return;
+        }
+        for (int i = 0; i < node.childCount(); i++) {
+          pending.push(node.childAt(i));
+        }
+        current = node;
+        nextIndex = 0;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return current != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map.Entry<K, V> next() {
+      if (current == null) {
+        throw new NoSuchElementException();
+      }
+      Map.Entry<K, V> entry =
+          new AbstractMap.SimpleImmutableEntry<>(
+              (K) current.keyAt(nextIndex), (V) current.valueAt(nextIndex));
+      nextIndex++;
+      advance();
+      return entry;
+    }
+  }
+}
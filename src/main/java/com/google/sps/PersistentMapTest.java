@@ -0,0 +1,196 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - PersistentMap.plus - PersistentMap.minus -
+ * PersistentMap.iterator - PersistentHashMap.fork - PersistentHashSet.fork
+ */
+@RunWith(JUnit4.class)
+public final class PersistentMapTest {
+
+  /*
+   * Check that updates leave the previous versions of the map unchanged
+   */
+  @Test
+  public void oldVersionsUnchanged() {
+    PersistentMap<String, Integer> empty = PersistentMap.empty();
+    PersistentMap<String, Integer> one = empty.plus("A", 1);
+    PersistentMap<String, Integer> two = one.plus("B", 2);
+    PersistentMap<String, Integer> changed = two.plus("A", 3);
+    PersistentMap<String, Integer> removed = changed.minus("B");
+
+    Assert.assertEquals(0, empty.size());
+    Assert.assertNull(empty.get("A"));
+    Assert.assertEquals(1, (int) one.get("A"));
+    Assert.assertFalse(one.containsKey("B"));
+    Assert.assertEquals(1, (int) two.get("A"));
+    Assert.assertEquals(2, (int) two.get("B"));
+    Assert.assertEquals(3, (int) changed.get("A"));
+    Assert.assertEquals(2, changed.size());
+    Assert.assertEquals(1, removed.size());
+    Assert.assertFalse(removed.containsKey("B"));
+    Assert.assertSame(removed, removed.minus("B"));
+    Assert.assertSame(two, two.plus("B", two.get("B")));
+  }
+
+  /*
+   * Check that random updates, with many keys whose hashes are equal or share their low bits, give
+   * the same map as a HashMap
+   */
+  @Test
+  public void randomOperations() {
+    Random random = new Random(49);
+    PersistentMap<Key, Integer> map = PersistentMap.empty();
+    HashMap<Key, Integer> expected = new HashMap<>();
+
+    for (int step = 0; step < 50000; step++) {
+      // Hashes are multiples of 1 << 20, so keys only differ in the bits of the deepest levels
+      Key key = new Key(random.nextInt(2000), random.nextInt(400) << 20);
+      if (random.nextInt(3) == 0) {
+        map = map.minus(key);
+        expected.remove(key);
+      } else {
+        map = map.plus(key, step);
+        expected.put(key, step);
+      }
+      Assert.assertEquals(expected.size(), map.size());
+    }
+
+    HashMap<Key, Integer> actual = new HashMap<>();
+    for (Map.Entry<Key, Integer> entry : map) {
+      Assert.assertNull(actual.put(entry.getKey(), entry.getValue()));
+    }
+    Assert.assertEquals(expected, actual);
+    for (Key key : expected.keySet()) {
+      Assert.assertEquals(expected.get(key), map.get(key));
+    }
+    for (Key key : new ArrayList<>(expected.keySet())) {
+      map = map.minus(key);
+    }
+    Assert.assertTrue(map.isEmpty());
+    Assert.assertFalse(map.iterator().hasNext());
+  }
+
+  /*
+   * Check that a forked map and the original can be modified independently, including the sets
+   * stored in them
+   */
+  @Test
+  public void forkedHashMap() {
+    PersistentHashMap<String, Set<String>> original = new PersistentHashMap<>();
+    original.computeIfAbsent("t", token -> new PersistentHashSet<>()).add("A");
+    original.put("u", new PersistentHashSet<>(Arrays.asList("B")));
+    PersistentHashMap<String, Set<String>> fork = original.fork();
+    // Reading doesn't copy the shared sets
+    Assert.assertSame(original.get("t"), fork.get("t"));
+    Set<String> shared = original.get("u");
+
+    fork.computeIfAbsent("t", token -> new PersistentHashSet<>()).add("C");
+    original.getForUpdate("u").remove("B");
+    fork.remove("u");
+    original.put("v", new PersistentHashSet<>(Arrays.asList("D")));
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList("A")), original.get("t"));
+    Assert.assertEquals(new HashSet<>(Arrays.asList("A", "C")), fork.get("t"));
+    Assert.assertTrue(original.get("u").isEmpty());
+    Assert.assertFalse(fork.containsKey("u"));
+    Assert.assertFalse(fork.containsKey("v"));
+    Assert.assertNotSame(original.get("t"), fork.get("t"));
+    Assert.assertSame(fork.get("t"), fork.getForUpdate("t"));
+    Assert.assertEquals(new HashSet<>(Arrays.asList("B")), shared);
+
+    HashMap<String, Set<String>> expected = new HashMap<>();
+    expected.put("t", new HashSet<>(Arrays.asList("A")));
+    expected.put("u", new HashSet<>());
+    expected.put("v", new HashSet<>(Arrays.asList("D")));
+    Assert.assertEquals(expected, original);
+    Assert.assertEquals(original, expected);
+    Assert.assertEquals(expected.hashCode(), original.hashCode());
+  }
+
+  /*
+   * Check that the views of a map and set can be iterated over while they are modified
+   */
+  @Test
+  public void views() {
+    PersistentHashMap<String, Integer> map = new PersistentHashMap<>();
+    PersistentHashSet<String> set = new PersistentHashSet<>();
+    for (int i = 0; i < 100; i++) {
+      map.put("key" + i, i);
+      set.add("key" + i);
+    }
+
+    map.entrySet().removeIf(entry -> entry.getValue() % 2 == 0);
+    map.keySet().remove("key1");
+    map.values().remove(3);
+    for (Map.Entry<String, Integer> entry : map.entrySet()) {
+      entry.setValue(entry.getValue() * 10);
+    }
+    Iterator<String> iterator = set.iterator();
+    while (iterator.hasNext()) {
+      String element = iterator.next();
+      set.remove(element);
+      set.add(element + "!");
+    }
+
+    Assert.assertEquals(48, map.size());
+    Assert.assertEquals(50, (int) map.get("key5"));
+    Assert.assertFalse(map.containsKey("key4"));
+    Assert.assertFalse(map.containsValue(3));
+    Assert.assertEquals(100, set.size());
+    Assert.assertTrue(set.contains("key7!"));
+    Assert.assertEquals(100, set.toArray(new String[0]).length);
+
+    PersistentHashSet<String> setFork = set.fork();
+    setFork.clear();
+    Assert.assertEquals(100, set.size());
+  }
+
+  /** A key whose hash is given, so that collisions can be tested */
+  private static final class Key {
+    private final int value;
+    private final int hash;
+
+    Key(int value, int hash) {
+      this.value = value;
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && ((Key) other).value == value && ((Key) other).hash == hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,213 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.common.base.Preconditions;
+import com.proto.MutationProtos.Mutation;
+
+/**
+ * Streams the steps from one mutation number to another as server-sent events, so that a client
+ * playing through the mutations makes one request instead of one /data request per step. The
+ * mutation list is replayed forwards once, and each step is sent as a "step" event holding only the
+ * mutations /data would show for the same query and the nodes they changed. An "end" event holding
+ * the last mutation number sent closes the stream.
+ *
+ * <p>Streams run on workers of their own, so that they don't hold up /data requests, and each
+ * stream ends once it has run for sps.play.budget.ms, so that slow clients take turns with the
+ * others. Clients play further by opening a stream where one ended.
+ *
+ * <p>Parameters: start, the mutation number of the graph the client shows; end, the last mutation
+ * number to send; and depth, nodeNames and tokenName as in /data.
+ */
+@WebServlet(urlPatterns = "/play", asyncSupported = true)
+public class PlayServlet extends HttpServlet {
+
+  // The most steps sent in one stream. Clients play further by opening a stream where one ended.
+  static final int MAX_STEPS = 1000;
+  // The system property that sets the time a stream may run for in milliseconds
+  static final String BUDGET_PROPERTY = "sps.play.budget.ms";
+  // The time a stream may run for if the property isn't set
+  static final int DEFAULT_BUDGET_MS = 10_000;
+
+  // Loads the dataset in the background when the application starts
+  private DatasetLoader loader = null;
+  // The workers that stream the steps, which /data doesn't use
+  private RequestExecutor requestExecutor = null;
+  // The time a stream may run for in nanoseconds
+  private long budgetNanos = 0;
+
+  /*
+   * Finds the dataset loader and the request executor when the servlet is put in service
+   */
+  @Override
+  public void init() {
+    loader = DatasetLoader.of(getServletContext());
+    if (loader == null) {
+      loader = new DatasetLoader();
+      loader.start(getServletContext());
+    }
+    requestExecutor = RequestExecutor.streamsOf(getServletContext());
+    budgetNanos = TimeUnit.MILLISECONDS.toNanos(configuredBudgetMillis());
+  }
+
+  /**
+   * Returns the time a stream may run for, set with the sps.play.budget.ms system property
+   *
+   * @return the time in milliseconds, DEFAULT_BUDGET_MS if the property isn't set
+   * @throws IllegalArgumentException if the property is not positive
+   */
+  static int configuredBudgetMillis() {
+    int budget = Integer.getInteger(BUDGET_PROPERTY, DEFAULT_BUDGET_MS);
+    Preconditions.checkArgument(budget > 0, "%s must be positive", BUDGET_PROPERTY);
+    return budget;
+  }
+
+  /*
+   * Called when a client submits a GET request to the /play URL
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Dataset dataset = loader.dataset();
+    if (dataset == null) {
+      loader.sendNotReady(response);
+      return;
+    }
+    CursorPool cursorPool = loader.cursorPool();
+
+    String startParam = request.getParameter("start");
+    String endParam = request.getParameter("end");
+    String radiusParam = request.getParameter("depth");
+    String nodeNamesParam = request.getParameter("nodeNames");
+    String tokenNameParam = request.getParameter("tokenName");
+    if (startParam == null || endParam == null || radiusParam == null) {
+      response.setHeader("serverError", "Improper start, end or radius parameter, cannot play");
+      return;
+    }
+    int start;
+    int end;
+    int radius;
+    try {
+      start = Integer.parseInt(startParam);
+      end = Integer.parseInt(endParam);
+      radius = Integer.parseInt(radiusParam);
+    } catch (NumberFormatException e) {
+      response.setHeader("serverError", "Improper start, end or radius parameter, cannot play");
+      return;
+    }
+    if (start < -1 || start >= dataset.mutList().size()) {
+      response.setHeader("serverError", "The start of the stream is not a valid mutation number");
+      return;
+    }
+    String tokenName = tokenNameParam == null ? "" : tokenNameParam;
+    Set<String> nodeNames = new HashSet<>();
+    try {
+      if (nodeNamesParam != null && !nodeNamesParam.isEmpty()) {
+        JsonArray nodeNameArr = JsonParser.parseString(nodeNamesParam).getAsJsonArray();
+        for (int i = 0; i < nodeNameArr.size(); i++) {
+          String curr = nodeNameArr.get(i).getAsString().trim();
+          if (curr.length() > 0) {
+            nodeNames.add(curr);
+          }
+        }
+      }
+    } catch (JsonParseException | IllegalStateException e) {
+      response.setHeader("serverError", "The node names received do not form a valid JSON array");
+      return;
+    }
+    int last = Math.min(Math.min(end, dataset.mutList().size() - 1), start + MAX_STEPS);
+
+    requestExecutor.submit(
+        request,
+        pending -> {
+          DiffPlayer player;
+          try {
+            player =
+                new DiffPlayer(dataset, cursorPool.graphAt(start), nodeNames, tokenName, radius);
+          } catch (IllegalArgumentException e) {
+            if (pending.claim()) {
+              response.setHeader("serverError", e.getMessage());
+            }
+            return;
+          }
+          if (!pending.claim()) {
+            return;
+          }
+          response.setContentType("text/event-stream");
+          response.setCharacterEncoding("UTF-8");
+          response.setHeader("Cache-Control", "no-cache");
+          stream(player, last, System.nanoTime() + budgetNanos, response.getWriter());
+        });
+  }
+
+  /**
+   * Sends the steps of a player up to a mutation number or until time runs out, flushing each of
+   * them as it is sent
+   *
+   * @param player the player, at the mutation number the client shows
+   * @param last the last mutation number to send
+   * @param deadlineNanos the System.nanoTime after which no more steps are sent
+   * @param out the writer of the response
+   * @throws IOException if the client went away
+   */
+  private static void stream(DiffPlayer player, int last, long deadlineNanos, PrintWriter out)
+      throws IOException {
+    while (player.mutationNum() < last && System.nanoTime() - deadlineNanos < 0) {
+      DiffPlayer.Step step = player.next();
+      if (step == null) {
+        break;
+      }
+      out.print("event: step\nid: " + step.mutationNum() + "\ndata: ");
+      JsonWriter json = new JsonWriter(out);
+      json.beginObject();
+      json.name("mutationNum").value(step.mutationNum());
+      json.name("reason").value(step.diff().getReason());
+      json.name("mutationDiff").beginArray();
+      for (Mutation mutation : step.diff().getMutationList()) {
+        GraphJsonWriter.writeMutation(json, mutation);
+      }
+      json.endArray();
+      json.name("changedNodes").beginArray();
+      for (GraphNode node : step.changedNodes()) {
+        GraphJsonWriter.writeNode(json, node);
+      }
+      json.endArray();
+      json.endObject();
+      out.print("\n\n");
+      out.flush();
+      // A PrintWriter doesn't throw, so a client that went away has to be asked about
+      if (out.checkError()) {
+        throw new IOException("The client closed the stream");
+      }
+    }
+    out.print("event: end\ndata: " + player.mutationNum() + "\n\n");
+    out.flush();
+  }
+}
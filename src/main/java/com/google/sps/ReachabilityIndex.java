@@ -0,0 +1,329 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.graph.Graph;
+
+/**
+ * An index answering whether a node of a DAG is a descendant of another, and listing the
+ * descendants or the ancestors of a node, without traversing the graph.
+ *
+ * <p>Each direction is labeled with the interval scheme of Agrawal, Borgida and Jagadish. A
+ * depth-first search numbers the nodes in post-order, so that the descendants of a node in the
+ * search forest are exactly the nodes numbered from its first descendant to itself. Each node is
+ * then labeled with the merged intervals of itself and of its children, which cover every node it
+ * can reach, including through edges outside the forest. A node reaches another if one of its
+ * intervals holds the number of the other, which a binary search finds. The ancestors are labeled
+ * in the same way on the reversed graph.
+ *
+ * <p>The index describes the graph it was built from and is never modified. Nodes and edges added
+ * or deleted later are not seen by it, while token changes don't affect it.
+ */
+final class ReachabilityIndex {
+
+  private static final String[] NO_NAMES = new String[0];
+
+  // The labels of the descendants and of the ancestors of each node
+  private final Labels descendants;
+  private final Labels ancestors;
+  // The time it took to build the index
+  private final long buildNanos;
+
+  private ReachabilityIndex(Labels descendants, Labels ancestors, long buildNanos) {
+    this.descendants = descendants;
+    this.ancestors = ancestors;
+    this.buildNanos = buildNanos;
+  }
+
+  /**
+   * Builds the index of a DAG
+   *
+   * @param graph the graph to index, which must be acyclic and must not be modified while this runs
+   * @return the index
+   */
+  static ReachabilityIndex build(Graph<GraphNode> graph) {
+    long start = System.nanoTime();
+    Labels descendants = Labels.build(graph, /* isChild = */ true);
+    Labels ancestors = Labels.build(graph, /* isChild = */ false);
+    return new ReachabilityIndex(descendants, ancestors, System.nanoTime() - start);
+  }
+
+  /**
+   * Returns whether a node is in the indexed graph
+   *
+   * @param nodeName the name of the node
+   * @return true if the node is labeled
+   */
+  boolean contains(String nodeName) {
+    return descendants.postOf(nodeName) >= 0;
+  }
+
+  /**
+   * Returns whether a node can be reached from another by following edges from parents to children.
+   * A node reaches itself.
+   *
+   * @param ancestorName the name of the node to start from
+   * @param descendantName the name of the node to reach
+   * @return true if both nodes are in the graph and the first reaches the second
+   */
+  boolean reaches(String ancestorName, String descendantName) {
+    return descendants.reaches(ancestorName, descendantName);
+  }
+
+  /**
+   * Returns the names of the nodes a node reaches, not including itself
+   *
+   * @param nodeName the name of the node
+   * @return the names in post-order, empty if the node is not in the graph
+   */
+  List<String> descendantsOf(String nodeName) {
+    return descendants.reachedFrom(nodeName);
+  }
+
+  /**
+   * Returns the names of the nodes that reach a node, not including itself
+   *
+   * @param nodeName the name of the node
+   * @return the names in post-order of the reversed graph, empty if the node is not in the graph
+   */
+  List<String> ancestorsOf(String nodeName) {
+    return ancestors.reachedFrom(nodeName);
+  }
+
+  /**
+   * Describes the size of the index and how long it took to build
+   *
+   * @return a human-readable summary
+   */
+  String report() {
+    return String.format(
+        "Reachability index: %d nodes, %d descendant and %d ancestor intervals, built in %d ms.",
+        descendants.names.length,
+        descendants.intervalCount(),
+        ancestors.intervalCount(),
+        buildNanos / 1_000_000);
+  }
+
+  /** The post-order numbers and the intervals of the nodes for one direction of the edges */
+  private static final class Labels {
+    // The post-order number of the node with each NameDictionary id, -1 if there is none
+    final int[] postById;
+    // The name of the node with each post-order number
+    final String[] names;
+    // The intervals of each post-order number, as sorted disjoint [low, high] pairs
+    final int[][] intervals;
+
+    private Labels(int[] postById, String[] names, int[][] intervals) {
+      this.postById = postById;
+      this.names = names;
+      this.intervals = intervals;
+    }
+
+    /**
+     * Numbers and labels the nodes of a DAG
+     *
+     * @param graph the graph to label
+     * @param isChild true to label the descendants of each node, false to label its ancestors
+     * @return the labels
+     */
+    static Labels build(Graph<GraphNode> graph, boolean isChild) {
+      int nodeCount = graph.nodes().size();
+      // Every node name was registered when the node was created, so each node has an id below this
+      int[] postById = new int[NameDictionary.size()];
+      Arrays.fill(postById, -1);
+      String[] names = nodeCount == 0 ? NO_NAMES : new String[nodeCount];
+      int[][] intervals = new int[nodeCount][];
+      // The first post-order number of the subtree of each node on the stack
+      int[] lowById = new int[postById.length];
+      // Marks nodes that are on the stack or done
+      boolean[] seenById = new boolean[postById.length];
+
+      int post = 0;
+      Deque<GraphNode> stack = new ArrayDeque<>();
+      Deque<Iterator<GraphNode>> neighbors = new ArrayDeque<>();
+      IntervalList merged = new IntervalList();
+      for (GraphNode root : graph.nodes()) {
+        int rootId = root.id();
+        if (seenById[rootId]) {
+          continue;
+        }
+        seenById[rootId] = true;
+        lowById[rootId] = post;
+        stack.push(root);
+        neighbors.push(neighborsOf(graph, root, isChild).iterator());
+        while (!stack.isEmpty()) {
+          Iterator<GraphNode> iterator = neighbors.peek();
+          if (iterator.hasNext()) {
+            GraphNode neighbor = iterator.next();
+            int neighborId = neighbor.id();
+            if (!seenById[neighborId]) {
+              seenById[neighborId] = true;
+              lowById[neighborId] = post;
+              stack.push(neighbor);
+              neighbors.push(neighborsOf(graph, neighbor, isChild).iterator());
+            }
+            continue;
+          }
+          // Every neighbor of the node is numbered, since the graph has no cycles
+          GraphNode node = stack.pop();
+          neighbors.pop();
+          int id = node.id();
+          merged.clear();
+          merged.add(lowById[id], post);
+          for (GraphNode neighbor : neighborsOf(graph, node, isChild)) {
+            int[] neighborIntervals = intervals[postById[neighbor.id()]];
+            for (int i = 0; i < neighborIntervals.length; i += 2) {
+              merged.add(neighborIntervals[i], neighborIntervals[i + 1]);
+            }
+          }
+          postById[id] = post;
+          names[post] = node.name();
+          intervals[post] = merged.toMergedArray();
+          post++;
+        }
+      }
+      return new Labels(postById, names, intervals);
+    }
+
+    // Returns the children or the parents of a node
+    private static Set<GraphNode> neighborsOf(
+        Graph<GraphNode> graph, GraphNode node, boolean isChild) {
+      return isChild ? graph.successors(node) : graph.predecessors(node);
+    }
+
+    /**
+     * Returns the post-order number of a node
+     *
+     * @param name the name of the node
+     * @return its number, or -1 if it is not in the graph
+     */
+    int postOf(String name) {
+      int id = name == null ? -1 : NameDictionary.find(name);
+      return id >= 0 && id < postById.length ? postById[id] : -1;
+    }
+
+    /**
+     * Returns whether a node reaches another
+     *
+     * @param fromName the name of the node to start from
+     * @param toName the name of the node to reach
+     * @return true if both nodes are labeled and one of the intervals of the first holds the second
+     */
+    boolean reaches(String fromName, String toName) {
+      int from = postOf(fromName);
+      int to = postOf(toName);
+      if (from < 0 || to < 0) {
+        return false;
+      }
+      int[] fromIntervals = intervals[from];
+      // The last interval starting at or before the target is the only one that can hold it
+      int lowIndex = 0;
+      int highIndex = fromIntervals.length / 2 - 1;
+      while (lowIndex <= highIndex) {
+        int middle = (lowIndex + highIndex) >>> 1;
+        if (fromIntervals[2 * middle] <= to) {
+          lowIndex = middle + 1;
+        } else {
+          highIndex = middle - 1;
+        }
+      }
+      return highIndex >= 0 && to <= fromIntervals[2 * highIndex + 1];
+    }
+
+    /**
+     * Lists the nodes a node reaches
+     *
+     * @param name the name of the node to start from
+     * @return the names of the nodes it reaches in post-order, not including itself
+     */
+    List<String> reachedFrom(String name) {
+      int from = postOf(name);
+      if (from < 0) {
+        return new ArrayList<>();
+      }
+      int[] fromIntervals = intervals[from];
+      int total = 0;
+      for (int i = 0; i < fromIntervals.length; i += 2) {
+        total += fromIntervals[i + 1] - fromIntervals[i] + 1;
+      }
+      List<String> reached = new ArrayList<>(total - 1);
+      for (int i = 0; i < fromIntervals.length; i += 2) {
+        for (int post = fromIntervals[i]; post <= fromIntervals[i + 1]; post++) {
+          if (post != from) {
+            reached.add(names[post]);
+          }
+        }
+      }
+      return reached;
+    }
+
+    /**
+     * Returns the total number of intervals
+     *
+     * @return the number of [low, high] pairs of every node
+     */
+    long intervalCount() {
+      return Arrays.stream(intervals).mapToLong(pairs -> pairs.length / 2).sum();
+    }
+  }
+
+  /** A growable list of [low, high] intervals that can be merged into a sorted array */
+  private static final class IntervalList {
+    // Each interval packed into a long, low in the high bits, so that they sort by low
+    long[] values = new long[16];
+    int size = 0;
+
+    void add(int low, int high) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = ((long) low << 32) | high;
+    }
+
+    void clear() {
+      size = 0;
+    }
+
+    /**
+     * Sorts the intervals and merges those that overlap or touch
+     *
+     * @return the merged intervals as [low, high] pairs
+     */
+    int[] toMergedArray() {
+      Arrays.sort(values, 0, size);
+      int[] pairs = new int[2 * size];
+      int count = 0;
+      for (int i = 0; i < size; i++) {
+        int low = (int) (values[i] >>> 32);
+        int high = (int) values[i];
+        if (count > 0 && low <= pairs[count - 1] + 1) {
+          pairs[count - 1] = Math.max(pairs[count - 1], high);
+        } else {
+          pairs[count++] = low;
+          pairs[count++] = high;
+        }
+      }
+      return Arrays.copyOf(pairs, count);
+    }
+  }
+}
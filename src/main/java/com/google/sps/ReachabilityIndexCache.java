@@ -0,0 +1,139 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import org.json.JSONObject;
+
+/**
+ * The reachability indices of the graphs of a dataset. Graphs whose mutation numbers have the same
+ * last structural step, which adds or deletes a node or an edge, only differ in tokens and share an
+ * index keyed by that step. A structural mutation therefore leads to a new index, built from the
+ * graph the first time it is asked for, while token changes keep using the current one.
+ *
+ * <p>The index of the initial graph is built with the cache and always kept. The others are evicted
+ * least recently used first once the cache holds sps.reachability.index.size indices.
+ */
+final class ReachabilityIndexCache {
+
+  // The system property that sets the number of indices kept. A value of 0 disables them.
+  static final String SIZE_PROPERTY = "sps.reachability.index.size";
+  // The number of indices kept if the property isn't set
+  static final int DEFAULT_SIZE = 4;
+
+  private final CursorPool cursorPool;
+  private final MutationIndex mutationIndex;
+  private final int maxIndices;
+  // The last structural step up to the initial graph, and the index of the graphs it covers
+  private final int initialStep;
+  private final ReachabilityIndex initialIndex;
+  // The indices of the graphs after other structural steps, keyed by step
+  private final Cache<Integer, ReachabilityIndex> indices;
+
+  /**
+   * Creates a cache holding the index of the initial graph of a dataset
+   *
+   * @param dataset the dataset whose graphs are indexed
+   * @param cursorPool the cursors that reach the graphs of the dataset
+   * @param maxIndices the number of indices kept, including the initial one, 0 to keep none
+   */
+  ReachabilityIndexCache(Dataset dataset, CursorPool cursorPool, int maxIndices) {
+    Preconditions.checkArgument(maxIndices >= 0, "The number of indices must not be negative");
+    this.cursorPool = cursorPool;
+    this.mutationIndex = dataset.mutationIndex();
+    this.maxIndices = maxIndices;
+    this.initialStep = mutationIndex.lastStructuralStep(dataset.original().numMutations());
+    this.initialIndex =
+        maxIndices > 0 ? ReachabilityIndex.build(dataset.original().graph()) : null;
+    this.indices =
+        CacheBuilder.newBuilder().maximumSize(Math.max(0, maxIndices - 1)).recordStats().build();
+  }
+
+  /**
+   * Returns the number of indices set with the sps.reachability.index.size system property
+   *
+   * @return the configured number, DEFAULT_SIZE if the property isn't set
+   * @throws IllegalArgumentException if the property is negative
+   */
+  static int configuredSize() {
+    int size = Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE);
+    Preconditions.checkArgument(size >= 0, "%s must not be negative", SIZE_PROPERTY);
+    return size;
+  }
+
+  /**
+   * Returns whether the cache keeps indices at all
+   *
+   * @return false if the size is 0
+   */
+  boolean isEnabled() {
+    return maxIndices > 0;
+  }
+
+  /**
+   * Returns the index of the graph at a mutation number, building it if no graph with the same
+   * nodes and edges has one
+   *
+   * @param mutationNum the index of the last applied multi-mutation, at least -1
+   * @return the index, or null if indices are disabled
+   * @throws IllegalArgumentException if a mutation cannot be applied
+   * @throws InterruptedException if the thread is interrupted while waiting for a cursor
+   */
+  ReachabilityIndex indexAt(int mutationNum) throws InterruptedException {
+    if (!isEnabled()) {
+      return null;
+    }
+    int step = mutationIndex.lastStructuralStep(mutationNum);
+    if (step == initialStep) {
+      return initialIndex;
+    }
+    try {
+      return indices.get(
+          step, () -> ReachabilityIndex.build(cursorPool.graphAt(mutationNum).graph()));
+    } catch (ExecutionException e) {
+      // The loader only throws InterruptedException
+      Throwables.throwIfInstanceOf(e.getCause(), InterruptedException.class);
+      throw new IllegalStateException(e.getCause());
+    } catch (UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the size of the initial index and the hit rate of the others
+   *
+   * @return the metrics as a JSON object
+   */
+  JSONObject metrics() {
+    CacheStats stats = indices.stats();
+    return new JSONObject()
+        .put("maxIndices", maxIndices)
+        .put("entries", isEnabled() ? indices.size() + 1 : 0)
+        .put("initial", initialIndex == null ? "disabled" : initialIndex.report())
+        .put("hits", stats.hitCount())
+        .put("misses", stats.missCount())
+        .put("evictions", stats.evictionCount())
+        .put("meanBuildMillis", stats.averageLoadPenalty() / 1e6);
+  }
+}
@@ -0,0 +1,123 @@
+package com.google.sps;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import com.google.common.graph.Graph;
+import com.google.common.graph.Graphs;
+import com.proto.GraphProtos.Node;
+import com.proto.GraphProtos.Node.Builder;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - ReachabilityIndex.build - ReachabilityIndex.reaches -
+ * ReachabilityIndex.descendantsOf - ReachabilityIndex.ancestorsOf
+ */
+@RunWith(JUnit4.class)
+public final class ReachabilityIndexTest {
+
+  /** A small diamond, with a node that is not connected to the others */
+  @Test
+  public void diamond() {
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    addNode(protoNodesMap, "label-A", "label-B", "label-C");
+    addNode(protoNodesMap, "label-B", "label-D");
+    addNode(protoNodesMap, "label-C", "label-D");
+    addNode(protoNodesMap, "label-D");
+    addNode(protoNodesMap, "label-E");
+    DataGraph dataGraph = DataGraph.create();
+    dataGraph.graphFromProtoNodes(protoNodesMap);
+    ReachabilityIndex index = ReachabilityIndex.build(dataGraph.graph());
+
+    Assert.assertTrue(index.reaches("label-A", "label-D"));
+    Assert.assertTrue(index.reaches("label-B", "label-B"));
+    Assert.assertFalse(index.reaches("label-B", "label-C"));
+    Assert.assertFalse(index.reaches("label-D", "label-A"));
+    Assert.assertFalse(index.reaches("label-A", "label-E"));
+    Assert.assertFalse(index.reaches("label-A", "label-missing"));
+    Assert.assertTrue(index.contains("label-E"));
+    Assert.assertFalse(index.contains("label-missing"));
+    Assert.assertEquals(
+        names("label-B", "label-C", "label-D"), new HashSet<>(index.descendantsOf("label-A")));
+    Assert.assertEquals(
+        names("label-A", "label-B", "label-C"), new HashSet<>(index.ancestorsOf("label-D")));
+    Assert.assertTrue(index.descendantsOf("label-E").isEmpty());
+    Assert.assertTrue(index.ancestorsOf("label-missing").isEmpty());
+  }
+
+  /** The index agrees with a traversal of a random DAG on every graph engine */
+  @Test
+  public void sameAsTraversalOnEveryEngine() {
+    Random random = new Random(24);
+    int nodeCount = 200;
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    for (int i = 0; i < nodeCount; i++) {
+      Builder node = Node.newBuilder().setName("label" + i);
+      // Edges only point to later nodes, so the graph is a DAG
+      for (int j = 0; j < 3 && i + 1 < nodeCount; j++) {
+        String child = "label" + (i + 1 + random.nextInt(Math.min(30, nodeCount - i - 1)));
+        if (!node.getChildrenList().contains(child)) {
+          node.addChildren(child);
+        }
+      }
+      protoNodesMap.put(node.getName(), node.build());
+    }
+
+    for (GraphEngine engine : GraphEngine.values()) {
+      DataGraph dataGraph = DataGraph.create(engine);
+      dataGraph.graphFromProtoNodes(protoNodesMap);
+      Graph<GraphNode> graph = dataGraph.graph();
+      ReachabilityIndex index = ReachabilityIndex.build(graph);
+      for (GraphNode node : graph.nodes()) {
+        Set<String> descendants = reachableNames(graph, node);
+        Set<String> ancestors = reachableNames(Graphs.transpose(graph), node);
+        String label = engine + " " + node.name();
+        Assert.assertEquals(label, descendants, new HashSet<>(index.descendantsOf(node.name())));
+        Assert.assertEquals(label, ancestors, new HashSet<>(index.ancestorsOf(node.name())));
+        for (int i = 0; i < 10; i++) {
+          String other = "label" + random.nextInt(nodeCount);
+          Assert.assertEquals(
+              label + " " + other,
+              other.equals(node.name()) || descendants.contains(other),
+              index.reaches(node.name(), other));
+        }
+      }
+    }
+  }
+
+  // Returns the names of the nodes reachable from a node, not including itself
+  private static Set<String> reachableNames(Graph<GraphNode> graph, GraphNode node) {
+    Set<String> names = new HashSet<>();
+    for (GraphNode reached : Graphs.reachableNodes(graph, node)) {
+      if (!reached.equals(node)) {
+        names.add(reached.name());
+      }
+    }
+    return names;
+  }
+
+  // Adds a node with the given children to a map of proto nodes
+  private static void addNode(
+      HashMap<String, Node> protoNodesMap, String name, String... children) {
+    Builder node = Node.newBuilder().setName(name);
+    for (String child : children) {
+      node.addChildren(child);
+    }
+    protoNodesMap.put(name, node.build());
+  }
+
+  // Collects names into a set
+  private static Set<String> names(String... names) {
+    Set<String> set = new HashSet<>();
+    for (String name : names) {
+      set.add(name);
+    }
+    return set;
+  }
+}
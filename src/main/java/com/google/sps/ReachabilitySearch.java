@@ -0,0 +1,631 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Preconditions;
+import com.google.common.graph.Graph;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.MutableGraph;
+
+/**
+ * Finds the nodes within some distance of a set of nodes with a breadth-first search over dense int
+ * indices. On an AdjacencyArrayGraph the indices are the slots of the nodes and the search walks
+ * the adjacency arrays directly; on other graphs they are the NameDictionary ids of the node names.
+ *
+ * <p>Several sets of start nodes can be searched from in one pass. Every queued node carries a mask
+ * of the sets that reached it at that distance, and the bitsets hold one bit per node and set, so a
+ * node reached from every set is expanded once rather than once per set.
+ *
+ * <p>Each thread reuses one search, whose bitsets and layer queues grow to the largest graph the
+ * thread has searched and are cleared after every query, so that a query allocates little more than
+ * the subgraphs it returns.
+ *
+ * <p>A layer with at least sps.search.parallel.threshold nodes, such as the nodes of a common
+ * token, is expanded in parallel on the common fork-join pool. The workers each scan part of the
+ * layer and claim the neighbors they find in an atomic bitset, so that every node of the next layer
+ * is found by one worker only; the thread running the query then merges what they found. Smaller
+ * layers are expanded on the thread running the query, which is faster for them.
+ */
+final class ReachabilitySearch {
+
+  // The search of each thread
+  private static final ThreadLocal<ReachabilitySearch> SEARCHES =
+      ThreadLocal.withInitial(ReachabilitySearch::new);
+  // Number of indices a new search has room for
+  private static final int INITIAL_CAPACITY = 256;
+  // The most sets of start nodes a single pass can search from
+  static final int MAX_SETS = Integer.SIZE;
+  // The system property setting the smallest layer expanded in parallel, 0 to never do it
+  static final String PARALLEL_THRESHOLD_PROPERTY = "sps.search.parallel.threshold";
+  private static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+  // The smallest layer expanded in parallel by reachableSubgraph
+  private static final int PARALLEL_THRESHOLD = configuredParallelThreshold();
+  // Number of layer nodes expanded by one fork-join task
+  private static final int PARALLEL_GRAIN = 256;
+
+  // The graph being searched, and the same graph if it is an AdjacencyArrayGraph
+  private Graph<GraphNode> graph = null;
+  private AdjacencyArrayGraph arrayGraph = null;
+  // The number of sets of start nodes of the current query
+  private int setCount = 1;
+
+  // The bit of set s for index i is bit i * setCount + s of these bitsets. It is a long, since it
+  // passes Integer.MAX_VALUE on graphs of more than 2^26 nodes searched with 32 sets.
+  // One bit per index and set reached in the direction being searched
+  private long[] visited = new long[INITIAL_CAPACITY / Long.SIZE];
+  // One bit per index and set reached in either direction
+  private long[] reached = new long[INITIAL_CAPACITY / Long.SIZE];
+  // The node at each index reached from any set, null for the others
+  private GraphNode[] nodes = new GraphNode[INITIAL_CAPACITY];
+  // The mask of the sets each index of the next layer was reached from, 0 if it isn't queued
+  private int[] pending = new int[INITIAL_CAPACITY];
+  // The reached indices, in the order they were reached. Only the first reachedCount are used.
+  private int[] reachedIndices = new int[INITIAL_CAPACITY];
+  private int reachedCount = 0;
+  // The layer being expanded, with the mask of the sets each of its indices was reached from
+  private int[] layer = new int[INITIAL_CAPACITY];
+  private int[] layerMasks = new int[INITIAL_CAPACITY];
+  private int layerSize = 0;
+  // The layer being found
+  private int[] nextLayer = new int[INITIAL_CAPACITY];
+  private int nextLayerSize = 0;
+  // One bit per index and set claimed by a worker expanding the current layer in parallel
+  private AtomicLongArray claimed = null;
+  // The smallest layer expanded in parallel by the current query, 0 to never do it
+  private int parallelThreshold = 0;
+
+  private ReachabilitySearch() {}
+
+  /**
+   * Returns the subgraph induced by the nodes at most radius edges away from the start nodes,
+   * following edges from parents to children and, if asked, separately from children to parents
+   *
+   * @param graph the graph to search
+   * @param starts the nodes to start from, which must be in the graph
+   * @param radius the greatest distance of a returned node from the start nodes
+   * @param withParents whether to also include the ancestors of the start nodes
+   * @return a new graph holding the nodes found and the edges of the graph between them
+   */
+  static MutableGraph<GraphNode> reachableSubgraph(
+      Graph<GraphNode> graph, Collection<GraphNode> starts, int radius, boolean withParents) {
+    return reachableSubgraph(graph, starts, radius, withParents, PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Returns the subgraph induced by the nodes at most radius edges away from the start nodes,
+   * expanding layers of at least parallelThreshold nodes in parallel
+   *
+   * @param graph the graph to search, which must not be modified during the search
+   * @param starts the nodes to start from, which must be in the graph
+   * @param radius the greatest distance of a returned node from the start nodes
+   * @param withParents whether to also include the ancestors of the start nodes
+   * @param parallelThreshold the smallest layer expanded in parallel, 0 to never do it
+   * @return a new graph holding the nodes found and the edges of the graph between them
+   */
+  static MutableGraph<GraphNode> reachableSubgraph(
+      Graph<GraphNode> graph,
+      Collection<GraphNode> starts,
+      int radius,
+      boolean withParents,
+      int parallelThreshold) {
+    return reachableSubgraphs(
+            graph,
+            Collections.singletonList(starts),
+            radius,
+            /* parentsMask = */ withParents ? 1 : 0,
+            parallelThreshold)
+        .get(0);
+  }
+
+  /**
+   * Returns, for each set of start nodes, the subgraph induced by the nodes at most radius edges
+   * away from the set, searching from all the sets in a single pass
+   *
+   * @param graph the graph to search, which must not be modified during the search
+   * @param startSets the sets of nodes to start from, whose nodes must be in the graph
+   * @param radius the greatest distance of a returned node from the start nodes of its set
+   * @param parentsMask the sets whose ancestors are included too: set s if bit s is 1
+   * @return a new graph for each set, in the same order as startSets
+   * @throws IllegalArgumentException if there are more than MAX_SETS sets
+   */
+  static List<MutableGraph<GraphNode>> reachableSubgraphs(
+      Graph<GraphNode> graph,
+      List<? extends Collection<GraphNode>> startSets,
+      int radius,
+      int parentsMask) {
+    return reachableSubgraphs(graph, startSets, radius, parentsMask, PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Returns, for each set of start nodes, the subgraph induced by the nodes at most radius edges
+   * away from the set, expanding layers of at least parallelThreshold nodes in parallel
+   *
+   * @see #reachableSubgraphs(Graph, List, int, int)
+   * @param parallelThreshold the smallest layer expanded in parallel, 0 to never do it
+   */
+  static List<MutableGraph<GraphNode>> reachableSubgraphs(
+      Graph<GraphNode> graph,
+      List<? extends Collection<GraphNode>> startSets,
+      int radius,
+      int parentsMask,
+      int parallelThreshold) {
+    Preconditions.checkArgument(
+        startSets.size() <= MAX_SETS, "Cannot search from more than %s sets at once", MAX_SETS);
+    ReachabilitySearch search = SEARCHES.get();
+    search.parallelThreshold = parallelThreshold;
+    return search.search(graph, startSets, radius, parentsMask);
+  }
+
+  /**
+   * Returns the parallel threshold set with the sps.search.parallel.threshold system property
+   *
+   * @return the configured threshold, DEFAULT_PARALLEL_THRESHOLD if the property isn't set
+   * @throws IllegalArgumentException if the property is negative
+   */
+  static int configuredParallelThreshold() {
+    int threshold = Integer.getInteger(PARALLEL_THRESHOLD_PROPERTY, DEFAULT_PARALLEL_THRESHOLD);
+    Preconditions.checkArgument(
+        threshold >= 0, "%s must not be negative", PARALLEL_THRESHOLD_PROPERTY);
+    return threshold;
+  }
+
+  /**
+   * Searches a graph with the buffers of this search, leaving them cleared
+   *
+   * @see #reachableSubgraphs(Graph, List, int, int)
+   */
+  private List<MutableGraph<GraphNode>> search(
+      Graph<GraphNode> graph,
+      List<? extends Collection<GraphNode>> startSets,
+      int radius,
+      int parentsMask) {
+    this.graph = graph;
+    this.arrayGraph = graph instanceof AdjacencyArrayGraph ? (AdjacencyArrayGraph) graph : null;
+    this.setCount = Math.max(1, startSets.size());
+    ensureCapacity(0);
+    try {
+      traverse(startSets, /* mask = */ -1, radius, /* isChild = */ true);
+      if (parentsMask != 0) {
+        clearVisited();
+        traverse(startSets, parentsMask, radius, /* isChild = */ false);
+      }
+      List<MutableGraph<GraphNode>> subgraphs = new ArrayList<>(startSets.size());
+      for (int set = 0; set < startSets.size(); set++) {
+        subgraphs.add(subgraph(set));
+      }
+      return subgraphs;
+    } finally {
+      clear();
+    }
+  }
+
+  /**
+   * Visits the nodes at most radius edges away from the start nodes in one direction
+   *
+   * @param startSets the sets of nodes to start from
+   * @param mask the sets to start from: set s if bit s is 1
+   * @param radius the greatest distance of a visited node from the start nodes
+   * @param isChild true to follow edges to children, false to follow them to parents
+   */
+  private void traverse(
+      List<? extends Collection<GraphNode>> startSets, int mask, int radius, boolean isChild) {
+    nextLayerSize = 0;
+    for (int set = 0; set < startSets.size(); set++) {
+      if ((mask & (1 << set)) != 0) {
+        for (GraphNode start : startSets.get(set)) {
+          offer(indexOf(start), 1 << set, start);
+        }
+      }
+    }
+    advance();
+    for (int depth = 0; depth < radius && layerSize > 0; depth++) {
+      if (parallelThreshold > 0 && layerSize >= parallelThreshold) {
+        expandInParallel(isChild);
+      } else {
+        for (int i = 0; i < layerSize; i++) {
+          expand(layer[i], layerMasks[i], isChild);
+        }
+      }
+      advance();
+    }
+  }
+
+  /** Makes the layer found the layer to expand, taking the masks its indices were reached with */
+  private void advance() {
+    int[] expanded = layer;
+    layer = nextLayer;
+    nextLayer = expanded;
+    layerSize = nextLayerSize;
+    nextLayerSize = 0;
+    if (layerMasks.length < layerSize) {
+      layerMasks = new int[layer.length];
+    }
+    for (int i = 0; i < layerSize; i++) {
+      layerMasks[i] = pending[layer[i]];
+      pending[layer[i]] = 0;
+    }
+  }
+
+  /**
+   * Passes the sets an index of the current layer was reached from on to its children or parents
+   *
+   * @param index the index to expand
+   * @param mask the sets the index was reached from at this distance
+   * @param isChild true to visit the children, false to visit the parents
+   */
+  private void expand(int index, int mask, boolean isChild) {
+    if (arrayGraph != null) {
+      int[] neighbors = arrayGraph.neighborSlots(index, isChild);
+      int count = arrayGraph.neighborCount(index, isChild);
+      for (int i = 0; i < count; i++) {
+        int slot = neighbors[i];
+        offer(slot, mask, arrayGraph.nodeAt(slot));
+      }
+      return;
+    }
+    GraphNode node = nodes[index];
+    for (GraphNode neighbor : isChild ? graph.successors(node) : graph.predecessors(node)) {
+      offer(indexOf(neighbor), mask, neighbor);
+    }
+  }
+
+  /**
+   * Marks an index as visited from some sets in the current direction, and queues it in the next
+   * layer for the sets it wasn't visited from yet
+   *
+   * @param index the index of the node
+   * @param mask the sets the node is reached from
+   * @param node the node
+   */
+  private void offer(int index, int mask, GraphNode node) {
+    ensureCapacity(index);
+    int newSets = 0;
+    for (int sets = mask & setMask(); sets != 0; sets &= sets - 1) {
+      int set = Integer.numberOfTrailingZeros(sets);
+      long position = position(index, set);
+      if (!isSet(visited, position)) {
+        setBit(visited, position);
+        setBit(reached, position);
+        newSets |= 1 << set;
+      }
+    }
+    if (newSets == 0) {
+      return;
+    }
+    if (nodes[index] == null) {
+      nodes[index] = node;
+      reachedIndices = append(reachedIndices, reachedCount, index);
+      reachedCount++;
+    }
+    if (pending[index] == 0) {
+      nextLayer = append(nextLayer, nextLayerSize, index);
+      nextLayerSize++;
+    }
+    pending[index] |= newSets;
+  }
+
+  /**
+   * Expands the current layer on the common fork-join pool, then offers the neighbors found in the
+   * order of the layer nodes they were found from
+   *
+   * @param isChild true to visit the children, false to visit the parents
+   */
+  private void expandInParallel(boolean isChild) {
+    // The workers can't grow the buffers, so make room for every index the graph can have
+    ensureCapacity((arrayGraph != null ? arrayGraph.slotCount() : NameDictionary.size()) - 1);
+    if (claimed == null || claimed.length() < visited.length) {
+      claimed = new AtomicLongArray(visited.length);
+    }
+    Expansion[] expansions = new Expansion[(layerSize + PARALLEL_GRAIN - 1) / PARALLEL_GRAIN];
+    try {
+      ForkJoinPool.commonPool().invoke(new ExpandTask(isChild, 0, expansions.length, expansions));
+    } catch (RuntimeException e) {
+      // Some bits may be left claimed, so the next parallel expansion starts from a new bitset
+      claimed = null;
+      throw e;
+    }
+    for (Expansion expansion : expansions) {
+      for (int i = 0; i < expansion.size; i++) {
+        int index = expansion.indices[i];
+        int mask = expansion.masks[i];
+        for (int sets = mask; sets != 0; sets &= sets - 1) {
+          long position = position(index, Integer.numberOfTrailingZeros(sets));
+          int word = (int) (position >>> 6);
+          if (word < claimed.length()) {
+            claimed.set(word, claimed.get(word) & ~(1L << position));
+          }
+        }
+        offer(index, mask, expansion.nodes[i]);
+      }
+    }
+  }
+
+  /** Expands a range of chunks of the current layer, splitting it between workers */
+  private final class ExpandTask extends RecursiveAction {
+    private final boolean isChild;
+    // The chunks of PARALLEL_GRAIN layer nodes to expand
+    private final int fromChunk;
+    private final int toChunk;
+    // Where each chunk stores the neighbors it found
+    private final Expansion[] expansions;
+
+    ExpandTask(boolean isChild, int fromChunk, int toChunk, Expansion[] expansions) {
+      this.isChild = isChild;
+      this.fromChunk = fromChunk;
+      this.toChunk = toChunk;
+      this.expansions = expansions;
+    }
+
+    @Override
+    protected void compute() {
+      if (toChunk - fromChunk > 1) {
+        int middle = (fromChunk + toChunk) >>> 1;
+        invokeAll(
+            new ExpandTask(isChild, fromChunk, middle, expansions),
+            new ExpandTask(isChild, middle, toChunk, expansions));
+        return;
+      }
+      Expansion expansion = new Expansion();
+      int end = Math.min(layerSize, (fromChunk + 1) * PARALLEL_GRAIN);
+      for (int i = fromChunk * PARALLEL_GRAIN; i < end; i++) {
+        int index = layer[i];
+        int mask = layerMasks[i];
+        if (arrayGraph != null) {
+          int[] neighbors = arrayGraph.neighborSlots(index, isChild);
+          int count = arrayGraph.neighborCount(index, isChild);
+          for (int j = 0; j < count; j++) {
+            int slot = neighbors[j];
+            int newSets = claim(slot, mask);
+            if (newSets != 0) {
+              expansion.add(slot, newSets, arrayGraph.nodeAt(slot));
+            }
+          }
+        } else {
+          GraphNode node = nodes[index];
+          for (GraphNode neighbor : isChild ? graph.successors(node) : graph.predecessors(node)) {
+            int neighborIndex = indexOf(neighbor);
+            int newSets = claim(neighborIndex, mask);
+            if (newSets != 0) {
+              expansion.add(neighborIndex, newSets, neighbor);
+            }
+          }
+        }
+      }
+      expansions[fromChunk] = expansion;
+    }
+  }
+
+  /**
+   * Claims an index for some sets for the worker calling this, leaving out the sets it was visited
+   * from before the current layer and those another worker claimed it for
+   *
+   * @param index the index of a neighbor of the current layer
+   * @param mask the sets the neighbor is reached from
+   * @return the sets the index was claimed for
+   */
+  private int claim(int index, int mask) {
+    int claimedSets = 0;
+    for (int sets = mask & setMask(); sets != 0; sets &= sets - 1) {
+      int set = Integer.numberOfTrailingZeros(sets);
+      long position = position(index, set);
+      if (isSet(visited, position)) {
+        continue;
+      }
+      int word = (int) (position >>> 6);
+      if (word >= claimed.length()) {
+        // A node added to the dictionary after the buffers grew, which offer sorts out
+        claimedSets |= 1 << set;
+        continue;
+      }
+      long bit = 1L << position;
+      while (true) {
+        long bits = claimed.get(word);
+        if ((bits & bit) != 0) {
+          break;
+        }
+        if (claimed.compareAndSet(word, bits, bits | bit)) {
+          claimedSets |= 1 << set;
+          break;
+        }
+      }
+    }
+    return claimedSets;
+  }
+
+  /** The neighbors found by one fork-join task */
+  private static final class Expansion {
+    private int[] indices = new int[PARALLEL_GRAIN];
+    private int[] masks = new int[PARALLEL_GRAIN];
+    private GraphNode[] nodes = new GraphNode[PARALLEL_GRAIN];
+    private int size = 0;
+
+    // Records a neighbor, its index and the sets it was claimed for
+    void add(int index, int mask, GraphNode node) {
+      if (size == indices.length) {
+        indices = Arrays.copyOf(indices, size * 2);
+        masks = Arrays.copyOf(masks, size * 2);
+        nodes = Arrays.copyOf(nodes, size * 2);
+      }
+      indices[size] = index;
+      masks[size] = mask;
+      nodes[size] = node;
+      size++;
+    }
+  }
+
+  /**
+   * Builds the subgraph induced by the nodes reached from a set, adding them in the order they
+   * were reached
+   *
+   * @param set the index of the set of start nodes
+   * @return the subgraph
+   */
+  private MutableGraph<GraphNode> subgraph(int set) {
+    MutableGraph<GraphNode> subgraph =
+        GraphBuilder.from(graph).expectedNodeCount(reachedCount).build();
+    for (int i = 0; i < reachedCount; i++) {
+      int index = reachedIndices[i];
+      if (isSet(reached, position(index, set))) {
+        subgraph.addNode(nodes[index]);
+      }
+    }
+    for (int i = 0; i < reachedCount; i++) {
+      int index = reachedIndices[i];
+      if (!isSet(reached, position(index, set))) {
+        continue;
+      }
+      if (arrayGraph != null) {
+        int[] children = arrayGraph.neighborSlots(index, /* isChild = */ true);
+        int count = arrayGraph.neighborCount(index, /* isChild = */ true);
+        for (int j = 0; j < count; j++) {
+          if (isSet(reached, position(children[j], set))) {
+            subgraph.putEdge(nodes[index], nodes[children[j]]);
+          }
+        }
+      } else {
+        for (GraphNode child : graph.successors(nodes[index])) {
+          if (isSet(reached, position(indexOf(child), set))) {
+            subgraph.putEdge(nodes[index], child);
+          }
+        }
+      }
+    }
+    return subgraph;
+  }
+
+  /**
+   * Returns the index of a node of the graph being searched
+   *
+   * @param node the node
+   * @return its slot in an AdjacencyArrayGraph, or the NameDictionary id of its name otherwise
+   */
+  private int indexOf(GraphNode node) {
+    return arrayGraph != null ? arrayGraph.slotOf(node) : node.id();
+  }
+
+  /**
+   * Returns the position of the bit of an index and a set in the bitsets
+   *
+   * @param index the index of a node
+   * @param set the set of start nodes
+   * @return the position, which can be beyond the range of an int
+   */
+  private long position(int index, int set) {
+    return (long) index * setCount + set;
+  }
+
+  /**
+   * Returns the mask of every set of the current query
+   *
+   * @return a mask with the lowest setCount bits set
+   */
+  private int setMask() {
+    return setCount == Integer.SIZE ? -1 : (1 << setCount) - 1;
+  }
+
+  /** Unmarks every index visited in the current direction, which were all reached */
+  private void clearVisited() {
+    for (int i = 0; i < reachedCount; i++) {
+      for (int set = 0; set < setCount; set++) {
+        clearBit(visited, position(reachedIndices[i], set));
+      }
+    }
+  }
+
+  /** Unmarks every reached index and lets go of the graph and its nodes */
+  private void clear() {
+    for (int i = 0; i < reachedCount; i++) {
+      int index = reachedIndices[i];
+      for (int set = 0; set < setCount; set++) {
+        long position = position(index, set);
+        clearBit(visited, position);
+        clearBit(reached, position);
+      }
+      nodes[index] = null;
+      pending[index] = 0;
+    }
+    reachedCount = 0;
+    layerSize = 0;
+    nextLayerSize = 0;
+    graph = null;
+    arrayGraph = null;
+  }
+
+  /**
+   * Grows the per-index buffers so that they have room for an index with the current number of
+   * sets
+   *
+   * @param index the index to make room for
+   */
+  private void ensureCapacity(int index) {
+    if (index >= nodes.length) {
+      int capacity = (int) Math.max(index + 1, Math.min(2L * nodes.length, Integer.MAX_VALUE - 8));
+      nodes = Arrays.copyOf(nodes, capacity);
+      pending = Arrays.copyOf(pending, capacity);
+    }
+    int words = (int) (((long) nodes.length * setCount + Long.SIZE - 1) / Long.SIZE);
+    if (words > visited.length) {
+      visited = Arrays.copyOf(visited, words);
+      reached = Arrays.copyOf(reached, words);
+    }
+  }
+
+  /**
+   * Returns whether a bit is set
+   *
+   * @param bits the bitset
+   * @param position the position of the bit, which may be beyond the end of the bitset
+   * @return true if the bit is set
+   */
+  private static boolean isSet(long[] bits, long position) {
+    long word = position >>> 6;
+    return word < bits.length && (bits[(int) word] & (1L << position)) != 0;
+  }
+
+  // Sets a bit, which must be within the bitset
+  private static void setBit(long[] bits, long position) {
+    bits[(int) (position >>> 6)] |= 1L << position;
+  }
+
+  // Clears a bit, which must be within the bitset
+  private static void clearBit(long[] bits, long position) {
+    bits[(int) (position >>> 6)] &= ~(1L << position);
+  }
+
+  /**
+   * Stores a value after the used part of an array, growing it if needed
+   *
+   * @param array the array
+   * @param size the number of used entries in the array
+   * @param value the value to store
+   * @return the array holding the value
+   */
+  private static int[] append(int[] array, int size, int value) {
+    if (size == array.length) {
+      array = Arrays.copyOf(array, size * 2);
+    }
+    array[size] = value;
+    return array;
+  }
+}
@@ -0,0 +1,183 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.common.graph.Graph;
+import com.google.common.graph.Graphs;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Answers whether a node is downstream of another, and lists the descendants or the ancestors of a
+ * node, at any mutation number and at any distance. Answers come from the reachability index of
+ * the graph, without traversing it, unless indices are disabled.
+ *
+ * <p>Parameters: mutationNum and nodeName; then either target, to ask whether target is a
+ * descendant of nodeName, or direction, descendants or ancestors, to list those of nodeName.
+ */
+@WebServlet(urlPatterns = "/reachability", asyncSupported = true)
+public class ReachabilityServlet extends HttpServlet {
+
+  // Loads the dataset in the background when the application starts
+  private DatasetLoader loader = null;
+  // The workers that answer the queries, shared with DataServlet
+  private RequestExecutor requestExecutor = null;
+
+  /*
+   * Finds the dataset loader and the request executor when the servlet is put in service
+   */
+  @Override
+  public void init() {
+    loader = DatasetLoader.of(getServletContext());
+    if (loader == null) {
+      loader = new DatasetLoader();
+      loader.start(getServletContext());
+    }
+    requestExecutor = RequestExecutor.of(getServletContext());
+  }
+
+  /*
+   * Called when a client submits a GET request to the /reachability URL
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Dataset dataset = loader.dataset();
+    if (dataset == null) {
+      loader.sendNotReady(response);
+      return;
+    }
+    CursorPool cursorPool = loader.cursorPool();
+    ReachabilityIndexCache indices = loader.reachabilityIndices();
+
+    String mutationNumParam = request.getParameter("mutationNum");
+    String nodeName = request.getParameter("nodeName");
+    String target = request.getParameter("target");
+    String direction = request.getParameter("direction");
+    int mutationNum;
+    try {
+      mutationNum = mutationNumParam == null ? -2 : Integer.parseInt(mutationNumParam);
+    } catch (NumberFormatException e) {
+      mutationNum = -2;
+    }
+    if (mutationNum < -1 || mutationNum >= dataset.mutList().size()) {
+      response.setHeader("serverError", "Improper mutationNum parameter, cannot answer");
+      return;
+    }
+    if (nodeName == null || nodeName.trim().isEmpty()) {
+      response.setHeader("serverError", "Improper nodeName parameter, cannot answer");
+      return;
+    }
+    if (target == null && !"descendants".equals(direction) && !"ancestors".equals(direction)) {
+      response.setHeader(
+          "serverError", "Either a target or a direction (descendants or ancestors) is needed");
+      return;
+    }
+    String name = nodeName.trim();
+    int queriedNum = mutationNum;
+
+    requestExecutor.submit(
+        request,
+        pending -> {
+          JSONObject answer;
+          try {
+            ReachabilityIndex index = indices.indexAt(queriedNum);
+            answer =
+                index != null
+                    ? answer(index, name, target, direction)
+                    : traverse(cursorPool.graphAt(queriedNum), name, target, direction);
+          } catch (IllegalArgumentException e) {
+            if (pending.claim()) {
+              response.setHeader("serverError", e.getMessage());
+            }
+            return;
+          }
+          if (!pending.claim()) {
+            return;
+          }
+          if (answer == null) {
+            response.setHeader("serverError", "The node " + name + " is not in this graph");
+            return;
+          }
+          response.setContentType("application/json");
+          response.getWriter().println(answer.toString());
+        });
+  }
+
+  /**
+   * Answers a query from the reachability index of a graph
+   *
+   * @param index the index of the graph
+   * @param nodeName the name of the queried node
+   * @param target the name of the node to check, null to list nodes instead
+   * @param direction descendants or ancestors, the nodes to list
+   * @return the answer, or null if the queried node is not in the graph
+   */
+  private static JSONObject answer(
+      ReachabilityIndex index, String nodeName, String target, String direction) {
+    if (!index.contains(nodeName)) {
+      return null;
+    }
+    JSONObject answer = new JSONObject().put("nodeName", nodeName);
+    if (target != null) {
+      return answer
+          .put("target", target)
+          .put("reachable", !target.equals(nodeName) && index.reaches(nodeName, target));
+    }
+    List<String> nodes =
+        direction.equals("descendants")
+            ? index.descendantsOf(nodeName)
+            : index.ancestorsOf(nodeName);
+    return answer.put("direction", direction).put("nodes", new JSONArray(nodes));
+  }
+
+  /**
+   * Answers a query by traversing a graph, when reachability indices are disabled
+   *
+   * @see #answer
+   * @param dataGraph the graph at the queried mutation number
+   */
+  private static JSONObject traverse(
+      DataGraph dataGraph, String nodeName, String target, String direction) {
+    GraphNode node = dataGraph.graphNodesMap().get(nodeName);
+    if (node == null) {
+      return null;
+    }
+    Graph<GraphNode> graph =
+        target != null || direction.equals("descendants")
+            ? dataGraph.graph()
+            : Graphs.transpose(dataGraph.graph());
+    List<String> nodes = new ArrayList<>();
+    for (GraphNode reached : Graphs.reachableNodes(graph, node)) {
+      if (!reached.equals(node)) {
+        nodes.add(reached.name());
+      }
+    }
+    JSONObject answer = new JSONObject().put("nodeName", nodeName);
+    if (target != null) {
+      return answer.put("target", target).put("reachable", nodes.contains(target));
+    }
+    return answer.put("direction", direction).put("nodes", new JSONArray(nodes));
+  }
+}
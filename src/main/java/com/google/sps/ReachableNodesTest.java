@@ -3,10 +3,13 @@ package com.google.sps;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import com.google.common.graph.EndpointPair;
+import com.google.common.graph.Graphs;
 import com.google.common.graph.MutableGraph;
 import com.proto.GraphProtos.Node;
 import com.proto.GraphProtos.Node.Builder;
@@ -19,7 +22,10 @@ import org.junit.runners.JUnit4;
 
 import static com.google.sps.Utility.protoNodeToGraphNode;
 
-/** This file tests the following functions: - getReachableNodes in DataGraph.java */
+/**
+ * This file tests the following functions: - getReachableNodes and getReachableNodesOfEach in
+ * DataGraph.java - ReachabilitySearch.reachableSubgraph - ReachabilitySearch.reachableSubgraphs
+ */
 @RunWith(JUnit4.class)
 public class ReachableNodesTest {
   // Proto nodes to construct graph with
@@ -448,4 +454,186 @@ public class ReachableNodesTest {
     Assert.assertTrue(truncatedGraph.hasEdgeConnecting(gNodeA, gNodeB));
     Assert.assertTrue(truncatedGraph.hasEdgeConnecting(gNodeD, gNodeE));
   }
+
+  /** Every engine finds the same subgraph as a plain breadth-first search, query after query */
+  @Test
+  public void sameAsPlainSearchOnEveryEngine() {
+    // A high-fanout DAG: every node has edges to several later nodes
+    Random random = new Random(49);
+    int nodeCount = 300;
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    for (int i = 0; i < nodeCount; i++) {
+      Builder node = Node.newBuilder().setName("reach" + i);
+      for (int j = 0; j < 8 && i + 1 < nodeCount; j++) {
+        String child = "reach" + (i + 1 + random.nextInt(Math.min(40, nodeCount - i - 1)));
+        if (!node.getChildrenList().contains(child)) {
+          node.addChildren(child);
+        }
+      }
+      protoNodesMap.put(node.getName(), node.build());
+    }
+
+    for (GraphEngine engine : GraphEngine.values()) {
+      DataGraph dataGraph = DataGraph.create(engine);
+      dataGraph.graphFromProtoNodes(protoNodesMap);
+      for (int query = 0; query < 20; query++) {
+        List<String> names =
+            query % 5 == 0
+                ? new ArrayList<>()
+                : Arrays.asList("reach" + random.nextInt(nodeCount), "missing");
+        int radius = random.nextInt(4);
+        Assert.assertEquals(
+            engine + " " + names + " " + radius,
+            plainSearch(dataGraph, names, radius),
+            dataGraph.getReachableNodes(names, radius));
+      }
+    }
+  }
+
+  /** Expanding every layer in parallel finds the same subgraph as a plain search */
+  @Test
+  public void parallelSameAsPlainSearch() {
+    // Many sources with a wide fanout, so that layers span several fork-join tasks
+    Random random = new Random(20);
+    int nodeCount = 2000;
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    for (int i = 0; i < nodeCount; i++) {
+      Builder node = Node.newBuilder().setName("wide" + i);
+      for (int j = 0; j < 6 && i + 1 < nodeCount; j++) {
+        String child = "wide" + (i + 1 + random.nextInt(nodeCount - i - 1));
+        if (!node.getChildrenList().contains(child)) {
+          node.addChildren(child);
+        }
+      }
+      protoNodesMap.put(node.getName(), node.build());
+    }
+
+    for (GraphEngine engine : GraphEngine.values()) {
+      DataGraph dataGraph = DataGraph.create(engine);
+      dataGraph.graphFromProtoNodes(protoNodesMap);
+      List<String> names = new ArrayList<>();
+      List<GraphNode> starts = new ArrayList<>();
+      for (int i = 0; i < nodeCount; i += 3) {
+        names.add("wide" + i);
+        starts.add(dataGraph.graphNodesMap().get("wide" + i));
+      }
+      for (int radius = 0; radius < 4; radius++) {
+        Assert.assertEquals(
+            engine + " " + radius,
+            plainSearch(dataGraph, names, radius),
+            ReachabilitySearch.reachableSubgraph(
+                dataGraph.graph(), starts, radius, /* withParents = */ true, 1));
+      }
+    }
+  }
+
+  /** One search from several sets of names finds what a search from each set finds */
+  @Test
+  public void eachSetSameAsSeparateSearches() {
+    Random random = new Random(23);
+    int nodeCount = 400;
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    for (int i = 0; i < nodeCount; i++) {
+      Builder node = Node.newBuilder().setName("each" + i);
+      for (int j = 0; j < 4 && i + 1 < nodeCount; j++) {
+        String child = "each" + (i + 1 + random.nextInt(Math.min(30, nodeCount - i - 1)));
+        if (!node.getChildrenList().contains(child)) {
+          node.addChildren(child);
+        }
+      }
+      protoNodesMap.put(node.getName(), node.build());
+    }
+
+    for (GraphEngine engine : GraphEngine.values()) {
+      DataGraph dataGraph = DataGraph.create(engine);
+      dataGraph.graphFromProtoNodes(protoNodesMap);
+      for (int query = 0; query < 10; query++) {
+        // Overlapping sets, as queried and queriedNext are in DataServlet
+        List<String> queriedNext = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+          queriedNext.add("each" + random.nextInt(nodeCount));
+        }
+        List<String> queried = new ArrayList<>(queriedNext);
+        queried.add("each" + random.nextInt(nodeCount));
+        queried.add("missing");
+        List<List<String>> nameSets =
+            Arrays.asList(queried, queriedNext, new ArrayList<>(), null, Arrays.asList("missing"));
+        int radius = random.nextInt(5);
+
+        List<MutableGraph<GraphNode>> graphs =
+            dataGraph.getReachableNodesOfEach(nameSets, radius);
+        Assert.assertEquals(nameSets.size(), graphs.size());
+        for (int i = 0; i < nameSets.size(); i++) {
+          Assert.assertEquals(
+              engine + " " + i + " " + radius,
+              nameSets.get(i) == null
+                  ? dataGraph.getReachableNodes(null, radius)
+                  : plainSearch(dataGraph, nameSets.get(i), radius),
+              graphs.get(i));
+        }
+      }
+
+      // The same search with every layer expanded in parallel
+      List<List<GraphNode>> startSets = new ArrayList<>();
+      for (int set = 0; set < 3; set++) {
+        List<GraphNode> starts = new ArrayList<>();
+        for (int i = set; i < nodeCount; i += 7 + set) {
+          starts.add(dataGraph.graphNodesMap().get("each" + i));
+        }
+        startSets.add(starts);
+      }
+      List<MutableGraph<GraphNode>> graphs =
+          ReachabilitySearch.reachableSubgraphs(
+              dataGraph.graph(), startSets, 3, /* parentsMask = */ 0b101, 1);
+      for (int set = 0; set < 3; set++) {
+        Assert.assertEquals(
+            engine + " parallel " + set,
+            ReachabilitySearch.reachableSubgraph(
+                dataGraph.graph(), startSets.get(set), 3, set != 1, 0),
+            graphs.get(set));
+      }
+    }
+  }
+
+  /** The subgraph within radius of names, found one layer at a time with hash sets */
+  private static MutableGraph<GraphNode> plainSearch(
+      DataGraph dataGraph, List<String> names, int radius) {
+    Set<GraphNode> starts = new HashSet<>();
+    if (names.isEmpty()) {
+      for (String root : dataGraph.roots()) {
+        starts.add(dataGraph.graphNodesMap().get(root));
+      }
+    } else {
+      for (String name : names) {
+        if (dataGraph.graphNodesMap().containsKey(name)) {
+          starts.add(dataGraph.graphNodesMap().get(name));
+        }
+      }
+    }
+    Set<GraphNode> found = new HashSet<>();
+    for (boolean isChild : new boolean[] {true, false}) {
+      if (!isChild && names.isEmpty()) {
+        break;
+      }
+      Set<GraphNode> layer = new HashSet<>(starts);
+      Set<GraphNode> visited = new HashSet<>(starts);
+      for (int depth = 0; depth < radius; depth++) {
+        Set<GraphNode> next = new HashSet<>();
+        for (GraphNode node : layer) {
+          Set<GraphNode> neighbors =
+              isChild
+                  ? dataGraph.graph().successors(node)
+                  : dataGraph.graph().predecessors(node);
+          for (GraphNode neighbor : neighbors) {
+            if (visited.add(neighbor)) {
+              next.add(neighbor);
+            }
+          }
+        }
+        layer = next;
+      }
+      found.addAll(visited);
+    }
+    return Graphs.inducedSubgraph(dataGraph.graph(), found);
+  }
 }
@@ -0,0 +1,128 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.sps.Utility.getGraphAtMutationNumber;
+
+/**
+ * A position in the timeline of a dataset: the graph at some mutation number, which is moved
+ * forwards and backwards by replaying the mutation list. A cursor starts at the initial graph and
+ * shares everything it doesn't modify with the dataset. Cursors are lent to one request at a time
+ * by a CursorPool.
+ *
+ * <p>The graph at the current position is an immutable snapshot. Moving the cursor replays the
+ * mutations on a private copy and then publishes the finished graph, so any number of threads can
+ * read the current snapshot without locking while the cursor moves, and never see a partly applied
+ * multi-mutation.
+ */
+final class ReplayCursor {
+
+  private final Dataset dataset;
+  // The snapshot at the current position. It is never modified once published.
+  private final AtomicReference<DataGraph> snapshot;
+  // The number of multi-mutations applied or reverted since the last call to takeReplayedSteps,
+  // guarded by this, which also keeps moves from running concurrently
+  private long replayedSteps = 0;
+
+  /**
+   * Creates a cursor at the initial graph of a dataset
+   *
+   * @param dataset the dataset to replay
+   */
+  ReplayCursor(Dataset dataset) {
+    this.dataset = dataset;
+    this.snapshot = new AtomicReference<>(dataset.original());
+  }
+
+  /**
+   * Returns the snapshot at the current position, without waiting for a move in progress
+   *
+   * @return the graph, which must not be modified
+   */
+  DataGraph graph() {
+    return snapshot.get();
+  }
+
+  /**
+   * Returns the number of multi-mutations moveTo would replay to reach a mutation number, starting
+   * from whichever of the current graph, the initial graph and the checkpoints is closest
+   *
+   * @param mutationNum the index of the last mutation to apply
+   * @return the number of multi-mutations to apply or revert
+   */
+  int distanceTo(int mutationNum) {
+    mutationNum = Math.min(mutationNum, dataset.mutList().size() - 1);
+    return Math.min(
+        Math.abs(graph().numMutations() - mutationNum), dataset.startDistance(mutationNum));
+  }
+
+  /**
+   * Returns whether moveTo would replay from the current graph rather than from the initial graph
+   * or a checkpoint
+   *
+   * @param mutationNum the index of the last mutation to apply
+   * @return true if the current graph is at least as close as any other starting point
+   */
+  boolean isNearest(int mutationNum) {
+    mutationNum = Math.min(mutationNum, dataset.mutList().size() - 1);
+    return Math.abs(graph().numMutations() - mutationNum) <= dataset.startDistance(mutationNum);
+  }
+
+  /**
+   * Moves the cursor to the given mutation number, starting from whichever of the current graph,
+   * the initial graph and the checkpoints is closest. The mutations are replayed on a copy of the
+   * starting graph, which is published once it reaches the mutation number.
+   *
+   * @param mutationNum the index of the last mutation to apply
+   * @return the snapshot at the new position, which must not be modified, or null if the mutation
+   *     number was too small
+   * @throws IllegalArgumentException if a mutation cannot be applied
+   */
+  synchronized DataGraph moveTo(int mutationNum) {
+    DataGraph current = snapshot.get();
+    if (current.numMutations() == mutationNum) {
+      return current;
+    }
+    int distance = distanceTo(mutationNum);
+    // Copies are cheap with the persistent maps, and getGraphAtMutationNumber may replace this one
+    // with a copy of a checkpoint anyway
+    DataGraph moved =
+        getGraphAtMutationNumber(
+            dataset.original(),
+            current.getCopy(),
+            mutationNum,
+            dataset.mutList(),
+            dataset.checkpoints());
+    // The cursor stays where it is if the mutation number was too small
+    if (moved != null) {
+      snapshot.set(moved);
+      replayedSteps += distance;
+    }
+    return moved;
+  }
+
+  /**
+   * Returns the number of multi-mutations replayed since the last call and resets it
+   *
+   * @return the number of multi-mutations applied or reverted by moveTo
+   */
+  synchronized long takeReplayedSteps() {
+    long steps = replayedSteps;
+    replayedSteps = 0;
+    return steps;
+  }
+}
@@ -0,0 +1,189 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - ReplayCursor.moveTo - ReplayCursor.graph - snapshot
+ * publication - Dataset.create
+ */
+@RunWith(JUnit4.class)
+public final class ReplayCursorTest {
+
+  // Number of multi-mutations in the test list
+  private static final int LOG_SIZE = 40;
+
+  Dataset dataset;
+
+  /*
+   * The list adds nodes N0, N1, ... linked in a chain to the root R
+   */
+  @Before
+  public void setUp() {
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    protoNodesMap.put("R", Node.newBuilder().setName("R").build());
+    DataGraph original = DataGraph.create();
+    original.graphFromProtoNodes(protoNodesMap);
+
+    List<MultiMutation> multiMutList = new ArrayList<>();
+    for (int i = 0; i < LOG_SIZE; i++) {
+      String parent = i == 0 ? "R" : "N" + (i - 1);
+      multiMutList.add(
+          MultiMutation.newBuilder()
+              .addMutation(
+                  Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode("N" + i))
+              .addMutation(
+                  Mutation.newBuilder()
+                      .setType(Mutation.Type.ADD_EDGE)
+                      .setStartNode(parent)
+                      .setEndNode("N" + i))
+              .build());
+    }
+    dataset =
+        Dataset.create(
+            original,
+            multiMutList,
+            CheckpointIndex.build(original, multiMutList, 8),
+            MutationIndex.build(multiMutList));
+  }
+
+  /*
+   * Check that two cursors over the same dataset move independently and leave the initial graph
+   * unchanged
+   */
+  @Test
+  public void independentCursors() {
+    ReplayCursor first = new ReplayCursor(dataset);
+    ReplayCursor second = new ReplayCursor(dataset);
+
+    first.moveTo(30);
+    second.moveTo(5);
+    first.moveTo(12);
+
+    Assert.assertEquals(12, first.graph().numMutations());
+    Assert.assertEquals(14, first.graph().graph().nodes().size());
+    Assert.assertEquals(5, second.graph().numMutations());
+    Assert.assertEquals(7, second.graph().graph().nodes().size());
+    Assert.assertEquals(-1, dataset.original().numMutations());
+    Assert.assertEquals(1, dataset.original().graph().nodes().size());
+    Assert.assertEquals(LOG_SIZE, dataset.defaultIndices().size());
+  }
+
+  /*
+   * Check that cursors moved concurrently each reach the graph they asked for, through a mutation
+   * list that publishes the multi-mutations they replace
+   */
+  @Test
+  public void concurrentCursors() throws Exception {
+    Assert.assertTrue(dataset.mutList() instanceof AtomicMutationList);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<DataGraph>> graphs = new ArrayList<>();
+      for (int i = 0; i < 16; i++) {
+        int target = (i * 7) % LOG_SIZE;
+        graphs.add(
+            executor.submit(
+                () -> {
+                  ReplayCursor cursor = new ReplayCursor(dataset);
+                  cursor.moveTo(LOG_SIZE - 1);
+                  return cursor.moveTo(target);
+                }));
+      }
+      for (int i = 0; i < graphs.size(); i++) {
+        int target = (i * 7) % LOG_SIZE;
+        DataGraph graph = graphs.get(i).get();
+        Assert.assertEquals(target, graph.numMutations());
+        Assert.assertEquals(target + 2, graph.graph().nodes().size());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /*
+   * Check that a published snapshot is not modified when the cursor moves on
+   */
+  @Test
+  public void snapshotsUnchanged() {
+    ReplayCursor cursor = new ReplayCursor(dataset);
+    DataGraph first = cursor.moveTo(10);
+    DataGraph second = cursor.moveTo(20);
+    DataGraph third = cursor.moveTo(5);
+
+    Assert.assertSame(third, cursor.graph());
+    Assert.assertSame(third, cursor.moveTo(5));
+    Assert.assertEquals(10, first.numMutations());
+    Assert.assertEquals(12, first.graph().nodes().size());
+    Assert.assertEquals(20, second.numMutations());
+    Assert.assertEquals(22, second.graph().nodes().size());
+    Assert.assertEquals(7, third.graph().nodes().size());
+  }
+
+  /*
+   * Check that threads reading the snapshot of a moving cursor always see a whole multi-mutation
+   * applied
+   */
+  @Test
+  public void readsDuringReplay() throws Exception {
+    ReplayCursor cursor = new ReplayCursor(dataset);
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      Future<?> writer =
+          executor.submit(
+              () -> {
+                for (int i = 0; i < 200; i++) {
+                  cursor.moveTo(i % 2 == 0 ? LOG_SIZE - 1 : (i * 7) % LOG_SIZE);
+                }
+              });
+      List<Future<Integer>> readers = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        readers.add(
+            executor.submit(
+                () -> {
+                  int reads = 0;
+                  while (!writer.isDone()) {
+                    DataGraph graph = cursor.graph();
+                    Assert.assertEquals(graph.numMutations() + 2, graph.graph().nodes().size());
+                    Assert.assertEquals(graph.numMutations() + 2, graph.graphNodesMap().size());
+                    reads++;
+                  }
+                  return reads;
+                }));
+      }
+      writer.get();
+      for (Future<Integer> reader : readers) {
+        reader.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
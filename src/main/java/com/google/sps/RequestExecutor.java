@@ -0,0 +1,420 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.json.JSONObject;
+
+/**
+ * Runs expensive /data requests on a bounded pool of worker threads, so that they don't hold on to
+ * the container's request threads. /play streams, which hold a worker for much longer, have a pool
+ * of their own so that they cannot take every /data worker. Requests wait in a bounded queue when
+ * every worker is busy and are rejected with a 503 when the queue is full too. A request that
+ * hasn't been answered by its deadline gets a 503 and its worker is interrupted.
+ *
+ * <p>Either the worker or the deadline answers a request, whichever claims it first. The worker
+ * must claim a request before it writes anything to its response. A task that fails with a runtime
+ * exception is logged, and its request gets a 503 if it wasn't claimed yet and a 500 otherwise.
+ */
+final class RequestExecutor {
+
+  // The servlet context attribute holding the executor shared by the servlets
+  static final String ATTRIBUTE = RequestExecutor.class.getName();
+  // The servlet context attribute holding the executor of /play streams
+  static final String STREAMS_ATTRIBUTE = ATTRIBUTE + ".streams";
+
+  // The system property that sets the number of worker threads
+  static final String THREADS_PROPERTY = "sps.request.threads";
+  // The number of worker threads if the property isn't set
+  static final int DEFAULT_THREADS = 4;
+  // The system property that sets the number of requests that can wait for a worker
+  static final String QUEUE_PROPERTY = "sps.request.queue";
+  // The number of requests that can wait for a worker if the property isn't set
+  static final int DEFAULT_QUEUE = 32;
+  // The system property that sets the time a request has to be answered in milliseconds
+  static final String DEADLINE_PROPERTY = "sps.request.deadline.ms";
+  // The deadline of a request if the property isn't set
+  static final int DEFAULT_DEADLINE_MS = 30_000;
+  // The system properties that set the number of worker threads and queued requests of streams
+  static final String STREAM_THREADS_PROPERTY = "sps.play.threads";
+  static final String STREAM_QUEUE_PROPERTY = "sps.play.queue";
+  // The number of stream workers and queued streams if the properties aren't set
+  static final int DEFAULT_STREAM_THREADS = 2;
+  static final int DEFAULT_STREAM_QUEUE = 4;
+
+  private static final Logger logger = Logger.getLogger(RequestExecutor.class.getName());
+
+  private final ThreadPoolExecutor workers;
+  private final ScheduledThreadPoolExecutor deadlines;
+  private final long deadlineMillis;
+
+  // Metrics
+  private final AtomicLong submitted = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong expired = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+
+  /** The work done for a request on a worker thread */
+  interface Task {
+    /**
+     * Does the work and, once the request is claimed, writes its response
+     *
+     * @param pending the request, whose response must not be written unless claim returns true
+     * @throws IOException if writing the response fails
+     * @throws InterruptedException if the worker is interrupted because the deadline passed
+     */
+    void run(PendingRequest pending) throws IOException, InterruptedException;
+  }
+
+  /** A request that is waiting for its response */
+  abstract static class PendingRequest {
+
+    private static final int PENDING = 0;
+    private static final int CLAIMED = 1;
+    private static final int EXPIRED = 2;
+
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    // The deadline of the request, cancelled once it is answered
+    private volatile ScheduledFuture<?> deadline = null;
+
+    /**
+     * Claims the response for the worker
+     *
+     * @return true if the worker may write the response, false if it was already answered
+     */
+    boolean claim() {
+      return state.compareAndSet(PENDING, CLAIMED);
+    }
+
+    // Claims the response for a rejection or the deadline
+    private boolean expire() {
+      return state.compareAndSet(PENDING, EXPIRED);
+    }
+
+    // Whether the worker claimed the response
+    private boolean isClaimed() {
+      return state.get() == CLAIMED;
+    }
+
+    // Whether the response was claimed by the worker, a rejection or the deadline
+    private boolean isAnswered() {
+      return state.get() != PENDING;
+    }
+
+    /**
+     * Answers the request with a 503 and completes it
+     *
+     * @param message the serverError header to set
+     */
+    abstract void fail(String message);
+
+    /**
+     * Turns the response the worker claimed into a 500, unless part of it was already sent. The
+     * request is still completed with complete.
+     *
+     * @param message the serverError header to set
+     */
+    abstract void abort(String message);
+
+    /** Completes the response written by the worker */
+    abstract void complete();
+  }
+
+  /**
+   * Creates an executor with idle workers named data-worker
+   *
+   * @param threads the number of worker threads
+   * @param queueDepth the number of requests that can wait for a worker
+   * @param deadlineMillis the time a request has to be answered in milliseconds
+   */
+  RequestExecutor(int threads, int queueDepth, long deadlineMillis) {
+    this("data", threads, queueDepth, deadlineMillis);
+  }
+
+  /**
+   * Creates an executor with idle workers
+   *
+   * @param name the prefix of the names of its threads
+   * @param threads the number of worker threads
+   * @param queueDepth the number of requests that can wait for a worker
+   * @param deadlineMillis the time a request has to be answered in milliseconds
+   */
+  RequestExecutor(String name, int threads, int queueDepth, long deadlineMillis) {
+    Preconditions.checkArgument(threads > 0, "There must be at least one worker");
+    Preconditions.checkArgument(queueDepth >= 0, "The queue depth must not be negative");
+    Preconditions.checkArgument(deadlineMillis > 0, "The deadline must be positive");
+    this.deadlineMillis = deadlineMillis;
+    // Without a queue, requests are handed straight to an idle worker or rejected
+    BlockingQueue<Runnable> queue =
+        queueDepth == 0
+            ? new SynchronousQueue<Runnable>()
+            : new ArrayBlockingQueue<Runnable>(queueDepth);
+    this.workers =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            queue,
+            new ThreadFactoryBuilder().setNameFormat(name + "-worker-%d").setDaemon(true).build());
+    this.deadlines =
+        new ScheduledThreadPoolExecutor(
+            1,
+            new ThreadFactoryBuilder().setNameFormat(name + "-deadline").setDaemon(true).build());
+    this.deadlines.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Creates an executor configured with the sps.request.threads, sps.request.queue and
+   * sps.request.deadline.ms system properties
+   *
+   * @return the executor
+   * @throws IllegalArgumentException if a property is out of range
+   */
+  static RequestExecutor configured() {
+    return configured("data", THREADS_PROPERTY, DEFAULT_THREADS, QUEUE_PROPERTY, DEFAULT_QUEUE);
+  }
+
+  /**
+   * Creates an executor for /play streams configured with the sps.play.threads, sps.play.queue
+   * and sps.request.deadline.ms system properties. The deadline only applies until a stream
+   * starts.
+   *
+   * @return the executor
+   * @throws IllegalArgumentException if a property is out of range
+   */
+  static RequestExecutor configuredForStreams() {
+    return configured(
+        "play",
+        STREAM_THREADS_PROPERTY,
+        DEFAULT_STREAM_THREADS,
+        STREAM_QUEUE_PROPERTY,
+        DEFAULT_STREAM_QUEUE);
+  }
+
+  // Creates an executor whose sizes are read from the given system properties
+  private static RequestExecutor configured(
+      String name,
+      String threadsProperty,
+      int defaultThreads,
+      String queueProperty,
+      int defaultQueue) {
+    int threads = Integer.getInteger(threadsProperty, defaultThreads);
+    int queueDepth = Integer.getInteger(queueProperty, defaultQueue);
+    int deadlineMillis = Integer.getInteger(DEADLINE_PROPERTY, DEFAULT_DEADLINE_MS);
+    Preconditions.checkArgument(threads > 0, "%s must be positive", threadsProperty);
+    Preconditions.checkArgument(queueDepth >= 0, "%s must not be negative", queueProperty);
+    Preconditions.checkArgument(deadlineMillis > 0, "%s must be positive", DEADLINE_PROPERTY);
+    return new RequestExecutor(name, threads, queueDepth, deadlineMillis);
+  }
+
+  /**
+   * Returns the executor shared by the servlets of an application, creating it the first time
+   *
+   * @param context the servlet context of the application
+   * @return the executor
+   * @throws IllegalArgumentException if a property is out of range
+   */
+  static RequestExecutor of(ServletContext context) {
+    return of(context, ATTRIBUTE, RequestExecutor::configured);
+  }
+
+  /**
+   * Returns the executor of the /play streams of an application, creating it the first time
+   *
+   * @param context the servlet context of the application
+   * @return the executor
+   * @throws IllegalArgumentException if a property is out of range
+   */
+  static RequestExecutor streamsOf(ServletContext context) {
+    return of(context, STREAMS_ATTRIBUTE, RequestExecutor::configuredForStreams);
+  }
+
+  // Returns the executor held by a servlet context attribute, creating it the first time
+  private static RequestExecutor of(
+      ServletContext context, String attribute, Supplier<RequestExecutor> create) {
+    synchronized (context) {
+      RequestExecutor executor = (RequestExecutor) context.getAttribute(attribute);
+      if (executor == null) {
+        executor = create.get();
+        context.setAttribute(attribute, executor);
+      }
+      return executor;
+    }
+  }
+
+  /**
+   * Stops the executors an application created, interrupting the requests they are running
+   *
+   * @param context the servlet context of the application
+   */
+  static void shutdown(ServletContext context) {
+    for (String attribute : new String[] {ATTRIBUTE, STREAMS_ATTRIBUTE}) {
+      RequestExecutor executor = (RequestExecutor) context.getAttribute(attribute);
+      if (executor != null) {
+        executor.shutdown();
+      }
+    }
+  }
+
+  /**
+   * Puts a request in asynchronous mode and runs its task on a worker. The container thread
+   * returns as soon as the task is queued.
+   *
+   * @param request the request, which must support asynchronous processing
+   * @param task the work to do for it
+   */
+  void submit(HttpServletRequest request, Task task) {
+    AsyncContext async = request.startAsync();
+    // The deadline is enforced here, so that it also interrupts the worker
+    async.setTimeout(0);
+    submit(
+        new PendingRequest() {
+          @Override
+          void fail(String message) {
+            HttpServletResponse response = (HttpServletResponse) async.getResponse();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("serverError", message);
+            async.complete();
+          }
+
+          @Override
+          void abort(String message) {
+            HttpServletResponse response = (HttpServletResponse) async.getResponse();
+            if (!response.isCommitted()) {
+              response.reset();
+              response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+              response.setHeader("serverError", message);
+            }
+          }
+
+          @Override
+          void complete() {
+            async.complete();
+          }
+        },
+        task);
+  }
+
+  /**
+   * Runs the task of a pending request on a worker, or fails the request if the queue is full
+   *
+   * @param pending the request
+   * @param task the work to do for it
+   */
+  void submit(PendingRequest pending, Task task) {
+    submitted.incrementAndGet();
+    Future<?> work;
+    try {
+      work = workers.submit(() -> run(pending, task));
+    } catch (RejectedExecutionException e) {
+      rejected.incrementAndGet();
+      pending.expire();
+      pending.fail("The server is busy, please try again in a moment");
+      return;
+    }
+    pending.deadline =
+        deadlines.schedule(
+            () -> {
+              if (pending.expire()) {
+                expired.incrementAndGet();
+                work.cancel(true);
+                pending.fail("The request took too long, please try a smaller radius");
+              }
+            },
+            deadlineMillis,
+            TimeUnit.MILLISECONDS);
+  }
+
+  // Runs a task on a worker thread and completes its response
+  private void run(PendingRequest pending, Task task) {
+    try {
+      // Requests whose deadline passed while they were queued are not worth starting
+      if (!pending.isAnswered()) {
+        task.run(pending);
+      }
+    } catch (IOException e) {
+      // Writing the response failed, so there is nothing more to send
+    } catch (InterruptedException e) {
+      // The deadline passed and already answered the request
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      failed.incrementAndGet();
+      logger.log(Level.SEVERE, "A request failed", e);
+      String message = "The server could not answer this request";
+      if (pending.expire()) {
+        pending.fail(message);
+      } else if (pending.isClaimed()) {
+        pending.abort(message);
+      }
+    } finally {
+      ScheduledFuture<?> deadline = pending.deadline;
+      if (deadline != null) {
+        deadline.cancel(false);
+      }
+      // A task that returns without claiming its request has nothing more to send
+      pending.claim();
+      if (pending.isClaimed()) {
+        pending.complete();
+      }
+    }
+  }
+
+  /** Stops the workers, interrupting the requests they are running */
+  void shutdown() {
+    workers.shutdownNow();
+    deadlines.shutdownNow();
+  }
+
+  /**
+   * Returns the load of the workers and the number of rejected and expired requests
+   *
+   * @return the metrics as a JSON object
+   */
+  JSONObject metrics() {
+    return new JSONObject()
+        .put("threads", workers.getMaximumPoolSize())
+        .put("activeThreads", workers.getActiveCount())
+        .put("queued", workers.getQueue().size())
+        .put("deadlineMillis", deadlineMillis)
+        .put("submitted", submitted.get())
+        .put("rejected", rejected.get())
+        .put("expired", expired.get())
+        .put("failed", failed.get());
+  }
+}
@@ -0,0 +1,173 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - RequestExecutor.submit - RequestExecutor.metrics
+ */
+@RunWith(JUnit4.class)
+public final class RequestExecutorTest {
+
+  RequestExecutor executor;
+
+  /** A pending request that records how it was answered */
+  private static final class RecordingRequest extends RequestExecutor.PendingRequest {
+    // Counted down once the request is answered
+    final CountDownLatch done = new CountDownLatch(1);
+    volatile String failure = null;
+    volatile boolean completed = false;
+    volatile String abortion = null;
+
+    @Override
+    void fail(String message) {
+      failure = message;
+      done.countDown();
+    }
+
+    @Override
+    void abort(String message) {
+      abortion = message;
+    }
+
+    @Override
+    void complete() {
+      completed = true;
+      done.countDown();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  /*
+   * Tests that a task that claims its request completes it
+   */
+  @Test
+  public void completes() throws InterruptedException {
+    executor = new RequestExecutor(1, 1, 10_000);
+    RecordingRequest request = new RecordingRequest();
+    executor.submit(request, pending -> Assert.assertTrue(pending.claim()));
+
+    Assert.assertTrue(request.done.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(request.completed);
+    Assert.assertNull(request.failure);
+  }
+
+  /*
+   * Tests that requests are rejected once every worker is busy and the queue is full
+   */
+  @Test
+  public void rejectsWhenSaturated() throws InterruptedException {
+    executor = new RequestExecutor(1, 1, 10_000);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingRequest busy = new RecordingRequest();
+    executor.submit(
+        busy,
+        pending -> {
+          started.countDown();
+          release.await();
+          pending.claim();
+        });
+    started.await();
+    RecordingRequest queued = new RecordingRequest();
+    executor.submit(queued, pending -> pending.claim());
+    RecordingRequest rejected = new RecordingRequest();
+    executor.submit(rejected, pending -> Assert.fail("A rejected task must not run"));
+
+    Assert.assertTrue(rejected.done.await(10, TimeUnit.SECONDS));
+    Assert.assertNotNull(rejected.failure);
+    Assert.assertFalse(rejected.completed);
+
+    release.countDown();
+    Assert.assertTrue(busy.done.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(queued.done.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(queued.completed);
+
+    JSONObject metrics = executor.metrics();
+    Assert.assertEquals(3, metrics.getLong("submitted"));
+    Assert.assertEquals(1, metrics.getLong("rejected"));
+  }
+
+  /*
+   * Tests that a request that misses its deadline fails, and that its worker is interrupted and
+   * can no longer claim it
+   */
+  @Test
+  public void expires() throws InterruptedException {
+    executor = new RequestExecutor(1, 1, 50);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    RecordingRequest request = new RecordingRequest();
+    executor.submit(
+        request,
+        pending -> {
+          try {
+            new CountDownLatch(1).await();
+          } finally {
+            Assert.assertFalse(pending.claim());
+            interrupted.countDown();
+          }
+        });
+
+    Assert.assertTrue(request.done.await(10, TimeUnit.SECONDS));
+    Assert.assertNotNull(request.failure);
+    Assert.assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    Assert.assertFalse(request.completed);
+    Assert.assertEquals(1, executor.metrics().getLong("expired"));
+  }
+
+  /*
+   * Tests that a task that throws before claiming its request fails it, and that one that throws
+   * after claiming its request aborts and completes it
+   */
+  @Test
+  public void failsOnRuntimeException() throws InterruptedException {
+    executor = new RequestExecutor(1, 1, 10_000);
+    RecordingRequest unclaimed = new RecordingRequest();
+    executor.submit(
+        unclaimed,
+        pending -> {
+          throw new IllegalStateException("unclaimed");
+        });
+    Assert.assertTrue(unclaimed.done.await(10, TimeUnit.SECONDS));
+    Assert.assertNotNull(unclaimed.failure);
+    Assert.assertFalse(unclaimed.completed);
+
+    RecordingRequest claimed = new RecordingRequest();
+    executor.submit(
+        claimed,
+        pending -> {
+          pending.claim();
+          throw new IllegalStateException("claimed");
+        });
+    Assert.assertTrue(claimed.done.await(10, TimeUnit.SECONDS));
+    Assert.assertNull(claimed.failure);
+    Assert.assertNotNull(claimed.abortion);
+    Assert.assertTrue(claimed.completed);
+    Assert.assertEquals(2, executor.metrics().getLong("failed"));
+  }
+}
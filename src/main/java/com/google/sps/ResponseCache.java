@@ -0,0 +1,172 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import org.json.JSONObject;
+
+/**
+ * A bounded cache of rendered /data responses, keyed by canonical query. The responses of a dataset
+ * never change, so entries are only evicted, least recently used first, once their total size
+ * exceeds the budget.
+ *
+ * <p>Responses are streamed to the client as they are encoded and copied into a buffer on the way,
+ * which is put into the cache once the response is complete. A response larger than
+ * maxEntryBytes is not kept, so its copy is dropped as soon as it grows past that size and the
+ * response is only ever held in full by the client. Concurrent requests for a query that is not
+ * cached yet each render it.
+ */
+final class ResponseCache {
+
+  // The system property that sets the budget of the cache in megabytes. A value of 0 disables it.
+  static final String BUDGET_PROPERTY = "sps.response.cache.mb";
+  // The budget of the cache if the property isn't set
+  static final int DEFAULT_BUDGET_MB = 64;
+  // The largest response kept is this fraction of the budget. The cache is split into segments
+  // that each evict within their share of the budget, so a larger one would evict most of its
+  // segment, if not itself, right away.
+  private static final int MAX_ENTRY_DIVISOR = 8;
+
+  private final long budgetBytes;
+  private final Cache<GraphQuery, DataResponse> responses;
+  // The hits of peek, which the statistics of the cache don't count
+  private final AtomicLong peekHits = new AtomicLong();
+  // The number of responses rendered on a miss and their total rendering time
+  private final AtomicLong renders = new AtomicLong();
+  private final AtomicLong renderNanos = new AtomicLong();
+  // The number of rendered responses that were too large to keep
+  private final AtomicLong tooLarge = new AtomicLong();
+
+  /**
+   * Creates an empty cache
+   *
+   * @param budgetBytes the maximum total size of the cached responses, 0 to cache nothing
+   */
+  ResponseCache(long budgetBytes) {
+    Preconditions.checkArgument(budgetBytes >= 0, "The budget must not be negative");
+    this.budgetBytes = budgetBytes;
+    this.responses =
+        CacheBuilder.newBuilder()
+            .maximumWeight(budgetBytes)
+            .weigher((GraphQuery query, DataResponse response) -> response.weight())
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Returns the budget set with the sps.response.cache.mb system property
+   *
+   * @return the configured budget in bytes, DEFAULT_BUDGET_MB megabytes if the property isn't set
+   * @throws IllegalArgumentException if the property is not a non-negative integer
+   */
+  static long configuredBudget() {
+    int budget = Integer.getInteger(BUDGET_PROPERTY, DEFAULT_BUDGET_MB);
+    Preconditions.checkArgument(budget >= 0, "%s must not be negative", BUDGET_PROPERTY);
+    return (long) budget << 20;
+  }
+
+  /**
+   * Returns whether the cache keeps responses at all
+   *
+   * @return false if the budget is 0
+   */
+  boolean isEnabled() {
+    return budgetBytes > 0;
+  }
+
+  /**
+   * Returns the largest response the cache keeps
+   *
+   * @return the maximum weight of an entry in bytes, 0 if the cache is disabled
+   */
+  long maxEntryBytes() {
+    return budgetBytes / MAX_ENTRY_DIVISOR;
+  }
+
+  /**
+   * Returns the cached response to a query. A miss is not counted, since the caller is expected to
+   * follow it with getIfPresent, which counts it once.
+   *
+   * @param query the canonical query
+   * @return the response, or null if it isn't cached
+   */
+  DataResponse peek(GraphQuery query) {
+    DataResponse response = responses.asMap().get(query);
+    if (response != null) {
+      peekHits.incrementAndGet();
+    }
+    return response;
+  }
+
+  /**
+   * Returns the cached response to a query, counting a hit or a miss. A miss is expected to be
+   * followed by rendering the response and calling put.
+   *
+   * @param query the canonical query
+   * @return the response, or null if it isn't cached
+   */
+  DataResponse getIfPresent(GraphQuery query) {
+    return responses.getIfPresent(query);
+  }
+
+  /**
+   * Keeps the response rendered after a miss, unless it is larger than maxEntryBytes
+   *
+   * @param query the canonical query
+   * @param response the response, or null if it was too large to copy in full
+   * @param renderNanos the time rendering the response took
+   */
+  void put(GraphQuery query, DataResponse response, long renderNanos) {
+    renders.incrementAndGet();
+    this.renderNanos.addAndGet(renderNanos);
+    if (response == null || response.weight() > maxEntryBytes()) {
+      tooLarge.incrementAndGet();
+    } else {
+      responses.put(query, response);
+    }
+  }
+
+  /**
+   * Returns the hit rate and size of the cache
+   *
+   * @return the metrics as a JSON object
+   */
+  JSONObject metrics() {
+    CacheStats stats = responses.stats();
+    long renderCount = renders.get();
+    long hits = stats.hitCount() + peekHits.get();
+    long requests = hits + stats.missCount();
+    long weight = 0;
+    for (DataResponse response : responses.asMap().values()) {
+      weight += response.weight();
+    }
+    return new JSONObject()
+        .put("budgetBytes", budgetBytes)
+        .put("bytes", weight)
+        .put("entries", responses.size())
+        .put("hits", hits)
+        .put("misses", stats.missCount())
+        .put("hitRate", requests == 0 ? 1.0 : (double) hits / requests)
+        .put("evictions", stats.evictionCount())
+        .put("tooLarge", tooLarge.get())
+        .put("meanRenderMillis", renderCount == 0 ? 0.0 : renderNanos.get() / 1e6 / renderCount);
+  }
+}
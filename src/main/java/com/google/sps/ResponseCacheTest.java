@@ -0,0 +1,201 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Strings;
+import com.google.protobuf.ByteString;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - GraphQuery.create - ResponseCache.getIfPresent -
+ * ResponseCache.put - ResponseCache.peek - ResponseCache.metrics
+ */
+@RunWith(JUnit4.class)
+public final class ResponseCacheTest {
+
+  /*
+   * Check that queries differing only in the order of node names, duplicate names or, without a
+   * token, in how far back the previous mutation number is, are equal
+   */
+  @Test
+  public void canonicalQueries() {
+    GraphQuery query =
+        GraphQuery.create(
+            2, 10, 3, Arrays.asList("B", "A", "B"), "", false, ResponseFormat.JSON_V1);
+
+    Assert.assertEquals(
+        query,
+        GraphQuery.create(2, 10, 9, Arrays.asList("A", "B"), "", false, ResponseFormat.JSON_V1));
+    Assert.assertEquals(Arrays.asList("A", "B"), query.nodeNames().asList());
+    Assert.assertEquals(9, query.previousMutationNum());
+    Assert.assertEquals(
+        GraphQuery.create(2, 10, 10, Collections.emptyList(), "", false, ResponseFormat.JSON_V1),
+        GraphQuery.create(2, 10, 40, Collections.emptyList(), "", false, ResponseFormat.JSON_V1));
+    Assert.assertNotEquals(
+        GraphQuery.create(2, 10, 9, Collections.emptyList(), "", false, ResponseFormat.JSON_V1),
+        GraphQuery.create(2, 10, 10, Collections.emptyList(), "", false, ResponseFormat.JSON_V1));
+    // With a token, the previous graph is read, so its mutation number matters
+    Assert.assertNotEquals(
+        GraphQuery.create(2, 10, 3, Collections.emptyList(), "t", false, ResponseFormat.JSON_V1),
+        GraphQuery.create(2, 10, 9, Collections.emptyList(), "t", false, ResponseFormat.JSON_V1));
+    Assert.assertNotEquals(
+        query,
+        GraphQuery.create(2, 10, 9, Arrays.asList("A", "B"), "", true, ResponseFormat.JSON_V1));
+  }
+
+  /*
+   * Check that a response is only rendered once per canonical query
+   */
+  @Test
+  public void hitsAndMisses() throws Exception {
+    ResponseCache cache = new ResponseCache(1 << 20);
+    AtomicInteger renders = new AtomicInteger();
+    DataResponse response =
+        DataResponse.create(
+            Collections.singletonMap("serverMessage", "message"), ByteString.copyFromUtf8("{}"));
+
+    for (int i = 0; i < 3; i++) {
+      DataResponse cached =
+          getOrRender(
+              cache,
+              GraphQuery.create(
+                  1, 5, 4, Arrays.asList("B", "A"), "", false, ResponseFormat.JSON_V1),
+              () -> {
+                renders.incrementAndGet();
+                return response;
+              });
+      Assert.assertSame(response, cached);
+    }
+    getOrRender(
+        cache,
+        GraphQuery.create(1, 5, 4, Arrays.asList("A"), "", false, ResponseFormat.JSON_V1),
+        () -> {
+          renders.incrementAndGet();
+          return response;
+        });
+
+    JSONObject metrics = cache.metrics();
+    Assert.assertEquals(2, renders.get());
+    Assert.assertEquals(2, metrics.getLong("hits"));
+    Assert.assertEquals(2, metrics.getLong("misses"));
+    Assert.assertEquals(2, metrics.getLong("entries"));
+    Assert.assertEquals(2 * response.weight(), metrics.getLong("bytes"));
+  }
+
+  /*
+   * Check that a peek followed by getIfPresent counts a request once
+   */
+  @Test
+  public void peekCountsOnce() throws Exception {
+    ResponseCache cache = new ResponseCache(1 << 20);
+    GraphQuery query =
+        GraphQuery.create(1, 5, 4, Arrays.asList("A"), "", false, ResponseFormat.JSON_V1);
+    DataResponse response =
+        DataResponse.create(
+            Collections.singletonMap("serverMessage", "message"), ByteString.copyFromUtf8("{}"));
+
+    Assert.assertNull(cache.peek(query));
+    getOrRender(cache, query, () -> response);
+    Assert.assertSame(response, cache.peek(query));
+
+    JSONObject metrics = cache.metrics();
+    Assert.assertEquals(1, metrics.getLong("hits"));
+    Assert.assertEquals(1, metrics.getLong("misses"));
+    Assert.assertEquals(0.5, metrics.getDouble("hitRate"), 0);
+  }
+
+  /*
+   * Check that the total size of the cached responses stays within the budget
+   */
+  @Test
+  public void byteBudget() throws Exception {
+    ResponseCache cache = new ResponseCache(100_000);
+    DataResponse response =
+        DataResponse.create(
+            Collections.emptyMap(), ByteString.copyFromUtf8(Strings.repeat("x", 10_000)));
+
+    for (int i = 0; i < 50; i++) {
+      getOrRender(
+          cache,
+          GraphQuery.create(
+              1, i, i - 1, Collections.emptyList(), "", false, ResponseFormat.JSON_V1),
+          () -> response);
+    }
+
+    JSONObject metrics = cache.metrics();
+    Assert.assertTrue(metrics.getLong("bytes") <= 100_000);
+    Assert.assertTrue(metrics.getLong("evictions") > 0);
+    Assert.assertTrue(metrics.getLong("entries") > 0);
+
+    ResponseCache disabled = new ResponseCache(0);
+    getOrRender(
+        disabled,
+        GraphQuery.create(1, 0, -1, Collections.emptyList(), "", false, ResponseFormat.JSON_V1),
+        () -> response);
+    Assert.assertEquals(0, disabled.metrics().getLong("entries"));
+  }
+
+  /*
+   * Check that a response larger than the cache keeps, or one whose copy was dropped, is counted
+   * but not kept
+   */
+  @Test
+  public void tooLarge() throws Exception {
+    ResponseCache cache = new ResponseCache(80_000);
+    Assert.assertEquals(10_000, cache.maxEntryBytes());
+    GraphQuery small =
+        GraphQuery.create(1, 0, -1, Collections.emptyList(), "", false, ResponseFormat.JSON_V1);
+    GraphQuery large =
+        GraphQuery.create(1, 1, 0, Collections.emptyList(), "", false, ResponseFormat.JSON_V1);
+    GraphQuery dropped =
+        GraphQuery.create(1, 2, 1, Collections.emptyList(), "", false, ResponseFormat.JSON_V1);
+
+    cache.put(small, DataResponse.create(Collections.emptyMap(), ByteString.EMPTY), 0);
+    cache.put(
+        large,
+        DataResponse.create(
+            Collections.emptyMap(), ByteString.copyFromUtf8(Strings.repeat("x", 10_000))),
+        0);
+    cache.put(dropped, null, 0);
+
+    Assert.assertNotNull(cache.getIfPresent(small));
+    Assert.assertNull(cache.getIfPresent(large));
+    Assert.assertNull(cache.getIfPresent(dropped));
+    JSONObject metrics = cache.metrics();
+    Assert.assertEquals(1, metrics.getLong("entries"));
+    Assert.assertEquals(2, metrics.getLong("tooLarge"));
+  }
+
+  // Looks a response up as DataServlet does, rendering and keeping it on a miss
+  private static DataResponse getOrRender(
+      ResponseCache cache, GraphQuery query, Callable<DataResponse> render) throws Exception {
+    DataResponse response = cache.getIfPresent(query);
+    if (response == null) {
+      response = render.call();
+      cache.put(query, response, 0);
+    }
+    return response;
+  }
+}
@@ -0,0 +1,103 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static com.google.sps.Utility.graphToJson;
+
+/** The encodings a /data response can be sent in */
+enum ResponseFormat {
+  // The original format read by script.js, whose fields are JSON strings
+  JSON_V1("application/json") {
+    @Override
+    void write(GraphView view, OutputStream out) throws IOException {
+      Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      writer.write(
+          graphToJson(
+              view.graph(),
+              view.mutationIndices(),
+              view.diff(),
+              view.totalMutations(),
+              view.queried()));
+      writer.write(System.lineSeparator());
+      writer.flush();
+    }
+  },
+  // Nested JSON written in one pass by GraphJsonWriter, requested with version=2
+  JSON_V2("application/json") {
+    @Override
+    void write(GraphView view, OutputStream out) throws IOException {
+      Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+      GraphJsonWriter.write(view, writer);
+      writer.write(System.lineSeparator());
+      writer.flush();
+    }
+  },
+  // A GraphResponse message written by GraphProtoWriter, requested with an Accept header
+  PROTOBUF("application/x-protobuf") {
+    @Override
+    void write(GraphView view, OutputStream out) throws IOException {
+      GraphProtoWriter.write(view, out);
+    }
+  };
+
+  private final String contentType;
+
+  ResponseFormat(String contentType) {
+    this.contentType = contentType;
+  }
+
+  /**
+   * Returns the format a request asks for with its Accept header or its version parameter
+   *
+   * @param request the request
+   * @return PROTOBUF if the request accepts protobuf, JSON_V2 if the version parameter is 2 and
+   *     JSON_V1 otherwise
+   */
+  static ResponseFormat of(HttpServletRequest request) {
+    String accept = request.getHeader("Accept");
+    if (accept != null && accept.contains(PROTOBUF.contentType())) {
+      return PROTOBUF;
+    }
+    return String.valueOf(GraphJsonWriter.VERSION).equals(request.getParameter("version"))
+        ? JSON_V2
+        : JSON_V1;
+  }
+
+  /**
+   * Returns the content type of responses in this format
+   *
+   * @return the MIME type
+   */
+  String contentType() {
+    return contentType;
+  }
+
+  /**
+   * Encodes a view
+   *
+   * @param view the view to encode
+   * @param out where to write it, which is not closed
+   * @throws IOException if writing fails
+   */
+  abstract void write(GraphView view, OutputStream out) throws IOException;
+}
@@ -0,0 +1,171 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.TextFormat;
+import com.proto.GraphProtos.Graph;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.MutationList;
+
+/**
+ * This file contains functions used to read the initial graph and the mutation list either from
+ * binary protobuf snapshots or from the original textproto files, as well as to write snapshots.
+ */
+public final class SnapshotLoader {
+
+  // Paths (relative to the web application root) of the inputs read by the servlet. The
+  // memory-mapped and binary snapshots are preferred when present and the textprotos are used as a
+  // fallback.
+  static final String MAPPED_GRAPH_PATH = "/WEB-INF/initial_graph.snapshot";
+  static final String GRAPH_SNAPSHOT_PATH = "/WEB-INF/initial_graph.pb";
+  static final String GRAPH_TEXT_PATH = "/WEB-INF/initial_graph.textproto";
+  static final String MUTATIONS_STREAM_PATH = "/WEB-INF/mutations.pbstream";
+  static final String MUTATIONS_SNAPSHOT_PATH = "/WEB-INF/mutations.pb";
+  static final String MUTATIONS_TEXT_PATH = "/WEB-INF/mutations.textproto";
+
+  // Size of the buffer used when reading or writing snapshots
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private SnapshotLoader() {
+    // Should not be called
+  }
+
+  /**
+   * Reads a graph from a binary protobuf snapshot
+   *
+   * @param snapshotInput InputStream containing a binary-encoded Graph message
+   * @return the parsed graph
+   * @throws IOException if something goes wrong during the reading
+   */
+  public static Graph readGraphSnapshot(InputStream snapshotInput) throws IOException {
+    return Graph.parseFrom(codedInput(snapshotInput));
+  }
+
+  /**
+   * Reads a graph from a textproto file
+   *
+   * @param textInput InputStream containing a text-encoded Graph message
+   * @return the parsed graph
+   * @throws IOException if something goes wrong during the reading
+   */
+  public static Graph readGraphText(InputStream textInput) throws IOException {
+    Graph.Builder graphBuilder = Graph.newBuilder();
+    TextFormat.merge(textReader(textInput), graphBuilder);
+    return graphBuilder.build();
+  }
+
+  /**
+   * Reads a mutation list from a binary protobuf snapshot
+   *
+   * @param snapshotInput InputStream containing a binary-encoded MutationList message
+   * @return a builder containing the parsed mutation list. A builder is returned so that the
+   *     mutations in it can later be replaced with their deduplicated versions.
+   * @throws IOException if something goes wrong during the reading
+   */
+  public static MutationList.Builder readMutationsSnapshot(InputStream snapshotInput)
+      throws IOException {
+    return MutationList.newBuilder().mergeFrom(codedInput(snapshotInput));
+  }
+
+  /**
+   * Reads a mutation list from a textproto file
+   *
+   * @param textInput InputStream containing a text-encoded MutationList message
+   * @return a builder containing the parsed mutation list
+   * @throws IOException if something goes wrong during the reading
+   */
+  public static MutationList.Builder readMutationsText(InputStream textInput) throws IOException {
+    MutationList.Builder mutListBuilder = MutationList.newBuilder();
+    TextFormat.merge(textReader(textInput), mutListBuilder);
+    return mutListBuilder;
+  }
+
+  /**
+   * Writes the given graph as a binary protobuf snapshot
+   *
+   * @param graph the graph to write
+   * @param output the stream to write the snapshot to
+   * @throws IOException if something goes wrong during the writing
+   */
+  public static void writeGraphSnapshot(Graph graph, OutputStream output) throws IOException {
+    OutputStream bufferedOutput = new BufferedOutputStream(output, BUFFER_SIZE);
+    graph.writeTo(bufferedOutput);
+    bufferedOutput.flush();
+  }
+
+  /**
+   * Writes the given mutation list as a binary protobuf snapshot
+   *
+   * @param mutList the mutation list to write
+   * @param output the stream to write the snapshot to
+   * @throws IOException if something goes wrong during the writing
+   */
+  public static void writeMutationsSnapshot(MutationList mutList, OutputStream output)
+      throws IOException {
+    OutputStream bufferedOutput = new BufferedOutputStream(output, BUFFER_SIZE);
+    mutList.writeTo(bufferedOutput);
+    bufferedOutput.flush();
+  }
+
+  /**
+   * Writes the given mutation list as a stream of length-delimited MultiMutation records that can
+   * be read incrementally by StreamingMutationLog
+   *
+   * @param mutList the mutation list to write
+   * @param output the stream to write the records to
+   * @throws IOException if something goes wrong during the writing
+   */
+  public static void writeMutationsStream(MutationList mutList, OutputStream output)
+      throws IOException {
+    OutputStream bufferedOutput = new BufferedOutputStream(output, BUFFER_SIZE);
+    for (MultiMutation multiMut : mutList.getMutationList()) {
+      multiMut.writeDelimitedTo(bufferedOutput);
+    }
+    bufferedOutput.flush();
+  }
+
+  /**
+   * Wraps the given stream in a coded stream able to read snapshots of any size
+   *
+   * @param input the stream containing the binary snapshot
+   * @return a coded stream over the input
+   */
+  private static CodedInputStream codedInput(InputStream input) {
+    CodedInputStream codedInput =
+        CodedInputStream.newInstance(new BufferedInputStream(input, BUFFER_SIZE));
+    codedInput.setSizeLimit(Integer.MAX_VALUE);
+    return codedInput;
+  }
+
+  /**
+   * Wraps the given stream in a buffered UTF-8 reader for parsing textprotos
+   *
+   * @param input the stream containing the textproto
+   * @return a reader over the input
+   */
+  private static BufferedReader textReader(InputStream input) {
+    return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+}
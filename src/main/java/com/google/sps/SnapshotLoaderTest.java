@@ -0,0 +1,143 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import com.proto.GraphProtos.Graph;
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+import com.proto.MutationProtos.MutationList;
+import com.proto.MutationProtos.TokenMutation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.sps.SnapshotLoader.readGraphSnapshot;
+import static com.google.sps.SnapshotLoader.readGraphText;
+import static com.google.sps.SnapshotLoader.readMutationsSnapshot;
+import static com.google.sps.SnapshotLoader.readMutationsText;
+import static com.google.sps.SnapshotLoader.writeGraphSnapshot;
+import static com.google.sps.SnapshotLoader.writeMutationsSnapshot;
+
+/**
+ * This file tests the following functions: - SnapshotLoader.readGraphSnapshot -
+ * SnapshotLoader.readGraphText - SnapshotLoader.readMutationsSnapshot -
+ * SnapshotLoader.readMutationsText - SnapshotLoader.writeGraphSnapshot -
+ * SnapshotLoader.writeMutationsSnapshot
+ */
+@RunWith(JUnit4.class)
+public final class SnapshotLoaderTest {
+
+  Node nodeA =
+      Node.newBuilder()
+          .setName("A")
+          .addChildren("B")
+          .addToken("1")
+          .setMetadata(
+              Struct.newBuilder()
+                  .putFields("file", Value.newBuilder().setStringValue("a.java").build()))
+          .build();
+  Node nodeB = Node.newBuilder().setName("B").addToken("2").build();
+
+  Graph graph = Graph.newBuilder().putNodesMap("A", nodeA).putNodesMap("B", nodeB).build();
+
+  MutationList mutList =
+      MutationList.newBuilder()
+          .addMutation(
+              MultiMutation.newBuilder()
+                  .setReason("add C")
+                  .addMutation(
+                      Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode("C")))
+          .addMutation(
+              MultiMutation.newBuilder()
+                  .addMutation(
+                      Mutation.newBuilder()
+                          .setType(Mutation.Type.CHANGE_TOKEN)
+                          .setStartNode("C")
+                          .setTokenChange(
+                              TokenMutation.newBuilder()
+                                  .setType(TokenMutation.Type.ADD_TOKEN)
+                                  .addTokenName("3"))))
+          .build();
+
+  /*
+   * Check that a graph written as a binary snapshot is read back unchanged
+   */
+  @Test
+  public void graphSnapshotRoundTrip() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writeGraphSnapshot(graph, output);
+
+    Graph result = readGraphSnapshot(new ByteArrayInputStream(output.toByteArray()));
+
+    Assert.assertEquals(graph, result);
+  }
+
+  /*
+   * Check that a mutation list written as a binary snapshot is read back unchanged
+   */
+  @Test
+  public void mutationsSnapshotRoundTrip() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writeMutationsSnapshot(mutList, output);
+
+    MutationList.Builder result =
+        readMutationsSnapshot(new ByteArrayInputStream(output.toByteArray()));
+
+    Assert.assertEquals(mutList, result.build());
+  }
+
+  /*
+   * Check that the textproto fallback produces the same graph and mutation list as the binary
+   * snapshots
+   */
+  @Test
+  public void textMatchesSnapshot() throws IOException {
+    byte[] graphText = graph.toString().getBytes(StandardCharsets.UTF_8);
+    byte[] mutationsText = mutList.toString().getBytes(StandardCharsets.UTF_8);
+
+    Assert.assertEquals(graph, readGraphText(new ByteArrayInputStream(graphText)));
+    Assert.assertEquals(
+        mutList, readMutationsText(new ByteArrayInputStream(mutationsText)).build());
+  }
+
+  /*
+   * Check that a graph read from a snapshot builds the same data graph as the original graph
+   */
+  @Test
+  public void snapshotBuildsDataGraph() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    writeGraphSnapshot(graph, output);
+    Graph result = readGraphSnapshot(new ByteArrayInputStream(output.toByteArray()));
+
+    DataGraph expected = DataGraph.create();
+    Assert.assertTrue(expected.graphFromProtoNodes(graph.getNodesMapMap()));
+    DataGraph actual = DataGraph.create();
+    Assert.assertTrue(actual.graphFromProtoNodes(result.getNodesMapMap()));
+
+    Assert.assertEquals(expected.graph(), actual.graph());
+    Assert.assertEquals(expected.roots(), actual.roots());
+    Assert.assertEquals(expected.tokenMap(), actual.tokenMap());
+  }
+}
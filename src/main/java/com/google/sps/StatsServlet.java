@@ -0,0 +1,64 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.json.JSONObject;
+
+@WebServlet("/stats")
+public class StatsServlet extends HttpServlet {
+
+  /*
+   * Called when a client submits a GET request to the /stats URL. Responds with the progress of the
+   * dataset loader and the metrics of the request executor, the cursor pool and the response cache
+   * used by /data and of the executor of /play streams, each of which is left out until it exists.
+   */
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    CursorPool cursorPool =
+        (CursorPool) getServletContext().getAttribute(DataServlet.CURSOR_POOL_ATTRIBUTE);
+    ResponseCache responseCache =
+        (ResponseCache) getServletContext().getAttribute(DataServlet.RESPONSE_CACHE_ATTRIBUTE);
+    RequestExecutor requestExecutor =
+        (RequestExecutor) getServletContext().getAttribute(RequestExecutor.ATTRIBUTE);
+    RequestExecutor streamExecutor =
+        (RequestExecutor) getServletContext().getAttribute(RequestExecutor.STREAMS_ATTRIBUTE);
+    DatasetLoader loader = DatasetLoader.of(getServletContext());
+    JSONObject stats = new JSONObject();
+    if (loader != null) {
+      stats.put("datasetLoader", loader.metrics());
+    }
+    if (requestExecutor != null) {
+      stats.put("requestExecutor", requestExecutor.metrics());
+    }
+    if (streamExecutor != null) {
+      stats.put("streamExecutor", streamExecutor.metrics());
+    }
+    if (cursorPool != null) {
+      stats.put("cursorPool", cursorPool.metrics());
+    }
+    if (responseCache != null) {
+      stats.put("responseCache", responseCache.metrics());
+    }
+    response.setContentType("application/json");
+    response.getWriter().println(stats.toString());
+  }
+}
@@ -0,0 +1,401 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.proto.MutationProtos.MultiMutation;
+
+/**
+ * A list of multi-mutations backed by a file of length-delimited MultiMutation records, as written
+ * by SnapshotLoader.writeMutationsStream. The file is read on a background thread, and get returns
+ * a record as soon as it has been read, so that callers can start replaying the first mutations
+ * while later ones are still loading. The size of the list is the number of records read so far,
+ * and only grows; awaitComplete waits for the whole file.
+ *
+ * <p>Only the offset of each record is kept for the whole log. At most windowSize parsed records
+ * are cached; older records are read from the file again when they are requested. Records that are
+ * replaced with set (for example with their deduplicated versions) are appended to a temporary
+ * file, and are read from it in the same way.
+ *
+ * <p>Reads don't take a lock: the offsets are published through volatile fields, and the file is
+ * read with positional reads. Only set, which appends to the temporary file, is serialized.
+ *
+ * <p>The node and token names of every record are registered with NameDictionary as it is read.
+ */
+final class StreamingMutationLog extends AbstractList<MultiMutation> {
+
+  // Size of the buffer used when reading the log sequentially
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+
+  // The offset of each record read so far in the file, followed by the offset of the end of the
+  // last one. Record i, including its length prefix, spans offsets[i] to offsets[i + 1]. Only the
+  // background reader writes it, and an entry is published by the increment of loaded after it.
+  private volatile long[] offsets = new long[1024];
+  // The number of records read so far
+  private volatile int loaded = 0;
+  // Whether the whole file has been read
+  private volatile boolean complete = false;
+  // The error that stopped the background reading, if any
+  private volatile IOException failure = null;
+
+  // The most recently used parsed records, at most windowSize of them
+  private final Cache<Integer, MultiMutation> window;
+
+  // Serializes set
+  private final Object replaceLock = new Object();
+  // The temporary file holding the records replaced with set, each as a 4-byte length followed by
+  // the record. Created by the first replacement.
+  private volatile FileChannel replacementFile = null;
+  // The size of the temporary file
+  private long replacementFileSize = 0;
+  // The offset of the replacement of each record in the temporary file plus one, or 0 if the record
+  // was not replaced. Grown under replaceLock.
+  private volatile AtomicLongArray replacements = new AtomicLongArray(0);
+
+  /**
+   * Opens the given log file and starts reading it in the background
+   *
+   * @param path the file containing the length-delimited records
+   * @param windowSize the maximum number of parsed records to keep in memory
+   * @return the log
+   * @throws IOException if the file cannot be opened
+   */
+  static StreamingMutationLog open(Path path, int windowSize) throws IOException {
+    Preconditions.checkArgument(windowSize > 0, "The window size must be positive");
+    StreamingMutationLog log =
+        new StreamingMutationLog(FileChannel.open(path, StandardOpenOption.READ), windowSize);
+    Thread reader = new Thread(log::readAll, "mutation-log-reader");
+    reader.setDaemon(true);
+    reader.start();
+    return log;
+  }
+
+  private StreamingMutationLog(FileChannel channel, int windowSize) {
+    this.channel = channel;
+    this.window = CacheBuilder.newBuilder().maximumSize(windowSize).build();
+  }
+
+  /**
+   * Returns the record at the given index, waiting for it to be read if necessary
+   *
+   * @param index the index of the multi-mutation
+   * @return the multi-mutation at that index
+   * @throws IndexOutOfBoundsException if the log has fewer records than index + 1
+   * @throws UncheckedIOException if the log could not be read
+   */
+  @Override
+  public MultiMutation get(int index) {
+    awaitRecord(index);
+    while (true) {
+      long replacement = replacementOf(index);
+      MultiMutation multiMut = window.getIfPresent(index);
+      if (multiMut != null) {
+        return multiMut;
+      }
+      multiMut =
+          replacement == 0
+              ? readRecord(index)
+              : readReplacement(replacementFile, replacement - 1, index);
+      window.put(index, multiMut);
+      // A set while the record was being read would leave a stale copy in the window
+      if (replacementOf(index) == replacement) {
+        return multiMut;
+      }
+      window.invalidate(index);
+    }
+  }
+
+  /**
+   * Replaces the record at the given index. Replacements that are equal to the stored record are
+   * not kept.
+   *
+   * @param index the index of the multi-mutation
+   * @param multiMut the new multi-mutation
+   * @return the previous multi-mutation at that index
+   * @throws UncheckedIOException if the replacement cannot be written
+   */
+  @Override
+  public MultiMutation set(int index, MultiMutation multiMut) {
+    MultiMutation previous = get(index);
+    if (previous.equals(multiMut)) {
+      return previous;
+    }
+    synchronized (replaceLock) {
+      long offset = appendReplacement(multiMut);
+      AtomicLongArray replacements = this.replacements;
+      if (index >= replacements.length()) {
+        AtomicLongArray grown =
+            new AtomicLongArray(Math.max(index + 1, replacements.length() * 2));
+        for (int i = 0; i < replacements.length(); i++) {
+          grown.set(i, replacements.get(i));
+        }
+        this.replacements = replacements = grown;
+      }
+      replacements.set(index, offset + 1);
+    }
+    window.invalidate(index);
+    return previous;
+  }
+
+  /**
+   * Returns the number of records read so far, without waiting for the rest of the log
+   *
+   * @return the number of multi-mutations that can be retrieved without blocking
+   * @throws UncheckedIOException if the log could not be read
+   */
+  @Override
+  public int size() {
+    checkFailure();
+    return loaded;
+  }
+
+  /**
+   * Returns whether the whole log has been read
+   *
+   * @return true if the log has been read completely
+   */
+  boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Waits until the whole log has been read, after which size is the number of records in the log
+   *
+   * @throws UncheckedIOException if the log could not be read
+   */
+  void awaitComplete() {
+    if (!complete) {
+      synchronized (this) {
+        while (!complete) {
+          awaitProgress();
+        }
+      }
+    }
+    checkFailure();
+  }
+
+  /** Reads the offsets of all records, caching the parsed records, until the end of the file */
+  private void readAll() {
+    try {
+      InputStream input =
+          new BufferedInputStream(Channels.newInputStream(channel.position(0)), BUFFER_SIZE);
+      CodedInputStream codedInput = CodedInputStream.newInstance(input);
+      codedInput.setSizeLimit(Integer.MAX_VALUE);
+      long position = 0;
+      while (!codedInput.isAtEnd()) {
+        // The coded stream enforces its size limit over its whole lifetime, so reset it for every
+        // record to allow logs larger than 2GB
+        codedInput.resetSizeCounter();
+        int length = codedInput.readRawVarint32();
+        MultiMutation multiMut = MultiMutation.parseFrom(codedInput.readRawBytes(length));
+        NameDictionary.addNames(multiMut);
+        position += CodedOutputStream.computeUInt32SizeNoTag(length) + length;
+        int count = loaded;
+        long[] offsets = this.offsets;
+        if (count + 1 == offsets.length) {
+          offsets = Arrays.copyOf(offsets, offsets.length * 2);
+          this.offsets = offsets;
+        }
+        offsets[count + 1] = position;
+        window.put(count, multiMut);
+        loaded = count + 1;
+        synchronized (this) {
+          notifyAll();
+        }
+      }
+    } catch (IOException e) {
+      failure = e;
+    } finally {
+      complete = true;
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Waits until the record at the given index has been read
+   *
+   * @param index the index of the record
+   * @throws IndexOutOfBoundsException if the log has fewer records than index + 1
+   */
+  private void awaitRecord(int index) {
+    if (index < 0) {
+      throw new IndexOutOfBoundsException("Index: " + index);
+    }
+    if (index < loaded) {
+      return;
+    }
+    synchronized (this) {
+      while (index >= loaded && !complete) {
+        awaitProgress();
+      }
+    }
+    if (index >= loaded) {
+      checkFailure();
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + loaded);
+    }
+  }
+
+  /** Waits for the background reader to read another record or to stop */
+  private void awaitProgress() {
+    try {
+      wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while reading the mutation log", e);
+    }
+  }
+
+  /**
+   * Throws the error that stopped the background reader, if any
+   *
+   * @throws UncheckedIOException if the log could not be read
+   */
+  private void checkFailure() {
+    IOException failure = this.failure;
+    if (failure != null) {
+      throw new UncheckedIOException("Failed to read the mutation log", failure);
+    }
+  }
+
+  /**
+   * Returns where the replacement of a record is in the temporary file
+   *
+   * @param index the index of the record
+   * @return the offset of the replacement plus one, or 0 if the record was not replaced
+   */
+  private long replacementOf(int index) {
+    AtomicLongArray replacements = this.replacements;
+    return index < replacements.length() ? replacements.get(index) : 0;
+  }
+
+  /**
+   * Reads a record that is no longer cached from the file again
+   *
+   * @param index the index of the record
+   * @return the parsed record
+   * @throws UncheckedIOException if the record cannot be read
+   */
+  private MultiMutation readRecord(int index) {
+    long[] offsets = this.offsets;
+    long start = offsets[index];
+    ByteBuffer record = read(channel, start, (int) (offsets[index + 1] - start));
+    try {
+      CodedInputStream codedInput = CodedInputStream.newInstance(record.array());
+      int length = codedInput.readRawVarint32();
+      return MultiMutation.parseFrom(codedInput.readRawBytes(length));
+    } catch (InvalidProtocolBufferException e) {
+      throw new UncheckedIOException("Corrupt record " + index + " in the mutation log", e);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read the mutation log", e);
+    }
+  }
+
+  /**
+   * Reads the replacement of a record from the temporary file
+   *
+   * @param file the temporary file
+   * @param offset the offset of the replacement in the file
+   * @param index the index of the record
+   * @return the parsed replacement
+   * @throws UncheckedIOException if the replacement cannot be read
+   */
+  private static MultiMutation readReplacement(FileChannel file, long offset, int index) {
+    int length = read(file, offset, Integer.BYTES).getInt(0);
+    try {
+      return MultiMutation.parseFrom(read(file, offset + Integer.BYTES, length).array());
+    } catch (InvalidProtocolBufferException e) {
+      throw new UncheckedIOException("Corrupt replacement of record " + index, e);
+    }
+  }
+
+  /**
+   * Appends a replacement to the temporary file, creating the file if needed. Must be called with
+   * replaceLock held.
+   *
+   * @param multiMut the replacement
+   * @return the offset of the replacement in the file
+   * @throws UncheckedIOException if the replacement cannot be written
+   */
+  private long appendReplacement(MultiMutation multiMut) {
+    byte[] bytes = multiMut.toByteArray();
+    ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+    record.putInt(bytes.length).put(bytes).flip();
+    try {
+      if (replacementFile == null) {
+        replacementFile =
+            FileChannel.open(
+                Files.createTempFile("mutation-log-replacements", ".bin"),
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+      }
+      long offset = replacementFileSize;
+      while (record.hasRemaining()) {
+        replacementFile.write(record, offset + record.position());
+      }
+      replacementFileSize += record.limit();
+      return offset;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write a replaced mutation", e);
+    }
+  }
+
+  /**
+   * Reads bytes at a position of a file without moving its position, so that threads can read
+   * concurrently
+   *
+   * @param file the file to read
+   * @param position the offset of the first byte
+   * @param length the number of bytes
+   * @return a buffer holding the bytes
+   * @throws UncheckedIOException if the bytes cannot be read
+   */
+  private static ByteBuffer read(FileChannel file, long position, int length) {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    try {
+      while (buffer.hasRemaining()) {
+        if (file.read(buffer, position + buffer.position()) < 0) {
+          throw new IOException("Unexpected end of the mutation log");
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read the mutation log", e);
+    }
+    return buffer;
+  }
+}
@@ -0,0 +1,214 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+import com.proto.GraphProtos.Node;
+import com.proto.MutationProtos.MultiMutation;
+import com.proto.MutationProtos.Mutation;
+import com.proto.MutationProtos.MutationList;
+import com.proto.MutationProtos.TokenMutation;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.sps.SnapshotLoader.writeMutationsStream;
+import static com.google.sps.Utility.getGraphAtMutationNumber;
+
+/**
+ * This file tests the following functions: - SnapshotLoader.writeMutationsStream - the reading,
+ * caching and replacing of records in StreamingMutationLog - Utility.getGraphAtMutationNumber over
+ * a streamed mutation list
+ */
+@RunWith(JUnit4.class)
+public final class StreamingMutationLogTest {
+
+  // Number of multi-mutations in the test log
+  private static final int LOG_SIZE = 20;
+
+  MutationList mutList;
+  Path path;
+
+  @Before
+  public void setUp() throws IOException {
+    MutationList.Builder mutListBuilder = MutationList.newBuilder();
+    for (int i = 0; i < LOG_SIZE; i++) {
+      mutListBuilder.addMutation(
+          MultiMutation.newBuilder()
+              .setReason("step " + i)
+              .addMutation(
+                  Mutation.newBuilder()
+                      .setType(Mutation.Type.ADD_NODE)
+                      .setStartNode("N" + i)
+                      .build()));
+    }
+    mutList = mutListBuilder.build();
+
+    path = Files.createTempFile("mutations", ".pbstream");
+    try (OutputStream output = Files.newOutputStream(path)) {
+      writeMutationsStream(mutList, output);
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  /*
+   * Check that every record can be read, including records that were evicted from a window that is
+   * much smaller than the log
+   */
+  @Test
+  public void readAllRecords() throws IOException {
+    StreamingMutationLog log = StreamingMutationLog.open(path, 3);
+
+    log.awaitComplete();
+    Assert.assertTrue(log.isComplete());
+    Assert.assertEquals(LOG_SIZE, log.size());
+    for (int i = LOG_SIZE - 1; i >= 0; i--) {
+      Assert.assertEquals(mutList.getMutation(i), log.get(i));
+    }
+    Assert.assertEquals(mutList.getMutationList(), log);
+  }
+
+  /*
+   * Check that records are available before the whole log is requested
+   */
+  @Test
+  public void readFirstRecord() throws IOException {
+    StreamingMutationLog log = StreamingMutationLog.open(path, 3);
+
+    Assert.assertEquals(mutList.getMutation(0), log.get(0));
+    Assert.assertTrue(log.size() >= 1);
+  }
+
+  /*
+   * Check that replaced records are kept even once they are evicted from the window
+   */
+  @Test
+  public void replaceRecord() throws IOException {
+    StreamingMutationLog log = StreamingMutationLog.open(path, 2);
+    MultiMutation replacement = MultiMutation.newBuilder().setReason("replaced").build();
+
+    log.set(1, replacement);
+    for (int i = 0; i < LOG_SIZE; i++) {
+      log.get(i);
+    }
+
+    Assert.assertEquals(replacement, log.get(1));
+    Assert.assertEquals(mutList.getMutation(2), log.get(2));
+
+    MultiMutation second = MultiMutation.newBuilder().setReason("replaced again").build();
+    Assert.assertEquals(replacement, log.set(1, second));
+    Assert.assertEquals(second, log.get(1));
+  }
+
+  /*
+   * Check that threads reading the log while it loads all see every record
+   */
+  @Test
+  public void concurrentReads() throws IOException {
+    StreamingMutationLog log = StreamingMutationLog.open(path, 2);
+
+    IntStream.range(0, 8 * LOG_SIZE)
+        .parallel()
+        .map(i -> i % LOG_SIZE)
+        .forEach(i -> Assert.assertEquals(mutList.getMutation(i), log.get(i)));
+    log.awaitComplete();
+    Assert.assertEquals(LOG_SIZE, log.size());
+  }
+
+  /*
+   * Check that requesting a record past the end of the log fails
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void outOfBounds() throws IOException {
+    StreamingMutationLog log = StreamingMutationLog.open(path, 3);
+    log.get(LOG_SIZE);
+  }
+
+  /*
+   * Check that a truncated log reports an error instead of silently dropping records
+   */
+  @Test(expected = UncheckedIOException.class)
+  public void truncatedLog() throws IOException {
+    byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 2));
+
+    StreamingMutationLog log = StreamingMutationLog.open(path, 3);
+    log.awaitComplete();
+  }
+
+  /*
+   * Check that replaying a streamed log gives the same graph and deduplicates the same mutations as
+   * replaying an in-memory one
+   */
+  @Test
+  public void replayMatchesBuilder() throws IOException {
+    Mutation addDuplicateToken =
+        Mutation.newBuilder()
+            .setType(Mutation.Type.CHANGE_TOKEN)
+            .setStartNode("A")
+            .setTokenChange(
+                TokenMutation.newBuilder()
+                    .setType(TokenMutation.Type.ADD_TOKEN)
+                    .addTokenName("1")
+                    .addTokenName("2"))
+            .build();
+    MutationList tokenMutList =
+        mutList.toBuilder()
+            .addMutation(MultiMutation.newBuilder().addMutation(addDuplicateToken))
+            .build();
+    try (OutputStream output = Files.newOutputStream(path)) {
+      writeMutationsStream(tokenMutList, output);
+    }
+
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    protoNodesMap.put("A", Node.newBuilder().setName("A").addToken("1").build());
+
+    DataGraph expectedOriginal = DataGraph.create();
+    expectedOriginal.graphFromProtoNodes(protoNodesMap);
+    MutationList.Builder expectedMutList = tokenMutList.toBuilder();
+    DataGraph expected =
+        getGraphAtMutationNumber(
+            expectedOriginal, expectedOriginal.getCopy(), LOG_SIZE, expectedMutList);
+
+    DataGraph actualOriginal = DataGraph.create();
+    actualOriginal.graphFromProtoNodes(protoNodesMap);
+    StreamingMutationLog log = StreamingMutationLog.open(path, 2);
+    log.awaitComplete();
+    DataGraph actual =
+        getGraphAtMutationNumber(actualOriginal, actualOriginal.getCopy(), LOG_SIZE, log);
+
+    Assert.assertEquals(expected.graph(), actual.graph());
+    Assert.assertEquals(expected.tokenMap(), actual.tokenMap());
+    Assert.assertEquals(expectedMutList.getMutation(LOG_SIZE), log.get(LOG_SIZE));
+    Assert.assertEquals(
+        Arrays.asList("2"), log.get(LOG_SIZE).getMutation(0).getTokenChange().getTokenNameList());
+  }
+}
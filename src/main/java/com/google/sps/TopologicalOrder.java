@@ -0,0 +1,275 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.graph.Graph;
+
+/**
+ * A topological order of the nodes of a DAG that is kept up to date as edges are added, so that an
+ * edge closing a cycle is rejected without searching the whole graph. Every node has a distinct
+ * rank, and every parent ranks below its children.
+ *
+ * <p>Edges are added with the algorithm of Pearce and Kelly. An edge from a node to one that
+ * already ranks above it needs no work. Otherwise, only the nodes ranked between the two ends are
+ * searched: the descendants of the end of the edge, which form a cycle if they include its start,
+ * and the ancestors of its start. The ranks of those nodes are then redistributed among them so
+ * that the ancestors come first. Deleting nodes and edges keeps the order valid.
+ *
+ * <p>The ranks are kept in a PersistentIntArray indexed by the NameDictionary id of each node, so
+ * that looking one up needs no hashing and the order can be forked in constant time along with the
+ * rest of a DataGraph.
+ */
+final class TopologicalOrder {
+
+  // The value of the ids of nodes without a rank
+  private static final int NO_RANK = -1;
+
+  // The rank of each node, by id
+  private PersistentIntArray ranks;
+  // The rank of the next node added, above every rank so far
+  private int nextRank;
+
+  private TopologicalOrder(PersistentIntArray ranks, int nextRank) {
+    this.ranks = ranks;
+    this.nextRank = nextRank;
+  }
+
+  /**
+   * Creates the order of an empty graph
+   *
+   * @return the empty order
+   */
+  static TopologicalOrder empty() {
+    return new TopologicalOrder(PersistentIntArray.empty(NO_RANK), 0);
+  }
+
+  /**
+   * Creates the order of a graph
+   *
+   * @param graph the graph to order
+   * @return the order, or null if the graph has a cycle
+   */
+  static TopologicalOrder of(Graph<GraphNode> graph) {
+    TopologicalOrder order = empty();
+    return order.sort(graph) ? order : null;
+  }
+
+  /**
+   * Returns a copy of this order that can be modified independently of it
+   *
+   * @return the copy, made in constant time
+   */
+  TopologicalOrder fork() {
+    return new TopologicalOrder(ranks, nextRank);
+  }
+
+  /**
+   * Replaces the ranks with a topological sort of a whole graph, which detects any cycle. Nodes are
+   * ranked as soon as all of their parents are.
+   *
+   * @param graph the graph to sort
+   * @return false if the graph has a cycle, in which case the nodes on or below it have no rank
+   */
+  boolean sort(Graph<GraphNode> graph) {
+    // Every node name was registered when the node was created, so each node has an id below this
+    int[] inDegreeById = new int[NameDictionary.size()];
+    int[] rankById = new int[inDegreeById.length];
+    Arrays.fill(rankById, NO_RANK);
+    Deque<GraphNode> ready = new ArrayDeque<>();
+    for (GraphNode node : graph.nodes()) {
+      int inDegree = graph.inDegree(node);
+      inDegreeById[node.id()] = inDegree;
+      if (inDegree == 0) {
+        ready.add(node);
+      }
+    }
+    int rank = 0;
+    while (!ready.isEmpty()) {
+      GraphNode node = ready.poll();
+      rankById[node.id()] = rank++;
+      for (GraphNode child : graph.successors(node)) {
+        if (--inDegreeById[child.id()] == 0) {
+          ready.add(child);
+        }
+      }
+    }
+    ranks = PersistentIntArray.of(rankById, NO_RANK);
+    nextRank = rank;
+    return rank == graph.nodes().size();
+  }
+
+  /**
+   * Returns the rank of a node, which is below the ranks of its descendants and above those of its
+   * ancestors. Ranks are distinct but not contiguous.
+   *
+   * @param nodeName the name of the node
+   * @return the rank, or -1 if the node has none
+   */
+  int rankOf(String nodeName) {
+    return nodeName == null ? NO_RANK : ranks.get(NameDictionary.find(nodeName));
+  }
+
+  /**
+   * Ranks a new node above every other node
+   *
+   * @param nodeName the name of the node, which was registered when the node was created
+   */
+  void addNode(String nodeName) {
+    ranks = ranks.with(NameDictionary.find(nodeName), nextRank++);
+  }
+
+  /**
+   * Forgets the rank of a deleted node
+   *
+   * @param nodeName the name of the node
+   */
+  void removeNode(String nodeName) {
+    int id = NameDictionary.find(nodeName);
+    if (id >= 0) {
+      ranks = ranks.with(id, NO_RANK);
+    }
+  }
+
+  /**
+   * Reorders the nodes for an edge about to be added to a graph, or finds that it would close a
+   * cycle. The graph must not have the edge yet unless it already ranks its ends in order. An end
+   * without a rank is first ranked above every other node. Other nodes without a rank, which only
+   * nodes put into the graph without going through this order have, are not searched.
+   *
+   * @param graph the graph the edge is added to, ordered by this
+   * @param start the parent end of the edge
+   * @param end the child end of the edge
+   * @return false if the edge would close a cycle, in which case the ranks the nodes had before
+   *     are unchanged
+   */
+  boolean addEdge(Graph<GraphNode> graph, GraphNode start, GraphNode end) {
+    if (start.id() == end.id()) {
+      return false;
+    }
+    int lower = rankOrAdd(end);
+    int upper = rankOrAdd(start);
+    if (lower > upper) {
+      return true;
+    }
+    // The descendants of the end that rank below the start. Reaching the start means a cycle.
+    List<GraphNode> forward = new ArrayList<>();
+    if (!collect(graph, end, /* isChild = */ true, lower, upper, forward)) {
+      return false;
+    }
+    // The ancestors of the start that rank above the end, which can't be descendants of the end
+    List<GraphNode> backward = new ArrayList<>();
+    collect(graph, start, /* isChild = */ false, lower, upper, backward);
+
+    // Give the lowest of their ranks to the ancestors and the rest to the descendants, keeping
+    // the relative order within each group
+    Comparator<GraphNode> byRank = Comparator.comparingInt(node -> ranks.get(node.id()));
+    forward.sort(byRank);
+    backward.sort(byRank);
+    int[] pool = new int[forward.size() + backward.size()];
+    int count = 0;
+    for (GraphNode node : backward) {
+      pool[count++] = ranks.get(node.id());
+    }
+    for (GraphNode node : forward) {
+      pool[count++] = ranks.get(node.id());
+    }
+    Arrays.sort(pool);
+    count = 0;
+    for (GraphNode node : backward) {
+      ranks = ranks.with(node.id(), pool[count++]);
+    }
+    for (GraphNode node : forward) {
+      ranks = ranks.with(node.id(), pool[count++]);
+    }
+    return true;
+  }
+
+  /**
+   * Collects the nodes reachable from a node in one direction whose ranks are strictly between two
+   * bounds, along with the node itself. Nodes without a rank are out of bounds, and the search
+   * never changes the order.
+   *
+   * @param graph the graph to search
+   * @param from the node to start from
+   * @param isChild true to follow edges to children, false to follow them to parents
+   * @param lower the rank of the end of the new edge
+   * @param upper the rank of the start of the new edge
+   * @param found receives the nodes reached
+   * @return false if a search over children reached the node ranked upper
+   */
+  private boolean collect(
+      Graph<GraphNode> graph,
+      GraphNode from,
+      boolean isChild,
+      int lower,
+      int upper,
+      List<GraphNode> found) {
+    Set<Integer> seen = new HashSet<>();
+    Deque<GraphNode> stack = new ArrayDeque<>();
+    seen.add(from.id());
+    stack.push(from);
+    while (!stack.isEmpty()) {
+      GraphNode node = stack.pop();
+      found.add(node);
+      for (GraphNode neighbor : isChild ? graph.successors(node) : graph.predecessors(node)) {
+        int rank = ranks.get(neighbor.id());
+        if (isChild && rank == upper) {
+          return false;
+        }
+        // Nodes outside the bounds are already on the right side of the new edge
+        if (rank > lower && rank < upper && seen.add(neighbor.id())) {
+          stack.push(neighbor);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the rank of an end of a new edge, ranking it above every other node if it has none.
+   * Only nodes put into a graph without going through this order have no rank.
+   *
+   * @param node the node
+   * @return its rank
+   */
+  private int rankOrAdd(GraphNode node) {
+    int rank = ranks.get(node.id());
+    if (rank == NO_RANK) {
+      rank = nextRank++;
+      ranks = ranks.with(node.id(), rank);
+    }
+    return rank;
+  }
+
+  /** Two orders are equal if they rank the same nodes the same way */
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof TopologicalOrder && ranks.equals(((TopologicalOrder) other).ranks);
+  }
+
+  @Override
+  public int hashCode() {
+    return ranks.hashCode();
+  }
+}
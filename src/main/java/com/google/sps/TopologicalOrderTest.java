@@ -0,0 +1,174 @@
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import com.google.common.graph.EndpointPair;
+import com.google.common.graph.GraphBuilder;
+import com.google.common.graph.Graphs;
+import com.google.common.graph.MutableGraph;
+import com.google.protobuf.Struct;
+import com.proto.MutationProtos.Mutation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * This file tests the following functions: - TopologicalOrder.of - TopologicalOrder.addEdge -
+ * TopologicalOrder.removeNode - TopologicalOrder.fork - DataGraph.equals
+ */
+@RunWith(JUnit4.class)
+public final class TopologicalOrderTest {
+
+  /** Sorting a graph ranks parents below children and finds cycles of any length */
+  @Test
+  public void sortFindsLongCycles() {
+    MutableGraph<GraphNode> graph = GraphBuilder.directed().build();
+    GraphNode a = node("order-A");
+    GraphNode b = node("order-B");
+    GraphNode c = node("order-C");
+    graph.putEdge(a, b);
+    graph.putEdge(b, c);
+
+    TopologicalOrder order = TopologicalOrder.of(graph);
+    Assert.assertNotNull(order);
+    Assert.assertTrue(order.rankOf("order-A") < order.rankOf("order-B"));
+    Assert.assertTrue(order.rankOf("order-B") < order.rankOf("order-C"));
+    Assert.assertEquals(-1, order.rankOf("order-missing"));
+
+    graph.putEdge(c, a);
+    Assert.assertNull(TopologicalOrder.of(graph));
+  }
+
+  /** An edge closing a cycle is rejected and leaves the order as it was */
+  @Test
+  public void addEdgeRejectsCycles() {
+    MutableGraph<GraphNode> graph = GraphBuilder.directed().build();
+    TopologicalOrder order = TopologicalOrder.empty();
+    GraphNode[] nodes = new GraphNode[4];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = node("order-" + i);
+      graph.addNode(nodes[i]);
+      order.addNode(nodes[i].name());
+    }
+    // 3 -> 2 -> 1 -> 0, against the order the nodes were added in
+    for (int i = 3; i > 0; i--) {
+      Assert.assertTrue(order.addEdge(graph, nodes[i], nodes[i - 1]));
+      graph.putEdge(nodes[i], nodes[i - 1]);
+    }
+    assertValid(graph, order);
+
+    TopologicalOrder before = order.fork();
+    Assert.assertFalse(order.addEdge(graph, nodes[0], nodes[3]));
+    Assert.assertFalse(order.addEdge(graph, nodes[1], nodes[1]));
+    Assert.assertEquals(before, order);
+
+    // Without the middle edge, the same edge no longer closes a cycle
+    graph.removeEdge(nodes[2], nodes[1]);
+    Assert.assertTrue(order.addEdge(graph, nodes[0], nodes[3]));
+    graph.putEdge(nodes[0], nodes[3]);
+    assertValid(graph, order);
+  }
+
+  /** A rejected edge doesn't rank the nodes its search meets that had no rank */
+  @Test
+  public void rejectedEdgeRanksNothing() {
+    MutableGraph<GraphNode> graph = GraphBuilder.directed().build();
+    TopologicalOrder order = TopologicalOrder.empty();
+    GraphNode a = node("order-ranked-A");
+    GraphNode b = node("order-ranked-B");
+    order.addNode(a.name());
+    order.addNode(b.name());
+    // Children put into the graph without going through the order
+    for (int i = 0; i < 5; i++) {
+      graph.putEdge(a, node("order-unranked-" + i));
+    }
+    Assert.assertTrue(order.addEdge(graph, a, b));
+    graph.putEdge(a, b);
+
+    TopologicalOrder before = order.fork();
+    Assert.assertFalse(order.addEdge(graph, b, a));
+    Assert.assertEquals(before, order);
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals(-1, order.rankOf("order-unranked-" + i));
+    }
+  }
+
+  /** Adding random edges keeps a valid order and rejects exactly the edges that close cycles */
+  @Test
+  public void sameAsCycleCheck() {
+    Random random = new Random(25);
+    int nodeCount = 60;
+    MutableGraph<GraphNode> graph = GraphBuilder.directed().allowsSelfLoops(true).build();
+    TopologicalOrder order = TopologicalOrder.empty();
+    GraphNode[] nodes = new GraphNode[nodeCount];
+    for (int i = 0; i < nodeCount; i++) {
+      nodes[i] = node("order" + i);
+      graph.addNode(nodes[i]);
+      order.addNode(nodes[i].name());
+    }
+
+    for (int step = 0; step < 2000; step++) {
+      GraphNode start = nodes[random.nextInt(nodeCount)];
+      GraphNode end = nodes[random.nextInt(nodeCount)];
+      if (random.nextInt(4) == 0) {
+        graph.removeEdge(start, end);
+        continue;
+      }
+      boolean hadEdge = graph.hasEdgeConnecting(start, end);
+      graph.putEdge(start, end);
+      boolean closesCycle = Graphs.hasCycle(graph);
+      if (!hadEdge) {
+        graph.removeEdge(start, end);
+      }
+
+      boolean added = order.addEdge(graph, start, end);
+      Assert.assertEquals(start + " " + end, !closesCycle, added);
+      if (added) {
+        graph.putEdge(start, end);
+      }
+      assertValid(graph, order);
+    }
+
+    // Deleting a node keeps the others in order
+    graph.removeNode(nodes[0]);
+    order.removeNode(nodes[0].name());
+    Assert.assertEquals(-1, order.rankOf(nodes[0].name()));
+    assertValid(graph, order);
+    Assert.assertNotNull(TopologicalOrder.of(graph));
+  }
+
+  /** Data graphs with the same contents are equal whatever order ranks their nodes in */
+  @Test
+  public void dataGraphEqualityIgnoresOrder() {
+    DataGraph first = DataGraph.create();
+    DataGraph second = DataGraph.create();
+    for (String name : new String[] {"order-X", "order-Y"}) {
+      first.mutateGraph(Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode(name));
+    }
+    for (String name : new String[] {"order-Y", "order-X"}) {
+      second.mutateGraph(Mutation.newBuilder().setType(Mutation.Type.ADD_NODE).setStartNode(name));
+    }
+
+    Assert.assertNotEquals(first.topologicalOrder(), second.topologicalOrder());
+    Assert.assertEquals(first, second);
+    Assert.assertEquals(first.hashCode(), second.hashCode());
+  }
+
+  // Checks that every edge goes from a lower rank to a higher one
+  private static void assertValid(MutableGraph<GraphNode> graph, TopologicalOrder order) {
+    for (EndpointPair<GraphNode> edge : graph.edges()) {
+      Assert.assertTrue(
+          edge.toString(),
+          order.rankOf(edge.source().name()) < order.rankOf(edge.target().name()));
+    }
+  }
+
+  // Creates a node without tokens
+  private static GraphNode node(String name) {
+    return GraphNode.create(
+        NameDictionary.intern(name), new ArrayList<>(), Struct.newBuilder().build());
+  }
+}
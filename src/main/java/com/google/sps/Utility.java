@@ -15,6 +15,7 @@
 package com.google.sps;
 
 import java.lang.reflect.Type;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -52,8 +53,10 @@ public final class Utility {
    * @return a useful node used to construct the Guava Graph
    */
   public static GraphNode protoNodeToGraphNode(Node thisNode) {
-    List<String> newTokenList = new ArrayList<>();
-    newTokenList.addAll(thisNode.getTokenList());
+    List<String> newTokenList = new ArrayList<>(thisNode.getTokenCount());
+    for (String tokenName : thisNode.getTokenList()) {
+      newTokenList.add(NameDictionary.intern(tokenName));
+    }
     Struct newMetadata = Struct.newBuilder().mergeFrom(thisNode.getMetadata()).build();
     return GraphNode.create(thisNode.getName(), newTokenList, newMetadata);
   }
@@ -79,7 +82,7 @@ public final class Utility {
       List<Integer> mutationIndices,
       MultiMutation mutDiff,
       int maxNumber,
-      HashSet<String> queried) {
+      Set<String> queried) {
     Type typeOfNode = new TypeToken<Set<GraphNode>>() {}.getType();
     Type typeOfEdge = new TypeToken<Set<EndpointPair<GraphNode>>>() {}.getType();
     Type typeOfIndices = new TypeToken<List<Integer>>() {}.getType();
@@ -122,11 +125,30 @@ public final class Utility {
   public static DataGraph getGraphAtMutationNumber(
       DataGraph original, DataGraph curr, int mutationNum, MutationList.Builder mutationsList)
       throws IllegalArgumentException {
+    return getGraphAtMutationNumber(original, curr, mutationNum, asMutableList(mutationsList));
+  }
+
+  /**
+   * Returns the graph at the given mutation number, null if the requested number is less than -1.
+   * If the user requests a number greater than the total number of mutations, we return the final
+   * graph.
+   *
+   * @param original the original graph
+   * @param curr the current (most recently-requested) graph (requires that original != curr)
+   * @param mutationNum the index of the last mutation to apply
+   * @param multiMutList the list of multi-mutations. Elements of this list may be replaced with
+   *     their deduplicated versions, so it must support set, and publish them safely if other
+   *     threads read it.
+   * @throws IllegalArgumentException if original and current graph refer to the same object
+   * @return the resulting data graph, null if the mutation number was too small, and the final
+   *     graph if the mutation number was too big.
+   */
+  public static DataGraph getGraphAtMutationNumber(
+      DataGraph original, DataGraph curr, int mutationNum, List<MultiMutation> multiMutList)
+      throws IllegalArgumentException {
     Preconditions.checkArgument(
         original != curr, "The current graph and the original graph refer to the same object");
 
-    List<MultiMutation> multiMutList = mutationsList.getMutationList();
-
     if (mutationNum < -1) {
       return null;
     } else if (mutationNum > multiMutList.size()) {
@@ -138,6 +160,68 @@ public final class Utility {
     if (curr.numMutations() - mutationNum > mutationNum) {
       curr = original.getCopy();
     }
+    return replayTo(curr, mutationNum, multiMutList);
+  }
+
+  /**
+   * Returns the graph at the given mutation number like getGraphAtMutationNumber above, but starts
+   * from whichever of the current graph, the original graph and the nearest checkpoint is the
+   * fewest multi-mutations away from the requested one.
+   *
+   * @param original the original graph
+   * @param curr the current (most recently-requested) graph (requires that original != curr)
+   * @param mutationNum the index of the last mutation to apply
+   * @param multiMutList the list of multi-mutations. Elements of this list may be replaced with
+   *     their deduplicated versions, so it must support set, and publish them safely if other
+   *     threads read it.
+   * @param checkpoints the checkpoints built from original and multiMutList
+   * @throws IllegalArgumentException if original and current graph refer to the same object
+   * @return the resulting data graph, null if the mutation number was too small, and the final
+   *     graph if the mutation number was too big.
+   */
+  public static DataGraph getGraphAtMutationNumber(
+      DataGraph original,
+      DataGraph curr,
+      int mutationNum,
+      List<MultiMutation> multiMutList,
+      CheckpointIndex checkpoints)
+      throws IllegalArgumentException {
+    Preconditions.checkArgument(
+        original != curr, "The current graph and the original graph refer to the same object");
+
+    if (mutationNum < -1) {
+      return null;
+    } else if (mutationNum > multiMutList.size()) {
+      mutationNum = multiMutList.size() - 1;
+    }
+    DataGraph start = original;
+    DataGraph checkpoint = checkpoints.nearest(mutationNum);
+    if (checkpoint != null
+        && Math.abs(checkpoint.numMutations() - mutationNum)
+            < Math.abs(start.numMutations() - mutationNum)) {
+      start = checkpoint;
+    }
+    // The current graph can be modified in place, the others have to be copied first
+    if (Math.abs(start.numMutations() - mutationNum)
+        < Math.abs(curr.numMutations() - mutationNum)) {
+      curr = start.getCopy();
+    }
+    return replayTo(curr, mutationNum, multiMutList);
+  }
+
+  /**
+   * Applies or reverts multi-mutations on the given graph, in place, until it reaches the given
+   * mutation number
+   *
+   * @param curr the graph to start from, which is modified
+   * @param mutationNum the index of the last mutation to apply, at most multiMutList.size() - 1
+   * @param multiMutList the list of multi-mutations. Applied elements are replaced with their
+   *     deduplicated versions.
+   * @throws IllegalArgumentException if a mutation cannot be applied
+   * @return a data graph with the structures of curr at the requested mutation number
+   */
+  private static DataGraph replayTo(
+      DataGraph curr, int mutationNum, List<MultiMutation> multiMutList) {
     if (curr.numMutations() <= mutationNum) { // going forward
       for (int i = curr.numMutations() + 1; i <= mutationNum; i++) {
         // Mutate graph operates in place
@@ -154,10 +238,15 @@ public final class Utility {
           }
           trimmedMultiMut.addMutation(currMut.build());
         }
-        mutationsList.setMutation(i, trimmedMultiMut.setReason(multiMut.getReason()));
+        multiMutList.set(i, trimmedMultiMut.setReason(multiMut.getReason()).build());
       }
       return DataGraph.create(
-          curr.graph(), curr.graphNodesMap(), curr.roots(), mutationNum, curr.tokenMap());
+          curr.graph(),
+          curr.graphNodesMap(),
+          curr.roots(),
+          mutationNum,
+          curr.tokenMap(),
+          curr.topologicalOrder());
     } else {
       // The last mutation to revert is the one after the last one to apply
       for (int i = curr.numMutations(); i > mutationNum; i--) {
@@ -172,10 +261,43 @@ public final class Utility {
         }
       }
       return DataGraph.create(
-          curr.graph(), curr.graphNodesMap(), curr.roots(), mutationNum, curr.tokenMap());
+          curr.graph(),
+          curr.graphNodesMap(),
+          curr.roots(),
+          mutationNum,
+          curr.tokenMap(),
+          curr.topologicalOrder());
     }
   }
 
+  /**
+   * Returns a list view of the multi-mutations in the given builder that writes replaced elements
+   * back to the builder
+   *
+   * @param mutationsList the multi-mutation list builder
+   * @return a modifiable list view of the builder
+   */
+  private static List<MultiMutation> asMutableList(MutationList.Builder mutationsList) {
+    return new AbstractList<MultiMutation>() {
+      @Override
+      public MultiMutation get(int index) {
+        return mutationsList.getMutation(index);
+      }
+
+      @Override
+      public MultiMutation set(int index, MultiMutation multiMut) {
+        MultiMutation previous = mutationsList.getMutation(index);
+        mutationsList.setMutation(index, multiMut);
+        return previous;
+      }
+
+      @Override
+      public int size() {
+        return mutationsList.getMutationCount();
+      }
+    };
+  }
+
   /**
    * Returns the last multi-mutation (list of mutations) that needs to be applied to get from the
    * graph at currIndex to the graph at nextIndex as long as nextIndex > currIndex
@@ -0,0 +1,3100 @@
+// Generated by the protocol buffer compiler.  DO NOT EDIT!
+// source: response.proto
+
+package com.proto;
+
+public final class ResponseProtos {
+  private ResponseProtos() {}
+
+  public static void registerAllExtensions(com.google.protobuf.ExtensionRegistryLite registry) {}
+
+  public static void registerAllExtensions(com.google.protobuf.ExtensionRegistry registry) {
+    registerAllExtensions((com.google.protobuf.ExtensionRegistryLite) registry);
+  }
+
+  public interface EdgeOrBuilder
+      extends
+      // @@protoc_insertion_point(interface_extends:com.proto.Edge)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     *
+     *
+     * <pre>
+     * * The index of the start of the directed edge
+     * </pre>
+     *
+     * <code>uint32 source = 1;</code>
+     */
+    int getSource();
+
+    /**
+     *
+     *
+     * <pre>
+     * * The index of the end of the directed edge
+     * </pre>
+     *
+     * <code>uint32 target = 2;</code>
+     */
+    int getTarget();
+  }
+  /**
+   *
+   *
+   * <pre>
+   * * An edge of a graph response, as indices into its list of nodes
+   * </pre>
+   *
+   * Protobuf type {@code com.proto.Edge}
+   */
+  public static final class Edge extends com.google.protobuf.GeneratedMessageV3
+      implements
+      // @@protoc_insertion_point(message_implements:com.proto.Edge)
+      EdgeOrBuilder {
+    private static final long serialVersionUID = 0L;
+    // Use Edge.newBuilder() to construct.
+    private Edge(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+      super(builder);
+    }
+
+    private Edge() {}
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet getUnknownFields() {
+      return this.unknownFields;
+    }
+
+    private Edge(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      this();
+      if (extensionRegistry == null) {
+        throw new java.lang.NullPointerException();
+      }
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            case 8:
+              {
+                source_ = input.readUInt32();
+                break;
+              }
+            case 16:
+              {
+                target_ = input.readUInt32();
+                break;
+              }
+            default:
+              {
+                if (!parseUnknownField(input, unknownFields, extensionRegistry, tag)) {
+                  done = true;
+                }
+                break;
+              }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(e).setUnfinishedMessage(this);
+      } finally {
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+
+    public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+      return com.proto.ResponseProtos.internal_static_com_proto_Edge_descriptor;
+    }
+
+    @java.lang.Override
+    protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.proto.ResponseProtos.internal_static_com_proto_Edge_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.proto.ResponseProtos.Edge.class, com.proto.ResponseProtos.Edge.Builder.class);
+    }
+
+    public static final int SOURCE_FIELD_NUMBER = 1;
+    private int source_;
+    /**
+     *
+     *
+     * <pre>
+     * * The index of the start of the directed edge
+     * </pre>
+     *
+     * <code>uint32 source = 1;</code>
+     */
+    public int getSource() {
+      return source_;
+    }
+
+    public static final int TARGET_FIELD_NUMBER = 2;
+    private int target_;
+    /**
+     *
+     *
+     * <pre>
+     * * The index of the end of the directed edge
+     * </pre>
+     *
+     * <code>uint32 target = 2;</code>
+     */
+    public int getTarget() {
+      return target_;
+    }
+
+    private byte memoizedIsInitialized = -1;
+
+    @java.lang.Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @java.lang.Override
+    public void writeTo(com.google.protobuf.CodedOutputStream output) throws java.io.IOException {
+      if (source_ != 0) {
+        output.writeUInt32(1, source_);
+      }
+      if (target_ != 0) {
+        output.writeUInt32(2, target_);
+      }
+      unknownFields.writeTo(output);
+    }
+
+    @java.lang.Override
+    public int getSerializedSize() {
+      int size = memoizedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (source_ != 0) {
+        size += com.google.protobuf.CodedOutputStream.computeUInt32Size(1, source_);
+      }
+      if (target_ != 0) {
+        size += com.google.protobuf.CodedOutputStream.computeUInt32Size(2, target_);
+      }
+      size += unknownFields.getSerializedSize();
+      memoizedSize = size;
+      return size;
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof com.proto.ResponseProtos.Edge)) {
+        return super.equals(obj);
+      }
+      com.proto.ResponseProtos.Edge other = (com.proto.ResponseProtos.Edge) obj;
+
+      if (getSource() != other.getSource()) return false;
+      if (getTarget() != other.getTarget()) return false;
+      if (!unknownFields.equals(other.unknownFields)) return false;
+      return true;
+    }
+
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptor().hashCode();
+      hash = (37 * hash) + SOURCE_FIELD_NUMBER;
+      hash = (53 * hash) + getSource();
+      hash = (37 * hash) + TARGET_FIELD_NUMBER;
+      hash = (53 * hash) + getTarget();
+      hash = (29 * hash) + unknownFields.hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(java.nio.ByteBuffer data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(
+        java.nio.ByteBuffer data, com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(
+        byte[] data, com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(
+        java.io.InputStream input, com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseWithIOException(
+          PARSER, input, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseDelimitedWithIOException(PARSER, input);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseDelimitedFrom(
+        java.io.InputStream input, com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseDelimitedWithIOException(
+          PARSER, input, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(
+        com.google.protobuf.CodedInputStream input) throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input);
+    }
+
+    public static com.proto.ResponseProtos.Edge parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseWithIOException(
+          PARSER, input, extensionRegistry);
+    }
+
+    @java.lang.Override
+    public Builder newBuilderForType() {
+      return newBuilder();
+    }
+
+    public static Builder newBuilder() {
+      return DEFAULT_INSTANCE.toBuilder();
+    }
+
+    public static Builder newBuilder(com.proto.ResponseProtos.Edge prototype) {
+      return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+    }
+
+    @java.lang.Override
+    public Builder toBuilder() {
+      return this == DEFAULT_INSTANCE ? new Builder() : new Builder().mergeFrom(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * An edge of a graph response, as indices into its list of nodes
+     * </pre>
+     *
+     * Protobuf type {@code com.proto.Edge}
+     */
+    public static final class Builder
+        extends com.google.protobuf.GeneratedMessageV3.Builder<Builder>
+        implements
+        // @@protoc_insertion_point(builder_implements:com.proto.Edge)
+        com.proto.ResponseProtos.EdgeOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+        return com.proto.ResponseProtos.internal_static_com_proto_Edge_descriptor;
+      }
+
+      @java.lang.Override
+      protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.proto.ResponseProtos.internal_static_com_proto_Edge_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.proto.ResponseProtos.Edge.class, com.proto.ResponseProtos.Edge.Builder.class);
+      }
+
+      // Construct using com.proto.ResponseProtos.Edge.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders) {}
+      }
+
+      @java.lang.Override
+      public Builder clear() {
+        super.clear();
+        source_ = 0;
+
+        target_ = 0;
+
+        return this;
+      }
+
+      @java.lang.Override
+      public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
+        return com.proto.ResponseProtos.internal_static_com_proto_Edge_descriptor;
+      }
+
+      @java.lang.Override
+      public com.proto.ResponseProtos.Edge getDefaultInstanceForType() {
+        return com.proto.ResponseProtos.Edge.getDefaultInstance();
+      }
+
+      @java.lang.Override
+      public com.proto.ResponseProtos.Edge build() {
+        com.proto.ResponseProtos.Edge result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @java.lang.Override
+      public com.proto.ResponseProtos.Edge buildPartial() {
+        com.proto.ResponseProtos.Edge result = new com.proto.ResponseProtos.Edge(this);
+        result.source_ = source_;
+        result.target_ = target_;
+        onBuilt();
+        return result;
+      }
+
+      @java.lang.Override
+      public Builder clone() {
+        return super.clone();
+      }
+
+      @java.lang.Override
+      public Builder setField(
+          com.google.protobuf.Descriptors.FieldDescriptor field, java.lang.Object value) {
+        return super.setField(field, value);
+      }
+
+      @java.lang.Override
+      public Builder clearField(com.google.protobuf.Descriptors.FieldDescriptor field) {
+        return super.clearField(field);
+      }
+
+      @java.lang.Override
+      public Builder clearOneof(com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+        return super.clearOneof(oneof);
+      }
+
+      @java.lang.Override
+      public Builder setRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          int index,
+          java.lang.Object value) {
+        return super.setRepeatedField(field, index, value);
+      }
+
+      @java.lang.Override
+      public Builder addRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field, java.lang.Object value) {
+        return super.addRepeatedField(field, value);
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.proto.ResponseProtos.Edge) {
+          return mergeFrom((com.proto.ResponseProtos.Edge) other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.proto.ResponseProtos.Edge other) {
+        if (other == com.proto.ResponseProtos.Edge.getDefaultInstance()) return this;
+        if (other.getSource() != 0) {
+          setSource(other.getSource());
+        }
+        if (other.getTarget() != 0) {
+          setTarget(other.getTarget());
+        }
+        this.mergeUnknownFields(other.unknownFields);
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.proto.ResponseProtos.Edge parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.proto.ResponseProtos.Edge) e.getUnfinishedMessage();
+          throw e.unwrapIOException();
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+
+      private int source_;
+      /**
+       *
+       *
+       * <pre>
+       * * The index of the start of the directed edge
+       * </pre>
+       *
+       * <code>uint32 source = 1;</code>
+       */
+      public int getSource() {
+        return source_;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The index of the start of the directed edge
+       * </pre>
+       *
+       * <code>uint32 source = 1;</code>
+       */
+      public Builder setSource(int value) {
+
+        source_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The index of the start of the directed edge
+       * </pre>
+       *
+       * <code>uint32 source = 1;</code>
+       */
+      public Builder clearSource() {
+
+        source_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private int target_;
+      /**
+       *
+       *
+       * <pre>
+       * * The index of the end of the directed edge
+       * </pre>
+       *
+       * <code>uint32 target = 2;</code>
+       */
+      public int getTarget() {
+        return target_;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The index of the end of the directed edge
+       * </pre>
+       *
+       * <code>uint32 target = 2;</code>
+       */
+      public Builder setTarget(int value) {
+
+        target_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The index of the end of the directed edge
+       * </pre>
+       *
+       * <code>uint32 target = 2;</code>
+       */
+      public Builder clearTarget() {
+
+        target_ = 0;
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFields(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+      // @@protoc_insertion_point(builder_scope:com.proto.Edge)
+    }
+
+    // @@protoc_insertion_point(class_scope:com.proto.Edge)
+    private static final com.proto.ResponseProtos.Edge DEFAULT_INSTANCE;
+
+    static {
+      DEFAULT_INSTANCE = new com.proto.ResponseProtos.Edge();
+    }
+
+    public static com.proto.ResponseProtos.Edge getDefaultInstance() {
+      return DEFAULT_INSTANCE;
+    }
+
+    private static final com.google.protobuf.Parser<Edge> PARSER =
+        new com.google.protobuf.AbstractParser<Edge>() {
+          @java.lang.Override
+          public Edge parsePartialFrom(
+              com.google.protobuf.CodedInputStream input,
+              com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+              throws com.google.protobuf.InvalidProtocolBufferException {
+            return new Edge(input, extensionRegistry);
+          }
+        };
+
+    public static com.google.protobuf.Parser<Edge> parser() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<Edge> getParserForType() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.proto.ResponseProtos.Edge getDefaultInstanceForType() {
+      return DEFAULT_INSTANCE;
+    }
+  }
+
+  public interface GraphResponseOrBuilder
+      extends
+      // @@protoc_insertion_point(interface_extends:com.proto.GraphResponse)
+      com.google.protobuf.MessageOrBuilder {
+
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    java.util.List<com.proto.GraphProtos.Node> getNodesList();
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    com.proto.GraphProtos.Node getNodes(int index);
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    int getNodesCount();
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    java.util.List<? extends com.proto.GraphProtos.NodeOrBuilder> getNodesOrBuilderList();
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    com.proto.GraphProtos.NodeOrBuilder getNodesOrBuilder(int index);
+
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    java.util.List<com.proto.ResponseProtos.Edge> getEdgesList();
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    com.proto.ResponseProtos.Edge getEdges(int index);
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    int getEdgesCount();
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    java.util.List<? extends com.proto.ResponseProtos.EdgeOrBuilder> getEdgesOrBuilderList();
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    com.proto.ResponseProtos.EdgeOrBuilder getEdgesOrBuilder(int index);
+
+    /**
+     *
+     *
+     * <pre>
+     * * The mutations to highlight and their reason, unset if there are none
+     * </pre>
+     *
+     * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+     */
+    boolean hasMutationDiff();
+    /**
+     *
+     *
+     * <pre>
+     * * The mutations to highlight and their reason, unset if there are none
+     * </pre>
+     *
+     * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+     */
+    com.proto.MutationProtos.MultiMutation getMutationDiff();
+    /**
+     *
+     *
+     * <pre>
+     * * The mutations to highlight and their reason, unset if there are none
+     * </pre>
+     *
+     * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+     */
+    com.proto.MutationProtos.MultiMutationOrBuilder getMutationDiffOrBuilder();
+
+    /**
+     *
+     *
+     * <pre>
+     * * The indices of the mutations relevant to the query
+     * </pre>
+     *
+     * <code>repeated uint32 mutation_indices = 4;</code>
+     */
+    java.util.List<java.lang.Integer> getMutationIndicesList();
+    /**
+     *
+     *
+     * <pre>
+     * * The indices of the mutations relevant to the query
+     * </pre>
+     *
+     * <code>repeated uint32 mutation_indices = 4;</code>
+     */
+    int getMutationIndicesCount();
+    /**
+     *
+     *
+     * <pre>
+     * * The indices of the mutations relevant to the query
+     * </pre>
+     *
+     * <code>repeated uint32 mutation_indices = 4;</code>
+     */
+    int getMutationIndices(int index);
+
+    /**
+     *
+     *
+     * <pre>
+     * * The number of multi-mutations in the dataset
+     * </pre>
+     *
+     * <code>uint32 total_mut_number = 5;</code>
+     */
+    int getTotalMutNumber();
+
+    /**
+     *
+     *
+     * <pre>
+     * * The names of the queried nodes
+     * </pre>
+     *
+     * <code>repeated string queried_nodes = 6;</code>
+     */
+    java.util.List<java.lang.String> getQueriedNodesList();
+    /**
+     *
+     *
+     * <pre>
+     * * The names of the queried nodes
+     * </pre>
+     *
+     * <code>repeated string queried_nodes = 6;</code>
+     */
+    int getQueriedNodesCount();
+    /**
+     *
+     *
+     * <pre>
+     * * The names of the queried nodes
+     * </pre>
+     *
+     * <code>repeated string queried_nodes = 6;</code>
+     */
+    java.lang.String getQueriedNodes(int index);
+    /**
+     *
+     *
+     * <pre>
+     * * The names of the queried nodes
+     * </pre>
+     *
+     * <code>repeated string queried_nodes = 6;</code>
+     */
+    com.google.protobuf.ByteString getQueriedNodesBytes(int index);
+  }
+  /**
+   *
+   *
+   * <pre>
+   * * The part of the graph and the mutations sent in response to a /data query
+   * </pre>
+   *
+   * Protobuf type {@code com.proto.GraphResponse}
+   */
+  public static final class GraphResponse extends com.google.protobuf.GeneratedMessageV3
+      implements
+      // @@protoc_insertion_point(message_implements:com.proto.GraphResponse)
+      GraphResponseOrBuilder {
+    private static final long serialVersionUID = 0L;
+    // Use GraphResponse.newBuilder() to construct.
+    private GraphResponse(com.google.protobuf.GeneratedMessageV3.Builder<?> builder) {
+      super(builder);
+    }
+
+    private GraphResponse() {
+      nodes_ = java.util.Collections.emptyList();
+      edges_ = java.util.Collections.emptyList();
+      mutationIndices_ = emptyIntList();
+      queriedNodes_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+    }
+
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet getUnknownFields() {
+      return this.unknownFields;
+    }
+
+    private GraphResponse(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      this();
+      if (extensionRegistry == null) {
+        throw new java.lang.NullPointerException();
+      }
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            case 10:
+              {
+                if (!((mutable_bitField0_ & 0x00000001) != 0)) {
+                  nodes_ = new java.util.ArrayList<com.proto.GraphProtos.Node>();
+                  mutable_bitField0_ |= 0x00000001;
+                }
+                nodes_.add(
+                    input.readMessage(com.proto.GraphProtos.Node.parser(), extensionRegistry));
+                break;
+              }
+            case 18:
+              {
+                if (!((mutable_bitField0_ & 0x00000002) != 0)) {
+                  edges_ = new java.util.ArrayList<com.proto.ResponseProtos.Edge>();
+                  mutable_bitField0_ |= 0x00000002;
+                }
+                edges_.add(
+                    input.readMessage(com.proto.ResponseProtos.Edge.parser(), extensionRegistry));
+                break;
+              }
+            case 26:
+              {
+                com.proto.MutationProtos.MultiMutation.Builder subBuilder = null;
+                if (mutationDiff_ != null) {
+                  subBuilder = mutationDiff_.toBuilder();
+                }
+                mutationDiff_ =
+                    input.readMessage(
+                        com.proto.MutationProtos.MultiMutation.parser(), extensionRegistry);
+                if (subBuilder != null) {
+                  subBuilder.mergeFrom(mutationDiff_);
+                  mutationDiff_ = subBuilder.buildPartial();
+                }
+
+                break;
+              }
+            case 32:
+              {
+                if (!((mutable_bitField0_ & 0x00000008) != 0)) {
+                  mutationIndices_ = newIntList();
+                  mutable_bitField0_ |= 0x00000008;
+                }
+                mutationIndices_.addInt(input.readUInt32());
+                break;
+              }
+            case 34:
+              {
+                int length = input.readRawVarint32();
+                int limit = input.pushLimit(length);
+                if (!((mutable_bitField0_ & 0x00000008) != 0) && input.getBytesUntilLimit() > 0) {
+                  mutationIndices_ = newIntList();
+                  mutable_bitField0_ |= 0x00000008;
+                }
+                while (input.getBytesUntilLimit() > 0) {
+                  mutationIndices_.addInt(input.readUInt32());
+                }
+                input.popLimit(limit);
+                break;
+              }
+            case 40:
+              {
+                totalMutNumber_ = input.readUInt32();
+                break;
+              }
+            case 50:
+              {
+                java.lang.String s = input.readStringRequireUtf8();
+                if (!((mutable_bitField0_ & 0x00000020) != 0)) {
+                  queriedNodes_ = new com.google.protobuf.LazyStringArrayList();
+                  mutable_bitField0_ |= 0x00000020;
+                }
+                queriedNodes_.add(s);
+                break;
+              }
+            default:
+              {
+                if (!parseUnknownField(input, unknownFields, extensionRegistry, tag)) {
+                  done = true;
+                }
+                break;
+              }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(e).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000001) != 0)) {
+          nodes_ = java.util.Collections.unmodifiableList(nodes_);
+        }
+        if (((mutable_bitField0_ & 0x00000002) != 0)) {
+          edges_ = java.util.Collections.unmodifiableList(edges_);
+        }
+        if (((mutable_bitField0_ & 0x00000008) != 0)) {
+          mutationIndices_.makeImmutable(); // C
+        }
+        if (((mutable_bitField0_ & 0x00000020) != 0)) {
+          queriedNodes_ = queriedNodes_.getUnmodifiableView();
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+
+    public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+      return com.proto.ResponseProtos.internal_static_com_proto_GraphResponse_descriptor;
+    }
+
+    @java.lang.Override
+    protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.proto.ResponseProtos.internal_static_com_proto_GraphResponse_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.proto.ResponseProtos.GraphResponse.class,
+              com.proto.ResponseProtos.GraphResponse.Builder.class);
+    }
+
+    private int bitField0_;
+    public static final int NODES_FIELD_NUMBER = 1;
+    private java.util.List<com.proto.GraphProtos.Node> nodes_;
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    public java.util.List<com.proto.GraphProtos.Node> getNodesList() {
+      return nodes_;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    public java.util.List<? extends com.proto.GraphProtos.NodeOrBuilder> getNodesOrBuilderList() {
+      return nodes_;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    public int getNodesCount() {
+      return nodes_.size();
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    public com.proto.GraphProtos.Node getNodes(int index) {
+      return nodes_.get(index);
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The nodes of the graph, each listed once and without children
+     * </pre>
+     *
+     * <code>repeated .com.proto.Node nodes = 1;</code>
+     */
+    public com.proto.GraphProtos.NodeOrBuilder getNodesOrBuilder(int index) {
+      return nodes_.get(index);
+    }
+
+    public static final int EDGES_FIELD_NUMBER = 2;
+    private java.util.List<com.proto.ResponseProtos.Edge> edges_;
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    public java.util.List<com.proto.ResponseProtos.Edge> getEdgesList() {
+      return edges_;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    public java.util.List<? extends com.proto.ResponseProtos.EdgeOrBuilder>
+        getEdgesOrBuilderList() {
+      return edges_;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    public int getEdgesCount() {
+      return edges_.size();
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    public com.proto.ResponseProtos.Edge getEdges(int index) {
+      return edges_.get(index);
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The edges of the graph
+     * </pre>
+     *
+     * <code>repeated .com.proto.Edge edges = 2;</code>
+     */
+    public com.proto.ResponseProtos.EdgeOrBuilder getEdgesOrBuilder(int index) {
+      return edges_.get(index);
+    }
+
+    public static final int MUTATION_DIFF_FIELD_NUMBER = 3;
+    private com.proto.MutationProtos.MultiMutation mutationDiff_;
+    /**
+     *
+     *
+     * <pre>
+     * * The mutations to highlight and their reason, unset if there are none
+     * </pre>
+     *
+     * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+     */
+    public boolean hasMutationDiff() {
+      return mutationDiff_ != null;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The mutations to highlight and their reason, unset if there are none
+     * </pre>
+     *
+     * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+     */
+    public com.proto.MutationProtos.MultiMutation getMutationDiff() {
+      return mutationDiff_ == null
+          ? com.proto.MutationProtos.MultiMutation.getDefaultInstance()
+          : mutationDiff_;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The mutations to highlight and their reason, unset if there are none
+     * </pre>
+     *
+     * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+     */
+    public com.proto.MutationProtos.MultiMutationOrBuilder getMutationDiffOrBuilder() {
+      return getMutationDiff();
+    }
+
+    public static final int MUTATION_INDICES_FIELD_NUMBER = 4;
+    private com.google.protobuf.Internal.IntList mutationIndices_;
+    /**
+     *
+     *
+     * <pre>
+     * * The indices of the mutations relevant to the query
+     * </pre>
+     *
+     * <code>repeated uint32 mutation_indices = 4;</code>
+     */
+    public java.util.List<java.lang.Integer> getMutationIndicesList() {
+      return mutationIndices_;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The indices of the mutations relevant to the query
+     * </pre>
+     *
+     * <code>repeated uint32 mutation_indices = 4;</code>
+     */
+    public int getMutationIndicesCount() {
+      return mutationIndices_.size();
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The indices of the mutations relevant to the query
+     * </pre>
+     *
+     * <code>repeated uint32 mutation_indices = 4;</code>
+     */
+    public int getMutationIndices(int index) {
+      return mutationIndices_.getInt(index);
+    }
+
+    private int mutationIndicesMemoizedSerializedSize = -1;
+
+    public static final int TOTAL_MUT_NUMBER_FIELD_NUMBER = 5;
+    private int totalMutNumber_;
+    /**
+     *
+     *
+     * <pre>
+     * * The number of multi-mutations in the dataset
+     * </pre>
+     *
+     * <code>uint32 total_mut_number = 5;</code>
+     */
+    public int getTotalMutNumber() {
+      return totalMutNumber_;
+    }
+
+    public static final int QUERIED_NODES_FIELD_NUMBER = 6;
+    private com.google.protobuf.LazyStringList queriedNodes_;
+    /**
+     *
+     *
+     * <pre>
+     * * The names of the queried nodes
+     * </pre>
+     *
+     * <code>repeated string queried_nodes = 6;</code>
+     */
+    public com.google.protobuf.ProtocolStringList getQueriedNodesList() {
+      return queriedNodes_;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The names of the queried nodes
+     * </pre>
+     *
+     * <code>repeated string queried_nodes = 6;</code>
+     */
+    public int getQueriedNodesCount() {
+      return queriedNodes_.size();
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The names of the queried nodes
+     * </pre>
+     *
+     * <code>repeated string queried_nodes = 6;</code>
+     */
+    public java.lang.String getQueriedNodes(int index) {
+      return queriedNodes_.get(index);
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The names of the queried nodes
+     * </pre>
+     *
+     * <code>repeated string queried_nodes = 6;</code>
+     */
+    public com.google.protobuf.ByteString getQueriedNodesBytes(int index) {
+      return queriedNodes_.getByteString(index);
+    }
+
+    private byte memoizedIsInitialized = -1;
+
+    @java.lang.Override
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized == 1) return true;
+      if (isInitialized == 0) return false;
+
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    @java.lang.Override
+    public void writeTo(com.google.protobuf.CodedOutputStream output) throws java.io.IOException {
+      getSerializedSize();
+      for (int i = 0; i < nodes_.size(); i++) {
+        output.writeMessage(1, nodes_.get(i));
+      }
+      for (int i = 0; i < edges_.size(); i++) {
+        output.writeMessage(2, edges_.get(i));
+      }
+      if (mutationDiff_ != null) {
+        output.writeMessage(3, getMutationDiff());
+      }
+      if (getMutationIndicesList().size() > 0) {
+        output.writeUInt32NoTag(34);
+        output.writeUInt32NoTag(mutationIndicesMemoizedSerializedSize);
+      }
+      for (int i = 0; i < mutationIndices_.size(); i++) {
+        output.writeUInt32NoTag(mutationIndices_.getInt(i));
+      }
+      if (totalMutNumber_ != 0) {
+        output.writeUInt32(5, totalMutNumber_);
+      }
+      for (int i = 0; i < queriedNodes_.size(); i++) {
+        com.google.protobuf.GeneratedMessageV3.writeString(output, 6, queriedNodes_.getRaw(i));
+      }
+      unknownFields.writeTo(output);
+    }
+
+    @java.lang.Override
+    public int getSerializedSize() {
+      int size = memoizedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      for (int i = 0; i < nodes_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream.computeMessageSize(1, nodes_.get(i));
+      }
+      for (int i = 0; i < edges_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream.computeMessageSize(2, edges_.get(i));
+      }
+      if (mutationDiff_ != null) {
+        size += com.google.protobuf.CodedOutputStream.computeMessageSize(3, getMutationDiff());
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < mutationIndices_.size(); i++) {
+          dataSize +=
+              com.google.protobuf.CodedOutputStream.computeUInt32SizeNoTag(
+                  mutationIndices_.getInt(i));
+        }
+        size += dataSize;
+        if (!getMutationIndicesList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream.computeInt32SizeNoTag(dataSize);
+        }
+        mutationIndicesMemoizedSerializedSize = dataSize;
+      }
+      if (totalMutNumber_ != 0) {
+        size += com.google.protobuf.CodedOutputStream.computeUInt32Size(5, totalMutNumber_);
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < queriedNodes_.size(); i++) {
+          dataSize += computeStringSizeNoTag(queriedNodes_.getRaw(i));
+        }
+        size += dataSize;
+        size += 1 * getQueriedNodesList().size();
+      }
+      size += unknownFields.getSerializedSize();
+      memoizedSize = size;
+      return size;
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof com.proto.ResponseProtos.GraphResponse)) {
+        return super.equals(obj);
+      }
+      com.proto.ResponseProtos.GraphResponse other = (com.proto.ResponseProtos.GraphResponse) obj;
+
+      if (!getNodesList().equals(other.getNodesList())) return false;
+      if (!getEdgesList().equals(other.getEdgesList())) return false;
+      if (hasMutationDiff() != other.hasMutationDiff()) return false;
+      if (hasMutationDiff()) {
+        if (!getMutationDiff().equals(other.getMutationDiff())) return false;
+      }
+      if (!getMutationIndicesList().equals(other.getMutationIndicesList())) return false;
+      if (getTotalMutNumber() != other.getTotalMutNumber()) return false;
+      if (!getQueriedNodesList().equals(other.getQueriedNodesList())) return false;
+      if (!unknownFields.equals(other.unknownFields)) return false;
+      return true;
+    }
+
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptor().hashCode();
+      if (getNodesCount() > 0) {
+        hash = (37 * hash) + NODES_FIELD_NUMBER;
+        hash = (53 * hash) + getNodesList().hashCode();
+      }
+      if (getEdgesCount() > 0) {
+        hash = (37 * hash) + EDGES_FIELD_NUMBER;
+        hash = (53 * hash) + getEdgesList().hashCode();
+      }
+      if (hasMutationDiff()) {
+        hash = (37 * hash) + MUTATION_DIFF_FIELD_NUMBER;
+        hash = (53 * hash) + getMutationDiff().hashCode();
+      }
+      if (getMutationIndicesCount() > 0) {
+        hash = (37 * hash) + MUTATION_INDICES_FIELD_NUMBER;
+        hash = (53 * hash) + getMutationIndicesList().hashCode();
+      }
+      hash = (37 * hash) + TOTAL_MUT_NUMBER_FIELD_NUMBER;
+      hash = (53 * hash) + getTotalMutNumber();
+      if (getQueriedNodesCount() > 0) {
+        hash = (37 * hash) + QUERIED_NODES_FIELD_NUMBER;
+        hash = (53 * hash) + getQueriedNodesList().hashCode();
+      }
+      hash = (29 * hash) + unknownFields.hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(java.nio.ByteBuffer data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(
+        java.nio.ByteBuffer data, com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(
+        byte[] data, com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(
+        java.io.InputStream input, com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseWithIOException(
+          PARSER, input, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseDelimitedFrom(
+        java.io.InputStream input) throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseDelimitedWithIOException(PARSER, input);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseDelimitedFrom(
+        java.io.InputStream input, com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseDelimitedWithIOException(
+          PARSER, input, extensionRegistry);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(
+        com.google.protobuf.CodedInputStream input) throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseWithIOException(PARSER, input);
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return com.google.protobuf.GeneratedMessageV3.parseWithIOException(
+          PARSER, input, extensionRegistry);
+    }
+
+    @java.lang.Override
+    public Builder newBuilderForType() {
+      return newBuilder();
+    }
+
+    public static Builder newBuilder() {
+      return DEFAULT_INSTANCE.toBuilder();
+    }
+
+    public static Builder newBuilder(com.proto.ResponseProtos.GraphResponse prototype) {
+      return DEFAULT_INSTANCE.toBuilder().mergeFrom(prototype);
+    }
+
+    @java.lang.Override
+    public Builder toBuilder() {
+      return this == DEFAULT_INSTANCE ? new Builder() : new Builder().mergeFrom(this);
+    }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     *
+     *
+     * <pre>
+     * * The part of the graph and the mutations sent in response to a /data query
+     * </pre>
+     *
+     * Protobuf type {@code com.proto.GraphResponse}
+     */
+    public static final class Builder
+        extends com.google.protobuf.GeneratedMessageV3.Builder<Builder>
+        implements
+        // @@protoc_insertion_point(builder_implements:com.proto.GraphResponse)
+        com.proto.ResponseProtos.GraphResponseOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor getDescriptor() {
+        return com.proto.ResponseProtos.internal_static_com_proto_GraphResponse_descriptor;
+      }
+
+      @java.lang.Override
+      protected com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.proto.ResponseProtos.internal_static_com_proto_GraphResponse_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.proto.ResponseProtos.GraphResponse.class,
+                com.proto.ResponseProtos.GraphResponse.Builder.class);
+      }
+
+      // Construct using com.proto.ResponseProtos.GraphResponse.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(com.google.protobuf.GeneratedMessageV3.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders) {
+          getNodesFieldBuilder();
+          getEdgesFieldBuilder();
+        }
+      }
+
+      @java.lang.Override
+      public Builder clear() {
+        super.clear();
+        if (nodesBuilder_ == null) {
+          nodes_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+        } else {
+          nodesBuilder_.clear();
+        }
+        if (edgesBuilder_ == null) {
+          edges_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000002);
+        } else {
+          edgesBuilder_.clear();
+        }
+        if (mutationDiffBuilder_ == null) {
+          mutationDiff_ = null;
+        } else {
+          mutationDiff_ = null;
+          mutationDiffBuilder_ = null;
+        }
+        mutationIndices_ = emptyIntList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        totalMutNumber_ = 0;
+
+        queriedNodes_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        return this;
+      }
+
+      @java.lang.Override
+      public com.google.protobuf.Descriptors.Descriptor getDescriptorForType() {
+        return com.proto.ResponseProtos.internal_static_com_proto_GraphResponse_descriptor;
+      }
+
+      @java.lang.Override
+      public com.proto.ResponseProtos.GraphResponse getDefaultInstanceForType() {
+        return com.proto.ResponseProtos.GraphResponse.getDefaultInstance();
+      }
+
+      @java.lang.Override
+      public com.proto.ResponseProtos.GraphResponse build() {
+        com.proto.ResponseProtos.GraphResponse result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      @java.lang.Override
+      public com.proto.ResponseProtos.GraphResponse buildPartial() {
+        com.proto.ResponseProtos.GraphResponse result =
+            new com.proto.ResponseProtos.GraphResponse(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (nodesBuilder_ == null) {
+          if (((bitField0_ & 0x00000001) != 0)) {
+            nodes_ = java.util.Collections.unmodifiableList(nodes_);
+            bitField0_ = (bitField0_ & ~0x00000001);
+          }
+          result.nodes_ = nodes_;
+        } else {
+          result.nodes_ = nodesBuilder_.build();
+        }
+        if (edgesBuilder_ == null) {
+          if (((bitField0_ & 0x00000002) != 0)) {
+            edges_ = java.util.Collections.unmodifiableList(edges_);
+            bitField0_ = (bitField0_ & ~0x00000002);
+          }
+          result.edges_ = edges_;
+        } else {
+          result.edges_ = edgesBuilder_.build();
+        }
+        if (mutationDiffBuilder_ == null) {
+          result.mutationDiff_ = mutationDiff_;
+        } else {
+          result.mutationDiff_ = mutationDiffBuilder_.build();
+        }
+        if (((bitField0_ & 0x00000008) != 0)) {
+          mutationIndices_.makeImmutable();
+          bitField0_ = (bitField0_ & ~0x00000008);
+        }
+        result.mutationIndices_ = mutationIndices_;
+        result.totalMutNumber_ = totalMutNumber_;
+        if (((bitField0_ & 0x00000020) != 0)) {
+          queriedNodes_ = queriedNodes_.getUnmodifiableView();
+          bitField0_ = (bitField0_ & ~0x00000020);
+        }
+        result.queriedNodes_ = queriedNodes_;
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      @java.lang.Override
+      public Builder clone() {
+        return super.clone();
+      }
+
+      @java.lang.Override
+      public Builder setField(
+          com.google.protobuf.Descriptors.FieldDescriptor field, java.lang.Object value) {
+        return super.setField(field, value);
+      }
+
+      @java.lang.Override
+      public Builder clearField(com.google.protobuf.Descriptors.FieldDescriptor field) {
+        return super.clearField(field);
+      }
+
+      @java.lang.Override
+      public Builder clearOneof(com.google.protobuf.Descriptors.OneofDescriptor oneof) {
+        return super.clearOneof(oneof);
+      }
+
+      @java.lang.Override
+      public Builder setRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field,
+          int index,
+          java.lang.Object value) {
+        return super.setRepeatedField(field, index, value);
+      }
+
+      @java.lang.Override
+      public Builder addRepeatedField(
+          com.google.protobuf.Descriptors.FieldDescriptor field, java.lang.Object value) {
+        return super.addRepeatedField(field, value);
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.proto.ResponseProtos.GraphResponse) {
+          return mergeFrom((com.proto.ResponseProtos.GraphResponse) other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.proto.ResponseProtos.GraphResponse other) {
+        if (other == com.proto.ResponseProtos.GraphResponse.getDefaultInstance()) return this;
+        if (nodesBuilder_ == null) {
+          if (!other.nodes_.isEmpty()) {
+            if (nodes_.isEmpty()) {
+              nodes_ = other.nodes_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+            } else {
+              ensureNodesIsMutable();
+              nodes_.addAll(other.nodes_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.nodes_.isEmpty()) {
+            if (nodesBuilder_.isEmpty()) {
+              nodesBuilder_.dispose();
+              nodesBuilder_ = null;
+              nodes_ = other.nodes_;
+              bitField0_ = (bitField0_ & ~0x00000001);
+              nodesBuilder_ =
+                  com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders
+                      ? getNodesFieldBuilder()
+                      : null;
+            } else {
+              nodesBuilder_.addAllMessages(other.nodes_);
+            }
+          }
+        }
+        if (edgesBuilder_ == null) {
+          if (!other.edges_.isEmpty()) {
+            if (edges_.isEmpty()) {
+              edges_ = other.edges_;
+              bitField0_ = (bitField0_ & ~0x00000002);
+            } else {
+              ensureEdgesIsMutable();
+              edges_.addAll(other.edges_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.edges_.isEmpty()) {
+            if (edgesBuilder_.isEmpty()) {
+              edgesBuilder_.dispose();
+              edgesBuilder_ = null;
+              edges_ = other.edges_;
+              bitField0_ = (bitField0_ & ~0x00000002);
+              edgesBuilder_ =
+                  com.google.protobuf.GeneratedMessageV3.alwaysUseFieldBuilders
+                      ? getEdgesFieldBuilder()
+                      : null;
+            } else {
+              edgesBuilder_.addAllMessages(other.edges_);
+            }
+          }
+        }
+        if (other.hasMutationDiff()) {
+          mergeMutationDiff(other.getMutationDiff());
+        }
+        if (!other.mutationIndices_.isEmpty()) {
+          if (mutationIndices_.isEmpty()) {
+            mutationIndices_ = other.mutationIndices_;
+            bitField0_ = (bitField0_ & ~0x00000008);
+          } else {
+            ensureMutationIndicesIsMutable();
+            mutationIndices_.addAll(other.mutationIndices_);
+          }
+          onChanged();
+        }
+        if (other.getTotalMutNumber() != 0) {
+          setTotalMutNumber(other.getTotalMutNumber());
+        }
+        if (!other.queriedNodes_.isEmpty()) {
+          if (queriedNodes_.isEmpty()) {
+            queriedNodes_ = other.queriedNodes_;
+            bitField0_ = (bitField0_ & ~0x00000020);
+          } else {
+            ensureQueriedNodesIsMutable();
+            queriedNodes_.addAll(other.queriedNodes_);
+          }
+          onChanged();
+        }
+        this.mergeUnknownFields(other.unknownFields);
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final boolean isInitialized() {
+        return true;
+      }
+
+      @java.lang.Override
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.proto.ResponseProtos.GraphResponse parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.proto.ResponseProtos.GraphResponse) e.getUnfinishedMessage();
+          throw e.unwrapIOException();
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+
+      private int bitField0_;
+
+      private java.util.List<com.proto.GraphProtos.Node> nodes_ = java.util.Collections.emptyList();
+
+      private void ensureNodesIsMutable() {
+        if (!((bitField0_ & 0x00000001) != 0)) {
+          nodes_ = new java.util.ArrayList<com.proto.GraphProtos.Node>(nodes_);
+          bitField0_ |= 0x00000001;
+        }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilderV3<
+              com.proto.GraphProtos.Node,
+              com.proto.GraphProtos.Node.Builder,
+              com.proto.GraphProtos.NodeOrBuilder>
+          nodesBuilder_;
+
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public java.util.List<com.proto.GraphProtos.Node> getNodesList() {
+        if (nodesBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(nodes_);
+        } else {
+          return nodesBuilder_.getMessageList();
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public int getNodesCount() {
+        if (nodesBuilder_ == null) {
+          return nodes_.size();
+        } else {
+          return nodesBuilder_.getCount();
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public com.proto.GraphProtos.Node getNodes(int index) {
+        if (nodesBuilder_ == null) {
+          return nodes_.get(index);
+        } else {
+          return nodesBuilder_.getMessage(index);
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public Builder setNodes(int index, com.proto.GraphProtos.Node value) {
+        if (nodesBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureNodesIsMutable();
+          nodes_.set(index, value);
+          onChanged();
+        } else {
+          nodesBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public Builder setNodes(int index, com.proto.GraphProtos.Node.Builder builderForValue) {
+        if (nodesBuilder_ == null) {
+          ensureNodesIsMutable();
+          nodes_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          nodesBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public Builder addNodes(com.proto.GraphProtos.Node value) {
+        if (nodesBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureNodesIsMutable();
+          nodes_.add(value);
+          onChanged();
+        } else {
+          nodesBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public Builder addNodes(int index, com.proto.GraphProtos.Node value) {
+        if (nodesBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureNodesIsMutable();
+          nodes_.add(index, value);
+          onChanged();
+        } else {
+          nodesBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public Builder addNodes(com.proto.GraphProtos.Node.Builder builderForValue) {
+        if (nodesBuilder_ == null) {
+          ensureNodesIsMutable();
+          nodes_.add(builderForValue.build());
+          onChanged();
+        } else {
+          nodesBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public Builder addNodes(int index, com.proto.GraphProtos.Node.Builder builderForValue) {
+        if (nodesBuilder_ == null) {
+          ensureNodesIsMutable();
+          nodes_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          nodesBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public Builder addAllNodes(java.lang.Iterable<? extends com.proto.GraphProtos.Node> values) {
+        if (nodesBuilder_ == null) {
+          ensureNodesIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(values, nodes_);
+          onChanged();
+        } else {
+          nodesBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public Builder clearNodes() {
+        if (nodesBuilder_ == null) {
+          nodes_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000001);
+          onChanged();
+        } else {
+          nodesBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public Builder removeNodes(int index) {
+        if (nodesBuilder_ == null) {
+          ensureNodesIsMutable();
+          nodes_.remove(index);
+          onChanged();
+        } else {
+          nodesBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public com.proto.GraphProtos.Node.Builder getNodesBuilder(int index) {
+        return getNodesFieldBuilder().getBuilder(index);
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public com.proto.GraphProtos.NodeOrBuilder getNodesOrBuilder(int index) {
+        if (nodesBuilder_ == null) {
+          return nodes_.get(index);
+        } else {
+          return nodesBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public java.util.List<? extends com.proto.GraphProtos.NodeOrBuilder> getNodesOrBuilderList() {
+        if (nodesBuilder_ != null) {
+          return nodesBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(nodes_);
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public com.proto.GraphProtos.Node.Builder addNodesBuilder() {
+        return getNodesFieldBuilder().addBuilder(com.proto.GraphProtos.Node.getDefaultInstance());
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public com.proto.GraphProtos.Node.Builder addNodesBuilder(int index) {
+        return getNodesFieldBuilder()
+            .addBuilder(index, com.proto.GraphProtos.Node.getDefaultInstance());
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The nodes of the graph, each listed once and without children
+       * </pre>
+       *
+       * <code>repeated .com.proto.Node nodes = 1;</code>
+       */
+      public java.util.List<com.proto.GraphProtos.Node.Builder> getNodesBuilderList() {
+        return getNodesFieldBuilder().getBuilderList();
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilderV3<
+              com.proto.GraphProtos.Node,
+              com.proto.GraphProtos.Node.Builder,
+              com.proto.GraphProtos.NodeOrBuilder>
+          getNodesFieldBuilder() {
+        if (nodesBuilder_ == null) {
+          nodesBuilder_ =
+              new com.google.protobuf.RepeatedFieldBuilderV3<
+                  com.proto.GraphProtos.Node,
+                  com.proto.GraphProtos.Node.Builder,
+                  com.proto.GraphProtos.NodeOrBuilder>(
+                  nodes_, ((bitField0_ & 0x00000001) != 0), getParentForChildren(), isClean());
+          nodes_ = null;
+        }
+        return nodesBuilder_;
+      }
+
+      private java.util.List<com.proto.ResponseProtos.Edge> edges_ =
+          java.util.Collections.emptyList();
+
+      private void ensureEdgesIsMutable() {
+        if (!((bitField0_ & 0x00000002) != 0)) {
+          edges_ = new java.util.ArrayList<com.proto.ResponseProtos.Edge>(edges_);
+          bitField0_ |= 0x00000002;
+        }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilderV3<
+              com.proto.ResponseProtos.Edge,
+              com.proto.ResponseProtos.Edge.Builder,
+              com.proto.ResponseProtos.EdgeOrBuilder>
+          edgesBuilder_;
+
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public java.util.List<com.proto.ResponseProtos.Edge> getEdgesList() {
+        if (edgesBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(edges_);
+        } else {
+          return edgesBuilder_.getMessageList();
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public int getEdgesCount() {
+        if (edgesBuilder_ == null) {
+          return edges_.size();
+        } else {
+          return edgesBuilder_.getCount();
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public com.proto.ResponseProtos.Edge getEdges(int index) {
+        if (edgesBuilder_ == null) {
+          return edges_.get(index);
+        } else {
+          return edgesBuilder_.getMessage(index);
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public Builder setEdges(int index, com.proto.ResponseProtos.Edge value) {
+        if (edgesBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureEdgesIsMutable();
+          edges_.set(index, value);
+          onChanged();
+        } else {
+          edgesBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public Builder setEdges(int index, com.proto.ResponseProtos.Edge.Builder builderForValue) {
+        if (edgesBuilder_ == null) {
+          ensureEdgesIsMutable();
+          edges_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          edgesBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public Builder addEdges(com.proto.ResponseProtos.Edge value) {
+        if (edgesBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureEdgesIsMutable();
+          edges_.add(value);
+          onChanged();
+        } else {
+          edgesBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public Builder addEdges(int index, com.proto.ResponseProtos.Edge value) {
+        if (edgesBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureEdgesIsMutable();
+          edges_.add(index, value);
+          onChanged();
+        } else {
+          edgesBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public Builder addEdges(com.proto.ResponseProtos.Edge.Builder builderForValue) {
+        if (edgesBuilder_ == null) {
+          ensureEdgesIsMutable();
+          edges_.add(builderForValue.build());
+          onChanged();
+        } else {
+          edgesBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public Builder addEdges(int index, com.proto.ResponseProtos.Edge.Builder builderForValue) {
+        if (edgesBuilder_ == null) {
+          ensureEdgesIsMutable();
+          edges_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          edgesBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public Builder addAllEdges(
+          java.lang.Iterable<? extends com.proto.ResponseProtos.Edge> values) {
+        if (edgesBuilder_ == null) {
+          ensureEdgesIsMutable();
+          com.google.protobuf.AbstractMessageLite.Builder.addAll(values, edges_);
+          onChanged();
+        } else {
+          edgesBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public Builder clearEdges() {
+        if (edgesBuilder_ == null) {
+          edges_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000002);
+          onChanged();
+        } else {
+          edgesBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public Builder removeEdges(int index) {
+        if (edgesBuilder_ == null) {
+          ensureEdgesIsMutable();
+          edges_.remove(index);
+          onChanged();
+        } else {
+          edgesBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public com.proto.ResponseProtos.Edge.Builder getEdgesBuilder(int index) {
+        return getEdgesFieldBuilder().getBuilder(index);
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public com.proto.ResponseProtos.EdgeOrBuilder getEdgesOrBuilder(int index) {
+        if (edgesBuilder_ == null) {
+          return edges_.get(index);
+        } else {
+          return edgesBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public java.util.List<? extends com.proto.ResponseProtos.EdgeOrBuilder>
+          getEdgesOrBuilderList() {
+        if (edgesBuilder_ != null) {
+          return edgesBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(edges_);
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public com.proto.ResponseProtos.Edge.Builder addEdgesBuilder() {
+        return getEdgesFieldBuilder()
+            .addBuilder(com.proto.ResponseProtos.Edge.getDefaultInstance());
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public com.proto.ResponseProtos.Edge.Builder addEdgesBuilder(int index) {
+        return getEdgesFieldBuilder()
+            .addBuilder(index, com.proto.ResponseProtos.Edge.getDefaultInstance());
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The edges of the graph
+       * </pre>
+       *
+       * <code>repeated .com.proto.Edge edges = 2;</code>
+       */
+      public java.util.List<com.proto.ResponseProtos.Edge.Builder> getEdgesBuilderList() {
+        return getEdgesFieldBuilder().getBuilderList();
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilderV3<
+              com.proto.ResponseProtos.Edge,
+              com.proto.ResponseProtos.Edge.Builder,
+              com.proto.ResponseProtos.EdgeOrBuilder>
+          getEdgesFieldBuilder() {
+        if (edgesBuilder_ == null) {
+          edgesBuilder_ =
+              new com.google.protobuf.RepeatedFieldBuilderV3<
+                  com.proto.ResponseProtos.Edge,
+                  com.proto.ResponseProtos.Edge.Builder,
+                  com.proto.ResponseProtos.EdgeOrBuilder>(
+                  edges_, ((bitField0_ & 0x00000002) != 0), getParentForChildren(), isClean());
+          edges_ = null;
+        }
+        return edgesBuilder_;
+      }
+
+      private com.proto.MutationProtos.MultiMutation mutationDiff_;
+      private com.google.protobuf.SingleFieldBuilderV3<
+              com.proto.MutationProtos.MultiMutation,
+              com.proto.MutationProtos.MultiMutation.Builder,
+              com.proto.MutationProtos.MultiMutationOrBuilder>
+          mutationDiffBuilder_;
+      /**
+       *
+       *
+       * <pre>
+       * * The mutations to highlight and their reason, unset if there are none
+       * </pre>
+       *
+       * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+       */
+      public boolean hasMutationDiff() {
+        return mutationDiffBuilder_ != null || mutationDiff_ != null;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The mutations to highlight and their reason, unset if there are none
+       * </pre>
+       *
+       * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+       */
+      public com.proto.MutationProtos.MultiMutation getMutationDiff() {
+        if (mutationDiffBuilder_ == null) {
+          return mutationDiff_ == null
+              ? com.proto.MutationProtos.MultiMutation.getDefaultInstance()
+              : mutationDiff_;
+        } else {
+          return mutationDiffBuilder_.getMessage();
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The mutations to highlight and their reason, unset if there are none
+       * </pre>
+       *
+       * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+       */
+      public Builder setMutationDiff(com.proto.MutationProtos.MultiMutation value) {
+        if (mutationDiffBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          mutationDiff_ = value;
+          onChanged();
+        } else {
+          mutationDiffBuilder_.setMessage(value);
+        }
+
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The mutations to highlight and their reason, unset if there are none
+       * </pre>
+       *
+       * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+       */
+      public Builder setMutationDiff(
+          com.proto.MutationProtos.MultiMutation.Builder builderForValue) {
+        if (mutationDiffBuilder_ == null) {
+          mutationDiff_ = builderForValue.build();
+          onChanged();
+        } else {
+          mutationDiffBuilder_.setMessage(builderForValue.build());
+        }
+
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The mutations to highlight and their reason, unset if there are none
+       * </pre>
+       *
+       * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+       */
+      public Builder mergeMutationDiff(com.proto.MutationProtos.MultiMutation value) {
+        if (mutationDiffBuilder_ == null) {
+          if (mutationDiff_ != null) {
+            mutationDiff_ =
+                com.proto.MutationProtos.MultiMutation.newBuilder(mutationDiff_)
+                    .mergeFrom(value)
+                    .buildPartial();
+          } else {
+            mutationDiff_ = value;
+          }
+          onChanged();
+        } else {
+          mutationDiffBuilder_.mergeFrom(value);
+        }
+
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The mutations to highlight and their reason, unset if there are none
+       * </pre>
+       *
+       * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+       */
+      public Builder clearMutationDiff() {
+        if (mutationDiffBuilder_ == null) {
+          mutationDiff_ = null;
+          onChanged();
+        } else {
+          mutationDiff_ = null;
+          mutationDiffBuilder_ = null;
+        }
+
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The mutations to highlight and their reason, unset if there are none
+       * </pre>
+       *
+       * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+       */
+      public com.proto.MutationProtos.MultiMutation.Builder getMutationDiffBuilder() {
+
+        onChanged();
+        return getMutationDiffFieldBuilder().getBuilder();
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The mutations to highlight and their reason, unset if there are none
+       * </pre>
+       *
+       * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+       */
+      public com.proto.MutationProtos.MultiMutationOrBuilder getMutationDiffOrBuilder() {
+        if (mutationDiffBuilder_ != null) {
+          return mutationDiffBuilder_.getMessageOrBuilder();
+        } else {
+          return mutationDiff_ == null
+              ? com.proto.MutationProtos.MultiMutation.getDefaultInstance()
+              : mutationDiff_;
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The mutations to highlight and their reason, unset if there are none
+       * </pre>
+       *
+       * <code>.com.proto.MultiMutation mutation_diff = 3;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilderV3<
+              com.proto.MutationProtos.MultiMutation,
+              com.proto.MutationProtos.MultiMutation.Builder,
+              com.proto.MutationProtos.MultiMutationOrBuilder>
+          getMutationDiffFieldBuilder() {
+        if (mutationDiffBuilder_ == null) {
+          mutationDiffBuilder_ =
+              new com.google.protobuf.SingleFieldBuilderV3<
+                  com.proto.MutationProtos.MultiMutation,
+                  com.proto.MutationProtos.MultiMutation.Builder,
+                  com.proto.MutationProtos.MultiMutationOrBuilder>(
+                  getMutationDiff(), getParentForChildren(), isClean());
+          mutationDiff_ = null;
+        }
+        return mutationDiffBuilder_;
+      }
+
+      private com.google.protobuf.Internal.IntList mutationIndices_ = emptyIntList();
+
+      private void ensureMutationIndicesIsMutable() {
+        if (!((bitField0_ & 0x00000008) != 0)) {
+          mutationIndices_ = mutableCopy(mutationIndices_);
+          bitField0_ |= 0x00000008;
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The indices of the mutations relevant to the query
+       * </pre>
+       *
+       * <code>repeated uint32 mutation_indices = 4;</code>
+       */
+      public java.util.List<java.lang.Integer> getMutationIndicesList() {
+        return ((bitField0_ & 0x00000008) != 0)
+            ? java.util.Collections.unmodifiableList(mutationIndices_)
+            : mutationIndices_;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The indices of the mutations relevant to the query
+       * </pre>
+       *
+       * <code>repeated uint32 mutation_indices = 4;</code>
+       */
+      public int getMutationIndicesCount() {
+        return mutationIndices_.size();
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The indices of the mutations relevant to the query
+       * </pre>
+       *
+       * <code>repeated uint32 mutation_indices = 4;</code>
+       */
+      public int getMutationIndices(int index) {
+        return mutationIndices_.getInt(index);
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The indices of the mutations relevant to the query
+       * </pre>
+       *
+       * <code>repeated uint32 mutation_indices = 4;</code>
+       */
+      public Builder setMutationIndices(int index, int value) {
+        ensureMutationIndicesIsMutable();
+        mutationIndices_.setInt(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The indices of the mutations relevant to the query
+       * </pre>
+       *
+       * <code>repeated uint32 mutation_indices = 4;</code>
+       */
+      public Builder addMutationIndices(int value) {
+        ensureMutationIndicesIsMutable();
+        mutationIndices_.addInt(value);
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The indices of the mutations relevant to the query
+       * </pre>
+       *
+       * <code>repeated uint32 mutation_indices = 4;</code>
+       */
+      public Builder addAllMutationIndices(java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureMutationIndicesIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(values, mutationIndices_);
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The indices of the mutations relevant to the query
+       * </pre>
+       *
+       * <code>repeated uint32 mutation_indices = 4;</code>
+       */
+      public Builder clearMutationIndices() {
+        mutationIndices_ = emptyIntList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        onChanged();
+        return this;
+      }
+
+      private int totalMutNumber_;
+      /**
+       *
+       *
+       * <pre>
+       * * The number of multi-mutations in the dataset
+       * </pre>
+       *
+       * <code>uint32 total_mut_number = 5;</code>
+       */
+      public int getTotalMutNumber() {
+        return totalMutNumber_;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The number of multi-mutations in the dataset
+       * </pre>
+       *
+       * <code>uint32 total_mut_number = 5;</code>
+       */
+      public Builder setTotalMutNumber(int value) {
+
+        totalMutNumber_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The number of multi-mutations in the dataset
+       * </pre>
+       *
+       * <code>uint32 total_mut_number = 5;</code>
+       */
+      public Builder clearTotalMutNumber() {
+
+        totalMutNumber_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.LazyStringList queriedNodes_ =
+          com.google.protobuf.LazyStringArrayList.EMPTY;
+
+      private void ensureQueriedNodesIsMutable() {
+        if (!((bitField0_ & 0x00000020) != 0)) {
+          queriedNodes_ = new com.google.protobuf.LazyStringArrayList(queriedNodes_);
+          bitField0_ |= 0x00000020;
+        }
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The names of the queried nodes
+       * </pre>
+       *
+       * <code>repeated string queried_nodes = 6;</code>
+       */
+      public com.google.protobuf.ProtocolStringList getQueriedNodesList() {
+        return queriedNodes_.getUnmodifiableView();
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The names of the queried nodes
+       * </pre>
+       *
+       * <code>repeated string queried_nodes = 6;</code>
+       */
+      public int getQueriedNodesCount() {
+        return queriedNodes_.size();
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The names of the queried nodes
+       * </pre>
+       *
+       * <code>repeated string queried_nodes = 6;</code>
+       */
+      public java.lang.String getQueriedNodes(int index) {
+        return queriedNodes_.get(index);
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The names of the queried nodes
+       * </pre>
+       *
+       * <code>repeated string queried_nodes = 6;</code>
+       */
+      public com.google.protobuf.ByteString getQueriedNodesBytes(int index) {
+        return queriedNodes_.getByteString(index);
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The names of the queried nodes
+       * </pre>
+       *
+       * <code>repeated string queried_nodes = 6;</code>
+       */
+      public Builder setQueriedNodes(int index, java.lang.String value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        ensureQueriedNodesIsMutable();
+        queriedNodes_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The names of the queried nodes
+       * </pre>
+       *
+       * <code>repeated string queried_nodes = 6;</code>
+       */
+      public Builder addQueriedNodes(java.lang.String value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        ensureQueriedNodesIsMutable();
+        queriedNodes_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The names of the queried nodes
+       * </pre>
+       *
+       * <code>repeated string queried_nodes = 6;</code>
+       */
+      public Builder addAllQueriedNodes(java.lang.Iterable<java.lang.String> values) {
+        ensureQueriedNodesIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(values, queriedNodes_);
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The names of the queried nodes
+       * </pre>
+       *
+       * <code>repeated string queried_nodes = 6;</code>
+       */
+      public Builder clearQueriedNodes() {
+        queriedNodes_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000020);
+        onChanged();
+        return this;
+      }
+      /**
+       *
+       *
+       * <pre>
+       * * The names of the queried nodes
+       * </pre>
+       *
+       * <code>repeated string queried_nodes = 6;</code>
+       */
+      public Builder addQueriedNodesBytes(com.google.protobuf.ByteString value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        checkByteStringIsUtf8(value);
+        ensureQueriedNodesIsMutable();
+        queriedNodes_.add(value);
+        onChanged();
+        return this;
+      }
+
+      @java.lang.Override
+      public final Builder setUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.setUnknownFields(unknownFields);
+      }
+
+      @java.lang.Override
+      public final Builder mergeUnknownFields(
+          final com.google.protobuf.UnknownFieldSet unknownFields) {
+        return super.mergeUnknownFields(unknownFields);
+      }
+
+      // @@protoc_insertion_point(builder_scope:com.proto.GraphResponse)
+    }
+
+    // @@protoc_insertion_point(class_scope:com.proto.GraphResponse)
+    private static final com.proto.ResponseProtos.GraphResponse DEFAULT_INSTANCE;
+
+    static {
+      DEFAULT_INSTANCE = new com.proto.ResponseProtos.GraphResponse();
+    }
+
+    public static com.proto.ResponseProtos.GraphResponse getDefaultInstance() {
+      return DEFAULT_INSTANCE;
+    }
+
+    private static final com.google.protobuf.Parser<GraphResponse> PARSER =
+        new com.google.protobuf.AbstractParser<GraphResponse>() {
+          @java.lang.Override
+          public GraphResponse parsePartialFrom(
+              com.google.protobuf.CodedInputStream input,
+              com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+              throws com.google.protobuf.InvalidProtocolBufferException {
+            return new GraphResponse(input, extensionRegistry);
+          }
+        };
+
+    public static com.google.protobuf.Parser<GraphResponse> parser() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<GraphResponse> getParserForType() {
+      return PARSER;
+    }
+
+    @java.lang.Override
+    public com.proto.ResponseProtos.GraphResponse getDefaultInstanceForType() {
+      return DEFAULT_INSTANCE;
+    }
+  }
+
+  private static final com.google.protobuf.Descriptors.Descriptor
+      internal_static_com_proto_Edge_descriptor;
+  private static final com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_com_proto_Edge_fieldAccessorTable;
+  private static final com.google.protobuf.Descriptors.Descriptor
+      internal_static_com_proto_GraphResponse_descriptor;
+  private static final com.google.protobuf.GeneratedMessageV3.FieldAccessorTable
+      internal_static_com_proto_GraphResponse_fieldAccessorTable;
+
+  public static com.google.protobuf.Descriptors.FileDescriptor getDescriptor() {
+    return descriptor;
+  }
+
+  private static com.google.protobuf.Descriptors.FileDescriptor descriptor;
+
+  static {
+    java.lang.String[] descriptorData = {
+      "\n\016response.proto\022\tcom.proto\032\013graph.proto"
+          + "\032\016mutation.proto\"&\n\004Edge\022\016\n\006source\030\001 \001(\r"
+          + "\022\016\n\006target\030\002 \001(\r\"\313\001\n\rGraphResponse\022\036\n\005no"
+          + "des\030\001 \003(\0132\017.com.proto.Node\022\036\n\005edges\030\002 \003("
+          + "\0132\017.com.proto.Edge\022/\n\rmutation_diff\030\003 \001("
+          + "\0132\030.com.proto.MultiMutation\022\030\n\020mutation_"
+          + "indices\030\004 \003(\r\022\030\n\020total_mut_number\030\005 \001(\r\022"
+          + "\025\n\rqueried_nodes\030\006 \003(\tB\033\n\tcom.protoB\016Res"
+          + "ponseProtosb\006proto3"
+    };
+    com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
+        new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
+          public com.google.protobuf.ExtensionRegistry assignDescriptors(
+              com.google.protobuf.Descriptors.FileDescriptor root) {
+            descriptor = root;
+            return null;
+          }
+        };
+    com.google.protobuf.Descriptors.FileDescriptor.internalBuildGeneratedFileFrom(
+        descriptorData,
+        new com.google.protobuf.Descriptors.FileDescriptor[] {
+          com.proto.GraphProtos.getDescriptor(), com.proto.MutationProtos.getDescriptor(),
+        },
+        assigner);
+    internal_static_com_proto_Edge_descriptor = getDescriptor().getMessageTypes().get(0);
+    internal_static_com_proto_Edge_fieldAccessorTable =
+        new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+            internal_static_com_proto_Edge_descriptor,
+            new java.lang.String[] {
+              "Source", "Target",
+            });
+    internal_static_com_proto_GraphResponse_descriptor = getDescriptor().getMessageTypes().get(1);
+    internal_static_com_proto_GraphResponse_fieldAccessorTable =
+        new com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
+            internal_static_com_proto_GraphResponse_descriptor,
+            new java.lang.String[] {
+              "Nodes", "Edges", "MutationDiff", "MutationIndices", "TotalMutNumber", "QueriedNodes",
+            });
+    com.proto.GraphProtos.getDescriptor();
+    com.proto.MutationProtos.getDescriptor();
+  }
+
+  // @@protoc_insertion_point(outer_class_scope)
+}
@@ -0,0 +1,182 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import com.google.common.graph.Graphs;
+import com.google.common.graph.MutableGraph;
+import com.proto.GraphProtos.Node;
+
+/**
+ * Compares the time and memory getReachableNodes takes on a generated high-fanout graph on each
+ * graph engine with those of a search that collects every layer in a new HashSet, as DataGraph used
+ * to. Each query starts from a random node. Allocation is only reported on JVMs that measure it per
+ * thread. Usage:
+ *
+ * <pre>
+ *   ReachabilityBenchmark [iterations] [nodes] [fanout] [radius]
+ * </pre>
+ */
+public final class ReachabilityBenchmark {
+
+  private static final int DEFAULT_ITERATIONS = 2000;
+  private static final int DEFAULT_NODES = 20000;
+  private static final int DEFAULT_FANOUT = 16;
+  private static final int DEFAULT_RADIUS = 2;
+  // Number of untimed queries of each search so that the JIT has compiled it
+  private static final int WARMUP_ITERATIONS = 500;
+
+  /** A way of answering a query */
+  private interface Search {
+    MutableGraph<GraphNode> run(DataGraph dataGraph, String name, int radius);
+  }
+
+  private ReachabilityBenchmark() {
+    // Should not be called
+  }
+
+  public static void main(String[] args) {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+    int nodeCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NODES;
+    int fanout = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_FANOUT;
+    int radius = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_RADIUS;
+
+    Random random = new Random(49);
+    HashMap<String, Node> protoNodesMap = new HashMap<>();
+    for (int i = 0; i < nodeCount; i++) {
+      Node.Builder node = Node.newBuilder().setName("n" + i);
+      // Edges only point to later nodes, so the graph is a DAG
+      int remaining = nodeCount - i - 1;
+      for (int j = 0; j < fanout && remaining > 0; j++) {
+        String child = "n" + (i + 1 + random.nextInt(remaining));
+        if (!node.getChildrenList().contains(child)) {
+          node.addChildren(child);
+        }
+      }
+      protoNodesMap.put(node.getName(), node.build());
+    }
+    String[] queries = new String[iterations + WARMUP_ITERATIONS];
+    for (int i = 0; i < queries.length; i++) {
+      queries[i] = "n" + random.nextInt(nodeCount);
+    }
+
+    for (GraphEngine engine : GraphEngine.values()) {
+      DataGraph dataGraph = DataGraph.create(engine);
+      dataGraph.graphFromProtoNodes(protoNodesMap);
+      System.out.printf(
+          "%s: %d nodes, %d edges, radius %d%n",
+          engine, dataGraph.graph().nodes().size(), dataGraph.graph().edges().size(), radius);
+      report(
+          "bitsets",
+          dataGraph,
+          queries,
+          radius,
+          (graph, name, depth) -> graph.getReachableNodes(Collections.singletonList(name), depth));
+      report("hash sets", dataGraph, queries, radius, ReachabilityBenchmark::hashSetSearch);
+    }
+  }
+
+  /**
+   * Runs the queries with a search and prints the median and minimum time and the mean allocation
+   *
+   * @param label the name of the search
+   * @param dataGraph the graph to search
+   * @param queries the names of the start nodes, the first of which warm the search up
+   * @param radius the radius of every query
+   * @param search the search to run
+   */
+  private static void report(
+      String label, DataGraph dataGraph, String[] queries, int radius, Search search) {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      search.run(dataGraph, queries[i], radius);
+    }
+    long[] times = new long[queries.length - WARMUP_ITERATIONS];
+    long nodes = 0;
+    long allocatedBefore = allocatedBytes();
+    for (int i = 0; i < times.length; i++) {
+      long start = System.nanoTime();
+      MutableGraph<GraphNode> result =
+          search.run(dataGraph, queries[WARMUP_ITERATIONS + i], radius);
+      times[i] = System.nanoTime() - start;
+      nodes += result.nodes().size();
+    }
+    long allocated = allocatedBytes() - allocatedBefore;
+    Arrays.sort(times);
+    System.out.printf(
+        "  %s: median %.3f ms, min %.3f ms, %d nodes and %s per query over %d runs%n",
+        label,
+        times[times.length / 2] / 1e6,
+        times[0] / 1e6,
+        nodes / times.length,
+        allocatedBefore < 0 ? "unknown allocation" : allocated / times.length + " bytes",
+        times.length);
+  }
+
+  /**
+   * Searches like DataGraph did before it used ReachabilitySearch, collecting each layer and the
+   * visited nodes of each direction in new HashSets and copying the induced subgraph out
+   */
+  private static MutableGraph<GraphNode> hashSetSearch(
+      DataGraph dataGraph, String name, int radius) {
+    GraphNode start = dataGraph.graphNodesMap().get(name);
+    Set<GraphNode> visited = new HashSet<>();
+    for (boolean isChild : new boolean[] {true, false}) {
+      Set<GraphNode> visitedInDirection = new HashSet<>();
+      Set<GraphNode> layer = new HashSet<>(Collections.singleton(start));
+      for (int i = 0; i <= radius && !layer.isEmpty(); i++) {
+        Set<GraphNode> nextLayer = new HashSet<>();
+        for (GraphNode curr : layer) {
+          if (visitedInDirection.add(curr)) {
+            Set<GraphNode> adjacentNodes =
+                isChild
+                    ? dataGraph.graph().successors(curr)
+                    : dataGraph.graph().predecessors(curr);
+            for (GraphNode node : adjacentNodes) {
+              if (!visitedInDirection.contains(node)) {
+                nextLayer.add(node);
+              }
+            }
+          }
+        }
+        layer = nextLayer;
+      }
+      visited.addAll(visitedInDirection);
+    }
+    return Graphs.inducedSubgraph(dataGraph.graph(), visited);
+  }
+
+  /**
+   * Returns the number of bytes the current thread has allocated so far
+   *
+   * @return the number of bytes, or -1 if the JVM doesn't measure it
+   */
+  private static long allocatedBytes() {
+    java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean hotspotThreads = (com.sun.management.ThreadMXBean) threads;
+    return hotspotThreads.isThreadAllocatedMemorySupported()
+        ? hotspotThreads.getThreadAllocatedBytes(Thread.currentThread().getId())
+        : -1;
+  }
+}
@@ -0,0 +1,115 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.google.common.io.ByteStreams;
+import com.proto.MutationProtos.MultiMutation;
+
+import static com.google.sps.SnapshotLoader.readGraphText;
+
+/**
+ * Compares the size and encoding time of the /data response in each response format, for the whole
+ * graph of each given textproto. Usage:
+ *
+ * <pre>
+ *   ResponseBenchmark [iterations] [graph.textproto...]
+ * </pre>
+ */
+public final class ResponseBenchmark {
+
+  private static final String[] DEFAULT_GRAPHS = {
+    "src/main/webapp/WEB-INF/initial_graph.textproto",
+    "testdata/initial_graph.textproto",
+    "testdata/initial_graph_2.textproto"
+  };
+  private static final int DEFAULT_ITERATIONS = 100;
+  // Number of untimed runs of each format so that the JIT has compiled the encoders
+  private static final int WARMUP_ITERATIONS = 20;
+
+  private ResponseBenchmark() {
+    // Should not be called
+  }
+
+  public static void main(String[] args) throws IOException {
+    int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+    String[] graphPaths =
+        args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : DEFAULT_GRAPHS;
+
+    for (String graphPath : graphPaths) {
+      DataGraph dataGraph = DataGraph.create();
+      try (InputStream input = Files.newInputStream(Paths.get(graphPath))) {
+        dataGraph.graphFromProtoNodes(readGraphText(input).getNodesMapMap());
+      }
+      GraphView view =
+          GraphView.create(
+              dataGraph.graph(),
+              Collections.emptyList(),
+              MultiMutation.getDefaultInstance(),
+              0,
+              Collections.emptySet());
+      System.out.printf(
+          "%s: %d nodes, %d edges%n",
+          graphPath, view.graph().nodes().size(), view.graph().edges().size());
+
+      for (ResponseFormat format : ResponseFormat.values()) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        format.write(view, body);
+        long[] times = time(iterations, format, view);
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        System.out.printf(
+            "  %s: %d bytes, median %.3f ms, min %.3f ms over %d runs%n",
+            format,
+            body.size(),
+            sorted[sorted.length / 2] / 1e6,
+            sorted[0] / 1e6,
+            sorted.length);
+      }
+    }
+  }
+
+  /**
+   * Encodes a view a number of times after warming the format up, discarding the output
+   *
+   * @param iterations the number of timed runs
+   * @param format the format to encode the view in
+   * @param view the view to encode
+   * @return the duration of each timed run in nanoseconds
+   * @throws IOException if encoding fails
+   */
+  private static long[] time(int iterations, ResponseFormat format, GraphView view)
+      throws IOException {
+    OutputStream sink = ByteStreams.nullOutputStream();
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      format.write(view, sink);
+    }
+    long[] times = new long[iterations];
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      format.write(view, sink);
+      times[i] = System.nanoTime() - start;
+    }
+    return times;
+  }
+}
@@ -0,0 +1,176 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.proto.GraphProtos.Graph;
+import com.proto.MutationProtos.MutationList;
+
+import static com.google.sps.SnapshotLoader.readGraphSnapshot;
+import static com.google.sps.SnapshotLoader.readGraphText;
+import static com.google.sps.SnapshotLoader.readMutationsSnapshot;
+import static com.google.sps.SnapshotLoader.readMutationsText;
+import static com.google.sps.SnapshotLoader.writeGraphSnapshot;
+import static com.google.sps.SnapshotLoader.writeMutationsSnapshot;
+
+/**
+ * Compares the time the servlet takes to load its inputs from textprotos, from binary snapshots and
+ * from a memory-mapped graph snapshot. Both inputs are read into memory first so that only parsing
+ * and graph construction are measured. Usage:
+ *
+ * <pre>
+ *   SnapshotBenchmark [initial_graph.textproto] [mutations.textproto] [iterations]
+ * </pre>
+ */
+public final class SnapshotBenchmark {
+
+  private static final String DEFAULT_GRAPH = "src/main/webapp/WEB-INF/initial_graph.textproto";
+  private static final String DEFAULT_MUTATIONS = "src/main/webapp/WEB-INF/mutations.textproto";
+  private static final int DEFAULT_ITERATIONS = 10;
+  // Number of untimed runs of each path so that the JIT has compiled the parsers
+  private static final int WARMUP_ITERATIONS = 3;
+
+  private SnapshotBenchmark() {
+    // Should not be called
+  }
+
+  public static void main(String[] args) throws IOException {
+    String graphPath = args.length > 0 ? args[0] : DEFAULT_GRAPH;
+    String mutationsPath = args.length > 1 ? args[1] : DEFAULT_MUTATIONS;
+    int iterations = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ITERATIONS;
+
+    byte[] graphText = Files.readAllBytes(Paths.get(graphPath));
+    byte[] mutationsText = Files.readAllBytes(Paths.get(mutationsPath));
+
+    ByteArrayOutputStream graphSnapshot = new ByteArrayOutputStream();
+    writeGraphSnapshot(readGraphText(new ByteArrayInputStream(graphText)), graphSnapshot);
+    ByteArrayOutputStream mutationsSnapshot = new ByteArrayOutputStream();
+    writeMutationsSnapshot(
+        readMutationsText(new ByteArrayInputStream(mutationsText)).build(), mutationsSnapshot);
+
+    System.out.printf(
+        "graph: %d bytes as text, %d bytes as snapshot%n", graphText.length, graphSnapshot.size());
+    System.out.printf(
+        "mutations: %d bytes as text, %d bytes as snapshot%n",
+        mutationsText.length, mutationsSnapshot.size());
+
+    Path mappedSnapshot = Files.createTempFile("initial_graph", ".snapshot");
+    try (OutputStream output = Files.newOutputStream(mappedSnapshot)) {
+      MappedGraphSnapshot.write(
+          readGraphText(new ByteArrayInputStream(graphText)).getNodesMapMap(), output);
+    }
+    System.out.printf("graph: %d bytes as mapped snapshot%n", Files.size(mappedSnapshot));
+
+    long[] textTimes = time(iterations, () -> loadText(graphText, mutationsText));
+    long[] snapshotTimes =
+        time(
+            iterations,
+            () -> loadSnapshot(graphSnapshot.toByteArray(), mutationsSnapshot.toByteArray()));
+    long[] mappedTimes =
+        time(
+            iterations,
+            () -> DataGraph.create().graphFromSnapshot(MappedGraphSnapshot.open(mappedSnapshot)));
+    long[] mappedQueryTimes =
+        time(
+            iterations,
+            () ->
+                MappedGraphSnapshot.open(mappedSnapshot)
+                    .getReachableNodes(Collections.emptyList(), 1));
+    report("textproto", textTimes);
+    report("snapshot", snapshotTimes);
+    report("mapped graph (full decode)", mappedTimes);
+    report("mapped graph (roots at radius 1)", mappedQueryTimes);
+    Files.delete(mappedSnapshot);
+  }
+
+  /** A single timed load of both inputs */
+  private interface Load {
+    void run() throws IOException;
+  }
+
+  /**
+   * Loads both textprotos and builds the initial data graph, as the servlet does at startup
+   *
+   * @param graphText the encoded textproto graph
+   * @param mutationsText the encoded textproto mutation list
+   * @throws IOException if something goes wrong during the reading
+   */
+  private static void loadText(byte[] graphText, byte[] mutationsText) throws IOException {
+    Graph graph = readGraphText(new ByteArrayInputStream(graphText));
+    DataGraph.create().graphFromProtoNodes(graph.getNodesMapMap());
+    MutationList.Builder mutList = readMutationsText(new ByteArrayInputStream(mutationsText));
+    mutList.getMutationCount();
+  }
+
+  /**
+   * Loads both binary snapshots and builds the initial data graph, as the servlet does at startup
+   *
+   * @param graphSnapshot the encoded binary graph
+   * @param mutationsSnapshot the encoded binary mutation list
+   * @throws IOException if something goes wrong during the reading
+   */
+  private static void loadSnapshot(byte[] graphSnapshot, byte[] mutationsSnapshot)
+      throws IOException {
+    Graph graph = readGraphSnapshot(new ByteArrayInputStream(graphSnapshot));
+    DataGraph.create().graphFromProtoNodes(graph.getNodesMapMap());
+    MutationList.Builder mutList =
+        readMutationsSnapshot(new ByteArrayInputStream(mutationsSnapshot));
+    mutList.getMutationCount();
+  }
+
+  /**
+   * Runs the given load a number of times after warming it up
+   *
+   * @param iterations the number of timed runs
+   * @param load the load to time
+   * @return the duration of each timed run in nanoseconds
+   * @throws IOException if the load fails
+   */
+  private static long[] time(int iterations, Load load) throws IOException {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      load.run();
+    }
+    long[] times = new long[iterations];
+    for (int i = 0; i < iterations; i++) {
+      long start = System.nanoTime();
+      load.run();
+      times[i] = System.nanoTime() - start;
+    }
+    return times;
+  }
+
+  /**
+   * Prints the median and minimum of the given run times
+   *
+   * @param name the name of the measured path
+   * @param times the duration of each run in nanoseconds
+   */
+  private static void report(String name, long[] times) {
+    long[] sorted = times.clone();
+    Arrays.sort(sorted);
+    System.out.printf(
+        "%s: median %.1f ms, min %.1f ms over %d runs%n",
+        name, sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6, sorted.length);
+  }
+}
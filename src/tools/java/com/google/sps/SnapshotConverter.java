@@ -0,0 +1,71 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static com.google.sps.SnapshotLoader.readGraphText;
+import static com.google.sps.SnapshotLoader.readMutationsText;
+import static com.google.sps.SnapshotLoader.writeGraphSnapshot;
+import static com.google.sps.SnapshotLoader.writeMutationsSnapshot;
+import static com.google.sps.SnapshotLoader.writeMutationsStream;
+
+/**
+ * Command line tool that converts the textproto inputs of the servlet into binary snapshots that
+ * can be read much faster at startup. Usage:
+ *
+ * <pre>
+ *   SnapshotConverter graph initial_graph.textproto initial_graph.pb
+ *   SnapshotConverter mapped initial_graph.textproto initial_graph.snapshot
+ *   SnapshotConverter mutations mutations.textproto mutations.pb
+ *   SnapshotConverter stream mutations.textproto mutations.pbstream
+ * </pre>
+ */
+public final class SnapshotConverter {
+
+  private static final String USAGE =
+      "Usage: SnapshotConverter <graph|mapped|mutations|stream> <input.textproto> <output>";
+
+  private SnapshotConverter() {
+    // Should not be called
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 3) {
+      System.err.println(USAGE);
+      System.exit(1);
+    }
+    String kind = args[0];
+    try (InputStream input = new FileInputStream(args[1]);
+        OutputStream output = new FileOutputStream(args[2])) {
+      if (kind.equals("graph")) {
+        writeGraphSnapshot(readGraphText(input), output);
+      } else if (kind.equals("mapped")) {
+        MappedGraphSnapshot.write(readGraphText(input).getNodesMapMap(), output);
+      } else if (kind.equals("mutations")) {
+        writeMutationsSnapshot(readMutationsText(input).build(), output);
+      } else if (kind.equals("stream")) {
+        writeMutationsStream(readMutationsText(input).build(), output);
+      } else {
+        System.err.println(USAGE);
+        System.exit(1);
+      }
+    }
+  }
+}